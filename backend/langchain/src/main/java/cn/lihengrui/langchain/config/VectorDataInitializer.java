@@ -1,7 +1,7 @@
 package cn.lihengrui.langchain.config;
 
+import cn.lihengrui.langchain.service.KnowledgeVectorIndex;
 import cn.lihengrui.langchain.service.VectorizationProcessorService;
-import cn.lihengrui.langchain.service.EnhancedKnowledgeSearchService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,7 +11,7 @@ import org.springframework.stereotype.Component;
 
 /**
  * 向量数据初始化器
- * 在应用启动完成后自动加载向量数据到FAISS和LangChain4j向量存储
+ * 在应用启动完成后一次拉取知识内容，同时写入知识向量索引的全部字段
  */
 @Slf4j
 @Component
@@ -21,7 +21,7 @@ public class VectorDataInitializer implements ApplicationRunner {
     private VectorizationProcessorService vectorizationProcessorService;
     
     @Autowired
-    private EnhancedKnowledgeSearchService enhancedKnowledgeSearchService;
+    private KnowledgeVectorIndex knowledgeVectorIndex;
     
     /**
      * 是否启用启动时自动加载向量数据
@@ -29,12 +29,6 @@ public class VectorDataInitializer implements ApplicationRunner {
     @Value("${vector.auto-load.enabled:true}")
     private boolean autoLoadEnabled;
     
-    /**
-     * 启动时加载的数据页面大小
-     */
-    @Value("${vector.auto-load.page-size:100}")
-    private int pageSize;
-    
     /**
      * 启动延迟时间（秒）
      */
@@ -54,18 +48,15 @@ public class VectorDataInitializer implements ApplicationRunner {
         Thread.sleep(delaySeconds * 1000L);
         
         try {
-            // 1. 加载数据到FAISS向量存储
-            log.info("正在加载数据到FAISS向量存储...");
-            int faissProcessedCount = vectorizationProcessorService.processAllKnowledgeContent();
-            log.info("FAISS向量存储加载完成，处理了 {} 条记录", faissProcessedCount);
+            // 一次拉取，同时写入lexicalHash和minilm字段（已持久化的minilm文档会被跳过）
+            log.info("正在加载数据到知识向量索引，已恢复: {}", knowledgeVectorIndex.getStats());
+            int processedCount = vectorizationProcessorService.processAllKnowledgeContent();
             
-            // 2. 加载数据到LangChain4j向量存储
-            log.info("正在加载数据到LangChain4j向量存储...");
-            int langchainProcessedCount = enhancedKnowledgeSearchService.processKnowledgeContentForLangChain(0, pageSize);
-            log.info("LangChain4j向量存储加载完成，处理了 {} 条记录", langchainProcessedCount);
+            // 保存索引快照
+            knowledgeVectorIndex.snapshot();
             
-            log.info("向量数据自动加载完成！FAISS: {} 条，LangChain4j: {} 条", 
-                    faissProcessedCount, langchainProcessedCount);
+            log.info("向量数据自动加载完成！处理了 {} 条记录，索引状态: {}", 
+                    processedCount, knowledgeVectorIndex.getStats());
                     
         } catch (Exception e) {
             log.error("向量数据自动加载失败", e);
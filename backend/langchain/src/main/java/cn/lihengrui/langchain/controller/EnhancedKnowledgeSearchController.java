@@ -8,8 +8,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -31,6 +35,11 @@ public class EnhancedKnowledgeSearchController {
     
     private final EnhancedKnowledgeSearchService enhancedKnowledgeSearchService;
     
+    /**
+     * SSE连接超时时间（毫秒）
+     */
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    
     /**
      * 基于LangChain的智能知识检索
      */
@@ -169,6 +178,24 @@ public class EnhancedKnowledgeSearchController {
         }
     }
     
+    /**
+     * 大模型智能问答（流式）
+     * 先推送retrieval事件（检索上下文），再逐段推送token事件，最后推送done事件
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "大模型智能问答（流式）", description = "以text/event-stream推送检索结果和大模型输出")
+    public SseEmitter askWithLLMStream(@RequestBody(required = false) Map<String, String> request) {
+        String question = request == null ? null : request.get("question");
+        if (question == null || question.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "问题不能为空");
+        }
+        
+        log.info("接收流式大模型问答请求: question={}", question);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        cancelOnDisconnect(emitter, enhancedKnowledgeSearchService.streamAskQuestion(question.trim(), emitter));
+        return emitter;
+    }
+    
     /**
      * 处理知识内容到LangChain向量存储
      */
@@ -222,6 +249,8 @@ public class EnhancedKnowledgeSearchController {
             status.put("vectorStore", "InMemoryEmbeddingStore");
             status.put("chatModel", "OpenAI GPT-3.5-turbo");
             status.put("vectorCount", enhancedKnowledgeSearchService.getLangChainVectorCount()); // 从服务获取实际数量
+            status.put("queryEmbeddingCache", enhancedKnowledgeSearchService.getQueryEmbeddingCacheStats());
+            status.put("semanticAnswerCache", enhancedKnowledgeSearchService.getSemanticAnswerCacheStats());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -317,6 +346,44 @@ public class EnhancedKnowledgeSearchController {
         }
     }
     
+    /**
+     * 增强搜索（流式）
+     * 检索阶段完成后推送retrieval事件（知识库与联网结果），再逐段推送大模型推理输出
+     */
+    @PostMapping(value = "/enhanced-search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "增强搜索（流式）", description = "以text/event-stream推送检索结果和大模型推理输出")
+    public SseEmitter enhancedSearchStream(@RequestBody(required = false) KnowledgeSearchRequest request) {
+        if (request == null || request.getQuery() == null || request.getQuery().trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "查询文本不能为空");
+        }
+        
+        // 设置默认值
+        if (request.getTopK() == null || request.getTopK() <= 0) {
+            request.setTopK(10);
+        }
+        
+        log.info("接收流式增强搜索请求: query={}, topK={}", request.getQuery(), request.getTopK());
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        cancelOnDisconnect(emitter, enhancedKnowledgeSearchService.streamEnhancedSearch(request, emitter));
+        return emitter;
+    }
+    
+    /**
+     * SSE连接结束（超时、客户端断开或正常完成）时取消上游的检索和大模型生成
+     */
+    private void cancelOnDisconnect(SseEmitter emitter, Runnable cancellation) {
+        emitter.onTimeout(() -> {
+            log.warn("流式响应超时，取消大模型生成");
+            cancellation.run();
+            emitter.complete();
+        });
+        emitter.onError(error -> {
+            log.info("流式响应连接异常，取消大模型生成: {}", error.getMessage());
+            cancellation.run();
+        });
+        emitter.onCompletion(cancellation);
+    }
+    
     /**
      * 获取详细的向量存储信息
      */
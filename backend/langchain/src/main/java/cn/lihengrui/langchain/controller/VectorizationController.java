@@ -132,6 +132,39 @@ public class VectorizationController {
         }
     }
     
+    /**
+     * 按ID列表批量处理知识内容的向量化
+     */
+    @PostMapping("/process-by-ids")
+    @Operation(summary = "按ID列表处理知识内容向量化", description = "批量获取指定ID的知识内容并重建其向量索引")
+    public ResponseEntity<Map<String, Object>> processKnowledgeContentByIds(
+            @Parameter(description = "知识内容ID列表") @RequestBody List<Long> ids) {
+        try {
+            log.info("开始按ID列表处理知识内容向量化: {} 个ID", ids.size());
+            
+            int processedCount = vectorizationProcessorService.processKnowledgeContentByIds(ids);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "处理完成");
+            response.put("requestedCount", ids.size());
+            response.put("processedCount", processedCount);
+            
+            log.info("按ID列表处理知识内容向量化完成: 请求 {} 个, 成功 {} 条", ids.size(), processedCount);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("按ID列表处理知识内容向量化失败", e);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "处理失败: " + e.getMessage());
+            response.put("processedCount", 0);
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
     /**
      * 搜索相似内容
      */
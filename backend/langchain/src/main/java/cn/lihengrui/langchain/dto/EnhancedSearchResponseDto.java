@@ -17,7 +17,7 @@ import java.util.List;
  * @since 2025-09-30
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class EnhancedSearchResponseDto {
@@ -77,6 +77,21 @@ public class EnhancedSearchResponseDto {
      */
     private Long llmInferenceTimeMs;
     
+    /**
+     * 知识库检索与联网查询并行重叠的时间（毫秒）
+     */
+    private Long overlapTimeMs;
+    
+    /**
+     * 关键路径耗时：检索阶段墙钟时间 + 大模型推理时间（毫秒）
+     */
+    private Long criticalPathTimeMs;
+    
+    /**
+     * 联网查询是否为推测性提前启动
+     */
+    private Boolean speculativeWebSearch;
+    
     /**
      * 响应时间戳
      */
@@ -101,4 +116,9 @@ public class EnhancedSearchResponseDto {
      * 搜索方法
      */
     private String searchMethod;
+    
+    /**
+     * 是否命中语义结果缓存
+     */
+    private Boolean cacheHit;
 }
@@ -18,10 +18,27 @@ public class LangChainSearchResult {
      */
     private double similarity;
     
+    /**
+     * 片段所属知识内容ID
+     */
+    private Long parentId;
+    
+    /**
+     * 片段所属知识内容标题
+     */
+    private String title;
+    
     public LangChainSearchResult() {}
     
     public LangChainSearchResult(String content, double similarity) {
         this.content = content;
         this.similarity = similarity;
     }
+    
+    public LangChainSearchResult(String content, double similarity, Long parentId, String title) {
+        this.content = content;
+        this.similarity = similarity;
+        this.parentId = parentId;
+        this.title = title;
+    }
 }
@@ -3,18 +3,50 @@ package cn.lihengrui.langchain.service;
 import cn.lihengrui.langchain.dto.ApiResponseDto;
 import cn.lihengrui.langchain.dto.KnowledgeContentDto;
 import cn.lihengrui.langchain.dto.PageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * API客户端服务
  * 负责从todo-backend API获取知识内容数据
- * 
+ *
+ * 基于Reactor Netty连接池的非阻塞WebClient：请求带响应超时，
+ * 连接失败、超时和5xx错误按抖动指数退避重试。全量数据以Flux形式暴露，
+ * 通过键集分页逐批拉取；同步方法是在响应式方法上的阻塞包装。
+ *
+ * 请求优先协商Smile二进制格式（服务端不支持时回退JSON）。批量拉取的列表数据
+ * 由StreamingArrayDecoder在字节到达时逐元素解码，不再整体缓冲响应体。
+ *
  * @author HA72开发团队
  * @version 1.0
  * @since 2025-09-26
@@ -23,20 +55,83 @@ import java.util.List;
 @Service
 public class ApiClientService {
     
+    private static final ParameterizedTypeReference<ApiResponseDto<PageDto<KnowledgeContentDto>>> PAGE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponseDto<KnowledgeContentDto>> CONTENT_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponseDto<Map<String, Object>>> STATISTICS_TYPE =
+            new ParameterizedTypeReference<>() {};
+    
+    /**
+     * Smile二进制JSON媒体类型
+     */
+    private static final MediaType SMILE_MEDIA_TYPE = MediaType.parseMediaType("application/x-jackson-smile");
+    
+    /**
+     * 全量拉取时的页面大小
+     */
+    private static final int FETCH_ALL_PAGE_SIZE = 100;
+    
+    /**
+     * 批量获取接口单次请求的最大ID数量（与服务端上限一致）
+     */
+    private static final int BATCH_GET_MAX_IDS = 1000;
+    
     private final WebClient webClient;
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
     
     @Value("${todo-backend.api.url:http://localhost:8080}")
     private String todoBackendApiUrl;
     
-    public ApiClientService() {
+    /**
+     * 失败重试次数
+     */
+    @Value("${todo-backend.api.max-retries:3}")
+    private int maxRetries = 3;
+    
+    /**
+     * 重试初始退避时间（毫秒）
+     */
+    @Value("${todo-backend.api.retry-backoff-ms:200}")
+    private long retryBackoffMs = 200;
+    
+    /**
+     * 批量获取（batch-get）分批请求时的并发数
+     */
+    @Value("${todo-backend.api.page-concurrency:4}")
+    private int pageConcurrency = 4;
+    
+    /**
+     * 是否优先协商Smile二进制格式
+     */
+    @Value("${todo-backend.api.smile-enabled:true}")
+    private boolean smileEnabled = true;
+    
+    public ApiClientService(@Value("${todo-backend.api.max-connections:50}") int maxConnections,
+                            @Value("${todo-backend.api.connect-timeout-ms:3000}") int connectTimeoutMs,
+                            @Value("${todo-backend.api.response-timeout-ms:10000}") long responseTimeoutMs) {
+        // 有界连接池：空闲连接定期回收，获取连接排队超时后快速失败
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("todo-backend")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(5))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .evictInBackground(Duration.ofSeconds(60))
+                .build();
+        
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        
         this.webClient = WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024)) // 10MB，仅整体解码的单条/统计响应受此限制
                 .build();
     }
     
     /**
      * 获取所有知识内容（分页）
-     * 
+     *
      * @param page 页码（从0开始）
      * @param size 页面大小
      * @return 知识内容列表
@@ -47,7 +142,7 @@ public class ApiClientService {
     
     /**
      * 获取知识内容（分页，支持过滤）
-     * 
+     *
      * @param page 页码（从0开始）
      * @param size 页面大小
      * @param sort 排序字段
@@ -58,104 +153,264 @@ public class ApiClientService {
      * @param keyword 关键词搜索
      * @return 知识内容列表
      */
-    public List<KnowledgeContentDto> getAllKnowledgeContent(int page, int size, String sort, String direction, 
+    public List<KnowledgeContentDto> getAllKnowledgeContent(int page, int size, String sort, String direction,
                                                            String contentType, Boolean processed, Boolean success, String keyword) {
+        URI uri = knowledgeContentUri(size)
+                .queryParam("pageNum", page)
+                .queryParamIfPresent("sort", optional(sort))
+                .queryParamIfPresent("direction", optional(sort == null || sort.isEmpty() ? null : direction))
+                .queryParamIfPresent("contentType", optional(contentType))
+                .queryParamIfPresent("processed", java.util.Optional.ofNullable(processed))
+                .queryParamIfPresent("success", java.util.Optional.ofNullable(success))
+                .queryParamIfPresent("keyword", optional(keyword))
+                .encode().build().toUri();
+        
+        return blockForContents(fetchPage(uri), "获取知识内容");
+    }
+    
+    /**
+     * 获取所有知识内容（不分页）
+     *
+     * @return 所有知识内容列表
+     */
+    public List<KnowledgeContentDto> getAllKnowledgeContent() {
         try {
-            StringBuilder urlBuilder = new StringBuilder();
-            urlBuilder.append(String.format("%s/api/knowledge-content?page=%d&size=%d", todoBackendApiUrl, page, size));
-            
-            // 添加排序参数
-            if (sort != null && !sort.isEmpty()) {
-                urlBuilder.append("&sort=").append(sort);
-                if (direction != null && !direction.isEmpty()) {
-                    urlBuilder.append("&direction=").append(direction);
-                }
-            }
-            
-            // 添加过滤参数
-            if (contentType != null && !contentType.isEmpty()) {
-                urlBuilder.append("&contentType=").append(contentType);
-            }
-            if (processed != null) {
-                urlBuilder.append("&processed=").append(processed);
-            }
-            if (success != null) {
-                urlBuilder.append("&success=").append(success);
-            }
-            if (keyword != null && !keyword.isEmpty()) {
-                urlBuilder.append("&keyword=").append(java.net.URLEncoder.encode(keyword, "UTF-8"));
-            }
-            
-            String url = urlBuilder.toString();
-            log.info("从API获取知识内容: {}", url);
-            
-            ApiResponseDto<PageDto<KnowledgeContentDto>> response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(new org.springframework.core.ParameterizedTypeReference<ApiResponseDto<PageDto<KnowledgeContentDto>>>() {})
+            List<KnowledgeContentDto> allContents = streamAllKnowledgeContent(FETCH_ALL_PAGE_SIZE)
+                    .collectList()
                     .block();
             
-            if (response != null && response.isSuccess() && response.getData() != null) {
-                List<KnowledgeContentDto> contents = response.getData().getContent();
-                log.info("成功获取知识内容: {} 条记录", contents.size());
-                return contents;
-            } else {
-                log.warn("获取知识内容失败: {}", response != null ? response.getMessage() : "响应为空");
-                return List.of();
-            }
-            
+            log.info("获取所有知识内容完成，共 {} 条记录", allContents.size());
+            return allContents;
+        
         } catch (Exception e) {
-            log.error("获取知识内容异常", e);
+            log.error("获取所有知识内容异常", e);
             return List.of();
         }
     }
     
     /**
-     * 获取所有知识内容（不分页）
-     * 
-     * @return 所有知识内容列表
+     * 以流的形式获取所有知识内容
+     * 使用键集分页（/cursor?afterId=&limit=）按ID升序逐批拉取，以服务端返回的nextAfterId作为下一批的游标，
+     * 直到服务端返回hasMore=false；深翻页不再有偏移扫描开销，采集任务并发插入也不会导致记录跳过或重复。
+     * 元素解码后立即发出，请求中途失败时从已发出的最后一条记录的ID重新请求，不会重复发出
+     *
+     * @param size 每批记录数
+     * @return 知识内容流（按ID升序）
      */
-    public List<KnowledgeContentDto> getAllKnowledgeContent() {
-        List<KnowledgeContentDto> allContents = new java.util.ArrayList<>();
-        int page = 0;
-        int size = 100; // 每页100条记录
+    public Flux<KnowledgeContentDto> streamAllKnowledgeContent(int size) {
+        log.info("开始以键集分页拉取知识内容: 每批 {} 条", size);
+        return streamKnowledgeContentAfter(0L, size);
+    }
+    
+    /**
+     * 以键集分页拉取指定ID之后的全部知识内容
+     *
+     * @param afterId 起始游标（不包含）
+     * @param size 每批记录数
+     * @return 知识内容流（按ID升序）
+     */
+    private Flux<KnowledgeContentDto> streamKnowledgeContentAfter(long afterId, int size) {
+        return Flux.defer(() -> {
+            KeysetCursor cursor = new KeysetCursor(afterId);
+            return Flux.defer(() -> fetchContentsAfter(cursor, size))
+                    .retryWhen(retrySpec().transientErrors(true))
+                    .repeat(() -> cursor.hasMore);
+        });
+    }
+    
+    /**
+     * 以NDJSON流的形式导出全部知识内容（用于全量重建索引）
+     * 服务端边查询边写出，客户端逐行解码，两端内存占用都与数据总量无关；
+     * 服务端没有导出接口（404）时回退到键集分页拉取。导出流中途断开（连接中断、超时、5xx等）时
+     * 从已发出的最后一条记录的ID开始改用键集分页继续（其自带重试），已发出的记录不会重复
+     *
+     * @return 知识内容流（按ID升序）
+     */
+    public Flux<KnowledgeContentDto> streamExportedKnowledgeContent() {
+        URI uri = UriComponentsBuilder.fromHttpUrl(todoBackendApiUrl)
+                .path("/api/knowledge-content/export")
+                .build().toUri();
+        log.info("开始流式导出知识内容: {}", uri);
         
-        while (true) {
-            List<KnowledgeContentDto> contents = getAllKnowledgeContent(page, size);
-            
-            if (contents.isEmpty()) {
-                break;
-            }
-            
-            allContents.addAll(contents);
-            page++;
-            
-            // 如果返回的记录数少于页面大小，说明已经是最后一页
-            if (contents.size() < size) {
-                break;
-            }
+        return Flux.defer(() -> {
+            AtomicLong lastId = new AtomicLong();
+            return webClient.get()
+                    .uri(uri)
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve()
+                    .bodyToFlux(KnowledgeContentDto.class)
+                    .doOnNext(content -> lastId.set(content.getId()))
+                    .onErrorResume(e -> {
+                        if (e instanceof WebClientResponseException.NotFound) {
+                            log.warn("todo-backend不支持流式导出，回退到键集分页拉取");
+                            return streamAllKnowledgeContent(FETCH_ALL_PAGE_SIZE);
+                        }
+                        if (e instanceof WebClientResponseException responseException
+                                && responseException.getStatusCode().is4xxClientError()) {
+                            return Flux.error(e);
+                        }
+                        log.warn("流式导出中断，从ID {} 之后改用键集分页继续: {}", lastId.get(), e.toString());
+                        return streamKnowledgeContentAfter(lastId.get(), FETCH_ALL_PAGE_SIZE);
+                    });
+        });
+    }
+    
+    /**
+     * 拉取游标之后的一批知识内容
+     * 每发出一条记录游标随之前进，整批结束后按服务端给出的nextAfterId和hasMore更新游标
+     */
+    private Flux<KnowledgeContentDto> fetchContentsAfter(KeysetCursor cursor, int size) {
+        long afterId = cursor.afterId;
+        URI uri = UriComponentsBuilder.fromHttpUrl(todoBackendApiUrl)
+                .path("/api/knowledge-content/cursor")
+                .queryParam("afterId", afterId)
+                .queryParam("limit", size)
+                .build().toUri();
+        
+        Map<String, Object> pageFields = new HashMap<>();
+        return fetchContents(webClient.get().uri(uri), pageFields::put, "data", "content")
+                .doOnNext(content -> cursor.afterId = content.getId())
+                .doOnComplete(() -> finishBatch(cursor, afterId, pageFields));
+    }
+    
+    /**
+     * 根据cursor响应中与内容数组同级的字段确定下一批游标
+     * 服务端未返回hasMore/nextAfterId时退回到"非空批次即继续、以最后一条ID为游标"；
+     * 游标没有前进时停止，避免服务端异常导致无限循环
+     */
+    private void finishBatch(KeysetCursor cursor, long requestedAfterId, Map<String, Object> pageFields) {
+        long nextAfterId = pageFields.get("nextAfterId") instanceof Number number
+                ? Math.max(number.longValue(), cursor.afterId)
+                : cursor.afterId;
+        boolean hasMore = pageFields.get("hasMore") instanceof Boolean flag
+                ? flag
+                : cursor.afterId != requestedAfterId;
+        
+        if (hasMore && nextAfterId <= requestedAfterId) {
+            log.warn("键集分页游标没有前进（afterId={}, nextAfterId={}），停止拉取", requestedAfterId, nextAfterId);
+            hasMore = false;
+        }
+        cursor.afterId = nextAfterId;
+        cursor.hasMore = hasMore;
+    }
+    
+    /**
+     * 拉取一页知识内容
+     */
+    private Mono<PageDto<KnowledgeContentDto>> fetchPage(URI uri) {
+        log.info("从API获取知识内容: {}", uri);
+        
+        return webClient.get()
+                .uri(uri)
+                .accept(acceptedMediaTypes())
+                .retrieve()
+                .bodyToMono(PAGE_TYPE)
+                .retryWhen(retrySpec())
+                .flatMap(response -> {
+                    if (response.isSuccess() && response.getData() != null && response.getData().getContent() != null) {
+                        return Mono.just(response.getData());
+                    }
+                    log.warn("获取知识内容失败: {}", response.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * 拉取一批知识内容并流式解码
+     * 响应体按实际返回的Content-Type（Smile或JSON）逐元素解码，每个元素解码后立即发出，
+     * 内存中只保留正在解码的元素。本方法不重试：重新订阅会从头重放整批，
+     * 由调用方按已发出的元素调整请求（游标或剩余ID）后再重试
+     *
+     * @param request 待发送的请求
+     * @param siblingFieldHandler 与内容数组同级的标量字段回调
+     * @param arrayPath 响应体中内容数组的字段路径
+     * @return 该批知识内容
+     */
+    private Flux<KnowledgeContentDto> fetchContents(WebClient.RequestHeadersSpec<?> request,
+                                                    BiConsumer<String, Object> siblingFieldHandler,
+                                                    String... arrayPath) {
+        return request.accept(acceptedMediaTypes())
+                .exchangeToFlux(response -> {
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.<KnowledgeContentDto>createError().flux();
+                    }
+                    boolean smile = response.headers().contentType()
+                            .map(SMILE_MEDIA_TYPE::isCompatibleWith)
+                            .orElse(false);
+                    StreamingArrayDecoder<KnowledgeContentDto> decoder = new StreamingArrayDecoder<>(
+                            smile ? smileMapper : jsonMapper, KnowledgeContentDto.class, arrayPath);
+                    return decoder.decode(response.bodyToFlux(DataBuffer.class), siblingFieldHandler);
+                });
+    }
+    
+    private MediaType[] acceptedMediaTypes() {
+        return smileEnabled
+                ? new MediaType[]{SMILE_MEDIA_TYPE, MediaType.APPLICATION_JSON}
+                : new MediaType[]{MediaType.APPLICATION_JSON};
+    }
+    
+    private UriComponentsBuilder knowledgeContentUri(int size) {
+        return UriComponentsBuilder.fromHttpUrl(todoBackendApiUrl)
+                .path("/api/knowledge-content")
+                .queryParam("pageSize", size);
+    }
+    
+    private java.util.Optional<String> optional(String value) {
+        return value == null || value.isEmpty() ? java.util.Optional.empty() : java.util.Optional.of(value);
+    }
+    
+    /**
+     * 重试策略：抖动指数退避，只重试连接失败、超时和5xx错误
+     */
+    private RetryBackoffSpec retrySpec() {
+        return Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs))
+                .jitter(0.5)
+                .filter(this::isRetryable)
+                .doBeforeRetry(signal -> log.warn("请求todo-backend失败，第 {} 次重试: {}",
+                        signal.totalRetriesInARow() + 1, signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+    
+    private boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
         }
+        return throwable instanceof WebClientRequestException || throwable instanceof TimeoutException;
+    }
+    
+    /**
+     * 阻塞等待一页结果（同步方法使用）
+     */
+    private List<KnowledgeContentDto> blockForContents(Mono<PageDto<KnowledgeContentDto>> page, String action) {
+        try {
+            List<KnowledgeContentDto> contents = page
+                    .map(PageDto::getContent)
+                    .defaultIfEmpty(List.of())
+                    .block();
+            log.info("{}完成: {} 条记录", action, contents.size());
+            return contents;
         
-        log.info("获取所有知识内容完成，共 {} 条记录", allContents.size());
-        return allContents;
+        } catch (Exception e) {
+            log.error("{}异常", action, e);
+            return List.of();
+        }
     }
     
     /**
      * 根据ID获取知识内容
-     * 
+     *
      * @param id 内容ID
      * @return 知识内容
      */
     public KnowledgeContentDto getKnowledgeContentById(Long id) {
         try {
-            String url = String.format("%s/api/knowledge-content/%d", todoBackendApiUrl, id);
-            
             log.info("从API获取知识内容: ID={}", id);
             
             ApiResponseDto<KnowledgeContentDto> response = webClient.get()
-                    .uri(url)
+                    .uri(todoBackendApiUrl + "/api/knowledge-content/{id}", id)
                     .retrieve()
-                    .bodyToMono(new org.springframework.core.ParameterizedTypeReference<ApiResponseDto<KnowledgeContentDto>>() {})
+                    .bodyToMono(CONTENT_TYPE)
+                    .retryWhen(retrySpec())
                     .block();
             
             if (response != null && response.isSuccess() && response.getData() != null) {
@@ -165,64 +420,109 @@ public class ApiClientService {
                 log.warn("获取知识内容失败: ID={}, 消息={}", id, response != null ? response.getMessage() : "响应为空");
                 return null;
             }
-            
+        
         } catch (Exception e) {
             log.error("获取知识内容异常: ID={}", id, e);
             return null;
         }
     }
     
+    /**
+     * 根据ID列表批量获取知识内容
+     * ID超过单次上限时分批请求（批次之间有界并发），不存在的ID被忽略
+     *
+     * @param ids 内容ID列表
+     * @return 知识内容列表
+     */
+    public List<KnowledgeContentDto> getKnowledgeContentByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        
+        try {
+            List<KnowledgeContentDto> contents = fetchKnowledgeContentByIds(ids)
+                    .collectList()
+                    .block();
+            log.info("批量获取知识内容完成: 请求 {} 个ID, 返回 {} 条记录", ids.size(), contents.size());
+            return contents;
+        
+        } catch (Exception e) {
+            log.error("批量获取知识内容异常: 请求 {} 个ID", ids.size(), e);
+            return List.of();
+        }
+    }
+    
+    /**
+     * 以流的形式批量获取知识内容
+     *
+     * @param ids 内容ID列表
+     * @return 知识内容流
+     */
+    public Flux<KnowledgeContentDto> fetchKnowledgeContentByIds(Collection<Long> ids) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(todoBackendApiUrl)
+                .path("/api/knowledge-content/batch-get")
+                .build().toUri();
+        
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(BATCH_GET_MAX_IDS)
+                .flatMap(chunk -> fetchContentsByIds(uri, chunk), pageConcurrency);
+    }
+    
+    /**
+     * 批量获取一组ID对应的知识内容
+     * 元素解码后立即发出，请求中途失败时只重新请求尚未返回的ID
+     */
+    private Flux<KnowledgeContentDto> fetchContentsByIds(URI uri, List<Long> ids) {
+        return Flux.defer(() -> {
+            Set<Long> remaining = new LinkedHashSet<>(ids);
+            return Flux.defer(() -> remaining.isEmpty()
+                            ? Flux.<KnowledgeContentDto>empty()
+                            : fetchContents(webClient.post()
+                                    .uri(uri)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .bodyValue(Map.of("ids", List.copyOf(remaining))), (name, value) -> { }, "data"))
+                    .doOnNext(content -> remaining.remove(content.getId()))
+                    .retryWhen(retrySpec().transientErrors(true));
+        });
+    }
+    
     /**
      * 搜索知识内容
-     * 
+     *
      * @param query 搜索查询
      * @param page 页码
      * @param size 页面大小
      * @return 搜索结果
      */
     public List<KnowledgeContentDto> searchKnowledgeContent(String query, int page, int size) {
-        try {
-            String url = String.format("%s/api/knowledge-content/search?query=%s&page=%d&size=%d", 
-                    todoBackendApiUrl, java.net.URLEncoder.encode(query, "UTF-8"), page, size);
-            
-            log.info("搜索知识内容: query={}", query);
-            
-            ApiResponseDto<PageDto<KnowledgeContentDto>> response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(new org.springframework.core.ParameterizedTypeReference<ApiResponseDto<PageDto<KnowledgeContentDto>>>() {})
-                    .block();
-            
-            if (response != null && response.isSuccess() && response.getData() != null) {
-                List<KnowledgeContentDto> contents = response.getData().getContent();
-                log.info("搜索完成: query={}, 结果数={}", query, contents.size());
-                return contents;
-            } else {
-                log.warn("搜索失败: query={}, 消息={}", query, response != null ? response.getMessage() : "响应为空");
-                return List.of();
-            }
-            
-        } catch (Exception e) {
-            log.error("搜索知识内容异常: query={}", query, e);
-            return List.of();
-        }
+        log.info("搜索知识内容: query={}", query);
+        
+        URI uri = UriComponentsBuilder.fromHttpUrl(todoBackendApiUrl)
+                .path("/api/knowledge-content/search")
+                .queryParam("query", query)
+                .queryParam("page", page)
+                .queryParam("size", size)
+                .encode().build().toUri();
+        
+        return blockForContents(fetchPage(uri), "搜索知识内容");
     }
     
     /**
      * 获取知识内容统计信息
-     * 
+     *
      * @return 统计信息Map
      */
-    public java.util.Map<String, Object> getStatistics() {
+    public Map<String, Object> getStatistics() {
         try {
             String url = String.format("%s/api/knowledge-content/statistics", todoBackendApiUrl);
             
             log.info("获取统计信息: {}", url);
             
-            ApiResponseDto<java.util.Map<String, Object>> response = webClient.get()
+            ApiResponseDto<Map<String, Object>> response = webClient.get()
                     .uri(url)
                     .retrieve()
-                    .bodyToMono(new org.springframework.core.ParameterizedTypeReference<ApiResponseDto<java.util.Map<String, Object>>>() {})
+                    .bodyToMono(STATISTICS_TYPE)
+                    .retryWhen(retrySpec())
                     .block();
             
             if (response != null && response.isSuccess() && response.getData() != null) {
@@ -230,54 +530,37 @@ public class ApiClientService {
                 return response.getData();
             } else {
                 log.warn("获取统计信息失败: {}", response != null ? response.getMessage() : "响应为空");
-                return java.util.Map.of();
+                return Map.of();
             }
-            
+        
         } catch (Exception e) {
             log.error("获取统计信息异常", e);
-            return java.util.Map.of();
+            return Map.of();
         }
     }
     
     /**
      * 根据标签过滤获取知识内容
-     * 
+     *
      * @param tags 标签字符串（逗号分隔）
      * @param page 页码
      * @param size 页面大小
      * @return 知识内容列表
      */
     public List<KnowledgeContentDto> getKnowledgeContentByTags(String tags, int page, int size) {
-        try {
-            String url = String.format("%s/api/knowledge-content?page=%d&size=%d&tags=%s", 
-                    todoBackendApiUrl, page, size, java.net.URLEncoder.encode(tags, "UTF-8"));
-            
-            log.info("根据标签获取知识内容: tags={}", tags);
-            
-            ApiResponseDto<PageDto<KnowledgeContentDto>> response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(new org.springframework.core.ParameterizedTypeReference<ApiResponseDto<PageDto<KnowledgeContentDto>>>() {})
-                    .block();
-            
-            if (response != null && response.isSuccess() && response.getData() != null) {
-                List<KnowledgeContentDto> contents = response.getData().getContent();
-                log.info("根据标签获取内容完成: tags={}, 结果数={}", tags, contents.size());
-                return contents;
-            } else {
-                log.warn("根据标签获取内容失败: tags={}, 消息={}", tags, response != null ? response.getMessage() : "响应为空");
-                return List.of();
-            }
-            
-        } catch (Exception e) {
-            log.error("根据标签获取内容异常: tags={}", tags, e);
-            return List.of();
-        }
+        log.info("根据标签获取知识内容: tags={}", tags);
+        
+        URI uri = knowledgeContentUri(size)
+                .queryParam("pageNum", page)
+                .queryParam("tags", tags)
+                .encode().build().toUri();
+        
+        return blockForContents(fetchPage(uri), "根据标签获取内容");
     }
     
     /**
      * 获取已处理的知识内容
-     * 
+     *
      * @param page 页码
      * @param size 页面大小
      * @return 已处理的知识内容列表
@@ -288,7 +571,7 @@ public class ApiClientService {
     
     /**
      * 获取未处理的知识内容
-     * 
+     *
      * @param page 页码
      * @param size 页面大小
      * @return 未处理的知识内容列表
@@ -299,7 +582,7 @@ public class ApiClientService {
     
     /**
      * 根据内容类型获取知识内容
-     * 
+     *
      * @param contentType 内容类型（RSS/Web/Manual）
      * @param page 页码
      * @param size 页面大小
@@ -311,7 +594,7 @@ public class ApiClientService {
     
     /**
      * 测试API连接
-     * 
+     *
      * @return 是否连接成功
      */
     public boolean testConnection() {
@@ -327,10 +610,30 @@ public class ApiClientService {
             boolean isHealthy = response != null && response.contains("UP");
             log.info("API连接测试: {}", isHealthy ? "成功" : "失败");
             return isHealthy;
-            
+        
         } catch (Exception e) {
             log.error("API连接测试失败", e);
             return false;
         }
     }
+    
+    /**
+     * 键集分页游标（单次全量拉取内共享）
+     */
+    private static class KeysetCursor {
+        
+        /**
+         * 下一次请求使用的afterId
+         */
+        private long afterId;
+        
+        /**
+         * 是否还有后续数据
+         */
+        private boolean hasMore = true;
+        
+        KeysetCursor(long afterId) {
+            this.afterId = afterId;
+        }
+    }
 }
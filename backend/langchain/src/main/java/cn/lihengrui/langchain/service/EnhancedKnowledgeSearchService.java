@@ -6,14 +6,34 @@ import cn.lihengrui.langchain.dto.KnowledgeSearchResponse;
 import cn.lihengrui.langchain.dto.KnowledgeSearchResult;
 import cn.lihengrui.langchain.dto.WebSearchResultDto;
 import cn.lihengrui.langchain.dto.EnhancedSearchResponseDto;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.output.Response;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -30,8 +50,43 @@ import java.util.stream.Collectors;
 public class EnhancedKnowledgeSearchService {
     
     private final LangChainService langChainService;
+    private final KnowledgeVectorIndex knowledgeVectorIndex;
     private final ApiClientService apiClientService;
     private final WebSearchService webSearchService;
+    private final SemanticAnswerCache semanticAnswerCache;
+    
+    /**
+     * 平均相似度低于该值时触发联网查询
+     */
+    private static final double WEB_SEARCH_SIMILARITY_THRESHOLD = 0.8;
+    
+    // 增强搜索各阶段使用的虚拟线程执行器
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    /**
+     * 知识库检索阶段期限（毫秒）
+     */
+    @Value("${enhanced-search.deadline.knowledge-ms:3000}")
+    private long knowledgeDeadlineMs = 3000;
+    
+    /**
+     * 联网查询阶段期限（毫秒）
+     */
+    @Value("${enhanced-search.deadline.web-ms:5000}")
+    private long webDeadlineMs = 5000;
+    
+    /**
+     * 大模型推理阶段期限（毫秒）
+     */
+    @Value("${enhanced-search.deadline.llm-ms:30000}")
+    private long llmDeadlineMs = 30000;
+    
+    /**
+     * 是否与知识库检索同时推测性地启动联网查询（检索结果足够时取消）
+     * 开启后每个未命中缓存的查询都会发起一次外部请求，默认关闭
+     */
+    @Value("${enhanced-search.speculative-web-search:false}")
+    private boolean speculativeWebSearchEnabled = false;
     
     /**
      * 基于用户提问检索知识库内容（使用LangChain）
@@ -42,10 +97,10 @@ public class EnhancedKnowledgeSearchService {
         try {
             log.info("开始LangChain知识检索: query={}, topK={}", request.getQuery(), request.getTopK());
             
-            // 1. 使用LangChain检索相关文档（带相似度）
+            // 1. 在知识向量索引的minilm字段中检索相关文档（带相似度）
             long searchStart = System.currentTimeMillis();
             List<cn.lihengrui.langchain.dto.LangChainSearchResult> relevantDocuments = 
-                    langChainService.searchRelevantDocumentsWithSimilarity(request.getQuery(), request.getTopK());
+                    knowledgeVectorIndex.searchSemantic(request.getQuery(), request.getTopK());
             long searchTime = System.currentTimeMillis() - searchStart;
             
             // 2. 转换为搜索结果
@@ -116,6 +171,178 @@ public class EnhancedKnowledgeSearchService {
         }
     }
     
+    /**
+     * 流式大模型问答（SSE）
+     * 先推送检索到的上下文（retrieval事件），再逐段推送大模型输出（token事件），最后推送done事件
+     *
+     * @return 取消句柄：客户端断开、超时或出错时调用，中断检索并停止大模型生成
+     */
+    public Runnable streamAskQuestion(String question, SseEmitter emitter) {
+        SseAnswerHandler handler = new SseAnswerHandler(emitter);
+        Future<?> task = searchExecutor.submit(() -> {
+            try {
+                log.info("开始流式大模型问答: question={}", question);
+                
+                // 1. 检索相关文档并立即推送
+                List<String> context = langChainService.searchRelevantDocuments(question, 5);
+                Map<String, Object> retrieval = new HashMap<>();
+                retrieval.put("question", question);
+                retrieval.put("context", context);
+                if (!sendEvent(emitter, "retrieval", retrieval)) {
+                    return;
+                }
+                
+                // 2. 流式推送大模型输出
+                langChainService.streamAnswer(question, context, handler);
+                
+            } catch (Exception e) {
+                if (handler.isCancelled()) {
+                    log.info("流式大模型问答已取消: question={}", question);
+                    return;
+                }
+                log.error("流式大模型问答失败: question={}", question, e);
+                sendEvent(emitter, "error", "抱歉，我在处理您的问题时遇到了错误。");
+                emitter.complete();
+            }
+        });
+        return () -> cancel(task, handler);
+    }
+    
+    /**
+     * 流式增强搜索（SSE）
+     * 检索阶段完成后推送知识库与联网结果（retrieval事件），再逐段推送大模型推理输出
+     *
+     * @return 取消句柄：客户端断开、超时或出错时调用，中断检索并停止大模型生成
+     */
+    public Runnable streamEnhancedSearch(KnowledgeSearchRequest request, SseEmitter emitter) {
+        SseAnswerHandler handler = new SseAnswerHandler(emitter);
+        Future<?> task = searchExecutor.submit(() -> {
+            long totalStartTime = System.currentTimeMillis();
+            try {
+                log.info("开始流式增强搜索: query={}, topK={}", request.getQuery(), request.getTopK());
+                
+                // 1. 检索阶段并推送检索结果
+                RetrievalOutcome retrieval = retrieve(request);
+                KnowledgeSearchResponse knowledgeResponse = retrieval.knowledgeResponse;
+                
+                EnhancedSearchResponseDto retrievalResponse = EnhancedSearchResponseDto.builder()
+                        .query(request.getQuery())
+                        .knowledgeResults(knowledgeResponse.getResults())
+                        .knowledgeResultCount(knowledgeResponse.getResultCount())
+                        .webSearchResults(retrieval.webSearchResults)
+                        .webSearchResultCount(retrieval.webSearchResults.size())
+                        .webSearchTriggered(retrieval.needWebSearch)
+                        .totalProcessingTimeMs(System.currentTimeMillis() - totalStartTime)
+                        .knowledgeSearchTimeMs(retrieval.knowledgeSearchTimeMs)
+                        .webSearchTimeMs(retrieval.webSearchTimeMs)
+                        .overlapTimeMs(retrieval.overlapTimeMs)
+                        .speculativeWebSearch(retrieval.speculativeWebSearch)
+                        .timestamp(LocalDateTime.now())
+                        .averageSimilarity(knowledgeResponse.getAverageSimilarity())
+                        .maxSimilarity(knowledgeResponse.getMaxSimilarity())
+                        .minSimilarity(knowledgeResponse.getMinSimilarity())
+                        .searchMethod(retrieval.needWebSearch ? "知识库+联网+LLM" : "知识库+LLM")
+                        .cacheHit(false)
+                        .build();
+                if (!sendEvent(emitter, "retrieval", retrievalResponse)) {
+                    return;
+                }
+                
+                // 2. 流式推送大模型推理输出
+                String prompt = buildInferencePrompt(request.getQuery(), knowledgeResponse, retrieval.webSearchResults);
+                langChainService.streamAnswer(request.getQuery(), List.of(prompt), handler);
+                
+            } catch (Exception e) {
+                if (handler.isCancelled()) {
+                    log.info("流式增强搜索已取消: query={}", request.getQuery());
+                    return;
+                }
+                log.error("流式增强搜索失败: query={}", request.getQuery(), e);
+                sendEvent(emitter, "error", "抱歉，搜索过程中遇到错误，请稍后重试。");
+                emitter.complete();
+            }
+        });
+        return () -> cancel(task, handler);
+    }
+    
+    /**
+     * 取消流式任务
+     * 检索阶段尚未结束时中断执行线程；大模型已开始生成时由处理器在下一个token处中止模型流
+     */
+    private void cancel(Future<?> task, SseAnswerHandler handler) {
+        if (handler.cancel()) {
+            task.cancel(true);
+        }
+    }
+    
+    /**
+     * 推送SSE事件
+     * 
+     * @return 客户端已断开时返回false
+     */
+    private boolean sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.warn("SSE事件推送失败，客户端可能已断开: event={}", name);
+            return false;
+        }
+    }
+    
+    /**
+     * 将大模型流式输出转发为SSE事件
+     * 取消后（或推送失败说明客户端已断开）在onNext中抛出异常，
+     * 模型客户端据此关闭底层HTTP流，不再继续生成和计费
+     */
+    private class SseAnswerHandler implements StreamingResponseHandler<AiMessage> {
+        
+        private final SseEmitter emitter;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        
+        SseAnswerHandler(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        /**
+         * @return 本次调用是否完成了取消（重复取消返回false）
+         */
+        boolean cancel() {
+            return cancelled.compareAndSet(false, true);
+        }
+        
+        boolean isCancelled() {
+            return cancelled.get();
+        }
+        
+        @Override
+        public void onNext(String token) {
+            if (isCancelled() || !sendEvent(emitter, "token", token)) {
+                cancel();
+                throw new CancellationException("客户端已断开，停止生成");
+            }
+        }
+        
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            if (!isCancelled()) {
+                sendEvent(emitter, "done", Map.of("answer", response.content().text()));
+                emitter.complete();
+            }
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            if (isCancelled()) {
+                log.info("大模型流式输出已取消");
+                return;
+            }
+            log.error("大模型流式输出失败", error);
+            sendEvent(emitter, "error", "抱歉，大模型生成答案时遇到错误。");
+            emitter.complete();
+        }
+    }
+    
     /**
      * 批量处理知识内容并添加到LangChain向量存储
      */
@@ -131,25 +358,8 @@ public class EnhancedKnowledgeSearchService {
                 return 0;
             }
             
-            // 2. 处理每个内容
-            int processedCount = 0;
-            for (KnowledgeContentDto content : contents) {
-                // 检查是否有可用的内容（content 或 summary）
-                boolean hasContent = (content.getContent() != null && !content.getContent().trim().isEmpty()) ||
-                                   (content.getSummary() != null && !content.getSummary().trim().isEmpty());
-                
-                if (hasContent) {
-                    log.info("处理知识内容: {}", content.getTitle());
-                    // 构建文档内容
-                    String documentContent = buildDocumentContent(content);
-                    
-                    // 添加到LangChain向量存储
-                    langChainService.addDocument(documentContent, content.getTitle());
-                    processedCount++;
-                } else {
-                    log.warn("跳过内容ID {}，因为内容和摘要都为空", content.getId());
-                }
-            }
+            // 2. 写入知识向量索引（同时写入lexicalHash和minilm字段）
+            int processedCount = knowledgeVectorIndex.indexDocuments(contents).getSemanticCount();
             
             log.info("LangChain向量存储处理完成: 处理 {} 条记录", processedCount);
             return processedCount;
@@ -160,40 +370,6 @@ public class EnhancedKnowledgeSearchService {
         }
     }
     
-    /**
-     * 构建文档内容
-     */
-    private String buildDocumentContent(KnowledgeContentDto content) {
-        StringBuilder document = new StringBuilder();
-        
-        // 标题
-        if (content.getTitle() != null) {
-            document.append("标题: ").append(content.getTitle()).append("\n\n");
-        }
-        
-        // 内容
-        if (content.getContent() != null) {
-            document.append("内容: ").append(content.getContent()).append("\n\n");
-        }
-        
-        // 摘要
-        if (content.getSummary() != null && !content.getSummary().isEmpty()) {
-            document.append("摘要: ").append(content.getSummary()).append("\n\n");
-        }
-        
-        // 标签
-        if (content.getTags() != null && !content.getTags().isEmpty()) {
-            document.append("标签: ").append(content.getTags()).append("\n\n");
-        }
-        
-        // 来源
-        if (content.getSourceUrl() != null) {
-            document.append("来源: ").append(content.getSourceUrl());
-        }
-        
-        return document.toString();
-    }
-    
     /**
      * 转换为搜索结果
      */
@@ -220,12 +396,23 @@ public class EnhancedKnowledgeSearchService {
         return documents.stream()
                 .map(doc -> {
                     KnowledgeSearchResult result = new KnowledgeSearchResult();
-                    result.setTitle(extractTitle(doc.getContent()));
+                    result.setId(doc.getParentId());
+                    result.setTitle(doc.getTitle() != null ? doc.getTitle() : extractTitle(doc.getContent()));
                     result.setContent(truncateContent(doc.getContent(), 500));
                     result.setSummary(extractSummary(doc.getContent()));
                     result.setSimilarity(doc.getSimilarity()); // 使用真实的相似度分数
                     result.setProcessed(true);
                     result.setSuccess(true);
+                    
+                    // 从知识向量索引补全共享的文档元数据
+                    KnowledgeContentDto document = knowledgeVectorIndex.getDocument(doc.getParentId());
+                    if (document != null) {
+                        result.setSourceUrl(document.getSourceUrl());
+                        result.setContentType(document.getContentType());
+                        result.setAcquisitionTime(document.getAcquisitionTime());
+                        result.setTags(document.getTags());
+                        result.setContentLength(document.getContentLength());
+                    }
                     return result;
                 })
                 .collect(Collectors.toList());
@@ -293,6 +480,20 @@ public class EnhancedKnowledgeSearchService {
         return langChainService.getVectorCount();
     }
     
+    /**
+     * 获取语义结果缓存统计信息
+     */
+    public Map<String, Object> getSemanticAnswerCacheStats() {
+        return semanticAnswerCache.getStats();
+    }
+    
+    /**
+     * 获取查询向量缓存统计信息
+     */
+    public Map<String, Object> getQueryEmbeddingCacheStats() {
+        return langChainService.getQueryEmbeddingCacheStats();
+    }
+    
     /**
      * 增强搜索：知识库检索 + 联网查询 + 大模型推理
      * 如果知识库未匹配到相关数据，自动触发联网查询
@@ -303,35 +504,35 @@ public class EnhancedKnowledgeSearchService {
         try {
             log.info("开始增强搜索: query={}, topK={}", request.getQuery(), request.getTopK());
             
-            // 1. 首先进行知识库检索
-            long knowledgeSearchStart = System.currentTimeMillis();
-            KnowledgeSearchResponse knowledgeResponse = searchKnowledgeWithLangChain(request);
-            long knowledgeSearchTime = System.currentTimeMillis() - knowledgeSearchStart;
-            
-            // 2. 判断是否需要联网查询
-            boolean needWebSearch = shouldTriggerWebSearch(knowledgeResponse, request);
-            List<WebSearchResultDto> webSearchResults = new ArrayList<>();
-            long webSearchTime = 0L;
-            log.info("needWebSearch: {}", needWebSearch);
-            if (needWebSearch) {
-                log.info("知识库检索结果不足，触发联网查询: query={}", request.getQuery());
-                
-                // 3. 执行联网查询
-                long webSearchStart = System.currentTimeMillis();
-                List<WebSearchService.WebSearchResult> webResults = 
-                    webSearchService.searchBaidu(request.getQuery(), 3);
-                webSearchTime = System.currentTimeMillis() - webSearchStart;
-                
-                // 4. 转换联网搜索结果
-                webSearchResults = convertWebSearchResults(webResults);
-                
-                log.info("联网查询完成: 返回 {} 条结果", webSearchResults.size());
+            // 0. 查询语义结果缓存（相似问题且知识库未变化时直接返回）
+            long storeEpoch = langChainService.getStoreEpoch();
+            Embedding queryEmbedding = langChainService.embedQuery(request.getQuery());
+            if (queryEmbedding != null) {
+                EnhancedSearchResponseDto cached = semanticAnswerCache.get(queryEmbedding, request.getTopK(), storeEpoch);
+                if (cached != null) {
+                    return cached.toBuilder()
+                            .query(request.getQuery())
+                            .cacheHit(true)
+                            .totalProcessingTimeMs(System.currentTimeMillis() - totalStartTime)
+                            .timestamp(LocalDateTime.now())
+                            .build();
+                }
             }
             
-            // 5. 大模型推理
-            long llmStart = System.currentTimeMillis();
-            String llmInference = generateLLMInference(request.getQuery(), knowledgeResponse, webSearchResults);
-            long llmTime = System.currentTimeMillis() - llmStart;
+            // 1-4. 检索阶段：知识库检索与（推测性）联网查询并发执行
+            RetrievalOutcome retrieval = retrieve(request);
+            KnowledgeSearchResponse knowledgeResponse = retrieval.knowledgeResponse;
+            List<WebSearchResultDto> webSearchResults = retrieval.webSearchResults;
+            boolean needWebSearch = retrieval.needWebSearch;
+            
+            // 5. 大模型推理（检索阶段全部结束后开始）
+            StageTimer llmTimer = new StageTimer();
+            Future<String> llmFuture = searchExecutor.submit(
+                    () -> llmTimer.time(() -> generateLLMInference(request.getQuery(), knowledgeResponse, webSearchResults)));
+            StageResult<String> llmResult = awaitStage(llmFuture, llmDeadlineMs, "大模型推理",
+                    () -> "抱歉，大模型推理超时，请参考检索结果或稍后重试。");
+            String llmInference = llmResult.value();
+            long llmTime = llmTimer.elapsedMs();
             
             // 6. 构建增强响应
             EnhancedSearchResponseDto response = EnhancedSearchResponseDto.builder()
@@ -343,16 +544,25 @@ public class EnhancedKnowledgeSearchService {
                     .llmInference(llmInference)
                     .webSearchTriggered(needWebSearch)
                     .totalProcessingTimeMs(System.currentTimeMillis() - totalStartTime)
-                    .knowledgeSearchTimeMs(knowledgeSearchTime)
-                    .webSearchTimeMs(webSearchTime)
+                    .knowledgeSearchTimeMs(retrieval.knowledgeSearchTimeMs)
+                    .webSearchTimeMs(retrieval.webSearchTimeMs)
                     .llmInferenceTimeMs(llmTime)
+                    .overlapTimeMs(retrieval.overlapTimeMs)
+                    .criticalPathTimeMs(retrieval.retrievalTimeMs + llmTime)
+                    .speculativeWebSearch(retrieval.speculativeWebSearch)
                     .timestamp(LocalDateTime.now())
                     .averageSimilarity(knowledgeResponse.getAverageSimilarity())
                     .maxSimilarity(knowledgeResponse.getMaxSimilarity())
                     .minSimilarity(knowledgeResponse.getMinSimilarity())
                     .searchMethod(needWebSearch ? "知识库+联网+LLM" : "知识库+LLM")
+                    .cacheHit(false)
                     .build();
             
+            // 只缓存各阶段都按时完成的响应，降级结果不应在TTL内提供给相似查询
+            if (queryEmbedding != null && retrieval.complete && llmResult.completed()) {
+                semanticAnswerCache.put(request.getQuery(), queryEmbedding, request.getTopK(), storeEpoch, response);
+            }
+            
             log.info("增强搜索完成: query={}, 知识库结果={}, 联网结果={}, 总耗时={}ms", 
                     request.getQuery(), knowledgeResponse.getResultCount(), 
                     webSearchResults.size(), response.getTotalProcessingTimeMs());
@@ -378,6 +588,61 @@ public class EnhancedKnowledgeSearchService {
         }
     }
     
+    /**
+     * 检索阶段：先完成知识库检索，由shouldTriggerWebSearch根据完整的知识库结果决定是否联网
+     *
+     * 开启推测（enhanced-search.speculative-web-search=true）时联网查询与知识库检索同时启动，
+     * 判断为不需要时取消；在此之前没有比检索本身更便宜的可靠信号，推测任务无条件启动，
+     * 代价是每个查询都发起一次外部请求，因此默认关闭，只在联网延迟比外部调用量更重要时开启。
+     */
+    private RetrievalOutcome retrieve(KnowledgeSearchRequest request) {
+        long retrievalStart = System.currentTimeMillis();
+        RetrievalOutcome outcome = new RetrievalOutcome();
+        
+        // 1. 并发启动知识库检索
+        StageTimer knowledgeTimer = new StageTimer();
+        Future<KnowledgeSearchResponse> knowledgeFuture = searchExecutor.submit(
+                () -> knowledgeTimer.time(() -> searchKnowledgeWithLangChain(request)));
+        
+        // 2. 推测性地并行启动联网查询
+        StageTimer webTimer = new StageTimer();
+        Future<List<WebSearchService.WebSearchResult>> webFuture = null;
+        if (speculativeWebSearchEnabled) {
+            webFuture = submitWebSearch(request.getQuery(), webTimer);
+            outcome.speculativeWebSearch = true;
+        }
+        
+        // 3. 等待知识库检索（超过期限则按无结果处理）
+        StageResult<KnowledgeSearchResponse> knowledgeResult = awaitStage(knowledgeFuture, knowledgeDeadlineMs, "知识库检索",
+                () -> emptyKnowledgeResponse(request.getQuery()));
+        outcome.knowledgeResponse = knowledgeResult.value();
+        outcome.complete = knowledgeResult.completed();
+        outcome.knowledgeSearchTimeMs = knowledgeTimer.elapsedMs();
+        
+        // 4. 判断是否需要联网查询：不需要时取消推测任务，需要但尚未启动时立即启动
+        outcome.needWebSearch = shouldTriggerWebSearch(outcome.knowledgeResponse, request);
+        log.info("needWebSearch: {}, speculative: {}", outcome.needWebSearch, outcome.speculativeWebSearch);
+        if (!outcome.needWebSearch && webFuture != null) {
+            webFuture.cancel(true);
+            webFuture = null;
+        } else if (outcome.needWebSearch && webFuture == null) {
+            webFuture = submitWebSearch(request.getQuery(), webTimer);
+        }
+        
+        if (webFuture != null) {
+            StageResult<List<WebSearchService.WebSearchResult>> webResult =
+                    awaitStage(webFuture, webDeadlineMs, "联网查询", List::of);
+            List<WebSearchService.WebSearchResult> webResults = webResult.value();
+            outcome.complete &= webResult.completed();
+            outcome.webSearchTimeMs = webTimer.elapsedMs();
+            outcome.overlapTimeMs = knowledgeTimer.overlapMs(webTimer);
+            outcome.webSearchResults = convertWebSearchResults(webResults);
+            log.info("联网查询完成: 返回 {} 条结果", outcome.webSearchResults.size());
+        }
+        outcome.retrievalTimeMs = System.currentTimeMillis() - retrievalStart;
+        return outcome;
+    }
+    
     /**
      * 判断是否需要触发联网查询
      */
@@ -398,13 +663,120 @@ public class EnhancedKnowledgeSearchService {
         }
         
         // 为了测试联网查询功能，临时降低阈值
-        if (knowledgeResponse.getAverageSimilarity() < 0.8) {
+        if (knowledgeResponse.getAverageSimilarity() < WEB_SEARCH_SIMILARITY_THRESHOLD) {
             return true;
         }
         
         return false;
     }
     
+    /**
+     * 提交联网查询任务
+     */
+    private Future<List<WebSearchService.WebSearchResult>> submitWebSearch(String query, StageTimer timer) {
+        return searchExecutor.submit(() -> timer.time(() -> webSearchService.searchBaidu(query, 3)));
+    }
+    
+    /**
+     * 在期限内等待阶段结果，超时或失败时取消任务并返回降级结果
+     *
+     * @return 阶段结果，completed表示是否为阶段自身的结果（而非降级结果）
+     */
+    private <T> StageResult<T> awaitStage(Future<T> future, long deadlineMs, String stageName, Supplier<T> fallback) {
+        try {
+            return new StageResult<>(future.get(deadlineMs, TimeUnit.MILLISECONDS), true);
+        } catch (TimeoutException e) {
+            log.warn("{}超过期限 {}ms，已取消", stageName, deadlineMs);
+            future.cancel(true);
+            return new StageResult<>(fallback.get(), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return new StageResult<>(fallback.get(), false);
+        } catch (ExecutionException e) {
+            log.error("{}失败", stageName, e.getCause());
+            return new StageResult<>(fallback.get(), false);
+        }
+    }
+    
+    /**
+     * 构建空的知识库检索响应
+     */
+    private KnowledgeSearchResponse emptyKnowledgeResponse(String query) {
+        KnowledgeSearchResponse response = new KnowledgeSearchResponse();
+        response.setQuery(query);
+        response.setResults(new ArrayList<>());
+        response.setResultCount(0);
+        response.setTimestamp(LocalDateTime.now());
+        response.setAverageSimilarity(0.0);
+        response.setMaxSimilarity(0.0);
+        response.setMinSimilarity(0.0);
+        return response;
+    }
+    
+    /**
+     * 关闭检索线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
+    }
+    
+    /**
+     * 检索阶段结果
+     */
+    private static class RetrievalOutcome {
+        private KnowledgeSearchResponse knowledgeResponse;
+        private List<WebSearchResultDto> webSearchResults = new ArrayList<>();
+        private boolean needWebSearch;
+        private boolean speculativeWebSearch;
+        private long knowledgeSearchTimeMs;
+        private long webSearchTimeMs;
+        private long overlapTimeMs;
+        private long retrievalTimeMs;
+        // 知识库检索和联网查询都按时完成（未使用降级结果）
+        private boolean complete;
+    }
+    
+    /**
+     * 单个阶段的结果
+     *
+     * @param value 阶段结果或降级结果
+     * @param completed 阶段是否在期限内正常完成
+     */
+    private record StageResult<T>(T value, boolean completed) {
+    }
+    
+    /**
+     * 阶段计时器，记录阶段在墙钟时间上的起止点
+     */
+    private static class StageTimer {
+        private volatile long startMs;
+        private volatile long endMs;
+        
+        <T> T time(Callable<T> stage) throws Exception {
+            startMs = System.currentTimeMillis();
+            try {
+                return stage.call();
+            } finally {
+                endMs = System.currentTimeMillis();
+            }
+        }
+        
+        long elapsedMs() {
+            return startMs == 0 ? 0L : Math.max(0L, (endMs == 0 ? System.currentTimeMillis() : endMs) - startMs);
+        }
+        
+        long overlapMs(StageTimer other) {
+            if (startMs == 0 || other.startMs == 0) {
+                return 0L;
+            }
+            long end = Math.min(endMs == 0 ? System.currentTimeMillis() : endMs,
+                    other.endMs == 0 ? System.currentTimeMillis() : other.endMs);
+            return Math.max(0L, end - Math.max(startMs, other.startMs));
+        }
+    }
+    
     /**
      * 转换联网搜索结果
      */
@@ -427,34 +799,8 @@ public class EnhancedKnowledgeSearchService {
     private String generateLLMInference(String query, KnowledgeSearchResponse knowledgeResponse, 
                                        List<WebSearchResultDto> webSearchResults) {
         try {
-            // 构建上下文信息
-            StringBuilder context = new StringBuilder();
-            context.append("用户查询：").append(query).append("\n\n");
-            
-            // 添加知识库结果
-            if (knowledgeResponse.getResultCount() > 0) {
-                context.append("知识库检索结果：\n");
-                for (int i = 0; i < Math.min(knowledgeResponse.getResults().size(), 3); i++) {
-                    KnowledgeSearchResult result = knowledgeResponse.getResults().get(i);
-                    context.append(i + 1).append(". ").append(result.getTitle()).append("\n");
-                    context.append("   摘要：").append(result.getSummary()).append("\n");
-                    context.append("   相似度：").append(String.format("%.2f", result.getSimilarity())).append("\n\n");
-                }
-            }
-            
-            // 添加联网搜索结果
-            if (!webSearchResults.isEmpty()) {
-                context.append("联网搜索结果：\n");
-                for (int i = 0; i < Math.min(webSearchResults.size(), 3); i++) {
-                    WebSearchResultDto result = webSearchResults.get(i);
-                    context.append(i + 1).append(". ").append(result.getTitle()).append("\n");
-                    context.append("   摘要：").append(result.getSnippet()).append("\n");
-                    context.append("   来源：").append(result.getSource()).append("\n\n");
-                }
-            }
-            
             // 使用大模型生成推理结果
-            String prompt = "基于以下信息，为用户的问题提供准确、有用的回答：\n\n" + context.toString();
+            String prompt = buildInferencePrompt(query, knowledgeResponse, webSearchResults);
             String answer = langChainService.askQuestion(query, List.of(prompt));
             
             return answer;
@@ -464,4 +810,38 @@ public class EnhancedKnowledgeSearchService {
             return "基于现有信息，我无法为您提供准确的答案。请尝试重新表述您的问题。";
         }
     }
+    
+    /**
+     * 构建大模型推理提示词（知识库结果 + 联网搜索结果）
+     */
+    private String buildInferencePrompt(String query, KnowledgeSearchResponse knowledgeResponse, 
+                                        List<WebSearchResultDto> webSearchResults) {
+        // 构建上下文信息
+        StringBuilder context = new StringBuilder();
+        context.append("用户查询：").append(query).append("\n\n");
+        
+        // 添加知识库结果
+        if (knowledgeResponse.getResultCount() > 0) {
+            context.append("知识库检索结果：\n");
+            for (int i = 0; i < Math.min(knowledgeResponse.getResults().size(), 3); i++) {
+                KnowledgeSearchResult result = knowledgeResponse.getResults().get(i);
+                context.append(i + 1).append(". ").append(result.getTitle()).append("\n");
+                context.append("   摘要：").append(result.getSummary()).append("\n");
+                context.append("   相似度：").append(String.format("%.2f", result.getSimilarity())).append("\n\n");
+            }
+        }
+        
+        // 添加联网搜索结果
+        if (!webSearchResults.isEmpty()) {
+            context.append("联网搜索结果：\n");
+            for (int i = 0; i < Math.min(webSearchResults.size(), 3); i++) {
+                WebSearchResultDto result = webSearchResults.get(i);
+                context.append(i + 1).append(". ").append(result.getTitle()).append("\n");
+                context.append("   摘要：").append(result.getSnippet()).append("\n");
+                context.append("   来源：").append(result.getSource()).append("\n\n");
+            }
+        }
+        
+        return "基于以下信息，为用户的问题提供准确、有用的回答：\n\n" + context;
+    }
 }
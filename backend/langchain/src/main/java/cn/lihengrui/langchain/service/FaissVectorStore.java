@@ -13,7 +13,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * FAISS向量存储服务
- * 使用内存存储实现向量数据库功能
+ * 使用内存存储实现向量数据库功能，作为知识向量索引的lexicalHash字段，
+ * 同时保存索引共享的文档元数据
  * 
  * @author HA72开发团队
  * @version 1.0
@@ -172,12 +173,23 @@ public class FaissVectorStore {
      * 持久化向量存储到文件
      */
     public void saveToFile() {
+        saveToFile(Paths.get(VECTOR_STORE_FILE));
+    }
+    
+    /**
+     * 持久化向量存储到指定文件
+     * 
+     * @param filePath 快照文件路径
+     */
+    public void saveToFile(Path filePath) {
         try {
-            Path filePath = Paths.get(VECTOR_STORE_FILE);
+            if (filePath.getParent() != null) {
+                Files.createDirectories(filePath.getParent());
+            }
             
             try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(filePath))) {
                 oos.writeObject(new VectorStoreData(vectorStore, contentStore));
-                log.info("向量存储已保存到文件: {}", VECTOR_STORE_FILE);
+                log.info("向量存储已保存到文件: {}", filePath);
             }
             
         } catch (Exception e) {
@@ -189,9 +201,16 @@ public class FaissVectorStore {
      * 从文件加载向量存储
      */
     public void loadFromFile() {
+        loadFromFile(Paths.get(VECTOR_STORE_FILE));
+    }
+    
+    /**
+     * 从指定文件加载向量存储
+     * 
+     * @param filePath 快照文件路径
+     */
+    public void loadFromFile(Path filePath) {
         try {
-            Path filePath = Paths.get(VECTOR_STORE_FILE);
-            
             if (Files.exists(filePath)) {
                 try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(filePath))) {
                     VectorStoreData data = (VectorStoreData) ois.readObject();
@@ -27,7 +27,7 @@ import java.util.stream.Collectors;
 public class KnowledgeSearchService {
     
     private final VectorizationService vectorizationService;
-    private final FaissVectorStore faissVectorStore;
+    private final KnowledgeVectorIndex knowledgeVectorIndex;
     
     /**
      * 基于用户提问检索知识库内容
@@ -46,10 +46,10 @@ public class KnowledgeSearchService {
             float[] queryVector = vectorizeQuery(request.getQuery());
             long vectorizationTime = System.currentTimeMillis() - vectorizationStart;
             
-            // 2. 在向量库中搜索相似内容
+            // 2. 在知识向量索引的lexicalHash字段中搜索相似内容
             long searchStart = System.currentTimeMillis();
             List<FaissVectorStore.SimilarityResult> similarityResults = 
-                    faissVectorStore.searchSimilar(queryVector, request.getTopK());
+                    knowledgeVectorIndex.searchLexical(queryVector, request.getTopK());
             long searchTime = System.currentTimeMillis() - searchStart;
             
             // 3. 过滤和转换结果
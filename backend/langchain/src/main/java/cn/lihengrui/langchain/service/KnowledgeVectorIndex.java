@@ -0,0 +1,308 @@
+package cn.lihengrui.langchain.service;
+
+import cn.lihengrui.langchain.dto.KnowledgeContentDto;
+import cn.lihengrui.langchain.dto.LangChainSearchResult;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 知识向量索引门面
+ *
+ * 以知识内容ID为共同主键，协调两个独立存储的写入、检索和清空：
+ * 1. lexicalHash - 哈希词频向量（FaissVectorStore），用于关键词检索，同时保存完整的文档DTO
+ * 2. minilm - MiniLM语义片段向量（LangChainService），用于语义检索，片段中另存分块文本和标题
+ *
+ * 两个存储没有共享的ID空间或存储结构：各自占用内存，各自持久化
+ * （lexicalHash为快照文件，minilm为内存映射的向量段和索引文件），启动时也各自恢复，
+ * 文档正文在两边各存一份，内存占用和启动时间与分别使用两个存储时相同。
+ * 本类保证的只是一次数据拉取同时写入两个字段，并且单个文档要么两个字段都写入，要么都不写入；
+ * 两者的文件放在同一个目录（vector-index.path）下。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KnowledgeVectorIndex {
+
+    /**
+     * 向量字段：哈希词频向量
+     */
+    public static final String FIELD_LEXICAL_HASH = "lexicalHash";
+
+    /**
+     * 向量字段：MiniLM语义向量
+     */
+    public static final String FIELD_MINILM = "minilm";
+
+    private static final String LEXICAL_SNAPSHOT_FILE = "lexical.dat";
+
+    private final VectorizationService vectorizationService;
+    private final FaissVectorStore faissVectorStore;
+    private final LangChainService langChainService;
+
+    /**
+     * 索引持久化目录（minilm字段的向量段文件位于其minilm子目录下）
+     */
+    @Value("${vector-index.path:data/vector-index}")
+    private String indexPath = "data/vector-index";
+
+    /**
+     * 启动时从快照恢复lexicalHash字段和文档元数据
+     */
+    @PostConstruct
+    public void restore() {
+        faissVectorStore.loadFromFile(getLexicalSnapshotPath());
+        log.info("知识向量索引已恢复: 文档 {} 篇, {} 向量 {} 个, {} 向量 {} 个",
+                getDocumentCount(), FIELD_LEXICAL_HASH, faissVectorStore.getVectorCount(),
+                FIELD_MINILM, langChainService.getVectorCount());
+    }
+
+    /**
+     * 将单个知识内容写入索引的全部向量字段
+     *
+     * @param content 知识内容
+     * @return 是否写入成功
+     */
+    public boolean indexDocument(KnowledgeContentDto content) {
+        return indexDocuments(List.of(content)).getSuccessCount() == 1;
+    }
+
+    /**
+     * 批量写入索引（一次拉取，同时写入lexicalHash和minilm字段）
+     *
+     * 单个文档的写入是全有或全无的：先计算词频向量、写入minilm字段，最后写入lexicalHash字段；
+     * 任一步失败时从两个字段中删除该文档，下次写入时重新嵌入，不会出现只有一个字段有数据的文档。
+     *
+     * @param contents 知识内容列表
+     * @return 写入结果
+     */
+    public IndexResult indexDocuments(List<KnowledgeContentDto> contents) {
+        int successCount = 0;
+        int semanticCount = 0;
+        int chunkCount = 0;
+        StringBuilder errorMessages = new StringBuilder();
+
+        for (KnowledgeContentDto content : contents) {
+            boolean semanticWritten = false;
+            try {
+                // lexicalHash字段的向量（只计算，不写入）
+                float[] lexicalVector = vectorizationService.vectorize(content);
+
+                // minilm字段（内容和摘要都为空时没有可嵌入的文本；内容未变化时不重新嵌入，返回0）
+                if (hasText(content)) {
+                    int chunks = langChainService.addDocument(content.getId(), buildDocumentContent(content), content.getTitle());
+                    semanticWritten = true;
+                    if (chunks > 0) {
+                        semanticCount++;
+                        chunkCount += chunks;
+                    }
+                } else {
+                    log.warn("跳过内容ID {} 的{}字段，因为内容和摘要都为空", content.getId(), FIELD_MINILM);
+                }
+
+                // lexicalHash字段（同时登记共享的文档元数据）
+                faissVectorStore.addVector(content.getId(), lexicalVector, content);
+
+                successCount++;
+
+            } catch (Exception e) {
+                log.error("写入知识向量索引失败: ID={}, 标题={}", content.getId(), content.getTitle(), e);
+                if (semanticWritten) {
+                    rollback(content.getId());
+                }
+                if (errorMessages.length() > 0) {
+                    errorMessages.append("; ");
+                }
+                errorMessages.append("ID=").append(content.getId()).append(": ").append(e.getMessage());
+            }
+        }
+
+        log.info("知识向量索引写入完成: 共 {} 条，成功 {} 条，{} 字段重新嵌入 {} 条（{} 个片段）",
+                contents.size(), successCount, FIELD_MINILM, semanticCount, chunkCount);
+        return new IndexResult(successCount, contents.size() - successCount, semanticCount, chunkCount,
+                errorMessages.length() > 0 ? errorMessages.toString() : null);
+    }
+
+    /**
+     * 写入失败时从两个字段中删除文档，保持两个字段一致
+     */
+    private void rollback(Long id) {
+        try {
+            langChainService.removeDocument(id);
+            faissVectorStore.removeVector(id);
+        } catch (Exception e) {
+            log.error("回滚知识向量索引写入失败: ID={}", id, e);
+        }
+    }
+
+    /**
+     * 在lexicalHash字段上检索
+     *
+     * @param queryVector 查询向量
+     * @param topK 返回前K个结果
+     * @return 相似度结果列表
+     */
+    public List<FaissVectorStore.SimilarityResult> searchLexical(float[] queryVector, int topK) {
+        return faissVectorStore.searchSimilar(queryVector, topK);
+    }
+
+    /**
+     * 在minilm字段上检索（按文档去重）
+     *
+     * @param query 查询文本
+     * @param topK 返回前K个结果
+     * @return 语义检索结果列表
+     */
+    public List<LangChainSearchResult> searchSemantic(String query, int topK) {
+        return langChainService.searchRelevantDocumentsWithSimilarity(query, topK);
+    }
+
+    /**
+     * 获取共享的文档元数据
+     *
+     * @param id 知识内容ID
+     * @return 知识内容，不存在时返回null
+     */
+    public KnowledgeContentDto getDocument(Long id) {
+        return id == null ? null : faissVectorStore.getContent(id);
+    }
+
+    /**
+     * 获取索引中的文档数量
+     */
+    public int getDocumentCount() {
+        return faissVectorStore.getVectorCount();
+    }
+
+    /**
+     * 保存索引快照
+     * minilm字段在写入时已落盘，这里只需保存lexicalHash字段和文档元数据
+     */
+    public void snapshot() {
+        faissVectorStore.saveToFile(getLexicalSnapshotPath());
+    }
+
+    /**
+     * 清空索引的全部字段
+     */
+    public void clear() {
+        faissVectorStore.clearAll();
+        langChainService.clearVectorStore();
+        log.info("知识向量索引已清空");
+    }
+
+    /**
+     * 获取索引统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(FIELD_LEXICAL_HASH, faissVectorStore.getVectorCount());
+        fields.put(FIELD_MINILM, langChainService.getVectorCount());
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documentCount", getDocumentCount());
+        stats.put("fields", fields);
+        stats.put("path", indexPath);
+        return stats;
+    }
+
+    private Path getLexicalSnapshotPath() {
+        return Paths.get(indexPath, LEXICAL_SNAPSHOT_FILE);
+    }
+
+    private boolean hasText(KnowledgeContentDto content) {
+        return (content.getContent() != null && !content.getContent().trim().isEmpty()) ||
+               (content.getSummary() != null && !content.getSummary().trim().isEmpty());
+    }
+
+    /**
+     * 构建minilm字段的文档文本
+     */
+    private String buildDocumentContent(KnowledgeContentDto content) {
+        StringBuilder document = new StringBuilder();
+
+        // 标题
+        if (content.getTitle() != null) {
+            document.append("标题: ").append(content.getTitle()).append("\n\n");
+        }
+
+        // 内容
+        if (content.getContent() != null) {
+            document.append("内容: ").append(content.getContent()).append("\n\n");
+        }
+
+        // 摘要
+        if (content.getSummary() != null && !content.getSummary().isEmpty()) {
+            document.append("摘要: ").append(content.getSummary()).append("\n\n");
+        }
+
+        // 标签
+        if (content.getTags() != null && !content.getTags().isEmpty()) {
+            document.append("标签: ").append(content.getTags()).append("\n\n");
+        }
+
+        // 来源
+        if (content.getSourceUrl() != null) {
+            document.append("来源: ").append(content.getSourceUrl());
+        }
+
+        return document.toString();
+    }
+
+    /**
+     * 索引写入结果
+     */
+    public static class IndexResult {
+        private final int successCount;
+        private final int failureCount;
+        private final int semanticCount;
+        private final int chunkCount;
+        private final String errorMessage;
+
+        public IndexResult(int successCount, int failureCount, int semanticCount, int chunkCount, String errorMessage) {
+            this.successCount = successCount;
+            this.failureCount = failureCount;
+            this.semanticCount = semanticCount;
+            this.chunkCount = chunkCount;
+            this.errorMessage = errorMessage;
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * minilm字段实际（重新）嵌入的文档数，内容未变化而跳过的文档不计入
+         */
+        public int getSemanticCount() {
+            return semanticCount;
+        }
+
+        /**
+         * minilm字段写入的片段数
+         */
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+}
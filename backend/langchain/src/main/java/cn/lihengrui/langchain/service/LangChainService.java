@@ -1,11 +1,24 @@
 package cn.lihengrui.langchain.service;
 
+import cn.lihengrui.langchain.dto.LangChainSearchResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.HuggingFaceTokenizer;
 import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingStore;
@@ -15,9 +28,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
 /**
  * LangChain4j服务
  * 使用真正的LangChain框架和大模型进行知识检索和问答
@@ -30,11 +58,37 @@ import java.util.stream.Collectors;
 @Service
 public class LangChainService {
 
+    /**
+     * 片段元数据：所属知识内容ID
+     */
+    public static final String METADATA_PARENT_ID = "parent_id";
+
+    /**
+     * 片段元数据：所属知识内容标题
+     */
+    public static final String METADATA_TITLE = "title";
+
+    /**
+     * 片段元数据：所属知识内容的内容摘要（标题+正文），用于判断内容是否变化需要重新嵌入
+     */
+    public static final String METADATA_CONTENT_HASH = "content_hash";
+
+    /**
+     * 检索时的片段超取倍数，用于按父文档去重后仍能凑满topK
+     */
+    private static final int CHUNK_OVERFETCH_FACTOR = 3;
+
     private EmbeddingModel embeddingModel;
+    private DocumentSplitter documentSplitter;
     private EmbeddingStore<TextSegment> embeddingStore;
     private OpenAiChatModel chatModel;
+    private StreamingChatLanguageModel streamingChatModel;
     private OpenAiEmbeddingModel openAiEmbeddingModel;
-    private int vectorCount = 0; // 手动跟踪向量数量
+    private int vectorCount = 0; // 手动跟踪向量（片段）数量
+    private int documentCount = 0; // 手动跟踪文档数量
+    private final Map<Long, IndexedParent> indexedParents = new ConcurrentHashMap<>(); // 已入库的知识内容ID -> 内容摘要和片段数
+    private volatile Cache<String, Embedding> queryEmbeddingCache; // 查询向量缓存
+    private final AtomicLong storeEpoch = new AtomicLong(); // 向量存储版本，每次写入或清空时递增
     
     @Value("${langchain.openai.api-key:}")
     private String openAiApiKey;
@@ -45,6 +99,42 @@ public class LangChainService {
     @Value("${langchain.embedding.model:all-minilm-l6-v2}")
     private String embeddingModelName;
     
+    /**
+     * 单个片段的最大token数（MiniLM在256 token左右截断，需留出余量）
+     */
+    @Value("${langchain.chunk.max-tokens:200}")
+    private int chunkMaxTokens = 200;
+    
+    /**
+     * 相邻片段之间的重叠token数
+     */
+    @Value("${langchain.chunk.overlap-tokens:30}")
+    private int chunkOverlapTokens = 30;
+    
+    /**
+     * 是否使用持久化（内存映射文件）向量存储
+     */
+    @Value("${langchain.vector-store.persistent:true}")
+    private boolean persistentStore = true;
+    
+    /**
+     * 持久化向量存储目录
+     */
+    @Value("${langchain.vector-store.path:data/vector-index/minilm}")
+    private String storePath = "data/vector-index/minilm";
+    
+    /**
+     * 查询向量缓存的最大占用字节数（按查询文本和向量大小加权）
+     */
+    @Value("${langchain.query-cache.max-weight-bytes:16777216}")
+    private long queryCacheMaxWeightBytes = 16 * 1024 * 1024;
+    
+    /**
+     * 查询向量缓存的过期时间（分钟）
+     */
+    @Value("${langchain.query-cache.ttl-minutes:30}")
+    private long queryCacheTtlMinutes = 30;
+    
     @PostConstruct
     public void init() {
         try {
@@ -64,8 +154,21 @@ public class LangChainService {
                 log.info("使用默认本地嵌入模型: AllMiniLmL6V2");
             }
             
-            // 初始化向量存储
-            this.embeddingStore = new InMemoryEmbeddingStore<>();
+            // 嵌入模型变化后，旧模型生成的查询向量不可复用
+            invalidateQueryEmbeddingCache();
+            
+            // 初始化向量存储（持久化存储在重启后直接从磁盘恢复，无需重新嵌入）
+            if (persistentStore) {
+                MappedEmbeddingStore mappedStore = new MappedEmbeddingStore(Paths.get(storePath));
+                this.embeddingStore = mappedStore;
+                this.vectorCount = mappedStore.size();
+                mappedStore.forEachMetadata(this::restoreIndexedParent);
+                this.documentCount = indexedParents.size();
+                log.info("使用持久化向量存储: {}, 已恢复向量数量: {}, 文档数量: {}", storePath, vectorCount, documentCount);
+            } else {
+                this.embeddingStore = new InMemoryEmbeddingStore<>();
+                log.info("使用内存向量存储");
+            }
             
             // 初始化聊天模型（如果配置了OpenAI API Key）
             if (!openAiApiKey.isEmpty()) {
@@ -75,6 +178,12 @@ public class LangChainService {
                         .temperature(0.7)
                         .maxTokens(1000)
                         .build();
+                this.streamingChatModel = OpenAiStreamingChatModel.builder()
+                        .apiKey(openAiApiKey)
+                        .modelName(openAiModel)
+                        .temperature(0.7)
+                        .maxTokens(1000)
+                        .build();
                 log.info("使用OpenAI聊天模型: {}", openAiModel);
             } else {
                 log.warn("未配置OpenAI API Key，将使用简单的文本匹配");
@@ -92,20 +201,69 @@ public class LangChainService {
      * 添加文档到向量存储
      */
     public void addDocument(String content, String metadata) {
+        addDocument(null, content, metadata);
+    }
+    
+    /**
+     * 切分文档并添加到向量存储
+     * 按段落/句子递归切分为带重叠的片段，每个片段记录所属知识内容ID、标题和内容摘要。
+     * 同一知识内容再次写入时：内容未变化则跳过，内容已编辑则用新片段替换旧片段。
+     * 
+     * @param parentId 知识内容ID（可为空）
+     * @param content 文档内容
+     * @param title 文档标题
+     * @return 写入的片段数量（内容未变化时为0）
+     */
+    public int addDocument(Long parentId, String content, String title) {
         try {
-            // 创建文本片段
-            TextSegment segment = TextSegment.from(content);
+            if (content == null || content.trim().isEmpty()) {
+                log.warn("文档内容为空，跳过添加: {}", title);
+                return 0;
+            }
+            String contentHash = contentHash(title, content);
+            IndexedParent existing = parentId == null ? null : indexedParents.get(parentId);
+            if (existing != null && contentHash.equals(existing.contentHash())) {
+                log.debug("文档内容未变化，跳过重新嵌入: {}", parentId);
+                return 0;
+            }
+            
+            // 构建文档元数据
+            Metadata metadata = new Metadata();
+            if (parentId != null) {
+                metadata.put(METADATA_PARENT_ID, parentId);
+                metadata.put(METADATA_CONTENT_HASH, contentHash);
+            }
+            if (title != null) {
+                metadata.put(METADATA_TITLE, title);
+            }
+            
+            // 切分为带重叠的文本片段
+            List<TextSegment> segments = getDocumentSplitter().split(Document.from(content, metadata));
 
-            // 生成嵌入向量
-            Embedding embedding = embeddingModel.embed(segment).content();
+            // 批量生成嵌入向量
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
 
-            // 存储到向量数据库
-            embeddingStore.add(embedding, segment);
-            
-            // 增加计数
-            vectorCount++;
+            // 存储到向量数据库（嵌入在锁外完成，锁内只做替换和计数）
+            synchronized (indexedParents) {
+                IndexedParent previous = parentId == null ? null : indexedParents.get(parentId);
+                if (previous != null) {
+                    // 内容已编辑：先删除旧版本的全部片段
+                    embeddingStore.removeAll(metadataKey(METADATA_PARENT_ID).isEqualTo(parentId));
+                    vectorCount -= previous.chunkCount();
+                } else {
+                    documentCount++;
+                }
+                embeddingStore.addAll(embeddings, segments);
+                vectorCount += segments.size();
+                if (parentId != null) {
+                    indexedParents.put(parentId, new IndexedParent(contentHash, segments.size()));
+                }
+                storeEpoch.incrementAndGet();
 
-            log.info("成功添加文档到向量存储: {}, 当前向量数量: {}", metadata, vectorCount);
+                log.info("成功{}文档到向量存储: {}, 片段数: {}, 当前向量数量: {}",
+                        previous != null ? "替换" : "添加", title, segments.size(), vectorCount);
+            }
+            return segments.size();
 
         } catch (Exception e) {
             log.error("添加文档失败", e);
@@ -113,16 +271,161 @@ public class LangChainService {
         }
     }
     
+    /**
+     * 从向量存储删除知识内容的全部片段
+     *
+     * @param parentId 知识内容ID
+     * @return 删除的片段数量
+     */
+    public int removeDocument(Long parentId) {
+        if (parentId == null) {
+            return 0;
+        }
+        synchronized (indexedParents) {
+            IndexedParent previous = indexedParents.remove(parentId);
+            if (previous == null) {
+                return 0;
+            }
+            embeddingStore.removeAll(metadataKey(METADATA_PARENT_ID).isEqualTo(parentId));
+            vectorCount -= previous.chunkCount();
+            documentCount--;
+            storeEpoch.incrementAndGet();
+            log.info("已从向量存储删除文档: {}, 片段数: {}", parentId, previous.chunkCount());
+            return previous.chunkCount();
+        }
+    }
+
+    /**
+     * 根据持久化片段的元数据恢复已入库知识内容的摘要和片段数
+     * 早期写入的片段没有内容摘要，下次写入同一知识内容时会重新嵌入一次
+     */
+    private void restoreIndexedParent(Metadata metadata) {
+        Long parentId = metadata.getLong(METADATA_PARENT_ID);
+        if (parentId != null) {
+            String hash = metadata.getString(METADATA_CONTENT_HASH);
+            indexedParents.merge(parentId, new IndexedParent(hash, 1),
+                    (a, b) -> new IndexedParent(a.contentHash(), a.chunkCount() + 1));
+        }
+    }
+
+    /**
+     * 计算标题和正文的内容摘要（SHA-256前16字节）
+     */
+    private static String contentHash(String title, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((title == null ? "" : title).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 获取文档切分器（按token预算递归切分，带重叠）
+     */
+    private DocumentSplitter getDocumentSplitter() {
+        if (documentSplitter == null) {
+            documentSplitter = DocumentSplitters.recursive(chunkMaxTokens, chunkOverlapTokens, new HuggingFaceTokenizer());
+        }
+        return documentSplitter;
+    }
+    
+    /**
+     * 检索相关片段并按父文档去重
+     * 同一知识内容只保留得分最高的片段，避免多个片段挤占topK
+     */
+    private List<EmbeddingMatch<TextSegment>> findRelevantByParent(Embedding queryEmbedding, int maxResults) {
+        List<EmbeddingMatch<TextSegment>> matches =
+                embeddingStore.findRelevant(queryEmbedding, maxResults * CHUNK_OVERFETCH_FACTOR);
+        
+        // 结果已按得分降序，首次出现即为该文档的最佳片段
+        Map<Object, EmbeddingMatch<TextSegment>> bestByParent = new LinkedHashMap<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            Long parentId = match.embedded().metadata().getLong(METADATA_PARENT_ID);
+            Object key = parentId != null ? parentId : match.embeddingId();
+            bestByParent.putIfAbsent(key, match);
+            if (bestByParent.size() >= maxResults) {
+                break;
+            }
+        }
+        
+        return new ArrayList<>(bestByParent.values());
+    }
+    
+    /**
+     * 生成查询向量
+     * 以"模型名称 + 规范化查询文本"为键缓存，缓存采用W-TinyLFU准入策略，
+     * 按查询文本和向量的字节数加权限制总容量；向量由规范化后的文本计算，保证同一个键只对应一种输入
+     */
+    public Embedding embedQuery(String query) {
+        String normalizedQuery = normalizeQuery(query);
+        String cacheKey = embeddingModelName + '|' + normalizedQuery;
+        return getQueryEmbeddingCache().get(cacheKey, key -> embeddingModel.embed(normalizedQuery).content());
+    }
+    
+    /**
+     * 规范化查询文本：去除首尾空白、合并连续空白
+     * 不做大小写折叠，嵌入模型对大小写敏感，折叠后不同输入会共用同一个向量
+     */
+    private String normalizeQuery(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ");
+    }
+    
+    private Cache<String, Embedding> getQueryEmbeddingCache() {
+        if (queryEmbeddingCache == null) {
+            synchronized (this) {
+                if (queryEmbeddingCache == null) {
+                    queryEmbeddingCache = Caffeine.newBuilder()
+                            .maximumWeight(queryCacheMaxWeightBytes)
+                            .weigher((String key, Embedding value) -> key.length() * 2 + value.dimension() * Float.BYTES)
+                            .expireAfterWrite(Duration.ofMinutes(queryCacheTtlMinutes))
+                            .recordStats()
+                            .build();
+                }
+            }
+        }
+        return queryEmbeddingCache;
+    }
+    
+    /**
+     * 清空查询向量缓存
+     */
+    public void invalidateQueryEmbeddingCache() {
+        getQueryEmbeddingCache().invalidateAll();
+    }
+    
+    /**
+     * 获取查询向量缓存统计信息
+     */
+    public Map<String, Object> getQueryEmbeddingCacheStats() {
+        Cache<String, Embedding> cache = getQueryEmbeddingCache();
+        CacheStats stats = cache.stats();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        cache.policy().eviction().ifPresent(eviction ->
+                eviction.weightedSize().ifPresent(weight -> result.put("weightedSizeBytes", weight)));
+        return result;
+    }
+    
     /**
      * 基于查询检索相关文档
      */
     public List<String> searchRelevantDocuments(String query, int maxResults) {
         try {
-            // 生成查询向量
-            Embedding queryEmbedding = embeddingModel.embed(query).content();
+            // 生成查询向量（命中缓存时跳过模型推理）
+            Embedding queryEmbedding = embedQuery(query);
             
-            // 在向量存储中搜索
-            List<EmbeddingMatch<TextSegment>> matches = embeddingStore.findRelevant(queryEmbedding, maxResults);
+            // 在向量存储中搜索（按父文档去重）
+            List<EmbeddingMatch<TextSegment>> matches = findRelevantByParent(queryEmbedding, maxResults);
             
             // 提取文本内容
             List<String> results = matches.stream()
@@ -141,19 +444,21 @@ public class LangChainService {
     /**
      * 基于查询检索相关文档（带相似度分数）
      */
-    public List<cn.lihengrui.langchain.dto.LangChainSearchResult> searchRelevantDocumentsWithSimilarity(String query, int maxResults) {
+    public List<LangChainSearchResult> searchRelevantDocumentsWithSimilarity(String query, int maxResults) {
         try {
-            // 生成查询向量
-            Embedding queryEmbedding = embeddingModel.embed(query).content();
+            // 生成查询向量（命中缓存时跳过模型推理）
+            Embedding queryEmbedding = embedQuery(query);
             
-            // 在向量存储中搜索
-            List<EmbeddingMatch<TextSegment>> matches = embeddingStore.findRelevant(queryEmbedding, maxResults);
+            // 在向量存储中搜索（按父文档去重）
+            List<EmbeddingMatch<TextSegment>> matches = findRelevantByParent(queryEmbedding, maxResults);
             
-            // 提取文本内容和相似度
-            List<cn.lihengrui.langchain.dto.LangChainSearchResult> results = matches.stream()
-                    .map(match -> new cn.lihengrui.langchain.dto.LangChainSearchResult(
+            // 提取文本内容、相似度和所属文档
+            List<LangChainSearchResult> results = matches.stream()
+                    .map(match -> new LangChainSearchResult(
                             match.embedded().text(), 
-                            match.score())) // score() 方法返回相似度分数
+                            match.score(), // score() 方法返回相似度分数
+                            match.embedded().metadata().getLong(METADATA_PARENT_ID),
+                            match.embedded().metadata().getString(METADATA_TITLE)))
                     .collect(Collectors.toList());
             
             log.info("检索到 {} 个相关文档片段", results.size());
@@ -174,17 +479,8 @@ public class LangChainService {
                 return generateSimpleAnswer(question, context);
             }
             
-            // 构建上下文
-            String contextText = String.join("\n", context);
-            
             // 构建提示词
-            String prompt = String.format(
-                "基于以下上下文信息回答问题：\n\n" +
-                "上下文：\n%s\n\n" +
-                "问题：%s\n\n" +
-                "请基于上下文信息提供准确、有用的答案。如果上下文中没有相关信息，请说明无法回答。",
-                contextText, question
-            );
+            String prompt = buildQuestionPrompt(question, context);
             
             // 调用大模型
             String answer = chatModel.generate(prompt);
@@ -198,6 +494,38 @@ public class LangChainService {
         }
     }
     
+    /**
+     * 流式问答：大模型每生成一段文本即回调handler.onNext
+     * 未配置流式模型时，将简单答案作为单个片段输出
+     */
+    public void streamAnswer(String question, List<String> context, StreamingResponseHandler<AiMessage> handler) {
+        if (streamingChatModel == null) {
+            String answer = generateSimpleAnswer(question, context);
+            handler.onNext(answer);
+            handler.onComplete(Response.from(AiMessage.from(answer)));
+            return;
+        }
+        
+        log.info("开始流式问答: 问题={}, 上下文片段数={}", question, context.size());
+        streamingChatModel.generate(buildQuestionPrompt(question, context), handler);
+    }
+    
+    /**
+     * 构建问答提示词
+     */
+    private String buildQuestionPrompt(String question, List<String> context) {
+        // 构建上下文
+        String contextText = String.join("\n", context);
+        
+        return String.format(
+            "基于以下上下文信息回答问题：\n\n" +
+            "上下文：\n%s\n\n" +
+            "问题：%s\n\n" +
+            "请基于上下文信息提供准确、有用的答案。如果上下文中没有相关信息，请说明无法回答。",
+            contextText, question
+        );
+    }
+    
     /**
      * 生成简单答案（当没有大模型时）
      */
@@ -224,17 +552,64 @@ public class LangChainService {
         return vectorCount;
     }
     
+    /**
+     * 获取已入库的文档数量
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+    
+    /**
+     * 获取向量存储版本号（内容变化后递增，用于使依赖检索结果的缓存失效）
+     */
+    public long getStoreEpoch() {
+        return storeEpoch.get();
+    }
+    
+    /**
+     * 判断知识内容是否已入库
+     */
+    public boolean isDocumentIndexed(Long parentId) {
+        return parentId != null && indexedParents.containsKey(parentId);
+    }
+    
     /**
      * 清空向量存储
      */
     public void clearVectorStore() {
         try {
-            // 重新创建向量存储来清空
-            embeddingStore = new InMemoryEmbeddingStore<>();
-            vectorCount = 0; // 重置计数
+            if (embeddingStore instanceof MappedEmbeddingStore mappedStore) {
+                // 截断磁盘上的向量段和索引文件
+                mappedStore.removeAll();
+            } else {
+                // 重新创建向量存储来清空
+                embeddingStore = new InMemoryEmbeddingStore<>();
+            }
+            synchronized (indexedParents) {
+                vectorCount = 0; // 重置计数
+                documentCount = 0;
+                indexedParents.clear();
+            }
+            storeEpoch.incrementAndGet();
             log.info("向量存储已清空");
         } catch (Exception e) {
             log.error("清空向量存储失败", e);
         }
     }
+    
+    /**
+     * 关闭持久化向量存储的文件句柄
+     */
+    @PreDestroy
+    public void close() {
+        if (embeddingStore instanceof MappedEmbeddingStore mappedStore) {
+            mappedStore.close();
+        }
+    }
+
+    /**
+     * 已入库知识内容的内容摘要和片段数
+     */
+    private record IndexedParent(String contentHash, int chunkCount) {
+    }
 }
@@ -0,0 +1,777 @@
+package cn.lihengrui.langchain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 基于内存映射文件的持久化向量存储
+ *
+ * 存储目录包含以下文件：
+ * 1. vectors.bin - 向量段文件，16字节文件头 + 定长float32记录（小端序），只追加
+ * 2. index.jsonl - 索引文件，每行一条记录：片段ID、文本和元数据，与向量记录一一对应
+ * 3. removed.txt - 已删除片段的ID，每行一个；删除的记录超过一定比例时压缩两个文件
+ *
+ * 启动时只读取索引并对向量段文件做mmap，向量数据由操作系统按需分页加载，
+ * 无需重新调用嵌入模型；检索语义（topK、minScore、元数据过滤、相关性分数）
+ * 与InMemoryEmbeddingStore保持一致。
+ *
+ * 内存占用：只有向量在堆外；index.jsonl中的片段ID、文本和元数据在启动时全部读入堆内，
+ * 堆占用随片段文本总量线性增长，估算堆大小时需要按全部片段文本计算。
+ *
+ * 映射方式：向量段按segmentBytes（默认1GB）分段映射，单个MappedByteBuffer不受2GB上限限制；
+ * 末段按容量倍增预留文件空间，只有超出已映射容量时才重新映射末段，追加写入的映射开销均摊为O(1)。
+ * 预留的空白记录在下次打开时截断。
+ *
+ * 崩溃恢复：索引文件末行不完整时截断到最后一条完整记录；两个文件记录数不一致时以较少的一方为准。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Slf4j
+public class MappedEmbeddingStore implements EmbeddingStore<TextSegment> {
+
+    private static final String VECTOR_FILE = "vectors.bin";
+    private static final String INDEX_FILE = "index.jsonl";
+    private static final String REMOVED_FILE = "removed.txt";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final String COMPACT_DONE_FILE = "compact.done";
+    private static final int MAGIC = 0x4B564543; // "KVEC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * 默认的单个映射段大小
+     */
+    static final long DEFAULT_SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * 末段首次映射时预留的记录数
+     */
+    private static final int INITIAL_TAIL_RECORDS = 1024;
+
+    /**
+     * 已删除记录至少达到该数量且超过总数的1/4时压缩
+     */
+    private static final int MIN_COMPACT_REMOVED = 1024;
+
+    private final Path directory;
+    private final Path vectorPath;
+    private final Path indexPath;
+    private final Path removedPath;
+    private final long segmentBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 索引条目（与向量段记录一一对应，包括已删除的记录）
+    private final List<IndexEntry> entries = new ArrayList<>();
+    // 片段ID -> 记录下标
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int removedCount;
+
+    private FileChannel vectorChannel;
+    private BufferedWriter indexWriter;
+    private BufferedWriter removedWriter;
+    // 已映射的段，除末段外每段映射recordsPerSegment条记录
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private int tailCapacity;
+    private int recordsPerSegment;
+    private int dimension;
+
+    /**
+     * 打开（或创建）指定目录下的向量存储
+     *
+     * @param directory 存储目录
+     */
+    public MappedEmbeddingStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * 打开（或创建）向量存储，并指定单个映射段的大小
+     *
+     * @param directory 存储目录
+     * @param segmentBytes 单个映射段的最大字节数（不超过Integer.MAX_VALUE）
+     */
+    MappedEmbeddingStore(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.vectorPath = directory.resolve(VECTOR_FILE);
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.removedPath = directory.resolve(REMOVED_FILE);
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+
+        try {
+            Files.createDirectories(directory);
+            finishCompaction();
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开向量存储失败: " + directory, e);
+        }
+    }
+
+    /**
+     * 读取文件头、索引和删除记录，并映射向量段文件
+     */
+    private void open() throws IOException {
+        vectorChannel = FileChannel.open(vectorPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long vectorCount = 0;
+        if (vectorChannel.size() >= HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            vectorChannel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("向量段文件格式不正确: " + vectorPath);
+            }
+            setDimension(header.getInt());
+            vectorCount = (vectorChannel.size() - HEADER_BYTES) / recordBytes();
+        }
+
+        boolean indexDirty = readIndex(vectorCount);
+
+        // 向量记录多于索引记录：末段预留的空间，或写入中途崩溃，以索引为准
+        if (entries.size() < vectorCount) {
+            log.info("截断向量段文件中未使用的 {} 条记录", vectorCount - entries.size());
+            vectorChannel.truncate(HEADER_BYTES + (long) entries.size() * recordBytes());
+        }
+        if (indexDirty) {
+            rewriteIndex();
+        }
+
+        indexWriter = Files.newBufferedWriter(indexPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        readRemoved();
+        removedWriter = Files.newBufferedWriter(removedPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        ensureMapped(entries.size());
+
+        log.info("向量存储已打开: {}, 向量数量: {}, 维度: {}", directory, size(), dimension);
+    }
+
+    /**
+     * 读取索引文件，最多读取vectorCount条
+     *
+     * @return 索引文件是否需要按当前条目重写（有多余记录或末行不完整）
+     */
+    private boolean readIndex(long vectorCount) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        boolean dirty = false;
+        try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (entries.size() >= vectorCount) {
+                    dirty = true;
+                    break;
+                }
+                try {
+                    addEntry(objectMapper.readValue(line, IndexEntry.class));
+                } catch (JsonProcessingException e) {
+                    // 写入中途崩溃留下的不完整末行，截断到最后一条完整记录
+                    log.warn("索引文件第 {} 条记录不完整，截断至此前的记录", entries.size() + 1);
+                    dirty = true;
+                    break;
+                }
+            }
+        }
+        // 末行缺少换行符时，后续追加会与其拼接在同一行
+        return dirty || !endsWithNewline(indexPath);
+    }
+
+    private static boolean endsWithNewline(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    /**
+     * 按当前条目重写索引文件
+     */
+    private void rewriteIndex() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(indexPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (IndexEntry entry : entries) {
+                writer.write(objectMapper.writeValueAsString(entry));
+                writer.newLine();
+            }
+        }
+    }
+
+    private void readRemoved() throws IOException {
+        if (!Files.exists(removedPath)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(removedPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // 不完整的末行不会匹配任何ID
+                markRemoved(line.strip());
+            }
+        }
+    }
+
+    private void addEntry(IndexEntry entry) {
+        positions.put(entry.getId(), entries.size());
+        entries.add(entry);
+    }
+
+    private boolean markRemoved(String id) {
+        Integer index = positions.remove(id);
+        if (index == null) {
+            return false;
+        }
+        entries.get(index).removed = true;
+        removedCount++;
+        return true;
+    }
+
+    private void setDimension(int newDimension) {
+        dimension = newDimension;
+        recordsPerSegment = (int) Math.max(1, segmentBytes / recordBytes());
+    }
+
+    private long recordBytes() {
+        return (long) dimension * Float.BYTES;
+    }
+
+    /**
+     * 确保前recordCount条记录都已映射
+     * 已写满的段映射一次后不再变化；末段容量不足时按倍增重新映射，并预先扩展文件到映射范围
+     */
+    private void ensureMapped(int recordCount) throws IOException {
+        if (dimension == 0 || recordCount == 0) {
+            return;
+        }
+        int lastSegment = (recordCount - 1) / recordsPerSegment;
+        // 之前的末段已写满，按整段重新映射
+        for (int s = Math.max(0, segments.size() - 1); s < lastSegment; s++) {
+            mapSegment(s, recordsPerSegment);
+        }
+        int neededInTail = recordCount - lastSegment * recordsPerSegment;
+        if (segments.size() <= lastSegment || tailCapacity < neededInTail) {
+            int capacity = Math.max(neededInTail, Math.max(INITIAL_TAIL_RECORDS,
+                    segments.size() > lastSegment ? tailCapacity * 2 : 0));
+            tailCapacity = Math.min(recordsPerSegment, capacity);
+            mapSegment(lastSegment, tailCapacity);
+        }
+    }
+
+    private void mapSegment(int segment, int records) throws IOException {
+        long position = HEADER_BYTES + (long) segment * recordsPerSegment * recordBytes();
+        long length = records * recordBytes();
+        if (vectorChannel.size() < position + length) {
+            // 写入末字节把文件扩展到映射范围（只读映射不能超出文件大小）
+            vectorChannel.write(ByteBuffer.allocate(1), position + length - 1);
+        }
+        FloatBuffer mapped = vectorChannel.map(FileChannel.MapMode.READ_ONLY, position, length)
+                .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        if (segment < segments.size()) {
+            segments.set(segment, mapped);
+        } else {
+            segments.add(mapped);
+        }
+    }
+
+    private FloatBuffer segmentOf(int index) {
+        return segments.get(index / recordsPerSegment);
+    }
+
+    private int offsetOf(int index) {
+        return (index % recordsPerSegment) * dimension;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return add(embedding, null);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), textSegment == null ? null : List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return addAll(embeddings, null);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        addAll(ids, embeddings, textSegments);
+        return ids;
+    }
+
+    /**
+     * 按指定ID批量写入向量和片段
+     * 先写入向量段再追加索引，保证检索线程看到的条目都有对应向量
+     */
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> textSegments) {
+        if (textSegments != null && textSegments.size() != embeddings.size()) {
+            throw new IllegalArgumentException("向量数量与片段数量不一致");
+        }
+        if (embeddings.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                writeHeader(embeddings.get(0).dimension());
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(embeddings.size() * dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (Embedding embedding : embeddings) {
+                if (embedding.dimension() != dimension) {
+                    throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension + "，实际: " + embedding.dimension());
+                }
+                for (float value : embedding.vector()) {
+                    buffer.putFloat(value);
+                }
+            }
+            buffer.flip();
+            // 文件末尾可能是预留空间，写入位置由记录数决定
+            long position = HEADER_BYTES + (long) entries.size() * recordBytes();
+            while (buffer.hasRemaining()) {
+                position += vectorChannel.write(buffer, position);
+            }
+            ensureMapped(entries.size() + embeddings.size());
+
+            for (int i = 0; i < embeddings.size(); i++) {
+                TextSegment segment = textSegments == null ? null : textSegments.get(i);
+                IndexEntry entry = new IndexEntry(ids.get(i),
+                        segment == null ? null : segment.text(),
+                        segment == null ? null : segment.metadata().toMap());
+                indexWriter.write(objectMapper.writeValueAsString(entry));
+                indexWriter.newLine();
+                addEntry(entry);
+            }
+            indexWriter.flush();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeHeader(int newDimension) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(newDimension).putInt(0);
+        header.flip();
+        vectorChannel.write(header, 0);
+        setDimension(newDimension);
+    }
+
+    /**
+     * 相似度检索
+     * 对映射区间做全量余弦相似度扫描，用最小堆保留topK
+     */
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        lock.readLock().lock();
+        try {
+            float[] query = request.queryEmbedding().vector();
+            if (entries.isEmpty() || query.length != dimension) {
+                return new EmbeddingSearchResult<>(List.of());
+            }
+
+            float queryNorm = norm(query, 0, null);
+            Filter filter = request.filter();
+            PriorityQueue<ScoredIndex> topK = new PriorityQueue<>(Comparator.comparingDouble(ScoredIndex::score));
+
+            for (int i = 0; i < entries.size(); i++) {
+                IndexEntry entry = entries.get(i);
+                if (entry.removed || (filter != null && !filter.test(entry.toMetadata()))) {
+                    continue;
+                }
+
+                FloatBuffer vectors = segmentOf(i);
+                int offset = offsetOf(i);
+                float dot = 0.0f;
+                for (int d = 0; d < dimension; d++) {
+                    dot += query[d] * vectors.get(offset + d);
+                }
+                float storedNorm = norm(null, offset, vectors);
+                double cosine = (queryNorm == 0 || storedNorm == 0) ? 0.0 : dot / (queryNorm * storedNorm);
+                double score = RelevanceScore.fromCosineSimilarity(cosine);
+
+                if (score < request.minScore()) {
+                    continue;
+                }
+                topK.offer(new ScoredIndex(i, score));
+                if (topK.size() > request.maxResults()) {
+                    topK.poll();
+                }
+            }
+
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(topK.size());
+            while (!topK.isEmpty()) {
+                ScoredIndex scored = topK.poll();
+                IndexEntry entry = entries.get(scored.index());
+                matches.add(0, new EmbeddingMatch<>(scored.score(), entry.getId(),
+                        readEmbedding(scored.index()), entry.toTextSegment()));
+            }
+            return new EmbeddingSearchResult<>(matches);
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private float norm(float[] vector, int offset, FloatBuffer buffer) {
+        float sum = 0.0f;
+        for (int d = 0; d < dimension; d++) {
+            float value = vector != null ? vector[d] : buffer.get(offset + d);
+            sum += value * value;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private Embedding readEmbedding(int index) {
+        float[] vector = new float[dimension];
+        segmentOf(index).get(offsetOf(index), vector);
+        return new Embedding(vector);
+    }
+
+    @Override
+    public void remove(String id) {
+        removeAll(List.of(id));
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        // 调用方传入的可能是List，先转成HashSet，避免逐条记录线性查找
+        Set<String> idSet = new HashSet<>(ids);
+        removeMatching(entry -> idSet.contains(entry.getId()));
+    }
+
+    /**
+     * 删除元数据满足过滤条件的片段（例如某个知识内容的全部片段）
+     */
+    @Override
+    public void removeAll(Filter filter) {
+        removeMatching(entry -> filter.test(entry.toMetadata()));
+    }
+
+    /**
+     * 删除满足条件的片段
+     * 记录删除的ID后检索即跳过这些记录；删除比例较高时压缩文件回收空间
+     *
+     * @return 删除的片段数量
+     */
+    private int removeMatching(Predicate<IndexEntry> predicate) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (IndexEntry entry : entries) {
+                if (!entry.removed && predicate.test(entry) && markRemoved(entry.getId())) {
+                    removedWriter.write(entry.getId());
+                    removedWriter.newLine();
+                    removed++;
+                }
+            }
+            removedWriter.flush();
+            if (removedCount >= MIN_COMPACT_REMOVED && removedCount * 4L > entries.size()) {
+                compact();
+            }
+            return removed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除向量失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 压缩存储：只保留未删除的记录重写向量段和索引文件
+     *
+     * 新文件先写到 *.compact，写完后创建 compact.done 标记再替换原文件；
+     * 替换过程中崩溃时，下次打开根据标记完成替换（见finishCompaction）。
+     */
+    private void compact() throws IOException {
+        Path vectorCompact = directory.resolve(VECTOR_FILE + COMPACT_SUFFIX);
+        Path indexCompact = directory.resolve(INDEX_FILE + COMPACT_SUFFIX);
+        int live = 0;
+        try (FileChannel out = FileChannel.open(vectorCompact, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             BufferedWriter indexOut = Files.newBufferedWriter(indexCompact, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dimension).putInt(0);
+            header.flip();
+            out.write(header);
+
+            ByteBuffer record = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < entries.size(); i++) {
+                IndexEntry entry = entries.get(i);
+                if (entry.removed) {
+                    continue;
+                }
+                record.clear();
+                FloatBuffer vectors = segmentOf(i);
+                int offset = offsetOf(i);
+                for (int d = 0; d < dimension; d++) {
+                    record.putFloat(vectors.get(offset + d));
+                }
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                indexOut.write(objectMapper.writeValueAsString(entry));
+                indexOut.newLine();
+                live++;
+            }
+            out.force(true);
+        }
+        Files.createFile(directory.resolve(COMPACT_DONE_FILE));
+
+        indexWriter.close();
+        removedWriter.close();
+        vectorChannel.close();
+        segments.clear();
+        tailCapacity = 0;
+        entries.clear();
+        positions.clear();
+        removedCount = 0;
+
+        finishCompaction();
+        open();
+        log.info("向量存储已压缩: {}, 保留向量数量: {}", directory, live);
+    }
+
+    /**
+     * 完成上次未完成的压缩：有完成标记时用压缩结果替换原文件，否则丢弃不完整的压缩结果
+     */
+    private void finishCompaction() throws IOException {
+        Path vectorCompact = directory.resolve(VECTOR_FILE + COMPACT_SUFFIX);
+        Path indexCompact = directory.resolve(INDEX_FILE + COMPACT_SUFFIX);
+        Path done = directory.resolve(COMPACT_DONE_FILE);
+        if (Files.exists(done)) {
+            if (Files.exists(vectorCompact)) {
+                Files.move(vectorCompact, vectorPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (Files.exists(indexCompact)) {
+                Files.move(indexCompact, indexPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(removedPath);
+            Files.delete(done);
+        } else {
+            Files.deleteIfExists(vectorCompact);
+            Files.deleteIfExists(indexCompact);
+        }
+    }
+
+    /**
+     * 清空存储（截断所有文件）
+     */
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            segments.clear();
+            tailCapacity = 0;
+            vectorChannel.truncate(0);
+            dimension = 0;
+            indexWriter.close();
+            indexWriter = Files.newBufferedWriter(indexPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            removedWriter.close();
+            removedWriter = Files.newBufferedWriter(removedPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            entries.clear();
+            positions.clear();
+            removedCount = 0;
+            log.info("向量存储已清空: {}", directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空向量存储失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取存储的向量数量（不含已删除的）
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size() - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取已存储片段的某个元数据值集合（例如所属知识内容ID）
+     *
+     * @param key 元数据键
+     * @return 去重后的取值集合
+     */
+    public Set<Long> distinctLongMetadata(String key) {
+        Set<Long> values = new HashSet<>();
+        forEachMetadata(metadata -> {
+            if (metadata.toMap().get(key) instanceof Number number) {
+                values.add(number.longValue());
+            }
+        });
+        return values;
+    }
+
+    /**
+     * 遍历所有未删除片段的元数据（启动时恢复上层的统计和索引状态）
+     *
+     * @param action 处理函数
+     */
+    public void forEachMetadata(Consumer<Metadata> action) {
+        lock.readLock().lock();
+        try {
+            for (IndexEntry entry : entries) {
+                if (!entry.removed) {
+                    action.accept(entry.toMetadata());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 关闭文件句柄
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            indexWriter.close();
+            removedWriter.close();
+            vectorChannel.close();
+        } catch (IOException e) {
+            log.warn("关闭向量存储失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record ScoredIndex(int index, double score) {
+    }
+
+    /**
+     * 索引条目
+     */
+    static class IndexEntry {
+        private String id;
+        private String text;
+        private Map<String, Object> metadata;
+        private Metadata cachedMetadata;
+        // 是否已删除（不序列化，由removed.txt恢复）
+        boolean removed;
+
+        IndexEntry() {
+        }
+
+        IndexEntry(String id, String text, Map<String, Object> metadata) {
+            this.id = id;
+            this.text = text;
+            this.metadata = metadata;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Map<String, Object> getMetadata() {
+            return metadata;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public void setMetadata(Map<String, Object> metadata) {
+            this.metadata = metadata;
+        }
+
+        Metadata toMetadata() {
+            if (cachedMetadata == null) {
+                // JSON反序列化后的小整数为Integer，统一转为Long以保持与写入时一致
+                Map<String, Object> values = new LinkedHashMap<>();
+                if (metadata != null) {
+                    metadata.forEach((key, value) -> values.put(key, value instanceof Integer i ? Long.valueOf(i) : value));
+                }
+                cachedMetadata = Metadata.from(values);
+            }
+            return cachedMetadata;
+        }
+
+        TextSegment toTextSegment() {
+            return text == null ? null : TextSegment.from(text, toMetadata());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package cn.lihengrui.langchain.service;
+
+import cn.lihengrui.langchain.dto.EnhancedSearchResponseDto;
+import cn.lihengrui.langchain.dto.KnowledgeSearchResult;
+import cn.lihengrui.langchain.dto.WebSearchResultDto;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 增强搜索语义结果缓存
+ *
+ * 以查询向量为键缓存完整的增强搜索响应：新查询与缓存查询的余弦相似度
+ * 达到阈值、topK相同且向量存储版本（epoch）未变化时直接返回缓存结果，
+ * 跳过向量检索、联网查询和大模型推理。响应带有完整的知识库和联网结果列表，
+ * 单条大小差异很大，因此按估算的字节数（字符串按UTF-16计，另加固定对象开销）
+ * 限制总容量，超出时按LRU淘汰；超过上限的单条响应不缓存，条目超过TTL后失效。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    /**
+     * 缓存总容量上限（估算字节数）
+     */
+    @Value("${enhanced-search.answer-cache.max-weight-bytes:33554432}")
+    private long maxWeightBytes = 32L * 1024 * 1024;
+
+    /**
+     * 每个对象（响应、结果项、字符串）的估算固定开销（字节）
+     */
+    private static final int OBJECT_OVERHEAD_BYTES = 48;
+
+    /**
+     * 缓存条目存活时间（分钟）
+     */
+    @Value("${enhanced-search.answer-cache.ttl-minutes:10}")
+    private long ttlMinutes = 10;
+
+    /**
+     * 命中所需的最小余弦相似度
+     */
+    @Value("${enhanced-search.answer-cache.similarity-threshold:0.95}")
+    private double similarityThreshold = 0.95;
+
+    // 访问顺序的LinkedHashMap实现LRU
+    private final LinkedHashMap<String, CachedAnswer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    // 当前全部条目的估算字节数
+    private long weightedSizeBytes;
+
+    /**
+     * 查找语义相近的缓存响应
+     *
+     * @param queryEmbedding 查询向量
+     * @param topK 请求的结果数量
+     * @param storeEpoch 当前向量存储版本
+     * @return 命中的缓存响应，未命中时返回null
+     */
+    public synchronized EnhancedSearchResponseDto get(Embedding queryEmbedding, int topK, long storeEpoch) {
+        long now = System.currentTimeMillis();
+        CachedAnswer best = null;
+        double bestSimilarity = similarityThreshold;
+
+        Iterator<CachedAnswer> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedAnswer entry = iterator.next();
+            // 过期或向量存储已变化的条目直接移除
+            if (entry.expiresAt < now || entry.storeEpoch != storeEpoch) {
+                iterator.remove();
+                weightedSizeBytes -= entry.weightBytes;
+                evictionCount.incrementAndGet();
+                continue;
+            }
+            if (entry.topK != topK || entry.embedding.dimension() != queryEmbedding.dimension()) {
+                continue;
+            }
+            double similarity = CosineSimilarity.between(queryEmbedding, entry.embedding);
+            if (similarity >= bestSimilarity) {
+                bestSimilarity = similarity;
+                best = entry;
+            }
+        }
+
+        if (best == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        // 刷新LRU顺序
+        entries.get(best.query);
+        hitCount.incrementAndGet();
+        log.info("语义结果缓存命中: query={}, 相似度={}", best.query, bestSimilarity);
+        return best.response;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param query 原始查询
+     * @param queryEmbedding 查询向量
+     * @param topK 请求的结果数量
+     * @param storeEpoch 生成响应时的向量存储版本
+     * @param response 增强搜索响应
+     */
+    public synchronized void put(String query, Embedding queryEmbedding, int topK, long storeEpoch,
+                                 EnhancedSearchResponseDto response) {
+        long weightBytes = estimateWeight(query, queryEmbedding, response);
+        if (weightBytes > maxWeightBytes) {
+            log.debug("增强搜索响应过大，不缓存: query={}, 估算 {} 字节", query, weightBytes);
+            return;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlMinutes * 60_000L;
+        CachedAnswer previous = entries.put(query,
+                new CachedAnswer(query, queryEmbedding, topK, storeEpoch, expiresAt, response, weightBytes));
+        if (previous != null) {
+            weightedSizeBytes -= previous.weightBytes;
+        }
+        weightedSizeBytes += weightBytes;
+
+        Iterator<CachedAnswer> eldest = entries.values().iterator();
+        while (weightedSizeBytes > maxWeightBytes && eldest.hasNext()) {
+            weightedSizeBytes -= eldest.next().weightBytes;
+            eldest.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weightedSizeBytes = 0;
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public synchronized Map<String, Object> getStats() {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("weightedSizeBytes", weightedSizeBytes);
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("hitCount", hits);
+        stats.put("missCount", missCount.get());
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("evictionCount", evictionCount.get());
+        stats.put("similarityThreshold", similarityThreshold);
+        return stats;
+    }
+
+    /**
+     * 估算一条缓存占用的堆内存
+     */
+    private long estimateWeight(String query, Embedding queryEmbedding, EnhancedSearchResponseDto response) {
+        long weight = OBJECT_OVERHEAD_BYTES * 2L + chars(query) + (long) queryEmbedding.dimension() * Float.BYTES
+                + chars(response.getQuery()) + chars(response.getLlmInference()) + chars(response.getSearchMethod());
+        if (response.getKnowledgeResults() != null) {
+            for (KnowledgeSearchResult result : response.getKnowledgeResults()) {
+                weight += OBJECT_OVERHEAD_BYTES + chars(result.getTitle()) + chars(result.getSummary())
+                        + chars(result.getContent()) + chars(result.getSourceUrl())
+                        + chars(result.getContentType()) + chars(result.getTags());
+            }
+        }
+        if (response.getWebSearchResults() != null) {
+            for (WebSearchResultDto result : response.getWebSearchResults()) {
+                weight += OBJECT_OVERHEAD_BYTES + chars(result.getTitle()) + chars(result.getUrl())
+                        + chars(result.getSnippet()) + chars(result.getSource()) + chars(result.getSearchTime());
+            }
+        }
+        return weight;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0L : OBJECT_OVERHEAD_BYTES + value.length() * 2L;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class CachedAnswer {
+        private final String query;
+        private final Embedding embedding;
+        private final int topK;
+        private final long storeEpoch;
+        private final long expiresAt;
+        private final EnhancedSearchResponseDto response;
+        private final long weightBytes;
+
+        CachedAnswer(String query, Embedding embedding, int topK, long storeEpoch, long expiresAt,
+                     EnhancedSearchResponseDto response, long weightBytes) {
+            this.query = query;
+            this.embedding = embedding;
+            this.topK = topK;
+            this.storeEpoch = storeEpoch;
+            this.expiresAt = expiresAt;
+            this.response = response;
+            this.weightBytes = weightBytes;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package cn.lihengrui.langchain.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 流式数组解码器
+ *
+ * 基于Jackson非阻塞解析器，对响应体中指定路径下的数组（如 data.content）逐个元素解码：
+ * 字节块到达即送入解析器，每个元素的token收齐后立即反序列化并发出，
+ * 不需要把整个响应体聚合进内存，也不受WebClient maxInMemorySize的限制。
+ * 同一个解码器可用于JSON和Smile，取决于传入的ObjectMapper。
+ * 与数组同级的标量字段（如游标分页的 nextAfterId、hasMore）可通过回调取得。
+ *
+ * @param <T> 元素类型
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class StreamingArrayDecoder<T> {
+
+    private final ObjectMapper objectMapper;
+    private final JavaType elementType;
+    private final List<String> arrayPath;
+
+    /**
+     * @param objectMapper 对应数据格式的ObjectMapper（JSON或Smile）
+     * @param elementType 数组元素类型
+     * @param arrayPath 数组所在的字段路径，为空时表示顶层数组
+     */
+    public StreamingArrayDecoder(ObjectMapper objectMapper, Class<T> elementType, String... arrayPath) {
+        this.objectMapper = objectMapper;
+        this.elementType = objectMapper.constructType(elementType);
+        this.arrayPath = Arrays.asList(arrayPath);
+    }
+
+    /**
+     * 解码响应体
+     *
+     * @param body 响应体字节流
+     * @return 数组元素流
+     */
+    public Flux<T> decode(Flux<DataBuffer> body) {
+        return decode(body, (name, value) -> { });
+    }
+
+    /**
+     * 解码响应体，并把数组同级的标量字段交给回调
+     * 回调在解析到该字段时调用，早于或晚于数组元素取决于字段在响应体中的位置
+     *
+     * @param body 响应体字节流
+     * @param siblingFieldHandler 同级标量字段回调（字段名, 值）
+     * @return 数组元素流
+     */
+    public Flux<T> decode(Flux<DataBuffer> body, BiConsumer<String, Object> siblingFieldHandler) {
+        return Flux.defer(() -> {
+            DecodeState state = new DecodeState(siblingFieldHandler);
+            return body.concatMapIterable(state::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(state.endOfInput())))
+                    .doFinally(signal -> state.close());
+        });
+    }
+
+    /**
+     * 单次解码的解析状态
+     */
+    private class DecodeState {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final BiConsumer<String, Object> siblingFieldHandler;
+
+        // 正在收集的元素token及其嵌套深度
+        private TokenBuffer elementTokens;
+        private int elementDepth;
+
+        DecodeState(BiConsumer<String, Object> siblingFieldHandler) {
+            this.siblingFieldHandler = siblingFieldHandler;
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new DecodingException("创建非阻塞解析器失败", e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<T> feed(DataBuffer buffer) {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            DataBufferUtils.release(buffer);
+
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                return drain();
+            } catch (IOException e) {
+                throw new DecodingException("解码响应体失败: " + e.getMessage(), e);
+            }
+        }
+
+        List<T> endOfInput() {
+            feeder.endOfInput();
+            try {
+                return drain();
+            } catch (IOException e) {
+                throw new DecodingException("解码响应体失败: " + e.getMessage(), e);
+            }
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // 关闭失败不影响已解码的元素
+            }
+        }
+
+        /**
+         * 消费当前已送入的全部token，返回其中完整的元素
+         */
+        private List<T> drain() throws IOException {
+            List<T> elements = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (elementTokens != null) {
+                    elementTokens.copyCurrentEvent(parser);
+                    if (token.isStructStart()) {
+                        elementDepth++;
+                    } else if (token.isStructEnd() && --elementDepth == 0) {
+                        elements.add(objectMapper.readValue(elementTokens.asParser(objectMapper), elementType));
+                        elementTokens = null;
+                    }
+                } else if (token.isStructStart() && isTargetArray(parser.getParsingContext().getParent())) {
+                    elementTokens = new TokenBuffer(parser);
+                    elementTokens.copyCurrentEvent(parser);
+                    elementDepth = 1;
+                } else if (token.isScalarValue() && isTargetArray(parser.getParsingContext())) {
+                    elements.add(objectMapper.readValue(parser, elementType));
+                } else if (token.isScalarValue() && isSiblingField(parser.getParsingContext())) {
+                    siblingFieldHandler.accept(parser.getCurrentName(), objectMapper.readValue(parser, Object.class));
+                }
+            }
+            return elements;
+        }
+
+        /**
+         * 判断上下文是否为目标路径上的数组
+         */
+        private boolean isTargetArray(JsonStreamContext context) {
+            if (context == null || !context.inArray()) {
+                return false;
+            }
+            return matchesPath(context.getParent(), arrayPath.size());
+        }
+
+        /**
+         * 判断上下文是否为目标数组所在的对象，且当前字段不是该数组
+         */
+        private boolean isSiblingField(JsonStreamContext context) {
+            if (arrayPath.isEmpty() || !context.inObject()
+                    || arrayPath.get(arrayPath.size() - 1).equals(context.getCurrentName())) {
+                return false;
+            }
+            return matchesPath(context.getParent(), arrayPath.size() - 1);
+        }
+
+        /**
+         * 判断从current开始向上的对象上下文是否依次对应路径的前depth段，且终止于根
+         */
+        private boolean matchesPath(JsonStreamContext current, int depth) {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (current == null || !current.inObject() || !arrayPath.get(i).equals(current.getCurrentName())) {
+                    return false;
+                }
+                current = current.getParent();
+            }
+            return current != null && current.inRoot();
+        }
+    }
+}
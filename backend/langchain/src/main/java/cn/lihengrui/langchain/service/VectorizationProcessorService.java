@@ -5,8 +5,11 @@ import cn.lihengrui.langchain.dto.KnowledgeContentDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,9 +29,14 @@ public class VectorizationProcessorService {
     
     private final ApiClientService apiClientService;
     private final VectorizationService vectorizationService;
-    private final FaissVectorStore faissVectorStore;
+    private final KnowledgeVectorIndex knowledgeVectorIndex;
     private final EmailNotificationService emailNotificationService;
     
+    /**
+     * 全量导入时每批写入索引的记录数
+     */
+    private static final int INGEST_BATCH_SIZE = 100;
+    
     /**
      * 处理所有知识内容的向量化
      * 
@@ -41,29 +49,53 @@ public class VectorizationProcessorService {
         try {
             log.info("开始处理所有知识内容的向量化...");
             
-            // 1. 从API获取所有知识内容
-            List<KnowledgeContentDto> contents = apiClientService.getAllKnowledgeContent();
-            for (KnowledgeContentDto content : contents) {
-                log.info("处理知识内容: {}", content.getSummary());
+            // 1. 从API的NDJSON导出流逐行获取知识内容，每凑满一批即写入索引（拉取与向量化重叠进行）；
+            //    导出流断开时由ApiClientService从断点改用键集分页继续，最终仍失败时保留已写入的批次并如实统计
+            List<ProcessResult> batchResults = new ArrayList<>();
+            StringBuilder errorMessages = new StringBuilder();
+            try {
+                apiClientService.streamExportedKnowledgeContent()
+                        .buffer(INGEST_BATCH_SIZE)
+                        .concatMap(batch -> Mono.fromCallable(() -> processKnowledgeContentBatchWithResult(batch))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .doOnNext(batchResults::add)
+                        .then()
+                        .block();
+            } catch (Exception e) {
+                log.error("拉取知识内容中断，已写入 {} 批", batchResults.size(), e);
+                errorMessages.append("拉取中断: ").append(e.getMessage());
             }
             
-            if (contents.isEmpty()) {
+            int totalCount = 0;
+            int successCount = 0;
+            for (ProcessResult batchResult : batchResults) {
+                totalCount += batchResult.successCount + batchResult.failureCount;
+                successCount += batchResult.successCount;
+                if (batchResult.errorMessage != null) {
+                    if (errorMessages.length() > 0) {
+                        errorMessages.append("; ");
+                    }
+                    errorMessages.append(batchResult.errorMessage);
+                }
+            }
+            
+            if (totalCount == 0) {
                 log.warn("未获取到任何知识内容");
                 
                 // 发送空结果通知
                 sendNotification(startTime, 0, 0, 0, 
-                        System.currentTimeMillis() - processingStart, "全量导入", null);
+                        System.currentTimeMillis() - processingStart, "全量导入",
+                        errorMessages.length() > 0 ? errorMessages.toString() : null);
                 return 0;
             }
             
-            log.info("获取到 {} 条知识内容记录", contents.size());
-            
-            // 2. 批量向量化处理
-            ProcessResult result = processKnowledgeContentBatchWithResult(contents);
+            log.info("获取并处理 {} 条知识内容记录", totalCount);
+            ProcessResult result = new ProcessResult(successCount, totalCount - successCount,
+                    errorMessages.length() > 0 ? errorMessages.toString() : null);
             
-            // 3. 发送成功通知
+            // 2. 发送成功通知
             sendNotification(startTime, result.successCount, result.failureCount, 
-                    contents.size(), System.currentTimeMillis() - processingStart, 
+                    totalCount, System.currentTimeMillis() - processingStart, 
                     "全量导入", result.errorMessage);
             
             return result.successCount;
@@ -156,50 +188,60 @@ public class VectorizationProcessorService {
     }
     
     /**
-     * 批量处理知识内容向量化
-     * 
-     * @param contents 知识内容列表
+     * 按ID列表重建知识内容的向量索引
+     * 通过批量获取接口一次拉取全部内容，替代逐条GET
+     *
+     * @param contentIds 内容ID列表
      * @return 处理的记录数
      */
-    private int processKnowledgeContentBatch(List<KnowledgeContentDto> contents) {
-        int processedCount = 0;
-        int successCount = 0;
+    public int processKnowledgeContentByIds(List<Long> contentIds) {
+        LocalDateTime startTime = LocalDateTime.now();
+        long processingStart = System.currentTimeMillis();
         
         try {
-            // 批量向量化
-            Map<Long, float[]> vectors = new java.util.HashMap<>();
-            Map<Long, KnowledgeContentDto> contentMap = new java.util.HashMap<>();
+            log.info("开始按ID重建向量索引: 共 {} 个ID", contentIds.size());
             
-            for (KnowledgeContentDto content : contents) {
-                try {
-                    // 向量化
-                    float[] vector = vectorizationService.vectorize(content);
-                    vectors.put(content.getId(), vector);
-                    contentMap.put(content.getId(), content);
-                    
-                    processedCount++;
-                    
-                    if (processedCount % 10 == 0) {
-                        log.info("已处理 {} 条记录", processedCount);
-                    }
-                    
-                } catch (Exception e) {
-                    log.error("向量化失败: ID={}, 标题={}", content.getId(), content.getTitle(), e);
-                }
+            // 1. 批量获取指定知识内容
+            List<KnowledgeContentDto> contents = apiClientService.getKnowledgeContentByIds(contentIds);
+            
+            if (contents.isEmpty()) {
+                log.warn("按ID未获取到任何知识内容");
+                sendNotification(startTime, 0, 0, 0,
+                        System.currentTimeMillis() - processingStart, "按ID重建", null);
+                return 0;
             }
             
-            // 批量存储到FAISS
-            if (!vectors.isEmpty()) {
-                faissVectorStore.addVectors(vectors, contentMap);
-                successCount = vectors.size();
-                log.info("批量向量化完成: 处理 {} 条，成功 {} 条", processedCount, successCount);
+            if (contents.size() < contentIds.size()) {
+                log.warn("部分ID未找到知识内容: 请求 {} 个, 获取到 {} 条", contentIds.size(), contents.size());
             }
             
+            // 2. 批量向量化处理
+            ProcessResult result = processKnowledgeContentBatchWithResult(contents);
+            
+            // 3. 发送通知
+            sendNotification(startTime, result.successCount, result.failureCount,
+                    contents.size(), System.currentTimeMillis() - processingStart,
+                    "按ID重建", result.errorMessage);
+            
+            return result.successCount;
+            
         } catch (Exception e) {
-            log.error("批量向量化处理失败", e);
+            log.error("按ID重建向量索引失败", e);
+            
+            sendNotification(startTime, 0, 0, 0,
+                    System.currentTimeMillis() - processingStart, "按ID重建", e.getMessage());
+            return 0;
         }
-        
-        return successCount;
+    }
+    
+    /**
+     * 批量处理知识内容向量化
+     * 
+     * @param contents 知识内容列表
+     * @return 处理的记录数
+     */
+    private int processKnowledgeContentBatch(List<KnowledgeContentDto> contents) {
+        return processKnowledgeContentBatchWithResult(contents).successCount;
     }
     
     /**
@@ -210,11 +252,10 @@ public class VectorizationProcessorService {
      */
     private boolean processKnowledgeContent(KnowledgeContentDto content) {
         try {
-            // 向量化
-            float[] vector = vectorizationService.vectorize(content);
-            
-            // 存储到FAISS
-            faissVectorStore.addVector(content.getId(), vector, content);
+            // 写入知识向量索引的全部向量字段
+            if (!knowledgeVectorIndex.indexDocument(content)) {
+                return false;
+            }
             
             log.info("成功处理知识内容向量化: ID={}, 标题={}", content.getId(), content.getTitle());
             return true;
@@ -243,8 +284,8 @@ public class VectorizationProcessorService {
             
             float[] queryVector = vectorizationService.vectorize(queryContent);
             
-            // 在FAISS中搜索
-            List<FaissVectorStore.SimilarityResult> results = faissVectorStore.searchSimilar(queryVector, topK);
+            // 在知识向量索引的lexicalHash字段中搜索
+            List<FaissVectorStore.SimilarityResult> results = knowledgeVectorIndex.searchLexical(queryVector, topK);
             
             log.info("搜索完成: 找到 {} 个相似结果", results.size());
             return results;
@@ -263,7 +304,8 @@ public class VectorizationProcessorService {
     public Map<String, Object> getVectorStoreStats() {
         try {
             Map<String, Object> stats = new java.util.HashMap<>();
-            stats.put("vectorCount", faissVectorStore.getVectorCount());
+            stats.put("vectorCount", knowledgeVectorIndex.getDocumentCount());
+            stats.put("index", knowledgeVectorIndex.getStats());
             
             // 测试API连接状态
             boolean apiConnectionStatus = apiClientService.testConnection();
@@ -379,7 +421,7 @@ public class VectorizationProcessorService {
      */
     public void clearVectorStore() {
         try {
-            faissVectorStore.clearAll();
+            knowledgeVectorIndex.clear();
             log.info("向量存储已清空");
         } catch (Exception e) {
             log.error("清空向量存储失败", e);
@@ -391,7 +433,7 @@ public class VectorizationProcessorService {
      */
     public void saveVectorStore() {
         try {
-            faissVectorStore.saveToFile();
+            knowledgeVectorIndex.snapshot();
             log.info("向量存储已保存到文件");
         } catch (Exception e) {
             log.error("保存向量存储失败", e);
@@ -403,7 +445,7 @@ public class VectorizationProcessorService {
      */
     public void loadVectorStore() {
         try {
-            faissVectorStore.loadFromFile();
+            knowledgeVectorIndex.restore();
             log.info("向量存储已从文件加载");
         } catch (Exception e) {
             log.error("加载向量存储失败", e);
@@ -432,53 +474,11 @@ public class VectorizationProcessorService {
      * @return 处理结果
      */
     private ProcessResult processKnowledgeContentBatchWithResult(List<KnowledgeContentDto> contents) {
-        int processedCount = 0;
-        int successCount = 0;
-        StringBuilder errorMessages = new StringBuilder();
-        
-        try {
-            // 批量向量化
-            Map<Long, float[]> vectors = new java.util.HashMap<>();
-            Map<Long, KnowledgeContentDto> contentMap = new java.util.HashMap<>();
-            
-            for (KnowledgeContentDto content : contents) {
-                try {
-                    // 向量化
-                    float[] vector = vectorizationService.vectorize(content);
-                    vectors.put(content.getId(), vector);
-                    contentMap.put(content.getId(), content);
-                    
-                    processedCount++;
-                    
-                    if (processedCount % 10 == 0) {
-                        log.info("已处理 {} 条记录", processedCount);
-                    }
-                    
-                } catch (Exception e) {
-                    log.error("向量化失败: ID={}, 标题={}", content.getId(), content.getTitle(), e);
-                    if (errorMessages.length() > 0) {
-                        errorMessages.append("; ");
-                    }
-                    errorMessages.append("ID=").append(content.getId()).append(": ").append(e.getMessage());
-                }
-            }
-            
-            // 批量存储到FAISS
-            if (!vectors.isEmpty()) {
-                faissVectorStore.addVectors(vectors, contentMap);
-                successCount = vectors.size();
-                log.info("批量向量化完成: 处理 {} 条，成功 {} 条", processedCount, successCount);
-            }
-            
-        } catch (Exception e) {
-            log.error("批量向量化处理失败", e);
-            errorMessages.append("批量处理失败: ").append(e.getMessage());
-        }
-        
-        int failureCount = contents.size() - successCount;
-        String errorMessage = errorMessages.length() > 0 ? errorMessages.toString() : null;
+        // 一次写入知识向量索引的lexicalHash和minilm字段
+        KnowledgeVectorIndex.IndexResult result = knowledgeVectorIndex.indexDocuments(contents);
+        log.info("批量向量化完成: 处理 {} 条，成功 {} 条", contents.size(), result.getSuccessCount());
         
-        return new ProcessResult(successCount, failureCount, errorMessage);
+        return new ProcessResult(result.getSuccessCount(), result.getFailureCount(), result.getErrorMessage());
     }
     
     /**
@@ -3,16 +3,25 @@ package cn.lihengrui.langchain.service;
 import cn.lihengrui.langchain.dto.KnowledgeContentDto;
 import cn.lihengrui.langchain.dto.KnowledgeSearchRequest;
 import cn.lihengrui.langchain.dto.KnowledgeSearchResponse;
-import cn.lihengrui.langchain.service.WebSearchService;
+import cn.lihengrui.langchain.dto.LangChainSearchResult;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,11 +46,20 @@ class EnhancedKnowledgeSearchServiceTest {
     @Mock
     private WebSearchService webSearchService;
 
+    @Mock
+    private VectorizationService vectorizationService;
+
+    @Mock
+    private FaissVectorStore faissVectorStore;
+
     private EnhancedKnowledgeSearchService enhancedKnowledgeSearchService;
 
     @BeforeEach
     void setUp() {
-        enhancedKnowledgeSearchService = new EnhancedKnowledgeSearchService(langChainService, apiClientService, webSearchService);
+        KnowledgeVectorIndex knowledgeVectorIndex =
+                new KnowledgeVectorIndex(vectorizationService, faissVectorStore, langChainService);
+        enhancedKnowledgeSearchService = new EnhancedKnowledgeSearchService(
+                langChainService, knowledgeVectorIndex, apiClientService, webSearchService, new SemanticAnswerCache());
     }
 
     @Test
@@ -51,10 +69,10 @@ class EnhancedKnowledgeSearchServiceTest {
         request.setQuery("测试查询");
         request.setTopK(5);
 
-        List<cn.lihengrui.langchain.dto.LangChainSearchResult> mockResults = Arrays.asList(
-                new cn.lihengrui.langchain.dto.LangChainSearchResult("文档1", 0.9),
-                new cn.lihengrui.langchain.dto.LangChainSearchResult("文档2", 0.8),
-                new cn.lihengrui.langchain.dto.LangChainSearchResult("文档3", 0.7)
+        List<LangChainSearchResult> mockResults = Arrays.asList(
+                new LangChainSearchResult("文档1", 0.9),
+                new LangChainSearchResult("文档2", 0.8),
+                new LangChainSearchResult("文档3", 0.7)
         );
         when(langChainService.searchRelevantDocumentsWithSimilarity(anyString(), anyInt()))
                 .thenReturn(mockResults);
@@ -176,7 +194,8 @@ class EnhancedKnowledgeSearchServiceTest {
         // Then
         assertEquals(2, result);
         verify(apiClientService).getAllKnowledgeContent(page, size);
-        verify(langChainService, times(2)).addDocument(anyString(), anyString());
+        verify(langChainService, times(2)).addDocument(anyLong(), anyString(), anyString());
+        verify(faissVectorStore, times(2)).addVector(anyLong(), any(), any(KnowledgeContentDto.class));
     }
 
     @Test
@@ -194,7 +213,7 @@ class EnhancedKnowledgeSearchServiceTest {
         // Then
         assertEquals(0, result);
         verify(apiClientService).getAllKnowledgeContent(page, size);
-        verify(langChainService, never()).addDocument(anyString(), anyString());
+        verify(langChainService, never()).addDocument(any(), anyString(), anyString());
     }
 
     @Test
@@ -212,7 +231,7 @@ class EnhancedKnowledgeSearchServiceTest {
         // Then
         assertEquals(0, result);
         verify(apiClientService).getAllKnowledgeContent(page, size);
-        verify(langChainService, never()).addDocument(anyString(), anyString());
+        verify(langChainService, never()).addDocument(any(), anyString(), anyString());
     }
 
     @Test
@@ -252,6 +271,221 @@ class EnhancedKnowledgeSearchServiceTest {
         // Then
         assertEquals(0, result);
         verify(apiClientService).getAllKnowledgeContent(page, size);
-        verify(langChainService, never()).addDocument(anyString(), anyString());
+        verify(langChainService, never()).addDocument(any(), anyString(), anyString());
+    }
+
+    @Test
+    void testEnhancedSearchWithWebFallback_SimilarQueryServedFromSemanticCache() {
+        // Given
+        KnowledgeSearchRequest request = new KnowledgeSearchRequest();
+        request.setQuery("如何配置Spring Boot");
+        request.setTopK(1);
+        KnowledgeSearchRequest similarRequest = new KnowledgeSearchRequest();
+        similarRequest.setQuery("Spring Boot如何配置");
+        similarRequest.setTopK(1);
+
+        when(langChainService.getStoreEpoch()).thenReturn(1L);
+        when(langChainService.embedQuery(request.getQuery()))
+                .thenReturn(Embedding.from(new float[]{1f, 0f, 0f}));
+        when(langChainService.embedQuery(similarRequest.getQuery()))
+                .thenReturn(Embedding.from(new float[]{0.99f, 0.05f, 0f}));
+        when(langChainService.searchRelevantDocumentsWithSimilarity(anyString(), anyInt()))
+                .thenReturn(List.of(new LangChainSearchResult("标题: Spring Boot配置\n\n内容", 0.9)));
+        when(langChainService.askQuestion(anyString(), anyList())).thenReturn("回答");
+
+        // When
+        var first = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(request);
+        var second = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(similarRequest);
+
+        // Then
+        assertFalse(first.getCacheHit());
+        assertTrue(second.getCacheHit());
+        assertEquals("回答", second.getLlmInference());
+        assertEquals(similarRequest.getQuery(), second.getQuery());
+        verify(langChainService, times(1)).searchRelevantDocumentsWithSimilarity(anyString(), anyInt());
+        verify(langChainService, times(1)).askQuestion(anyString(), anyList());
+        // 推测性联网默认关闭，知识库结果足够时不发起外部请求
+        verify(webSearchService, never()).searchBaidu(anyString(), anyInt());
+    }
+
+    @Test
+    void testEnhancedSearchWithWebFallback_DegradedResponseIsNotCached() {
+        // Given
+        ReflectionTestUtils.setField(enhancedKnowledgeSearchService, "llmDeadlineMs", 100L);
+        KnowledgeSearchRequest request = new KnowledgeSearchRequest();
+        request.setQuery("如何配置Spring Boot");
+        request.setTopK(1);
+
+        when(langChainService.getStoreEpoch()).thenReturn(1L);
+        when(langChainService.embedQuery(request.getQuery()))
+                .thenReturn(Embedding.from(new float[]{1f, 0f, 0f}));
+        when(langChainService.searchRelevantDocumentsWithSimilarity(anyString(), anyInt()))
+                .thenReturn(List.of(new LangChainSearchResult("标题: Spring Boot配置\n\n内容", 0.9)));
+        when(langChainService.askQuestion(anyString(), anyList())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return "回答";
+        });
+
+        // When
+        var first = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(request);
+        var second = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(request);
+
+        // Then
+        assertTrue(first.getLlmInference().contains("超时"));
+        assertFalse(second.getCacheHit());
+        verify(langChainService, times(2)).askQuestion(anyString(), anyList());
+    }
+
+    @Test
+    void testEnhancedSearchWithWebFallback_KnowledgeDeadlineFallsBackToWebResults() {
+        // Given
+        ReflectionTestUtils.setField(enhancedKnowledgeSearchService, "knowledgeDeadlineMs", 100L);
+        ReflectionTestUtils.setField(enhancedKnowledgeSearchService, "speculativeWebSearchEnabled", true);
+        KnowledgeSearchRequest request = new KnowledgeSearchRequest();
+        request.setQuery("慢查询");
+        request.setTopK(3);
+        when(langChainService.searchRelevantDocumentsWithSimilarity(anyString(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return List.of();
+        });
+        WebSearchService.WebSearchResult webResult = new WebSearchService.WebSearchResult();
+        webResult.setTitle("联网结果");
+        webResult.setUrl("https://example.com");
+        when(webSearchService.searchBaidu("慢查询", 3)).thenReturn(List.of(webResult));
+
+        // When
+        var response = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(request);
+
+        // Then
+        assertEquals(0, response.getKnowledgeResultCount());
+        assertTrue(response.getWebSearchTriggered());
+        assertTrue(response.getSpeculativeWebSearch());
+        assertEquals(1, response.getWebSearchResultCount());
+        assertEquals("联网结果", response.getWebSearchResults().get(0).getTitle());
+    }
+
+    @Test
+    void testEnhancedSearchWithWebFallback_SufficientKnowledgeCancelsSpeculativeWebSearch() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(enhancedKnowledgeSearchService, "speculativeWebSearchEnabled", true);
+        KnowledgeSearchRequest request = new KnowledgeSearchRequest();
+        request.setQuery("Spring Boot配置");
+        request.setTopK(1);
+        CountDownLatch webStarted = new CountDownLatch(1);
+        CountDownLatch webInterrupted = new CountDownLatch(1);
+        when(webSearchService.searchBaidu(anyString(), anyInt())).thenAnswer(invocation -> {
+            webStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                webInterrupted.countDown();
+                throw e;
+            }
+            return List.of();
+        });
+        when(langChainService.searchRelevantDocumentsWithSimilarity(anyString(), anyInt())).thenAnswer(invocation -> {
+            // 确保推测任务已开始执行，再返回足够相关的知识库结果
+            webStarted.await(5, TimeUnit.SECONDS);
+            return List.of(new LangChainSearchResult("标题: Spring Boot配置\n\n内容", 0.9));
+        });
+
+        // When
+        var response = enhancedKnowledgeSearchService.enhancedSearchWithWebFallback(request);
+
+        // Then
+        assertFalse(response.getWebSearchTriggered());
+        assertTrue(response.getSpeculativeWebSearch());
+        assertEquals(0, response.getWebSearchResultCount());
+        assertTrue(webInterrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStreamAskQuestion_ForwardsModelTokensThroughStreamAnswer() throws Exception {
+        // Given：真实的LangChainService.streamAnswer驱动本地流式模型，只替换检索
+        String question = "什么是Spring Boot？";
+        LangChainService streamingLangChainService = spy(new LangChainService());
+        ReflectionTestUtils.setField(streamingLangChainService, "streamingChatModel",
+                new FakeStreamingChatModel("Spring Boot是一个框架", 5));
+        doReturn(List.of("Spring Boot文档")).when(streamingLangChainService).searchRelevantDocuments(question, 5);
+        EnhancedKnowledgeSearchService service = new EnhancedKnowledgeSearchService(streamingLangChainService,
+                new KnowledgeVectorIndex(vectorizationService, faissVectorStore, streamingLangChainService),
+                apiClientService, webSearchService, new SemanticAnswerCache());
+        CapturingSseEmitter emitter = new CapturingSseEmitter();
+
+        // When
+        service.streamAskQuestion(question, emitter);
+
+        // Then
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(emitter.events.get(0).contains("event:retrieval"));
+        assertTrue(emitter.events.get(1).contains("event:token"));
+        assertTrue(emitter.events.get(emitter.events.size() - 1).contains("event:done"));
+        assertTrue(emitter.events.get(emitter.events.size() - 1).contains("Spring Boot是一个框架"));
+        assertEquals(4 + 2, emitter.events.size());
+        verify(streamingLangChainService).streamAnswer(eq(question), eq(List.of("Spring Boot文档")), any());
+        service.shutdown();
+    }
+
+    @Test
+    void testStreamAskQuestion_CancelStopsGeneration() throws Exception {
+        // Given
+        String question = "什么是Spring Boot？";
+        CountDownLatch firstToken = new CountDownLatch(1);
+        CountDownLatch cancelRequested = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        when(langChainService.searchRelevantDocuments(question, 5)).thenReturn(List.of("Spring Boot文档"));
+        doAnswer(invocation -> {
+            StreamingResponseHandler<AiMessage> handler =
+                    invocation.getArgument(2);
+            handler.onNext("第一段");
+            firstToken.countDown();
+            try {
+                cancelRequested.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // 取消时执行线程会被中断
+            }
+            try {
+                handler.onNext("第二段");
+            } catch (CancellationException e) {
+                aborted.countDown();
+            }
+            return null;
+        }).when(langChainService).streamAnswer(eq(question), anyList(), any());
+
+        CapturingSseEmitter emitter = new CapturingSseEmitter();
+
+        // When
+        Runnable cancellation = enhancedKnowledgeSearchService.streamAskQuestion(question, emitter);
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+        cancellation.run();
+        cancelRequested.countDown();
+
+        // Then
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(1).contains("event:token"));
+        assertFalse(emitter.events.stream().anyMatch(event -> event.contains("event:done")));
+        assertEquals(1, emitter.completed.getCount());
+    }
+
+    /**
+     * 记录推送的SSE事件和完成信号的SseEmitter
+     */
+    private static class CapturingSseEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
     }
 }
@@ -0,0 +1,36 @@
+package cn.lihengrui.langchain.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * 测试用的本地流式聊天模型
+ * 将预设答案按固定长度切分后依次回调onNext，不访问任何外部服务
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+class FakeStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final String answer;
+    private final int tokenLength;
+
+    FakeStreamingChatModel(String answer, int tokenLength) {
+        this.answer = answer;
+        this.tokenLength = tokenLength;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        for (int i = 0; i < answer.length(); i += tokenLength) {
+            handler.onNext(answer.substring(i, Math.min(answer.length(), i + tokenLength)));
+        }
+        handler.onComplete(Response.from(AiMessage.from(answer)));
+    }
+}
@@ -1,9 +1,12 @@
 package cn.lihengrui.langchain.service;
 
+import cn.lihengrui.langchain.dto.LangChainSearchResult;
+import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,16 +54,16 @@ class LangChainServiceTest {
         String content = "测试内容";
         String metadata = "测试元数据";
         Embedding mockEmbedding = mock(Embedding.class);
-        TextSegment mockSegment = mock(TextSegment.class);
 
-        when(embeddingModel.embed(any(TextSegment.class))).thenReturn(dev.langchain4j.model.output.Response.from(mockEmbedding));
+        when(embeddingModel.embedAll(anyList())).thenReturn(dev.langchain4j.model.output.Response.from(List.of(mockEmbedding)));
 
         // When
         assertDoesNotThrow(() -> langChainService.addDocument(content, metadata));
 
         // Then
-        verify(embeddingModel).embed(any(TextSegment.class));
-        verify(embeddingStore).add(any(Embedding.class), any(TextSegment.class));
+        verify(embeddingModel).embedAll(anyList());
+        verify(embeddingStore).addAll(anyList(), anyList());
+        assertEquals(1, langChainService.getVectorCount());
     }
 
     @Test
@@ -69,7 +72,7 @@ class LangChainServiceTest {
         String content = "测试内容";
         String metadata = "测试元数据";
         
-        when(embeddingModel.embed(any(TextSegment.class)))
+        when(embeddingModel.embedAll(anyList()))
                 .thenThrow(new RuntimeException("嵌入模型错误"));
 
         // When & Then
@@ -85,7 +88,7 @@ class LangChainServiceTest {
         Embedding mockEmbedding = mock(Embedding.class);
         
         when(embeddingModel.embed(query)).thenReturn(dev.langchain4j.model.output.Response.from(mockEmbedding));
-        when(embeddingStore.findRelevant(any(Embedding.class), eq(maxResults)))
+        when(embeddingStore.findRelevant(any(Embedding.class), anyInt()))
                 .thenReturn(List.of());
 
         // When
@@ -95,7 +98,129 @@ class LangChainServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
         verify(embeddingModel).embed(query);
-        verify(embeddingStore).findRelevant(any(Embedding.class), eq(maxResults));
+        verify(embeddingStore).findRelevant(any(Embedding.class), anyInt());
+    }
+
+    @Test
+    void testEmbedQuery_RepeatedNormalizedQueryHitsCache() {
+        // Given
+        Embedding embedding = Embedding.from(new float[]{0.1f, 0.2f, 0.3f});
+        when(embeddingModel.embed(anyString())).thenReturn(dev.langchain4j.model.output.Response.from(embedding));
+
+        // When
+        Embedding first = langChainService.embedQuery("Spring Boot 配置");
+        Embedding second = langChainService.embedQuery("  Spring   Boot 配置 ");
+        langChainService.embedQuery("spring boot 配置");
+
+        // Then：空白差异命中缓存，大小写不同则单独计算，向量都由规范化文本生成
+        assertSame(first, second);
+        verify(embeddingModel, times(1)).embed("Spring Boot 配置");
+        verify(embeddingModel, times(1)).embed("spring boot 配置");
+        verify(embeddingModel, times(2)).embed(anyString());
+        assertEquals(1L, langChainService.getQueryEmbeddingCacheStats().get("hitCount"));
+        assertEquals(2L, langChainService.getQueryEmbeddingCacheStats().get("missCount"));
+
+        // 失效后重新计算
+        langChainService.invalidateQueryEmbeddingCache();
+        langChainService.embedQuery("Spring Boot 配置");
+        verify(embeddingModel, times(3)).embed(anyString());
+    }
+
+    @Test
+    void testAddDocument_LongContentIsChunkedWithParentMetadata() {
+        // Given
+        String content = "Spring Boot 知识库内容片段。".repeat(200);
+        when(embeddingModel.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            return dev.langchain4j.model.output.Response.from(
+                    segments.stream().map(s -> mock(Embedding.class)).toList());
+        });
+
+        // When
+        int segmentCount = langChainService.addDocument(42L, content, "长文档");
+
+        // Then
+        assertTrue(segmentCount > 1);
+        verify(embeddingStore).addAll(anyList(), argThat(segments -> segments.stream()
+                .allMatch(s -> Long.valueOf(42L).equals(((TextSegment) s).metadata().getLong(LangChainService.METADATA_PARENT_ID)))));
+        assertEquals(segmentCount, langChainService.getVectorCount());
+        assertEquals(1, langChainService.getDocumentCount());
+    }
+
+    @Test
+    void testAddDocument_EditedContentReplacesPreviousChunks() {
+        // Given
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        ReflectionTestUtils.setField(langChainService, "embeddingStore", store);
+        when(embeddingModel.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            return dev.langchain4j.model.output.Response.from(
+                    segments.stream().map(s -> Embedding.from(new float[]{1f, 0f})).toList());
+        });
+
+        // When
+        langChainService.addDocument(7L, "旧版本内容", "标题");
+        int unchanged = langChainService.addDocument(7L, "旧版本内容", "标题");
+        int edited = langChainService.addDocument(7L, "编辑后的内容", "标题");
+
+        // Then
+        assertEquals(0, unchanged);
+        assertEquals(1, edited);
+        verify(embeddingModel, times(2)).embedAll(anyList());
+        List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{1f, 0f}), 10);
+        assertEquals(1, matches.size());
+        assertEquals("编辑后的内容", matches.get(0).embedded().text());
+        assertEquals(1, langChainService.getVectorCount());
+        assertEquals(1, langChainService.getDocumentCount());
+    }
+
+    @Test
+    void testRemoveDocument_DeletesChunksAndAllowsReindexing() {
+        // Given
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        ReflectionTestUtils.setField(langChainService, "embeddingStore", store);
+        when(embeddingModel.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            return dev.langchain4j.model.output.Response.from(
+                    segments.stream().map(s -> Embedding.from(new float[]{0f, 1f})).toList());
+        });
+        langChainService.addDocument(8L, "待删除的内容", "标题");
+
+        // When
+        int removed = langChainService.removeDocument(8L);
+
+        // Then
+        assertEquals(1, removed);
+        assertFalse(langChainService.isDocumentIndexed(8L));
+        assertEquals(0, langChainService.getVectorCount());
+        assertTrue(store.findRelevant(Embedding.from(new float[]{0f, 1f}), 10).isEmpty());
+        assertEquals(1, langChainService.addDocument(8L, "待删除的内容", "标题"));
+    }
+
+    @Test
+    void testSearchRelevantDocumentsWithSimilarity_DedupByParent() {
+        // Given
+        Embedding queryEmbedding = mock(Embedding.class);
+        when(embeddingModel.embed("查询")).thenReturn(dev.langchain4j.model.output.Response.from(queryEmbedding));
+        when(embeddingStore.findRelevant(any(Embedding.class), eq(6))).thenReturn(List.of(
+                new EmbeddingMatch<>(0.9, "a", null, segment("片段A1", 1L)),
+                new EmbeddingMatch<>(0.8, "b", null, segment("片段A2", 1L)),
+                new EmbeddingMatch<>(0.7, "c", null, segment("片段B1", 2L))));
+
+        // When
+        List<LangChainSearchResult> results = langChainService.searchRelevantDocumentsWithSimilarity("查询", 2);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getParentId());
+        assertEquals("片段A1", results.get(0).getContent());
+        assertEquals(2L, results.get(1).getParentId());
+    }
+
+    private TextSegment segment(String text, Long parentId) {
+        Metadata metadata = new Metadata();
+        metadata.put(LangChainService.METADATA_PARENT_ID, parentId);
+        return TextSegment.from(text, metadata);
     }
 
     @Test
@@ -162,6 +287,39 @@ class LangChainServiceTest {
         assertTrue(result.contains("抱歉，我在知识库中没有找到"));
     }
 
+    @Test
+    void testStreamAnswer_EmitsTokensThenComplete() {
+        // Given
+        ReflectionTestUtils.setField(langChainService, "streamingChatModel",
+                new FakeStreamingChatModel("Spring Boot是一个框架", 4));
+        List<String> tokens = new java.util.ArrayList<>();
+        StringBuilder completed = new StringBuilder();
+
+        // When
+        langChainService.streamAnswer("什么是Spring Boot", List.of("上下文"),
+                new dev.langchain4j.model.StreamingResponseHandler<>() {
+                    @Override
+                    public void onNext(String token) {
+                        tokens.add(token);
+                    }
+
+                    @Override
+                    public void onComplete(dev.langchain4j.model.output.Response<dev.langchain4j.data.message.AiMessage> response) {
+                        completed.append(response.content().text());
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        fail(error);
+                    }
+                });
+
+        // Then
+        assertTrue(tokens.size() > 1);
+        assertEquals("Spring Boot是一个框架", String.join("", tokens));
+        assertEquals("Spring Boot是一个框架", completed.toString());
+    }
+
     @Test
     void testGetVectorCount() {
         // When
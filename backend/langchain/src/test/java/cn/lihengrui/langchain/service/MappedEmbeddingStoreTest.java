@@ -0,0 +1,201 @@
+package cn.lihengrui.langchain.service;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MappedEmbeddingStore单元测试
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+class MappedEmbeddingStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSearch_ReturnsTopKOrderedByScore() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(
+                List.of(Embedding.from(new float[]{1f, 0f, 0f}),
+                        Embedding.from(new float[]{0.8f, 0.6f, 0f}),
+                        Embedding.from(new float[]{0f, 0f, 1f})),
+                List.of(segment("完全匹配", 1L), segment("部分匹配", 2L), segment("不相关", 3L)));
+
+        List<EmbeddingMatch<TextSegment>> matches = store.findRelevant(Embedding.from(new float[]{1f, 0f, 0f}), 2);
+
+        assertEquals(2, matches.size());
+        assertEquals("完全匹配", matches.get(0).embedded().text());
+        assertEquals("部分匹配", matches.get(1).embedded().text());
+        assertTrue(matches.get(0).score() > matches.get(1).score());
+        store.close();
+    }
+
+    @Test
+    void testReopen_RestoresVectorsAndMetadataWithoutReembedding() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(
+                List.of(Embedding.from(new float[]{1f, 0f}), Embedding.from(new float[]{0f, 1f})),
+                List.of(segment("第一篇", 10L), segment("第二篇", 20L)));
+        store.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir);
+
+        assertEquals(2, reopened.size());
+        assertEquals(Set.of(10L, 20L), reopened.distinctLongMetadata(LangChainService.METADATA_PARENT_ID));
+        EmbeddingMatch<TextSegment> best = reopened.findRelevant(Embedding.from(new float[]{0f, 1f}), 1).get(0);
+        assertEquals("第二篇", best.embedded().text());
+        assertEquals(20L, best.embedded().metadata().getLong(LangChainService.METADATA_PARENT_ID));
+        reopened.close();
+    }
+
+    @Test
+    void testSearch_AppliesMetadataFilterAndMinScore() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(
+                List.of(Embedding.from(new float[]{1f, 0f}), Embedding.from(new float[]{0.9f, 0.1f}),
+                        Embedding.from(new float[]{-1f, 0f})),
+                List.of(segment("A", 1L), segment("B", 2L), segment("C", 2L)));
+
+        List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(new float[]{1f, 0f}))
+                .maxResults(10)
+                .minScore(0.6)
+                .filter(metadataKey(LangChainService.METADATA_PARENT_ID).isEqualTo(2L))
+                .build()).matches();
+
+        assertEquals(1, matches.size());
+        assertEquals("B", matches.get(0).embedded().text());
+        store.close();
+    }
+
+    @Test
+    void testRemoveAll_TruncatesStore() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(List.of(Embedding.from(new float[]{1f, 0f})), List.of(segment("A", 1L)));
+
+        store.removeAll();
+        store.addAll(List.of(Embedding.from(new float[]{0f, 1f, 0f})), List.of(segment("B", 2L)));
+        store.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir);
+        assertEquals(1, reopened.size());
+        assertEquals("B", reopened.findRelevant(Embedding.from(new float[]{0f, 1f, 0f}), 1).get(0).embedded().text());
+        reopened.close();
+    }
+
+    @Test
+    void testAddAll_SpansMultipleMappedSegments() {
+        // 每段映射3条二维向量记录
+        long segmentBytes = 3 * 2 * Float.BYTES;
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir, segmentBytes);
+        for (int i = 0; i < 10; i++) {
+            double angle = Math.PI / 2 * i / 9;
+            store.addAll(List.of(Embedding.from(new float[]{(float) Math.cos(angle), (float) Math.sin(angle)})),
+                    List.of(segment("片段" + i, (long) i)));
+        }
+        store.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir, segmentBytes);
+        assertEquals(10, reopened.size());
+        for (int i = 0; i < 10; i++) {
+            double angle = Math.PI / 2 * i / 9;
+            EmbeddingMatch<TextSegment> best = reopened.findRelevant(
+                    Embedding.from(new float[]{(float) Math.cos(angle), (float) Math.sin(angle)}), 1).get(0);
+            assertEquals("片段" + i, best.embedded().text());
+        }
+        reopened.close();
+    }
+
+    @Test
+    void testOpen_TruncatesTornTrailingRecords() throws IOException {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(
+                List.of(Embedding.from(new float[]{1f, 0f}), Embedding.from(new float[]{0f, 1f})),
+                List.of(segment("A", 1L), segment("B", 2L)));
+        store.close();
+        // 模拟写入中途崩溃：索引末行和向量末记录都不完整
+        Files.writeString(tempDir.resolve("index.jsonl"), "{\"id\":\"torn\",\"te", StandardOpenOption.APPEND);
+        Files.write(tempDir.resolve("vectors.bin"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir);
+        assertEquals(2, reopened.size());
+        reopened.addAll(List.of(Embedding.from(new float[]{-1f, 0f})), List.of(segment("C", 3L)));
+        reopened.close();
+
+        MappedEmbeddingStore again = new MappedEmbeddingStore(tempDir);
+        assertEquals(3, again.size());
+        assertEquals("C", again.findRelevant(Embedding.from(new float[]{-1f, 0f}), 1).get(0).embedded().text());
+        again.close();
+    }
+
+    @Test
+    void testRemoveAllByFilter_ExcludesRemovedAfterReopen() {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        store.addAll(
+                List.of(Embedding.from(new float[]{1f, 0f}), Embedding.from(new float[]{0.9f, 0.1f}),
+                        Embedding.from(new float[]{0f, 1f})),
+                List.of(segment("旧版本1", 1L), segment("旧版本2", 1L), segment("其他", 2L)));
+
+        store.removeAll(metadataKey(LangChainService.METADATA_PARENT_ID).isEqualTo(1L));
+        store.addAll(List.of(Embedding.from(new float[]{0.8f, 0.6f})), List.of(segment("新版本", 1L)));
+
+        assertEquals(2, store.size());
+        assertEquals("新版本", store.findRelevant(Embedding.from(new float[]{1f, 0f}), 1).get(0).embedded().text());
+        store.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir);
+        assertEquals(2, reopened.size());
+        assertEquals(Set.of(1L, 2L), reopened.distinctLongMetadata(LangChainService.METADATA_PARENT_ID));
+        assertEquals("新版本", reopened.findRelevant(Embedding.from(new float[]{1f, 0f}), 1).get(0).embedded().text());
+        reopened.close();
+    }
+
+    @Test
+    void testRemoveAll_CompactsWhenManyRecordsRemoved() throws IOException {
+        MappedEmbeddingStore store = new MappedEmbeddingStore(tempDir);
+        List<Embedding> embeddings = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 2048; i++) {
+            embeddings.add(Embedding.from(new float[]{i % 2, 1 - i % 2}));
+            segments.add(segment("片段" + i, (long) (i % 2)));
+        }
+        store.addAll(embeddings, segments);
+
+        store.removeAll(metadataKey(LangChainService.METADATA_PARENT_ID).isEqualTo(0L));
+
+        assertEquals(1024, store.size());
+        assertEquals(0, Files.size(tempDir.resolve("removed.txt")));
+        assertEquals(1024, Files.readAllLines(tempDir.resolve("index.jsonl")).size());
+        store.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(tempDir);
+        assertEquals(1024, reopened.size());
+        assertEquals(Set.of(1L), reopened.distinctLongMetadata(LangChainService.METADATA_PARENT_ID));
+        reopened.close();
+    }
+
+    private TextSegment segment(String text, Long parentId) {
+        Metadata metadata = new Metadata();
+        metadata.put(LangChainService.METADATA_PARENT_ID, parentId);
+        return TextSegment.from(text, metadata);
+    }
+}
@@ -0,0 +1,131 @@
+package cn.lihengrui.langchain.service;
+
+import cn.lihengrui.langchain.dto.KnowledgeContentDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamingArrayDecoder单元测试
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+class StreamingArrayDecoderTest {
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    @Test
+    void testDecode_JsonPageSplitIntoSmallChunks() throws Exception {
+        byte[] body = jsonMapper.writeValueAsBytes(pageResponse(3));
+
+        List<KnowledgeContentDto> contents = new StreamingArrayDecoder<>(jsonMapper, KnowledgeContentDto.class, "data", "content")
+                .decode(chunked(body, 7))
+                .collectList()
+                .block();
+
+        assertEquals(3, contents.size());
+        assertEquals(1L, contents.get(0).getId());
+        assertEquals("标题3", contents.get(2).getTitle());
+        assertEquals(LocalDateTime.of(2025, 10, 19, 8, 30), contents.get(1).getAcquisitionTime());
+    }
+
+    @Test
+    void testDecode_SmileBodyIgnoresArraysOutsidePath() throws Exception {
+        Map<String, Object> response = pageResponse(2);
+        response.put("warnings", List.of(Map.of("knowId", 99)));
+        byte[] body = smileMapper.writeValueAsBytes(response);
+
+        List<KnowledgeContentDto> contents = new StreamingArrayDecoder<>(smileMapper, KnowledgeContentDto.class, "data", "content")
+                .decode(chunked(body, 5))
+                .collectList()
+                .block();
+
+        assertEquals(2, contents.size());
+        assertEquals(List.of(1L, 2L), contents.stream().map(KnowledgeContentDto::getId).toList());
+    }
+
+    @Test
+    void testDecode_ReportsScalarFieldsBesideTheArray() throws Exception {
+        Map<String, Object> response = pageResponse(2);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> page = (Map<String, Object>) response.get("data");
+        page.put("nextAfterId", 2);
+        page.put("hasMore", false);
+        Map<String, Object> fields = new LinkedHashMap<>();
+
+        List<KnowledgeContentDto> contents = new StreamingArrayDecoder<>(jsonMapper, KnowledgeContentDto.class, "data", "content")
+                .decode(chunked(jsonMapper.writeValueAsBytes(response), 6), fields::put)
+                .collectList()
+                .block();
+
+        assertEquals(2, contents.size());
+        assertEquals(2, ((Number) fields.get("nextAfterId")).intValue());
+        assertEquals(false, fields.get("hasMore"));
+        assertEquals(1, ((Number) fields.get("totalPages")).intValue());
+        assertFalse(fields.containsKey("success"));
+        assertFalse(fields.containsKey("knowId"));
+    }
+
+    @Test
+    void testDecode_FailedResponseWithoutDataYieldsNothing() throws Exception {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", false);
+        response.put("message", "查询失败");
+        response.put("data", null);
+
+        List<KnowledgeContentDto> contents = new StreamingArrayDecoder<>(jsonMapper, KnowledgeContentDto.class, "data")
+                .decode(chunked(jsonMapper.writeValueAsBytes(response), 4))
+                .collectList()
+                .block();
+
+        assertTrue(contents.isEmpty());
+    }
+
+    private Map<String, Object> pageResponse(int count) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("knowId", i);
+            item.put("title", "标题" + i);
+            item.put("content", "内容" + i);
+            item.put("acquisitionTime", "2025-10-19T08:30:00");
+            item.put("primaryTags", List.of("AI", "测试"));
+            items.add(item);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("content", items);
+        page.put("totalPages", 1);
+        page.put("totalElements", count);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "查询成功");
+        response.put("data", page);
+        return response;
+    }
+
+    private Flux<DataBuffer> chunked(byte[] bytes, int chunkSize) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int start = 0; start < bytes.length; start += chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(bytes, start, Math.min(bytes.length, start + chunkSize));
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
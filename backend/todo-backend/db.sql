@@ -69,7 +69,10 @@ CREATE INDEX `idx_processed_success` ON `knowledge_content` (`processed`, `succe
 
 -- 全文索引：标题和内容（用于搜索）
 -- 注意：MySQL 8.0+ 支持中文全文索引
-ALTER TABLE `knowledge_content` ADD FULLTEXT(`title`, `content`) WITH PARSER ngram;
+-- ngram分词器会丢弃包含停用词的词元（如java中的a），建索引前关闭InnoDB默认的英文停用词表
+SET SESSION innodb_ft_enable_stopword = OFF;
+ALTER TABLE `knowledge_content` ADD FULLTEXT INDEX `ft_knowledge_content_title_content` (`title`, `content`) WITH PARSER ngram;
+SET SESSION innodb_ft_enable_stopword = ON;
 
 -- ================================================================
 -- 4. 初始数据插入
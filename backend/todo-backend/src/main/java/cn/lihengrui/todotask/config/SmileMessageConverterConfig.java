@@ -0,0 +1,51 @@
+package cn.lihengrui.todotask.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Smile二进制格式内容协商配置
+ *
+ * 请求头为 Accept: application/x-jackson-smile 时，所有接口以Smile（二进制JSON）
+ * 编码响应体，字段名回引用且数字按二进制写出，批量同步时体积和解析开销都明显小于JSON。
+ *
+ * Smile转换器使用Spring Boot配置好的Jackson构建器创建，与JSON的序列化规则
+ * （日期格式、模块等）保持一致；并放在JSON转换器之后，
+ * 未声明Accept或声明 *&#47;* 的客户端仍然得到JSON。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Configuration
+public class SmileMessageConverterConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 替换Spring MVC按类路径自动注册的默认Smile转换器
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+        ObjectMapper smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+        MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter(smileMapper);
+
+        int insertAt = converters.size();
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                insertAt = i + 1;
+            }
+        }
+        converters.add(insertAt, smileConverter);
+    }
+}
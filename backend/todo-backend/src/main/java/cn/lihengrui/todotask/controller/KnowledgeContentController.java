@@ -9,8 +9,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -35,6 +37,9 @@ import java.util.HashMap;
  * - PUT /api/knowledge-content/{id} - 更新内容
  * - DELETE /api/knowledge-content/{id} - 删除单个内容
  * - POST /api/knowledge-content/batch - 批量操作
+ * - POST /api/knowledge-content/batch-get - 按ID列表批量获取
+ * - GET /api/knowledge-content/cursor - 键集分页导出（afterId + limit）
+ * - GET /api/knowledge-content/export - 全量流式导出（NDJSON）
  * - PUT /api/knowledge-content/{id}/status - 状态切换
  *
  * @author HA72开发团队
@@ -62,7 +67,7 @@ public class KnowledgeContentController {
      * @param processed 处理状态过滤
      * @param success 成功状态过滤
      * @param keyword 关键词搜索
-     * @param tags 标签过滤
+     * @param tags 标签过滤（逗号分隔，按标签名精确匹配，需同时具有）
      * @return 分页的知识内容列表
      */
     @GetMapping
@@ -258,6 +263,80 @@ public class KnowledgeContentController {
         }
     }
 
+    /**
+     * 根据ID列表批量获取知识内容
+     *
+     * @param request 批量获取请求
+     * @return 紧凑格式的知识内容列表（按请求ID顺序，不存在的ID被忽略）
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<ApiResponse<List<KnowledgeContentCompact>>> batchGetKnowledgeContents(
+            @Valid @RequestBody BatchGetRequest request) {
+        try {
+            List<KnowledgeContentCompact> contents = knowledgeContentService.findAllByIds(request.getIds());
+            log.info("批量获取知识内容成功，请求 {} 个ID，返回 {} 条记录", request.getIds().size(), contents.size());
+            return ResponseEntity.ok(ApiResponse.success(contents, "查询成功"));
+
+        } catch (Exception e) {
+            log.error("批量获取知识内容失败，请求 {} 个ID", request.getIds().size(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.serverError("批量查询失败：" + e.getMessage()));
+        }
+    }
+
+    /**
+     * 键集分页导出知识内容
+     *
+     * 供全量同步使用：按ID升序返回afterId之后的limit条记录，
+     * 下一次请求以返回的nextAfterId作为afterId，直到hasMore为false。
+     *
+     * @param afterId 游标（首次请求传0）
+     * @param limit 每批记录数（最大1000）
+     * @return 键集分页结果
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<KnowledgeContentCursorPage>> getKnowledgeContentsAfter(
+            @RequestParam(defaultValue = "0") Long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        try {
+            KnowledgeContentCursorPage page = knowledgeContentService.findAfterId(afterId, limit);
+            log.info("键集分页查询成功，afterId: {}, 返回 {} 条记录，hasMore: {}",
+                    afterId, page.getContent().size(), page.isHasMore());
+            return ResponseEntity.ok(ApiResponse.success(page, "查询成功"));
+
+        } catch (Exception e) {
+            log.error("键集分页查询失败，afterId: {}", afterId, e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.serverError("查询失败：" + e.getMessage()));
+        }
+    }
+
+    /**
+     * 以NDJSON格式流式导出全部知识内容
+     *
+     * 每行一条紧凑格式的JSON，按ID升序；响应体在异步线程中边查询边写出，
+     * 供全量重建索引使用。写出过程中出错时响应已经提交，只能中断连接，调用方需据此重试。
+     *
+     * @return NDJSON流式响应
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportKnowledgeContents() {
+        StreamingResponseBody body = outputStream -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                long count = knowledgeContentService.exportAsNdjson(outputStream);
+                log.info("全量导出知识内容完成，共 {} 条记录，耗时 {} ms", count, System.currentTimeMillis() - startTime);
+            } catch (Exception e) {
+                log.error("全量导出知识内容失败", e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * 获取内容统计信息
      *
@@ -0,0 +1,75 @@
+package cn.lihengrui.todotask.crawler;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * 单次爬取的参数
+ *
+ * 默认值偏保守：每个主机最多2个并发请求、请求间隔1秒，只跟进种子页上的链接。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data                    // Lombok注解：自动生成getter、setter、equals、hashCode、toString方法
+@NoArgsConstructor       // Lombok注解：生成无参构造函数
+public class CrawlOptions {
+
+    /**
+     * 最大链接深度，种子页为0
+     */
+    private int maxDepth = 1;
+
+    /**
+     * 本次最多抓取的页面数（含种子页）
+     */
+    private int maxPages = 200;
+
+    /**
+     * 全局最大并发请求数
+     */
+    private int maxConcurrency = 32;
+
+    /**
+     * 单个主机的最大并发请求数
+     */
+    private int perHostConcurrency = 2;
+
+    /**
+     * 同一主机相邻两次请求的最小间隔，robots.txt声明的Crawl-delay更大时以其为准
+     */
+    private Duration crawlDelay = Duration.ofSeconds(1);
+
+    /**
+     * 连接超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 响应超时
+     */
+    private Duration readTimeout = Duration.ofSeconds(15);
+
+    /**
+     * 单个页面最多读取的字节数，超出部分丢弃
+     */
+    private int maxBodyBytes = 2 * 1024 * 1024;
+
+    /**
+     * 请求头中的User-Agent
+     */
+    private String userAgent = "Mozilla/5.0 (compatible; TodoTask-Crawler/1.0)";
+
+    /**
+     * 在robots.txt中匹配规则组使用的产品名
+     */
+    private String robotsAgent = "TodoTask-Crawler";
+
+    /**
+     * 是否只跟进与所在页面同一主机的链接
+     */
+    private boolean sameHostOnly = true;
+}
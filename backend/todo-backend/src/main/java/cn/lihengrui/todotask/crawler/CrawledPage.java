@@ -0,0 +1,93 @@
+package cn.lihengrui.todotask.crawler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 爬取到的页面
+ *
+ * 保存原始字节而非字符串，由Jsoup按响应头或页面meta声明的编码解码。
+ * 解析结果在首次调用 {@link #document()} 时生成并缓存，供链接发现和正文提取共用。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Getter
+public class CrawledPage {
+
+    /**
+     * 规范化后的页面地址（跟随重定向后的最终地址）
+     */
+    private final String url;
+
+    /**
+     * 规范化后的请求地址（发现链接时的地址，未重定向时与url相同）
+     */
+    private final String requestedUrl;
+
+    /**
+     * 链接深度，种子页为0
+     */
+    private final int depth;
+
+    /**
+     * HTTP状态码
+     */
+    private final int statusCode;
+
+    /**
+     * 响应的Content-Type
+     */
+    private final String contentType;
+
+    /**
+     * 响应头声明的字符集，未声明时为null
+     */
+    private final String charset;
+
+    /**
+     * 响应体（最多 maxBodyBytes 字节）
+     */
+    private final byte[] body;
+
+    @Getter(AccessLevel.NONE)
+    private Document document;
+
+    public CrawledPage(String url, int depth, int statusCode, String contentType, String charset, byte[] body) {
+        this(url, url, depth, statusCode, contentType, charset, body);
+    }
+
+    public CrawledPage(String url, String requestedUrl, int depth, int statusCode, String contentType,
+                       String charset, byte[] body) {
+        this.url = url;
+        this.requestedUrl = requestedUrl;
+        this.depth = depth;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.body = body;
+    }
+
+    /**
+     * 解析后的HTML文档（首次调用时解析）
+     *
+     * @return HTML文档，相对链接以页面地址为基准
+     */
+    public Document document() {
+        if (document == null) {
+            try {
+                document = Jsoup.parse(new ByteArrayInputStream(body), charset, url);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return document;
+    }
+}
@@ -0,0 +1,328 @@
+package cn.lihengrui.todotask.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 并行网页爬取引擎
+ *
+ * 从种子地址出发按广度优先抓取页面并发现新链接：
+ * 1. 待抓取队列（frontier）由单个协调线程消费，负责去重和页数上限判断
+ * 2. 每个页面在独立的虚拟线程上抓取，阻塞等待网络和限流许可的开销很小
+ * 3. 全局并发上限之外，每个主机单独限制并发数和请求间隔（礼貌抓取）
+ * 4. 抓取前检查robots.txt，规则按主机缓存
+ * 5. 链接先做URL规范化，本次爬取内用普通集合去重，再用布隆过滤器跳过以往已处理过的链接
+ *
+ * 布隆过滤器记录的是跨多次爬取的已处理集合，定时任务再次运行时只会抓取新出现的链接；
+ * 种子地址每次都会重新抓取以发现新链接。地址只在调用方成功处理页面后通过markCrawled加入，
+ * 抓取失败（超时、5xx、robots.txt不可用）、非HTML响应、超出页数上限未抓取或入库失败的地址
+ * 下次运行时会重新抓取。插入数超过预期容量时集合整体重建，避免误判率随时间升高。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Component
+@Slf4j
+public class CrawlerEngine {
+
+    // 链接发现时跳过的非HTML资源
+    private static final Pattern BINARY_EXTENSION = Pattern.compile(
+            ".*\\.(?:jpe?g|png|gif|webp|svg|ico|bmp|css|js|json|xml|pdf|zip|gz|rar|7z|tar|exe|dmg|apk|mp3|mp4|avi|mov|woff2?|ttf)$");
+
+    // 协调线程等待新任务的间隔
+    private static final long POLL_INTERVAL_MS = 50;
+
+    @Value("${crawler.bloom-expected-urls:100000}")
+    private long bloomExpectedUrls = 100000;
+
+    @Value("${crawler.bloom-false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate = 0.01;
+
+    @Value("${crawler.robots-cache-ttl-minutes:60}")
+    private long robotsCacheTtlMinutes = 60;
+
+    // 以往爬取中已处理的URL集合，首次使用时创建
+    private volatile BloomFilter seenUrls;
+    private final AtomicLong seenCount = new AtomicLong();
+
+    // robots.txt缓存，首次爬取时创建
+    private volatile RobotsTxtCache robotsTxtCache;
+
+    /**
+     * 从种子地址开始爬取
+     *
+     * @param seeds 种子地址
+     * @param options 爬取参数
+     * @return 成功抓取的HTML页面（顺序不固定）
+     */
+    public List<CrawledPage> crawl(Collection<String> seeds, CrawlOptions options) {
+        Set<String> seedUrls = new LinkedHashSet<>();
+        for (String seed : seeds) {
+            String url = UrlCanonicalizer.canonicalize(seed);
+            if (url == null) {
+                log.warn("忽略无效的种子地址: {}", seed);
+            } else {
+                seedUrls.add(url);
+            }
+        }
+        if (seedUrls.isEmpty()) {
+            return List.of();
+        }
+
+        BloomFilter seen = seenUrls();
+        RobotsTxtCache robots = robotsTxtCache();
+        List<CrawledPage> pages = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<CrawlTask> frontier = new LinkedBlockingQueue<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        Semaphore globalPermits = new Semaphore(Math.max(1, options.getMaxConcurrency()));
+        Map<String, HostThrottle> throttles = new ConcurrentHashMap<>();
+        // 本次爬取已入队的地址，只由协调线程访问
+        Set<String> visited = new HashSet<>();
+        int admitted = 0;
+
+        seedUrls.forEach(url -> frontier.add(new CrawlTask(url, 0)));
+
+        try (HttpClient client = HttpClient.newBuilder()
+                     .connectTimeout(options.getConnectTimeout())
+                     .followRedirects(HttpClient.Redirect.NORMAL)
+                     .build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            while (true) {
+                CrawlTask task = frontier.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    // 工作线程先把新链接放入队列再减少计数，所以计数为0后队列为空即表示全部完成
+                    if (inFlight.get() == 0 && frontier.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (admitted >= options.getMaxPages()) {
+                    continue;
+                }
+                if (!visited.add(task.url) || (task.depth > 0 && seen.mightContain(task.url))) {
+                    continue;
+                }
+
+                admitted++;
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        fetch(task, client, robots, throttles, globalPermits, options, frontier, pages);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.warn("抓取页面失败: {} - {}", task.url, e.toString());
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("爬取被中断，已抓取 {} 个页面", pages.size());
+        }
+
+        log.info("爬取完成，种子 {} 个，抓取 {} 个页面，成功 {} 个", seedUrls.size(), admitted, pages.size());
+        synchronized (pages) {
+            return new ArrayList<>(pages);
+        }
+    }
+
+    private void fetch(CrawlTask task, HttpClient client, RobotsTxtCache robots,
+                       Map<String, HostThrottle> throttles, Semaphore globalPermits,
+                       CrawlOptions options, BlockingQueue<CrawlTask> frontier,
+                       List<CrawledPage> pages) throws Exception {
+        URI uri = URI.create(task.url);
+        RobotsRules rules = robots.rules(uri, client, options);
+        String pathAndQuery = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+        if (!rules.isAllowed(pathAndQuery)) {
+            log.debug("robots.txt禁止抓取: {}", task.url);
+            return;
+        }
+
+        HostThrottle throttle = throttles.computeIfAbsent(UrlCanonicalizer.hostKey(uri), host ->
+                new HostThrottle(options.getPerHostConcurrency(), maxDelay(options.getCrawlDelay(), rules.getCrawlDelay())));
+
+        CrawledPage page;
+        throttle.acquire();
+        try {
+            globalPermits.acquire();
+            try {
+                page = download(task, uri, client, options);
+            } finally {
+                globalPermits.release();
+            }
+        } finally {
+            throttle.release();
+        }
+        if (page == null) {
+            return;
+        }
+
+        if (task.depth < options.getMaxDepth()) {
+            discoverLinks(page, options, frontier);
+        }
+        pages.add(page);
+    }
+
+    private CrawledPage download(CrawlTask task, URI uri, HttpClient client, CrawlOptions options) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(options.getReadTimeout())
+                .header("User-Agent", options.getUserAgent())
+                .header("Accept", "text/html,application/xhtml+xml")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (status < 200 || status >= 300) {
+                log.debug("跳过非成功响应: {} - {}", task.url, status);
+                return null;
+            }
+            if (!contentType.isEmpty() && !contentType.toLowerCase(Locale.ROOT).contains("html")) {
+                log.debug("跳过非HTML内容: {} - {}", task.url, contentType);
+                return null;
+            }
+            byte[] bytes = body.readNBytes(Math.max(0, options.getMaxBodyBytes()));
+            String finalUrl = UrlCanonicalizer.canonicalize(response.uri().toString());
+            return new CrawledPage(finalUrl == null ? task.url : finalUrl, task.url, task.depth, status,
+                    contentType, charsetOf(contentType), bytes);
+        }
+    }
+
+    private void discoverLinks(CrawledPage page, CrawlOptions options, BlockingQueue<CrawlTask> frontier) {
+        String pageHost = UrlCanonicalizer.hostKey(URI.create(page.getUrl()));
+        Set<String> links = new LinkedHashSet<>();
+        for (Element anchor : page.document().select("a[href]")) {
+            if (anchor.attr("rel").toLowerCase(Locale.ROOT).contains("nofollow")) {
+                continue;
+            }
+            String link = UrlCanonicalizer.canonicalize(anchor.absUrl("href"));
+            if (link == null || BINARY_EXTENSION.matcher(link.toLowerCase(Locale.ROOT)).matches()) {
+                continue;
+            }
+            if (options.isSameHostOnly() && !pageHost.equals(UrlCanonicalizer.hostKey(URI.create(link)))) {
+                continue;
+            }
+            links.add(link);
+        }
+        links.forEach(link -> frontier.add(new CrawlTask(link, page.getDepth() + 1)));
+    }
+
+    /**
+     * 记录已成功处理的页面，之后的爬取不再跟进指向它们的链接
+     *
+     * 调用方应只在页面成功入库（或确认无需入库）后调用，未记录的地址下次运行时会重新抓取。
+     *
+     * @param pages 已处理的页面
+     */
+    public void markCrawled(Collection<CrawledPage> pages) {
+        for (CrawledPage page : pages) {
+            markSeen(page.getUrl());
+            if (!page.getUrl().equals(page.getRequestedUrl())) {
+                markSeen(page.getRequestedUrl());
+            }
+        }
+    }
+
+    private boolean markSeen(String url) {
+        boolean added = seenUrls().put(url);
+        if (added && seenCount.incrementAndGet() > bloomExpectedUrls) {
+            // 超出设计容量后误判率快速上升，重建集合（正在进行的爬取仍使用旧集合）
+            seenUrls = null;
+            seenCount.set(0);
+        }
+        return added;
+    }
+
+    private static Duration maxDelay(Duration configured, Duration robotsDelay) {
+        if (robotsDelay == null) {
+            return configured;
+        }
+        return configured == null || robotsDelay.compareTo(configured) > 0 ? robotsDelay : configured;
+    }
+
+    private static String charsetOf(String contentType) {
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                String charset = trimmed.substring("charset=".length()).replace("\"", "").trim();
+                return charset.isEmpty() ? null : charset;
+            }
+        }
+        return null;
+    }
+
+    private BloomFilter seenUrls() {
+        BloomFilter filter = seenUrls;
+        if (filter == null) {
+            synchronized (this) {
+                filter = seenUrls;
+                if (filter == null) {
+                    filter = new BloomFilter(bloomExpectedUrls, bloomFalsePositiveRate);
+                    seenUrls = filter;
+                }
+            }
+        }
+        return filter;
+    }
+
+    private RobotsTxtCache robotsTxtCache() {
+        RobotsTxtCache cache = robotsTxtCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = robotsTxtCache;
+                if (cache == null) {
+                    cache = new RobotsTxtCache(Duration.ofMinutes(robotsCacheTtlMinutes));
+                    robotsTxtCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 待抓取的地址及其深度
+     */
+    private static final class CrawlTask {
+
+        private final String url;
+        private final int depth;
+
+        CrawlTask(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+}
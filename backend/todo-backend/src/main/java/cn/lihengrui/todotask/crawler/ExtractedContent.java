@@ -0,0 +1,31 @@
+package cn.lihengrui.todotask.crawler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 正文提取结果
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Getter
+@AllArgsConstructor
+public class ExtractedContent {
+
+    /**
+     * 页面标题
+     */
+    private final String title;
+
+    /**
+     * 正文纯文本，段落之间以换行分隔
+     */
+    private final String text;
+
+    /**
+     * 是否由流式扫描定位到正文块（false表示解析了整个页面）
+     */
+    private final boolean streamed;
+}
@@ -0,0 +1,58 @@
+package cn.lihengrui.todotask.crawler;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 单个主机的礼貌访问控制
+ *
+ * 同时限制对一个主机的并发请求数和相邻两次请求的最小间隔。
+ * 间隔取配置值与robots.txt中Crawl-delay的较大者。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+class HostThrottle {
+
+    private final Semaphore permits;
+    private final long minIntervalNanos;
+    private long nextAllowedNanos;
+
+    HostThrottle(int maxConcurrency, Duration minInterval) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrency), true);
+        this.minIntervalNanos = minInterval == null ? 0 : minInterval.toNanos();
+        this.nextAllowedNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取访问许可，必要时等待到允许的请求时间
+     *
+     * @throws InterruptedException 等待被中断
+     */
+    void acquire() throws InterruptedException {
+        permits.acquire();
+        try {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextAllowedNanos);
+                nextAllowedNanos = slot + minIntervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            }
+        } catch (InterruptedException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还访问许可
+     */
+    void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,194 @@
+package cn.lihengrui.todotask.crawler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 流式HTML正文块定位器
+ *
+ * 按块读取页面字符，只识别标签边界（跳过注释、script、style等原始文本），
+ * 遇到第一个语义化的正文容器（article、main、itemprop="articleBody"，
+ * 或class/id为常见正文命名的元素）后记录其起点，
+ * 在该元素闭合时立即停止读取，返回容器自身的HTML片段。
+ * 正文之后的评论区、推荐列表、页脚等既不读取也不构建DOM。
+ *
+ * 扫描期间顺带取出 &lt;title&gt; 的文本。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+class HtmlBlockScanner {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    // 尚未进入正文块时，已扫描部分超过该长度就丢弃，避免缓冲整页
+    private static final int DISCARD_THRESHOLD = 64 * 1024;
+
+    private static final Pattern CONTENT_CONTAINER = Pattern.compile(
+            "(?i)itemprop\\s*=\\s*[\"']?articleBody"
+                    + "|\\b(?:id|class)\\s*=\\s*[\"'][^\"']*(?:article[-_]?(?:content|body)|post[-_]?(?:content|body)"
+                    + "|entry[-_]?content|blogpost[-_]?body|cnblogs_post_body|rich[-_]?text)");
+
+    private final Reader reader;
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE * 2);
+    private final char[] chunk = new char[CHUNK_SIZE];
+    private boolean eof;
+    private int pos;
+
+    private String title;
+
+    HtmlBlockScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 扫描到第一个正文容器闭合为止
+     *
+     * @return 正文容器的HTML片段，没有找到或文档提前结束时返回null
+     * @throws IOException 读取失败
+     */
+    String scan() throws IOException {
+        String blockTag = null;
+        int blockStart = -1;
+        int depth = 0;
+
+        while (true) {
+            int lt = indexOf("<", pos);
+            if (lt < 0) {
+                return null;
+            }
+            if (startsWith("<!--", lt)) {
+                int end = indexOf("-->", lt + 4);
+                if (end < 0) {
+                    return null;
+                }
+                pos = end + 3;
+                continue;
+            }
+            int gt = indexOf(">", lt);
+            if (gt < 0) {
+                return null;
+            }
+            String tag = buffer.substring(lt + 1, gt);
+            pos = gt + 1;
+
+            if (tag.startsWith("/")) {
+                if (blockTag != null && blockTag.equals(tagName(tag.substring(1))) && --depth == 0) {
+                    return buffer.substring(blockStart, pos);
+                }
+                continue;
+            }
+            if (tag.isEmpty() || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+                continue;
+            }
+
+            String name = tagName(tag);
+            boolean selfClosing = tag.endsWith("/");
+            if ("script".equals(name) || "style".equals(name) || "textarea".equals(name) || "title".equals(name)) {
+                int end = indexOfIgnoreCase("</" + name, pos);
+                if (end < 0) {
+                    return null;
+                }
+                if ("title".equals(name) && title == null && blockTag == null) {
+                    title = buffer.substring(pos, end).trim();
+                }
+                pos = end;
+                continue;
+            }
+
+            if (blockTag != null) {
+                if (blockTag.equals(name) && !selfClosing) {
+                    depth++;
+                }
+            } else if (!selfClosing && isContentContainer(name, tag)) {
+                blockTag = name;
+                blockStart = lt;
+                depth = 1;
+            } else if (pos > DISCARD_THRESHOLD) {
+                buffer.delete(0, pos);
+                pos = 0;
+            }
+        }
+    }
+
+    /**
+     * @return 扫描过程中遇到的页面标题，没有时为null
+     */
+    String getTitle() {
+        return title;
+    }
+
+    private static boolean isContentContainer(String name, String tag) {
+        return "article".equals(name) || "main".equals(name) || CONTENT_CONTAINER.matcher(tag).find();
+    }
+
+    private static String tagName(String tag) {
+        int end = 0;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        return tag.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private boolean startsWith(String prefix, int from) throws IOException {
+        while (buffer.length() < from + prefix.length() && fill()) {
+            // 继续读取
+        }
+        return buffer.length() >= from + prefix.length()
+                && buffer.substring(from, from + prefix.length()).equals(prefix);
+    }
+
+    private int indexOf(String target, int from) throws IOException {
+        int searchFrom = from;
+        while (true) {
+            int index = buffer.indexOf(target, searchFrom);
+            if (index >= 0) {
+                return index;
+            }
+            searchFrom = Math.max(from, buffer.length() - target.length() + 1);
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    private int indexOfIgnoreCase(String target, int from) throws IOException {
+        int searchFrom = from;
+        while (true) {
+            for (int i = searchFrom; i + target.length() <= buffer.length(); i++) {
+                if (buffer.charAt(i) == '<' && regionMatchesIgnoreCase(i, target)) {
+                    return i;
+                }
+            }
+            searchFrom = Math.max(from, buffer.length() - target.length() + 1);
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    private boolean regionMatchesIgnoreCase(int offset, String target) {
+        for (int i = 0; i < target.length(); i++) {
+            if (Character.toLowerCase(buffer.charAt(offset + i)) != target.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read = reader.read(chunk);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        buffer.append(chunk, 0, read);
+        return true;
+    }
+}
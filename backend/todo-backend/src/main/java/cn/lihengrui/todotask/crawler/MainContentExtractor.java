@@ -0,0 +1,360 @@
+package cn.lihengrui.todotask.crawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 网页正文提取器（去除导航、侧栏、页脚等模板内容）
+ *
+ * 参考Readability的打分方式：
+ * 1. 以段落类元素（p、pre、li、blockquote、无块级子元素的div等）为单位，
+ *    按文本长度和逗号数给段落打分，分数累加到父元素，祖父元素得一半
+ * 2. 元素的class/id命中article、content、post等加分，命中nav、footer、comment等减分
+ * 3. 候选元素最终得分乘以（1 - 链接文本占比），导航和推荐列表因链接密集而落选
+ * 4. 取得分最高的元素及得分相近的兄弟元素，输出其中链接占比低的段落文本
+ *
+ * 流式模式下先用 {@link HtmlBlockScanner} 边读边找语义化的正文容器，
+ * 找到并闭合后停止读取，只解析该片段；没有容器或片段文本过少时解析整页。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class MainContentExtractor {
+
+    // 参与打分的段落最少字符数
+    private static final int MIN_PARAGRAPH_CHARS = 20;
+
+    // 流式定位到的正文块至少要有这么多字符，否则视为误判（如列表页的摘要卡片）
+    private static final int MIN_STREAMED_CHARS = 200;
+
+    // 输出段落允许的最大链接文本占比
+    private static final double MAX_PARAGRAPH_LINK_DENSITY = 0.5;
+
+    private static final Set<String> SKIPPED_TAGS = Set.of(
+            "script", "style", "noscript", "iframe", "form", "nav", "footer", "header", "aside",
+            "svg", "button", "select", "textarea", "template", "object", "embed"
+    );
+
+    private static final Set<String> PARAGRAPH_TAGS = Set.of(
+            "p", "pre", "blockquote", "li", "td", "dd", "dt", "h1", "h2", "h3", "h4", "h5", "h6", "figcaption"
+    );
+
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "p", "pre", "blockquote", "li", "td", "dd", "dt", "h1", "h2", "h3", "h4", "h5", "h6", "figcaption",
+            "div", "section", "article", "main", "ul", "ol", "dl", "table", "tbody", "thead", "tr", "figure",
+            "header", "footer", "nav", "aside", "form"
+    );
+
+    private static final Set<String> KEPT_CONTAINERS = Set.of("html", "body", "article", "main");
+
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "(?i)comment|footer|nav|sidebar|side-bar|menu|share|related|recommend|advert|banner|"
+                    + "breadcrumb|pager|pagination|popup|social|copyright|login|toolbar|sponsor");
+
+    private static final Pattern LIKELY = Pattern.compile("(?i)article|body|content|entry|main|post|text|blog|story");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern META_CHARSET = Pattern.compile("(?i)charset\\s*=\\s*[\"']?([\\w.:-]+)");
+
+    private MainContentExtractor() {
+    }
+
+    /**
+     * 提取页面标题和正文
+     *
+     * @param page 爬取到的页面
+     * @param streaming 是否先尝试流式定位正文块
+     * @return 提取结果，正文无法识别时回退为整个body的文本
+     */
+    public static ExtractedContent extract(CrawledPage page, boolean streaming) {
+        if (streaming) {
+            ExtractedContent streamed = extractStreaming(page);
+            if (streamed != null) {
+                return streamed;
+            }
+        }
+
+        Document doc = page.document();
+        String text = doc.body() == null ? "" : extractText(doc.body());
+        if (text.isEmpty() && doc.body() != null) {
+            text = doc.body().text();
+        }
+        return new ExtractedContent(doc.title(), text, false);
+    }
+
+    /**
+     * 从元素中提取正文文本
+     *
+     * @param root 根元素（通常为body）
+     * @return 正文，段落之间以换行分隔；没有可识别的正文时返回空字符串
+     */
+    public static String extractText(Element root) {
+        List<Block> blocks = new ArrayList<>();
+        collectBlocks(root, blocks);
+
+        // 1. 段落得分累加到父元素和祖父元素（候选元素首次出现时按标签和class/id计入一次初始分）
+        Map<Element, Double> scores = new IdentityHashMap<>();
+        for (Block block : blocks) {
+            if (block.text.length() < MIN_PARAGRAPH_CHARS) {
+                continue;
+            }
+            double score = 1 + commaCount(block.text) + Math.min(block.text.length() / 100.0, 3);
+            Element parent = block.scoreParent;
+            if (parent != null) {
+                scores.computeIfAbsent(parent, MainContentExtractor::initialScore);
+                scores.merge(parent, score, Double::sum);
+                Element grandParent = parent.parent();
+                if (grandParent != null) {
+                    scores.computeIfAbsent(grandParent, MainContentExtractor::initialScore);
+                    scores.merge(grandParent, score / 2, Double::sum);
+                }
+            }
+        }
+        if (scores.isEmpty()) {
+            return "";
+        }
+
+        // 2. 按链接占比折算后选出最高分候选
+        Element top = null;
+        double topScore = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<Element, Double> entry : scores.entrySet()) {
+            double score = entry.getValue() * (1 - linkDensity(entry.getKey()));
+            entry.setValue(score);
+            if (score > topScore) {
+                top = entry.getKey();
+                topScore = score;
+            }
+        }
+
+        // 3. 得分相近的兄弟元素也视为正文（正文被拆成多个容器的情况）
+        Set<Element> included = Collections.newSetFromMap(new IdentityHashMap<>());
+        included.add(top);
+        if (top.parent() != null) {
+            double threshold = Math.max(10, topScore * 0.2);
+            for (Element sibling : top.parent().children()) {
+                Double siblingScore = scores.get(sibling);
+                if (siblingScore != null && siblingScore >= threshold) {
+                    included.add(sibling);
+                } else if ("p".equals(sibling.normalName())) {
+                    String text = sibling.text();
+                    if (text.length() > 80 && linkDensity(sibling) < 0.25) {
+                        included.add(sibling);
+                    }
+                }
+            }
+        }
+
+        // 4. 按文档顺序输出正文范围内链接占比低的段落
+        StringBuilder result = new StringBuilder();
+        for (Block block : blocks) {
+            if (block.text.isEmpty() || block.linkDensity > MAX_PARAGRAPH_LINK_DENSITY || !isWithin(block.element, included)) {
+                continue;
+            }
+            if (result.length() > 0) {
+                result.append('\n');
+            }
+            result.append(block.text);
+        }
+        return result.toString();
+    }
+
+    private static ExtractedContent extractStreaming(CrawledPage page) {
+        HtmlBlockScanner scanner;
+        String fragment;
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(page.getBody()), charsetOf(page))) {
+            scanner = new HtmlBlockScanner(reader);
+            fragment = scanner.scan();
+        } catch (IOException e) {
+            return null;
+        }
+        if (fragment == null) {
+            return null;
+        }
+
+        Document doc = Jsoup.parseBodyFragment(fragment, page.getUrl());
+        String text = extractText(doc.body());
+        if (text.length() < MIN_STREAMED_CHARS) {
+            return null;
+        }
+        String title = scanner.getTitle() == null ? "" : Jsoup.parse(scanner.getTitle()).text();
+        return new ExtractedContent(title, text, true);
+    }
+
+    /**
+     * 收集段落：段落类元素或不含块级子元素的容器整体作为一段，
+     * 容器中夹在块级元素之间的连续文本和行内元素合并为一段
+     */
+    private static void collectBlocks(Element element, List<Block> blocks) {
+        StringBuilder inline = new StringBuilder();
+        int inlineLinkChars = 0;
+        for (Node node : element.childNodes()) {
+            if (node instanceof TextNode textNode) {
+                inline.append(textNode.text());
+                continue;
+            }
+            if (!(node instanceof Element child) || isSkipped(child)) {
+                continue;
+            }
+            if (!BLOCK_TAGS.contains(child.normalName())) {
+                String text = child.text();
+                inline.append(text);
+                inlineLinkChars += "a".equals(child.normalName()) ? text.length() : linkChars(child);
+                continue;
+            }
+
+            addInlineBlock(element, inline, inlineLinkChars, blocks);
+            inline.setLength(0);
+            inlineLinkChars = 0;
+
+            if (PARAGRAPH_TAGS.contains(child.normalName()) || !hasBlockChild(child)) {
+                String text = child.text().trim();
+                if (!text.isEmpty()) {
+                    blocks.add(new Block(child, element, text, Math.min(1.0, (double) linkChars(child) / text.length())));
+                }
+            } else {
+                collectBlocks(child, blocks);
+            }
+        }
+        addInlineBlock(element, inline, inlineLinkChars, blocks);
+    }
+
+    private static void addInlineBlock(Element container, StringBuilder inline, int linkChars, List<Block> blocks) {
+        String text = WHITESPACE.matcher(inline).replaceAll(" ").trim();
+        if (!text.isEmpty()) {
+            blocks.add(new Block(container, container, text, Math.min(1.0, (double) linkChars / text.length())));
+        }
+    }
+
+    private static boolean isSkipped(Element element) {
+        String tag = element.normalName();
+        if (SKIPPED_TAGS.contains(tag) || element.hasAttr("hidden")) {
+            return true;
+        }
+        if (KEPT_CONTAINERS.contains(tag)) {
+            return false;
+        }
+        String classAndId = element.className() + " " + element.id();
+        return UNLIKELY.matcher(classAndId).find() && !LIKELY.matcher(classAndId).find();
+    }
+
+    private static boolean hasBlockChild(Element element) {
+        for (Element child : element.children()) {
+            if (BLOCK_TAGS.contains(child.normalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double initialScore(Element element) {
+        double score = switch (element.normalName()) {
+            case "div", "article", "main", "section" -> 5;
+            case "pre", "td", "blockquote" -> 3;
+            case "ol", "ul", "dl", "dd", "dt", "li", "form" -> -3;
+            case "h1", "h2", "h3", "h4", "h5", "h6", "th" -> -5;
+            default -> 0;
+        };
+        return score + classWeight(element.className()) + classWeight(element.id());
+    }
+
+    private static int classWeight(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        int weight = 0;
+        if (UNLIKELY.matcher(value).find()) {
+            weight -= 25;
+        }
+        if (LIKELY.matcher(value).find()) {
+            weight += 25;
+        }
+        return weight;
+    }
+
+    private static boolean isWithin(Element element, Set<Element> roots) {
+        for (Element current = element; current != null; current = current.parent()) {
+            if (roots.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double linkDensity(Element element) {
+        String text = element.text();
+        return text.isEmpty() ? 0 : Math.min(1.0, (double) linkChars(element) / text.length());
+    }
+
+    private static int linkChars(Element element) {
+        int length = 0;
+        for (Element link : element.select("a")) {
+            length += link.text().length();
+        }
+        return length;
+    }
+
+    private static int commaCount(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == ',' || ch == '，' || ch == '、' || ch == '；') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Charset charsetOf(CrawledPage page) {
+        String name = page.getCharset();
+        if (name == null) {
+            // 响应头未声明时查找页面开头的 <meta charset>
+            int length = Math.min(page.getBody().length, 2048);
+            Matcher matcher = META_CHARSET.matcher(new String(page.getBody(), 0, length, StandardCharsets.ISO_8859_1));
+            name = matcher.find() ? matcher.group(1) : null;
+        }
+        try {
+            return name == null ? StandardCharsets.UTF_8 : Charset.forName(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * 段落及其打分信息
+     */
+    private static final class Block {
+
+        private final Element element;
+        private final Element scoreParent;
+        private final String text;
+        private final double linkDensity;
+
+        Block(Element element, Element scoreParent, String text, double linkDensity) {
+            this.element = element;
+            this.scoreParent = scoreParent;
+            this.text = text;
+            this.linkDensity = linkDensity;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cn.lihengrui.todotask.crawler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * robots.txt 访问规则
+ *
+ * 按 RFC 9309 解析：选取与爬虫User-Agent匹配的规则组（无匹配时使用 * 组），
+ * 路径按最长匹配原则判定，Allow与Disallow长度相同时Allow优先。
+ * 支持 * 通配符和 $ 结尾锚定，并读取非标准但常用的 Crawl-delay。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class RobotsRules {
+
+    /**
+     * 允许全部访问（robots.txt不存在时）
+     */
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), null);
+
+    /**
+     * 禁止全部访问（robots.txt暂时不可达时，按RFC 9309应视为全部禁止）
+     */
+    public static final RobotsRules DISALLOW_ALL = new RobotsRules(List.of(new Rule("/", false)), null);
+
+    private final List<Rule> rules;
+    private final Duration crawlDelay;
+
+    private RobotsRules(List<Rule> rules, Duration crawlDelay) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+    }
+
+    /**
+     * 解析robots.txt内容
+     *
+     * @param content robots.txt 文本
+     * @param robotsAgent 爬虫在robots.txt中的产品名（如 TodoTask-Crawler，不区分大小写）
+     * @return 适用于该爬虫的规则
+     */
+    public static RobotsRules parse(String content, String robotsAgent) {
+        String product = robotsAgent == null ? "" : robotsAgent.trim().toLowerCase(Locale.ROOT);
+
+        List<Rule> specificRules = new ArrayList<>();
+        List<Rule> wildcardRules = new ArrayList<>();
+        Duration specificDelay = null;
+        Duration wildcardDelay = null;
+        boolean specificFound = false;
+
+        // 当前规则组命中情况；连续的User-agent行属于同一组
+        boolean groupSpecific = false;
+        boolean groupWildcard = false;
+        boolean inAgentLines = false;
+
+        for (String rawLine : content.split("\\r?\\n|\\r")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if ("user-agent".equals(field)) {
+                if (!inAgentLines) {
+                    groupSpecific = false;
+                    groupWildcard = false;
+                    inAgentLines = true;
+                }
+                String agent = value.toLowerCase(Locale.ROOT);
+                if ("*".equals(agent)) {
+                    groupWildcard = true;
+                } else if (!agent.isEmpty() && agent.equals(product)) {
+                    groupSpecific = true;
+                    specificFound = true;
+                }
+                continue;
+            }
+            inAgentLines = false;
+
+            if ("allow".equals(field) || "disallow".equals(field)) {
+                // 空的Disallow表示不限制，无需记录
+                if (value.isEmpty()) {
+                    continue;
+                }
+                Rule rule = new Rule(value, "allow".equals(field));
+                if (groupSpecific) {
+                    specificRules.add(rule);
+                }
+                if (groupWildcard) {
+                    wildcardRules.add(rule);
+                }
+            } else if ("crawl-delay".equals(field)) {
+                Duration delay = parseDelay(value);
+                if (groupSpecific && delay != null) {
+                    specificDelay = delay;
+                }
+                if (groupWildcard && delay != null) {
+                    wildcardDelay = delay;
+                }
+            }
+        }
+
+        return specificFound
+                ? new RobotsRules(specificRules, specificDelay)
+                : new RobotsRules(wildcardRules, wildcardDelay);
+    }
+
+    /**
+     * 判断路径是否允许抓取
+     *
+     * @param pathAndQuery 请求路径（含查询串）
+     * @return 允许时返回true
+     */
+    public boolean isAllowed(String pathAndQuery) {
+        String path = pathAndQuery == null || pathAndQuery.isEmpty() ? "/" : pathAndQuery;
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (best == null
+                    || rule.length() > best.length()
+                    || rule.length() == best.length() && rule.allow)) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow;
+    }
+
+    /**
+     * @return robots.txt声明的抓取间隔，未声明时为null
+     */
+    public Duration getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    private static Duration parseDelay(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds > 0 ? Duration.ofMillis((long) (seconds * 1000)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单条Allow/Disallow规则
+     */
+    private static final class Rule {
+
+        private final String pattern;
+        private final boolean allow;
+
+        Rule(String pattern, boolean allow) {
+            this.pattern = pattern;
+            this.allow = allow;
+        }
+
+        int length() {
+            return pattern.length();
+        }
+
+        boolean matches(String path) {
+            boolean anchored = pattern.endsWith("$");
+            String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+            return matchFrom(body, 0, path, 0, anchored);
+        }
+
+        private static boolean matchFrom(String pattern, int pi, String path, int si, boolean anchored) {
+            while (pi < pattern.length()) {
+                char pc = pattern.charAt(pi);
+                if (pc == '*') {
+                    // 折叠连续的 *
+                    while (pi < pattern.length() && pattern.charAt(pi) == '*') {
+                        pi++;
+                    }
+                    if (pi == pattern.length()) {
+                        return true;
+                    }
+                    for (int k = si; k <= path.length(); k++) {
+                        if (matchFrom(pattern, pi, path, k, anchored)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (si >= path.length() || path.charAt(si) != pc) {
+                    return false;
+                }
+                pi++;
+                si++;
+            }
+            return !anchored || si == path.length();
+        }
+    }
+}
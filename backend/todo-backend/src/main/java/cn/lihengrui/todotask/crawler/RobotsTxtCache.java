@@ -0,0 +1,104 @@
+package cn.lihengrui.todotask.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * robots.txt 缓存
+ *
+ * 按"协议+主机"缓存解析后的规则，同一主机的并发请求只会触发一次下载，
+ * 其余请求等待同一个结果。缓存跨多次爬取保留，过期后重新下载。
+ *
+ * 下载结果的处理遵循 RFC 9309：
+ * - 2xx：按内容解析
+ * - 4xx：视为没有限制
+ * - 5xx或网络错误：视为全部禁止，并只短时间缓存，以便尽快重试
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Slf4j
+class RobotsTxtCache {
+
+    private static final Duration FAILURE_TTL = Duration.ofMinutes(5);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    RobotsTxtCache(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * 获取地址所在主机的robots规则，缓存中没有或已过期时下载
+     *
+     * @param uri 页面地址
+     * @param client HTTP客户端
+     * @param options 爬取参数（User-Agent、超时、规则组名）
+     * @return 规则
+     */
+    RobotsRules rules(URI uri, HttpClient client, CrawlOptions options) {
+        String key = uri.getScheme() + "://" + UrlCanonicalizer.hostKey(uri);
+        long now = System.nanoTime();
+        CompletableFuture<RobotsRules> created = new CompletableFuture<>();
+        Entry entry = entries.compute(key, (k, existing) ->
+                existing != null && existing.expiresAtNanos - now > 0 ? existing : new Entry(created, now + ttl.toNanos()));
+
+        if (entry.future == created) {
+            RobotsRules rules;
+            try {
+                rules = download(key, client, options);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.warn("获取robots.txt失败，暂时禁止访问该主机: {} - {}", key, e.getMessage());
+                rules = RobotsRules.DISALLOW_ALL;
+            }
+            if (rules == RobotsRules.DISALLOW_ALL) {
+                entry.expiresAtNanos = now + Math.min(ttl.toNanos(), FAILURE_TTL.toNanos());
+            }
+            created.complete(rules);
+        }
+        return entry.future.join();
+    }
+
+    private RobotsRules download(String origin, HttpClient client, CrawlOptions options) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(origin + "/robots.txt"))
+                .timeout(options.getReadTimeout())
+                .header("User-Agent", options.getUserAgent())
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return RobotsRules.parse(new String(response.body(), StandardCharsets.UTF_8), options.getRobotsAgent());
+        }
+        if (status >= 400 && status < 500) {
+            return RobotsRules.ALLOW_ALL;
+        }
+        log.warn("robots.txt返回状态码 {}，暂时禁止访问该主机: {}", status, origin);
+        return RobotsRules.DISALLOW_ALL;
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<RobotsRules> future;
+        private volatile long expiresAtNanos;
+
+        Entry(CompletableFuture<RobotsRules> future, long expiresAtNanos) {
+            this.future = future;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package cn.lihengrui.todotask.crawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * URL规范化工具
+ *
+ * 把指向同一资源的不同写法归一为同一个字符串，作为去重和已访问集合的键：
+ * 1. 协议和主机名转小写，去掉默认端口（http:80 / https:443）
+ * 2. 去掉片段（#...），规范化路径中的 . 和 ..，空路径补为 /
+ * 3. 去掉常见的跟踪参数（utm_*、fbclid、gclid等），其余查询参数按字典序排列
+ *
+ * 只接受http/https地址，无法解析的地址返回null。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "msclkid", "spm", "from", "ref", "source"
+    );
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * 规范化URL
+     *
+     * @param url 原始地址（需为绝对地址）
+     * @return 规范化后的地址，非http/https或无法解析时返回null
+     */
+    public static String canonicalize(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(url.trim()).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!"http".equals(scheme) && !"https".equals(scheme) || uri.getHost() == null) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder(url.length());
+        result.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && "http".equals(scheme)) && !(port == 443 && "https".equals(scheme))) {
+            result.append(':').append(port);
+        }
+
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        // normalize()无法消除开头多余的 ..
+        while (path.startsWith("/../")) {
+            path = path.substring(3);
+        }
+        result.append(path);
+
+        String query = canonicalQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            result.append('?').append(query);
+        }
+        return result.toString();
+    }
+
+    /**
+     * 取规范化地址中的主机键（主机名 + 非默认端口），用于按主机限流和缓存robots.txt
+     *
+     * @param uri 地址
+     * @return 主机键
+     */
+    public static String hostKey(URI uri) {
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        return uri.getPort() == -1 ? host : host + ":" + uri.getPort();
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int eq = param.indexOf('=');
+            String name = (eq < 0 ? param : param.substring(0, eq)).toLowerCase(Locale.ROOT);
+            if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) {
+                continue;
+            }
+            params.add(param);
+        }
+        params.sort(null);
+        return String.join("&", params);
+    }
+}
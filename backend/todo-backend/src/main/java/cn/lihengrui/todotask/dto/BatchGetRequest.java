@@ -0,0 +1,37 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 批量获取请求DTO类
+ *
+ * 用于按ID列表一次性获取多条知识内容，替代逐条调用GET /{id}。
+ * 单次请求的ID数量有上限，调用方需要自行分批。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetRequest {
+
+    /**
+     * 单次请求允许的最大ID数量
+     */
+    public static final int MAX_IDS = 1000;
+
+    /**
+     * 要获取的ID列表
+     */
+    @NotEmpty(message = "ID列表不能为空")
+    @Size(max = MAX_IDS, message = "单次最多获取" + MAX_IDS + "条记录")
+    private List<Long> ids;
+}
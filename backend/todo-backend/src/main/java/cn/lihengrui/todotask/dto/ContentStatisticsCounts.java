@@ -0,0 +1,71 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 内容统计计数DTO类
+ *
+ * 统计信息的条件聚合查询的构造器投影，一次扫描得到全部计数。
+ * 表为空时SUM结果为null，使用方按0处理。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentStatisticsCounts {
+
+    /**
+     * 内容总数
+     */
+    private Long total;
+
+    /**
+     * RSS类型数量
+     */
+    private Long rss;
+
+    /**
+     * Web类型数量
+     */
+    private Long web;
+
+    /**
+     * Manual类型数量
+     */
+    private Long manual;
+
+    /**
+     * 已处理数量
+     */
+    private Long processed;
+
+    /**
+     * 未处理数量
+     */
+    private Long unprocessed;
+
+    /**
+     * 采集成功数量
+     */
+    private Long success;
+
+    /**
+     * 采集失败数量
+     */
+    private Long failed;
+
+    /**
+     * 最近一天采集的数量
+     */
+    private Long lastDay;
+
+    /**
+     * 最近一周采集的数量
+     */
+    private Long lastWeek;
+}
@@ -0,0 +1,35 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按内容类型统计的标签使用次数DTO类
+ *
+ * 聚类分析查询的构造器投影，在数据库中按内容类型和标签分组计数。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentTypeTagCount {
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 标签名
+     */
+    private String tag;
+
+    /**
+     * 该类型下关联此标签的内容数量
+     */
+    private Long count;
+}
@@ -0,0 +1,32 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 每日采集数量DTO类
+ *
+ * 时间趋势查询的构造器投影，在数据库中按采集日期分组计数。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCount {
+
+    /**
+     * 采集日期
+     */
+    private LocalDate date;
+
+    /**
+     * 当天采集的内容数量
+     */
+    private Long count;
+}
@@ -0,0 +1,91 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 知识内容紧凑DTO类
+ *
+ * 用于批量获取接口，只包含重建索引所需的字段（含正文），
+ * 不计算摘要、标签数组等派生字段，也不返回错误信息。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnowledgeContentCompact {
+
+    /**
+     * 知识内容主键ID
+     */
+    private Long knowId;
+
+    /**
+     * 内容标题
+     */
+    private String title;
+
+    /**
+     * 内容正文
+     */
+    private String content;
+
+    /**
+     * 来源URL
+     */
+    private String sourceUrl;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 采集时间
+     */
+    private LocalDateTime acquisitionTime;
+
+    /**
+     * 标签（逗号分隔）
+     */
+    private String tags;
+
+    /**
+     * 处理状态标识
+     */
+    private Boolean processed;
+
+    /**
+     * 采集成功状态
+     */
+    private Boolean success;
+
+    /**
+     * 从实体转换为紧凑DTO的静态方法
+     *
+     * @param entity 知识内容实体
+     * @return 紧凑DTO
+     */
+    public static KnowledgeContentCompact fromEntity(cn.lihengrui.todotask.entity.KnowledgeContent entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        return new KnowledgeContentCompact(
+                entity.getKnowId(),
+                entity.getTitle(),
+                entity.getContent(),
+                entity.getSourceUrl(),
+                entity.getContentType(),
+                entity.getAcquisitionTime(),
+                entity.getTags(),
+                entity.isProcessed(),
+                entity.isSuccess());
+    }
+}
@@ -0,0 +1,38 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 键集分页结果DTO类
+ *
+ * 用于全量导出场景的游标分页：调用方以上一批返回的nextAfterId作为下一次请求的afterId，
+ * 直到hasMore为false。与偏移分页不同，新插入的数据不会导致记录被跳过或重复。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnowledgeContentCursorPage {
+
+    /**
+     * 本批内容（按ID升序）
+     */
+    private List<KnowledgeContentCompact> content;
+
+    /**
+     * 下一批请求使用的游标（本批最后一条记录的ID，本批为空时等于请求的afterId）
+     */
+    private Long nextAfterId;
+
+    /**
+     * 是否还有后续数据
+     */
+    private boolean hasMore;
+}
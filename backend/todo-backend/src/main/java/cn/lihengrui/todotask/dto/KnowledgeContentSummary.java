@@ -77,6 +77,11 @@ public class KnowledgeContentSummary {
      */
     private Integer contentLength;
 
+    /**
+     * 摘要的最大字符数
+     */
+    public static final int SUMMARY_LENGTH = 200;
+
     /**
      * 从实体转换为摘要DTO的静态方法
      *
@@ -88,22 +93,51 @@ public class KnowledgeContentSummary {
             return null;
         }
 
+        String content = entity.getContent();
+        return fromColumns(entity.getKnowId(), entity.getTitle(),
+                content != null && content.length() > SUMMARY_LENGTH ? content.substring(0, SUMMARY_LENGTH) : content,
+                content != null ? content.length() : null,
+                entity.getSourceUrl(), entity.getContentType(), entity.getAcquisitionTime(), entity.getTags(),
+                entity.isProcessed(), entity.isSuccess());
+    }
+
+    /**
+     * 从列表投影查询的列值构造摘要DTO
+     *
+     * 正文只需要前SUMMARY_LENGTH个字符和总长度，由数据库计算后返回，不读取完整正文。
+     *
+     * @param knowId 主键ID
+     * @param title 标题
+     * @param contentPrefix 正文的前SUMMARY_LENGTH个字符
+     * @param contentLength 正文长度，正文为空时为null
+     * @param sourceUrl 来源URL
+     * @param contentType 内容类型
+     * @param acquisitionTime 采集时间
+     * @param tags 标签
+     * @param processed 处理状态
+     * @param success 采集成功状态
+     * @return 摘要DTO
+     */
+    public static KnowledgeContentSummary fromColumns(Long knowId, String title, String contentPrefix, Integer contentLength,
+                                                      String sourceUrl, String contentType, LocalDateTime acquisitionTime,
+                                                      String tags, Boolean processed, Boolean success) {
         KnowledgeContentSummary summary = new KnowledgeContentSummary();
-        summary.setKnowId(entity.getKnowId());
-        summary.setTitle(entity.getTitle());
-        summary.setSourceUrl(entity.getSourceUrl());
-        summary.setContentType(entity.getContentType());
-        summary.setAcquisitionTime(entity.getAcquisitionTime());
-        summary.setProcessed(entity.isProcessed());
-        summary.setSuccess(entity.isSuccess());
+        summary.setKnowId(knowId);
+        summary.setTitle(title);
+        summary.setSourceUrl(sourceUrl);
+        summary.setContentType(contentType);
+        summary.setAcquisitionTime(acquisitionTime);
+        summary.setProcessed(processed);
+        summary.setSuccess(success);
 
         // 生成内容摘要
-        if (entity.getContent() != null) {
-            summary.setContentLength(entity.getContent().length());
-            if (entity.getContent().length() > 200) {
-                summary.setSummary(entity.getContent().substring(0, 200) + "...");
+        if (contentPrefix != null) {
+            int length = contentLength != null ? contentLength : contentPrefix.length();
+            summary.setContentLength(length);
+            if (length > SUMMARY_LENGTH) {
+                summary.setSummary(contentPrefix + "...");
             } else {
-                summary.setSummary(entity.getContent());
+                summary.setSummary(contentPrefix);
             }
         } else {
             summary.setContentLength(0);
@@ -111,8 +145,8 @@ public class KnowledgeContentSummary {
         }
 
         // 提取主要标签（前3个）
-        if (entity.getTags() != null && !entity.getTags().isEmpty()) {
-            String[] allTags = entity.getTags().split(",");
+        if (tags != null && !tags.isEmpty()) {
+            String[] allTags = tags.split(",");
             if (allTags.length <= 3) {
                 summary.setPrimaryTags(allTags);
             } else {
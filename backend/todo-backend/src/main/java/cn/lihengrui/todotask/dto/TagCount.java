@@ -0,0 +1,30 @@
+package cn.lihengrui.todotask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 标签使用次数DTO类
+ *
+ * 标签统计查询的构造器投影，只包含标签名和关联的内容数量。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagCount {
+
+    /**
+     * 标签名
+     */
+    private String name;
+
+    /**
+     * 关联的内容数量
+     */
+    private Long count;
+}
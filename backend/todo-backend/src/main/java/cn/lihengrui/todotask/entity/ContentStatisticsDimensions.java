@@ -0,0 +1,26 @@
+package cn.lihengrui.todotask.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 内容的统计维度
+ *
+ * 实体加载或保存时由ContentStatisticsListener记录在实体的瞬态字段上，
+ * 修改和删除时据此扣减原来的统计计数。
+ *
+ * @param contentType 内容类型
+ * @param processed 是否已处理
+ * @param success 是否采集成功
+ * @param acquisitionTime 采集时间
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public record ContentStatisticsDimensions(String contentType, boolean processed, boolean success,
+                                          LocalDateTime acquisitionTime) {
+
+    public static ContentStatisticsDimensions of(KnowledgeContent content) {
+        return new ContentStatisticsDimensions(content.getContentType(), content.isProcessed(), content.isSuccess(),
+                content.getAcquisitionTime());
+    }
+}
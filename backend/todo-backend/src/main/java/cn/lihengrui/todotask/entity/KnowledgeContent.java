@@ -1,9 +1,12 @@
 package cn.lihengrui.todotask.entity;
 
+import cn.lihengrui.todotask.service.ContentStatisticsListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -30,7 +33,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor       // Lombok注解：生成无参构造函数
 @AllArgsConstructor      // Lombok注解：生成全参构造函数
 @Entity                  // JPA注解：标识这是一个JPA实体类
-@Table(name = "knowledge_content")  // JPA注解：指定数据库表名
+@Table(name = "knowledge_content",  // JPA注解：指定数据库表名
+       indexes = {
+           @Index(name = "idx_knowledge_content_source_url", columnList = "sourceUrl"),  // 采集去重按来源URL查询
+           @Index(name = "idx_knowledge_content_acquisition_time", columnList = "acquisitionTime")  // 时间趋势按采集时间范围统计
+       })
+@EntityListeners(ContentStatisticsListener.class)  // 新增、修改、删除时增量更新统计计数
 public class KnowledgeContent {
 
     /**
@@ -154,4 +162,32 @@ public class KnowledgeContent {
      * - "数据长度超出限制"
      */
     private String errorMessage;
+
+    /**
+     * SimHash文本指纹
+     * 
+     * 由AI加工时根据标题和正文计算，文本过短时为空。
+     * 两条内容指纹的汉明距离很小时视为近似重复（如同一文章被不同网站转载）。
+     */
+    @Column(name = "sim_hash")
+    private Long simHash;
+
+    /**
+     * 近似重复的原始内容ID
+     * 
+     * 入库时发现与已有内容近似重复、且配置为关联模式时记录原始内容的ID，
+     * 为空表示这是一条独立内容。
+     */
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
+
+    /**
+     * 加载或保存时的统计维度（不持久化）
+     * 
+     * 由ContentStatisticsListener维护，修改和删除时据此扣减原来的统计计数。
+     */
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient ContentStatisticsDimensions statisticsState;
 }
@@ -0,0 +1,55 @@
+package cn.lihengrui.todotask.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 知识内容与标签的关联实体类
+ *
+ * 只保存两端的ID，不映射为实体关联，避免加载知识内容时连带加载标签集合。
+ * 主键(know_id, tag_id)支持按内容查标签，索引(tag_id, know_id)支持按标签过滤和计数。
+ *
+ * 数据库表映射：knowledge_content_tag
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data                    // Lombok注解：自动生成getter、setter、equals、hashCode、toString方法
+@NoArgsConstructor       // Lombok注解：生成无参构造函数
+@AllArgsConstructor      // Lombok注解：生成全参构造函数
+@Entity                  // JPA注解：标识这是一个JPA实体类
+@IdClass(KnowledgeContentTag.Key.class)
+@Table(name = "knowledge_content_tag",
+       indexes = @Index(name = "idx_knowledge_content_tag_tag_id", columnList = "tag_id, know_id"))
+public class KnowledgeContentTag {
+
+    /**
+     * 知识内容ID
+     */
+    @Id
+    @Column(name = "know_id")
+    private Long knowId;
+
+    /**
+     * 标签ID
+     */
+    @Id
+    @Column(name = "tag_id")
+    private Long tagId;
+
+    /**
+     * 复合主键
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long knowId;
+        private Long tagId;
+    }
+}
@@ -0,0 +1,85 @@
+package cn.lihengrui.todotask.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 标签实体类
+ *
+ * 每个标签名一条记录，与知识内容通过 knowledge_content_tag 关联。
+ * 标签名唯一且不区分大小写（MySQL utf8mb4_unicode_ci 排序规则），
+ * 按标签过滤和标签统计都走索引，不再对 knowledge_content.tags 做 LIKE 和全表拆分。
+ *
+ * knowledge_content.tags 仍保留逗号分隔的原始字符串供接口返回，
+ * 写入时由 KnowledgeContentBatchRepository.syncTags 同步到关联表。
+ *
+ * 数据库表映射：knowledge_tag
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data                    // Lombok注解：自动生成getter、setter、equals、hashCode、toString方法
+@NoArgsConstructor       // Lombok注解：生成无参构造函数
+@AllArgsConstructor      // Lombok注解：生成全参构造函数
+@Entity                  // JPA注解：标识这是一个JPA实体类
+@Table(name = "knowledge_tag",
+       uniqueConstraints = @UniqueConstraint(name = "uk_knowledge_tag_name", columnNames = "name"))
+public class KnowledgeTag {
+
+    /**
+     * 标签名最大长度
+     */
+    public static final int MAX_NAME_LENGTH = 255;
+
+    // 标签分隔符：中英文逗号和分号
+    private static final Pattern SEPARATOR = Pattern.compile("[,，;；]");
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "tag_id")
+    private Long tagId;
+
+    /**
+     * 标签名
+     */
+    @Column(nullable = false, length = MAX_NAME_LENGTH)
+    private String name;
+
+    /**
+     * 拆分逗号分隔的标签字符串
+     *
+     * 去除首尾空白和空项，按不区分大小写去重（保留第一次出现的写法），超长的标签名截断。
+     *
+     * @param tags 标签字符串，可为null
+     * @return 标签名列表（保持原顺序）
+     */
+    public static List<String> splitTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return new ArrayList<>();
+        }
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String part : SEPARATOR.split(tags)) {
+            String name = part.strip();
+            if (name.length() > MAX_NAME_LENGTH) {
+                name = name.substring(0, MAX_NAME_LENGTH);
+            }
+            if (!name.isEmpty()) {
+                unique.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            }
+        }
+        return new ArrayList<>(unique.values());
+    }
+}
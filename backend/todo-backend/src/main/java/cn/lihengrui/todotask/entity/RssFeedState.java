@@ -0,0 +1,95 @@
+package cn.lihengrui.todotask.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * RSS源采集状态实体类
+ *
+ * 每个RSS源一条记录，保存条件请求所需的缓存校验信息和自适应轮询状态，
+ * 使采集任务重启后仍能发送 If-None-Match / If-Modified-Since，
+ * 并按各源实际的更新频率安排下一次采集。
+ *
+ * 数据库表映射：rss_feed_state
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Data                    // Lombok注解：自动生成getter、setter、equals、hashCode、toString方法
+@NoArgsConstructor       // Lombok注解：生成无参构造函数
+@AllArgsConstructor      // Lombok注解：生成全参构造函数
+@Entity                  // JPA注解：标识这是一个JPA实体类
+@Table(name = "rss_feed_state")  // JPA注解：指定数据库表名
+public class RssFeedState {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * RSS源地址，唯一
+     */
+    @Column(nullable = false, unique = true, length = 512)
+    private String feedUrl;
+
+    /**
+     * 上次成功响应的ETag，用于 If-None-Match
+     */
+    private String etag;
+
+    /**
+     * 上次成功响应的Last-Modified原始值，用于 If-Modified-Since
+     */
+    private String lastModified;
+
+    /**
+     * 当前轮询间隔（分钟），在配置的上下限之间自适应调整
+     */
+    @Column(nullable = false)
+    private int pollIntervalMinutes;
+
+    /**
+     * 最近一次采集时间
+     */
+    private LocalDateTime lastFetchTime;
+
+    /**
+     * 下一次采集时间，到期后才会被采集任务选中
+     */
+    private LocalDateTime nextFetchTime;
+
+    /**
+     * 最近一次发现新条目的时间
+     */
+    private LocalDateTime lastChangeTime;
+
+    /**
+     * 已见过的最新条目发布时间，用于判断响应中是否有新条目
+     */
+    private LocalDateTime latestEntryTime;
+
+    /**
+     * 最近一次响应的HTTP状态码
+     */
+    private Integer lastStatus;
+
+    /**
+     * 连续失败次数，成功后清零
+     */
+    @Column(nullable = false)
+    private int consecutiveFailures;
+
+    /**
+     * 最近一次失败的错误信息
+     */
+    @Column(length = 1000)
+    private String lastError;
+}
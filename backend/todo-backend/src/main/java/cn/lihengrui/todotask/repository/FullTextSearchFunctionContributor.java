@@ -0,0 +1,46 @@
+package cn.lihengrui.todotask.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * 全文检索HQL函数注册
+ *
+ * 注册函数 fulltext_match(title, content, keyword)，keyword为小写关键词，返回相关度（大于0表示匹配）：
+ * - MySQL：渲染为 MATCH(title, content) AGAINST('"keyword"' IN BOOLEAN MODE)，
+ *   走V3迁移脚本创建的ngram全文索引；关键词整体作为短语匹配，接近子串匹配的语义
+ *   索引需满足：ngram_token_size=2（服务器默认值，需与MIN_FULLTEXT_KEYWORD_LENGTH一致），
+ *   且建索引时关闭停用词（V6迁移脚本以 innodb_ft_enable_stopword=OFF 重建），
+ *   否则ngram会丢弃包含英文停用词的词元，java 等拉丁字母关键词搜索不到
+ * - 其他数据库（测试使用的H2）：渲染为不区分大小写的子串查找，不走索引
+ *
+ * 通过 META-INF/services/org.hibernate.boot.model.FunctionContributor 由Hibernate加载。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class FullTextSearchFunctionContributor implements FunctionContributor {
+
+    /**
+     * 函数名，供JPQL和Criteria（CriteriaBuilder.function）使用
+     */
+    public static final String FULLTEXT_MATCH = "fulltext_match";
+
+    static final String MYSQL_PATTERN =
+            "match(?1, ?2) against (concat('\"', ?3, '\"') in boolean mode)";
+
+    static final String FALLBACK_PATTERN =
+            "(case when locate(?3, lower(concat(?1, ' ', coalesce(?2, '')))) > 0 then 1.0 else 0.0 end)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+        String pattern = functionContributions.getDialect() instanceof MySQLDialect ? MYSQL_PATTERN : FALLBACK_PATTERN;
+        functionContributions.getFunctionRegistry().registerPattern(FULLTEXT_MATCH, pattern, doubleType);
+    }
+}
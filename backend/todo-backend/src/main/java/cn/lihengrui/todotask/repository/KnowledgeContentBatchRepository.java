@@ -0,0 +1,60 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 知识内容批量写入扩展接口
+ *
+ * 作为Spring Data仓库片段合并到KnowledgeContentRepository中，
+ * 为RSS和网页采集提供按来源URL去重的批量入库能力，
+ * 并负责把tags字符串同步到标签关联表（knowledge_tag / knowledge_content_tag）。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public interface KnowledgeContentBatchRepository {
+
+    /**
+     * 按来源URL去重，只保留数据库中尚不存在的内容
+     *
+     * 批内重复的URL只保留第一条；已入库的URL通过按来源URL索引的IN查询一次性查出，
+     * 来源URL为空的内容直接丢弃。调用方可在AI加工前先过滤，避免为重复内容做无用功。
+     *
+     * @param contents 待入库的内容
+     * @return 需要新增的内容（保持原顺序）
+     */
+    List<KnowledgeContent> retainNewBySourceUrl(List<KnowledgeContent> contents);
+
+    /**
+     * 以JDBC批量方式插入内容
+     *
+     * 主键为自增列，Hibernate无法对其合并INSERT，因此直接使用JDBC批处理；
+     * 配合MySQL连接参数rewriteBatchedStatements=true，每批只产生一次多值INSERT往返。
+     * 插入后按插入顺序把自增主键回填到各实体的knowId上，并写入标签关联。
+     *
+     * @param contents 待插入的内容
+     * @return 插入的记录数
+     */
+    int batchInsert(List<KnowledgeContent> contents);
+
+    /**
+     * 按各内容当前的tags字符串重建其标签关联
+     *
+     * 通过JPA保存内容（新建、修改、批量增删标签、AI加工写回）后调用，需在同一事务内；
+     * 不存在的标签名先插入标签表，再批量写入关联。没有ID的内容被忽略。
+     *
+     * @param contents 已保存的内容
+     */
+    void syncTags(Collection<KnowledgeContent> contents);
+
+    /**
+     * 删除指定内容的标签关联，删除内容前调用
+     *
+     * @param knowIds 内容ID
+     */
+    void deleteTagLinks(Collection<Long> knowIds);
+}
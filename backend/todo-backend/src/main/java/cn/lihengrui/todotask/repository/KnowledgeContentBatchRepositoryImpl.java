@@ -0,0 +1,270 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.entity.KnowledgeTag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 知识内容批量写入扩展实现
+ *
+ * 类名以Impl结尾，由Spring Data自动识别为KnowledgeContentBatchRepository的实现片段。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class KnowledgeContentBatchRepositoryImpl implements KnowledgeContentBatchRepository {
+
+    /**
+     * 单条INSERT批处理的记录数，与hibernate.jdbc.batch_size保持一致
+     */
+    static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 单次IN查询的最大参数个数
+     */
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO knowledge_content "
+            + "(title, content, source_url, content_type, acquisition_time, tags, processed, success, error_message, "
+            + "sim_hash, duplicate_of) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXISTING_URLS_SQL =
+            "SELECT source_url FROM knowledge_content WHERE source_url IN (:urls)";
+
+    private static final String DELETE_TAG_LINKS_SQL = "DELETE FROM knowledge_content_tag WHERE know_id IN (:ids)";
+
+    private static final String SELECT_TAGS_SQL = "SELECT tag_id, name FROM knowledge_tag WHERE name IN (:names)";
+
+    private static final String INSERT_TAG_SQL = "INSERT INTO knowledge_tag (name) VALUES (?)";
+
+    private static final String INSERT_TAG_LINK_SQL = "INSERT INTO knowledge_content_tag (know_id, tag_id) VALUES (?, ?)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<KnowledgeContent> retainNewBySourceUrl(List<KnowledgeContent> contents) {
+        // 批内去重，保留第一次出现的内容
+        Map<String, KnowledgeContent> byUrl = new LinkedHashMap<>();
+        for (KnowledgeContent content : contents) {
+            if (content != null && content.getSourceUrl() != null && !content.getSourceUrl().isEmpty()) {
+                byUrl.putIfAbsent(content.getSourceUrl(), content);
+            }
+        }
+        if (byUrl.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 按块查询已存在的来源URL
+        List<String> urls = new ArrayList<>(byUrl.keySet());
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < urls.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = urls.subList(from, Math.min(urls.size(), from + IN_CHUNK_SIZE));
+            existing.addAll(namedParameterJdbcTemplate.queryForList(
+                    EXISTING_URLS_SQL, new MapSqlParameterSource("urls", chunk), String.class));
+        }
+
+        List<KnowledgeContent> fresh = new ArrayList<>(byUrl.size());
+        for (Map.Entry<String, KnowledgeContent> entry : byUrl.entrySet()) {
+            if (!existing.contains(entry.getKey())) {
+                fresh.add(entry.getValue());
+            }
+        }
+        return fresh;
+    }
+
+    @Override
+    @Transactional
+    public int batchInsert(List<KnowledgeContent> contents) {
+        if (contents.isEmpty()) {
+            return 0;
+        }
+
+        Integer inserted = namedParameterJdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Integer>) connection -> {
+            int count = 0;
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < contents.size(); from += INSERT_BATCH_SIZE) {
+                    List<KnowledgeContent> chunk = contents.subList(from, Math.min(contents.size(), from + INSERT_BATCH_SIZE));
+                    for (KnowledgeContent content : chunk) {
+                        bind(ps, content);
+                        ps.addBatch();
+                    }
+                    count += countInserted(ps.executeBatch());
+
+                    // 自增主键按插入顺序返回，回填到实体上
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        for (int i = 0; i < chunk.size() && keys.next(); i++) {
+                            chunk.get(i).setKnowId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return count;
+        });
+
+        insertTagLinks(contents.stream().filter(content -> content.getKnowId() != null).toList());
+        return inserted != null ? inserted : 0;
+    }
+
+    @Override
+    @Transactional
+    public void syncTags(Collection<KnowledgeContent> contents) {
+        List<KnowledgeContent> saved = contents.stream().filter(content -> content.getKnowId() != null).toList();
+        if (saved.isEmpty()) {
+            return;
+        }
+        deleteTagLinks(saved.stream().map(KnowledgeContent::getKnowId).toList());
+        insertTagLinks(saved);
+    }
+
+    @Override
+    @Transactional
+    public void deleteTagLinks(Collection<Long> knowIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(knowIds));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK_SIZE));
+            namedParameterJdbcTemplate.update(DELETE_TAG_LINKS_SQL, new MapSqlParameterSource("ids", chunk));
+        }
+    }
+
+    /**
+     * 为已有ID的内容写入标签关联（调用方保证这些内容当前没有关联）
+     */
+    private void insertTagLinks(List<KnowledgeContent> contents) {
+        List<List<String>> tagNames = new ArrayList<>(contents.size());
+        Map<String, String> namesByKey = new LinkedHashMap<>();
+        for (KnowledgeContent content : contents) {
+            List<String> names = KnowledgeTag.splitTags(content.getTags());
+            tagNames.add(names);
+            names.forEach(name -> namesByKey.putIfAbsent(tagKey(name), name));
+        }
+        if (namesByKey.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> tagIds = resolveTagIds(namesByKey);
+        List<long[]> links = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            long knowId = contents.get(i).getKnowId();
+            // 数据库排序规则下相同的标签名只关联一次
+            Set<Long> linked = new HashSet<>();
+            for (String name : tagNames.get(i)) {
+                Long tagId = tagIds.get(tagKey(name));
+                if (tagId != null && linked.add(tagId)) {
+                    links.add(new long[]{knowId, tagId});
+                }
+            }
+        }
+        namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_TAG_LINK_SQL, links, INSERT_BATCH_SIZE,
+                (ps, link) -> {
+                    ps.setLong(1, link[0]);
+                    ps.setLong(2, link[1]);
+                });
+    }
+
+    /**
+     * 查出标签名对应的ID，不存在的标签先插入
+     *
+     * @param namesByKey 小写标签名 -> 标签名
+     * @return 小写标签名 -> 标签ID
+     */
+    private Map<String, Long> resolveTagIds(Map<String, String> namesByKey) {
+        Map<String, Long> tagIds = selectTagIds(namesByKey.values());
+        List<String> missing = new ArrayList<>();
+        namesByKey.forEach((key, name) -> {
+            if (!tagIds.containsKey(key)) {
+                missing.add(name);
+            }
+        });
+        if (!missing.isEmpty()) {
+            insertTags(missing);
+            tagIds.putAll(selectTagIds(missing));
+        }
+        return tagIds;
+    }
+
+    private Map<String, Long> selectTagIds(Collection<String> names) {
+        List<String> list = new ArrayList<>(names);
+        Map<String, Long> tagIds = new HashMap<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = list.subList(from, Math.min(list.size(), from + IN_CHUNK_SIZE));
+            namedParameterJdbcTemplate.query(SELECT_TAGS_SQL, new MapSqlParameterSource("names", chunk),
+                    (RowCallbackHandler) rs -> tagIds.put(tagKey(rs.getString(2)), rs.getLong(1)));
+        }
+        return tagIds;
+    }
+
+    private void insertTags(List<String> names) {
+        try {
+            namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_TAG_SQL, names, INSERT_BATCH_SIZE,
+                    (ps, name) -> ps.setString(1, name));
+        } catch (DataIntegrityViolationException e) {
+            // 并发写入了同名标签：逐条插入，已存在的跳过
+            for (String name : names) {
+                try {
+                    namedParameterJdbcTemplate.getJdbcTemplate().update(INSERT_TAG_SQL, name);
+                } catch (DuplicateKeyException ignored) {
+                    // 已由其他事务插入
+                }
+            }
+        }
+    }
+
+    private static String tagKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static void bind(PreparedStatement ps, KnowledgeContent content) throws SQLException {
+        ps.setString(1, content.getTitle());
+        ps.setString(2, content.getContent());
+        ps.setString(3, content.getSourceUrl());
+        ps.setString(4, content.getContentType());
+        ps.setTimestamp(5, content.getAcquisitionTime() != null ? Timestamp.valueOf(content.getAcquisitionTime()) : null);
+        ps.setString(6, content.getTags());
+        ps.setBoolean(7, content.isProcessed());
+        ps.setBoolean(8, content.isSuccess());
+        ps.setString(9, content.getErrorMessage());
+        ps.setObject(10, content.getSimHash(), Types.BIGINT);
+        ps.setObject(11, content.getDuplicateOf(), Types.BIGINT);
+    }
+
+    private static int countInserted(int[] results) {
+        // 驱动改写批处理后单条结果可能为SUCCESS_NO_INFO，按插入成功一条计数
+        int inserted = 0;
+        for (int count : results) {
+            if (count > 0) {
+                inserted += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+}
@@ -1,12 +1,30 @@
 package cn.lihengrui.todotask.repository;
 
+import cn.lihengrui.todotask.dto.ContentStatisticsCounts;
+import cn.lihengrui.todotask.dto.DailyCount;
+import cn.lihengrui.todotask.dto.KnowledgeContentCompact;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.entity.KnowledgeContentTag;
+import cn.lihengrui.todotask.entity.KnowledgeTag;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static cn.lihengrui.todotask.repository.FullTextSearchFunctionContributor.FULLTEXT_MATCH;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * 知识内容数据访问层接口
@@ -34,6 +52,18 @@ import java.util.List;
  * 4. 存在性检查：
  *    - existsById(id): 检查指定ID的记录是否存在
  * 
+ * 5. 采集入库（KnowledgeContentBatchRepository片段）：
+ *    - retainNewBySourceUrl(contents): 按来源URL去重
+ *    - batchInsert(contents): JDBC批量插入
+ *    - syncTags(contents) / deleteTagLinks(ids): 维护标签关联表
+ * 
+ * 6. 关键词检索：
+ *    - matchesKeyword(keyword): 标题和正文全文检索条件，可与其他Specification组合
+ *    - hasTag(tag): 按标签关联表过滤
+ * 
+ * 7. 列表投影（KnowledgeContentSummaryRepository片段）：
+ *    - findSummaries(spec, pageable): 按条件分页查询摘要，不读取完整正文
+ * 
  * 使用场景：
  * - RSS采集服务保存新采集的内容
  * - 网页爬取服务存储爬取的数据
@@ -57,7 +87,8 @@ import java.util.List;
  * @since 2025-09-26
  */
 @Repository  // Spring注解：标识这是一个数据访问层组件，用于异常转换和组件扫描
-public interface KnowledgeContentRepository extends JpaRepository<KnowledgeContent, Long>, JpaSpecificationExecutor<KnowledgeContent> {
+public interface KnowledgeContentRepository extends JpaRepository<KnowledgeContent, Long>, JpaSpecificationExecutor<KnowledgeContent>,
+        KnowledgeContentBatchRepository, KnowledgeContentSummaryRepository {
     
     /**
      * 根据内容类型统计数量
@@ -91,6 +122,40 @@ public interface KnowledgeContentRepository extends JpaRepository<KnowledgeConte
      */
     long countByAcquisitionTimeAfter(LocalDateTime dateTime);
 
+    /**
+     * 按ID批量查询紧凑格式的知识内容（批量获取接口使用）
+     * 构造器投影只查询紧凑DTO需要的列，不加载实体，也不进入持久化上下文
+     *
+     * @param ids ID集合
+     * @return 紧凑DTO列表，顺序不保证与ID一致
+     */
+    @Query("SELECT new cn.lihengrui.todotask.dto.KnowledgeContentCompact(kc.knowId, kc.title, kc.content, "
+            + "kc.sourceUrl, kc.contentType, kc.acquisitionTime, kc.tags, kc.processed, kc.success) "
+            + "FROM KnowledgeContent kc WHERE kc.knowId IN :ids")
+    List<KnowledgeContentCompact> findCompactByKnowIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 一次扫描统计总数、各类型、各状态以及最近一天/一周的采集数量
+     * 条件聚合（SUM(CASE ...)）代替逐项COUNT，统计信息的定期校准和回退查询使用
+     *
+     * @param oneDayAgo 一天前的时间点
+     * @param oneWeekAgo 一周前的时间点
+     * @return 统计计数
+     */
+    @Query("SELECT new cn.lihengrui.todotask.dto.ContentStatisticsCounts(COUNT(kc), "
+            + "SUM(CASE WHEN kc.contentType = 'RSS' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.contentType = 'Web' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.contentType = 'Manual' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.processed = true THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.processed = false THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.success = true THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.success = false THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.acquisitionTime > :oneDayAgo THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN kc.acquisitionTime > :oneWeekAgo THEN 1 ELSE 0 END)) "
+            + "FROM KnowledgeContent kc")
+    ContentStatisticsCounts aggregateStatistics(@Param("oneDayAgo") LocalDateTime oneDayAgo,
+                                                @Param("oneWeekAgo") LocalDateTime oneWeekAgo);
+
     /**
      * 根据时间范围查询内容
      *
@@ -100,6 +165,60 @@ public interface KnowledgeContentRepository extends JpaRepository<KnowledgeConte
      */
     List<KnowledgeContent> findByAcquisitionTimeBetween(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 全文检索可用的最短关键词长度，与MySQL ngram_token_size默认值一致
+     */
+    int MIN_FULLTEXT_KEYWORD_LENGTH = 2;
+
+    /**
+     * 关键词检索条件：标题或正文中包含关键词（不区分大小写）
+     *
+     * MySQL上通过 fulltext_match 函数以 MATCH ... AGAINST 走标题+正文的ngram全文索引；
+     * 短于ngram切分长度的关键词无法使用全文索引，退回 LIKE 匹配。
+     * 全文索引须在关闭停用词的情况下创建（见V6迁移脚本），否则 java 等含停用词词元的关键词无法命中。
+     *
+     * @param keyword 关键词，整体作为短语匹配
+     * @return 检索条件
+     */
+    static Specification<KnowledgeContent> matchesKeyword(String keyword) {
+        // 双引号是布尔模式的短语定界符，不能出现在短语内部
+        String phrase = keyword.replace("\"", "").strip().toLowerCase(Locale.ROOT);
+        return (root, query, criteriaBuilder) -> {
+            if (phrase.codePointCount(0, phrase.length()) < MIN_FULLTEXT_KEYWORD_LENGTH) {
+                String searchPattern = "%" + phrase + "%";
+                return criteriaBuilder.or(
+                        criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), searchPattern),
+                        criteriaBuilder.like(criteriaBuilder.lower(root.get("content")), searchPattern));
+            }
+            return criteriaBuilder.greaterThan(
+                    criteriaBuilder.function(FULLTEXT_MATCH, Double.class,
+                            root.get("title"), root.get("content"), criteriaBuilder.literal(phrase)),
+                    0.0);
+        };
+    }
+
+    /**
+     * 标签过滤条件：内容关联了指定名称的标签（不区分大小写）
+     *
+     * 以EXISTS子查询通过标签名唯一索引和关联表主键定位，不再对tags字符串做LIKE。
+     *
+     * @param tag 标签名
+     * @return 过滤条件
+     */
+    static Specification<KnowledgeContent> hasTag(String tag) {
+        String name = tag.strip();
+        return (root, query, criteriaBuilder) -> {
+            Subquery<Long> linked = query.subquery(Long.class);
+            Root<KnowledgeContentTag> link = linked.from(KnowledgeContentTag.class);
+            Root<KnowledgeTag> knowledgeTag = linked.from(KnowledgeTag.class);
+            linked.select(link.get("knowId")).where(
+                    criteriaBuilder.equal(link.get("knowId"), root.get("knowId")),
+                    criteriaBuilder.equal(link.get("tagId"), knowledgeTag.get("tagId")),
+                    criteriaBuilder.equal(knowledgeTag.get("name"), name));
+            return criteriaBuilder.exists(linked);
+        };
+    }
+
     /**
      * 获取内容类型分布统计
      *
@@ -107,6 +226,58 @@ public interface KnowledgeContentRepository extends JpaRepository<KnowledgeConte
      */
     @Query("SELECT kc.contentType, COUNT(kc) FROM KnowledgeContent kc GROUP BY kc.contentType")
     List<Object[]> findContentTypeDistribution();
+
+    /**
+     * 按采集日期统计指定时间范围内的内容数量
+     * 在数据库中分组计数，走采集时间索引的范围扫描，不读取内容行
+     *
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（含）
+     * @return 每日数量列表，按日期升序，没有内容的日期不出现
+     */
+    @Query("SELECT new cn.lihengrui.todotask.dto.DailyCount(CAST(kc.acquisitionTime AS LocalDate), COUNT(kc)) "
+            + "FROM KnowledgeContent kc WHERE kc.acquisitionTime BETWEEN :startTime AND :endTime "
+            + "GROUP BY CAST(kc.acquisitionTime AS LocalDate) ORDER BY CAST(kc.acquisitionTime AS LocalDate)")
+    List<DailyCount> countDailyBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 以流的形式读取全部内容的标题（用于词云统计）
+     * 只查询标题列，不读取正文；调用方必须在只读事务内消费并关闭流
+     *
+     * @return 标题流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT kc.title FROM KnowledgeContent kc")
+    Stream<String> streamTitles();
+
+    /**
+     * 键集分页：按主键升序查询ID大于afterId的内容
+     * 走主键索引的范围扫描，查询代价与游标位置无关
+     *
+     * @param afterId 游标（上一批最后一条记录的ID）
+     * @param pageable 只使用其中的页面大小
+     * @return 内容列表
+     */
+    @Query("SELECT kc FROM KnowledgeContent kc WHERE kc.knowId > :afterId ORDER BY kc.knowId ASC")
+    List<KnowledgeContent> findAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 以流的形式按主键顺序读取全部内容（用于全量导出）
+     * 通过fetch size提示让驱动分批从游标取数，调用方必须在只读事务内消费并关闭流
+     *
+     * @return 内容流
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT kc FROM KnowledgeContent kc ORDER BY kc.knowId ASC")
+    Stream<KnowledgeContent> streamAllOrderByKnowId();
+
+    /**
+     * 查询所有独立内容（非近似重复）的ID和SimHash指纹，用于构建近似重复查找表
+     *
+     * @return [knowId, simHash] 数组列表
+     */
+    @Query("SELECT kc.knowId, kc.simHash FROM KnowledgeContent kc WHERE kc.simHash IS NOT NULL AND kc.duplicateOf IS NULL")
+    List<Object[]> findSimHashFingerprints();
     
     /*
      * 可扩展的自定义查询方法示例：
@@ -117,9 +288,6 @@ public interface KnowledgeContentRepository extends JpaRepository<KnowledgeConte
      * // 查询未处理的内容
      * List<KnowledgeContent> findByProcessedFalse();
      * 
-     * // 根据来源URL查询（用于去重）
-     * Optional<KnowledgeContent> findBySourceUrl(String sourceUrl);
-     * 
      * // 按采集时间范围查询
      * List<KnowledgeContent> findByAcquisitionTimeBetween(
      *     LocalDateTime startTime, LocalDateTime endTime);
@@ -0,0 +1,32 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.dto.KnowledgeContentSummary;
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * 知识内容列表投影扩展接口
+ *
+ * 作为Spring Data仓库片段合并到KnowledgeContentRepository中，
+ * 为分页列表和搜索提供只查询摘要所需列的投影查询。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public interface KnowledgeContentSummaryRepository {
+
+    /**
+     * 按条件分页查询内容摘要
+     *
+     * 正文只在数据库中截取前KnowledgeContentSummary.SUMMARY_LENGTH个字符并计算长度，
+     * 完整正文（最长50000字符）不会被读出，也不会创建实体。
+     *
+     * @param spec 过滤条件，与findAll(Specification, Pageable)使用的条件相同
+     * @param pageable 分页和排序参数
+     * @return 摘要分页结果
+     */
+    Page<KnowledgeContentSummary> findSummaries(Specification<KnowledgeContent> spec, Pageable pageable);
+}
@@ -0,0 +1,110 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.dto.KnowledgeContentSummary;
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 知识内容列表投影扩展实现
+ *
+ * 类名以Impl结尾，由Spring Data自动识别为KnowledgeContentSummaryRepository的实现片段。
+ * 使用Criteria API构造元组查询，过滤条件直接复用Specification。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class KnowledgeContentSummaryRepositoryImpl implements KnowledgeContentSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<KnowledgeContentSummary> findSummaries(Specification<KnowledgeContent> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<KnowledgeContent> root = query.from(KnowledgeContent.class);
+        Expression<String> content = root.get("content");
+
+        // 正文只取前缀和长度：SUBSTRING(content, 1, N)、LENGTH(content)（MySQL上为CHAR_LENGTH）
+        query.multiselect(
+                root.get("knowId"),
+                root.get("title"),
+                cb.substring(content, 1, KnowledgeContentSummary.SUMMARY_LENGTH),
+                cb.length(content),
+                root.get("sourceUrl"),
+                root.get("contentType"),
+                root.get("acquisitionTime"),
+                root.get("tags"),
+                root.get("processed"),
+                root.get("success"));
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<KnowledgeContentSummary> summaries = typedQuery.getResultList().stream()
+                .map(KnowledgeContentSummaryRepositoryImpl::toSummary)
+                .toList();
+
+        // 最后一页不足一页时不再执行COUNT查询
+        return PageableExecutionUtils.getPage(summaries, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<KnowledgeContent> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<KnowledgeContent> root = query.from(KnowledgeContent.class);
+        query.select(cb.count(root));
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate toPredicate(Specification<KnowledgeContent> spec, Root<KnowledgeContent> root,
+                                         CriteriaQuery<?> query, CriteriaBuilder cb) {
+        return spec != null ? spec.toPredicate(root, query, cb) : null;
+    }
+
+    private static KnowledgeContentSummary toSummary(Tuple row) {
+        return KnowledgeContentSummary.fromColumns(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                row.get(3, Integer.class),
+                row.get(4, String.class),
+                row.get(5, String.class),
+                row.get(6, LocalDateTime.class),
+                row.get(7, String.class),
+                row.get(8, Boolean.class),
+                row.get(9, Boolean.class));
+    }
+}
@@ -0,0 +1,53 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.dto.ContentTypeTagCount;
+import cn.lihengrui.todotask.dto.TagCount;
+import cn.lihengrui.todotask.entity.KnowledgeTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 标签数据访问层接口
+ *
+ * 标签统计直接在关联表上分组计数，只读取索引，不加载知识内容。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Repository
+public interface KnowledgeTagRepository extends JpaRepository<KnowledgeTag, Long> {
+
+    /**
+     * 统计每个标签关联的内容数量（只包含至少关联一条内容的标签）
+     *
+     * @return 标签使用次数列表，按数量降序
+     */
+    @Query("SELECT new cn.lihengrui.todotask.dto.TagCount(t.name, COUNT(ct.knowId)) "
+            + "FROM KnowledgeContentTag ct JOIN KnowledgeTag t ON t.tagId = ct.tagId "
+            + "GROUP BY t.tagId, t.name ORDER BY COUNT(ct.knowId) DESC, t.name ASC")
+    List<TagCount> findTagUsageCounts();
+
+    /**
+     * 按内容类型统计每个标签关联的内容数量（聚类分析的关键词）
+     *
+     * @return 按内容类型和标签分组的数量列表，按数量降序
+     */
+    @Query("SELECT new cn.lihengrui.todotask.dto.ContentTypeTagCount(kc.contentType, t.name, COUNT(ct.knowId)) "
+            + "FROM KnowledgeContentTag ct "
+            + "JOIN KnowledgeContent kc ON kc.knowId = ct.knowId "
+            + "JOIN KnowledgeTag t ON t.tagId = ct.tagId "
+            + "GROUP BY kc.contentType, t.tagId, t.name ORDER BY COUNT(ct.knowId) DESC, t.name ASC")
+    List<ContentTypeTagCount> findTagUsageCountsByContentType();
+
+    /**
+     * 统计被使用的标签数量
+     *
+     * @return 至少关联一条内容的标签数量
+     */
+    @Query("SELECT COUNT(DISTINCT ct.tagId) FROM KnowledgeContentTag ct")
+    long countUsedTags();
+}
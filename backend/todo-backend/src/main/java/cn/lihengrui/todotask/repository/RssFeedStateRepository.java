@@ -0,0 +1,35 @@
+package cn.lihengrui.todotask.repository;
+
+import cn.lihengrui.todotask.entity.RssFeedState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * RSS源采集状态数据访问层接口
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Repository
+public interface RssFeedStateRepository extends JpaRepository<RssFeedState, Long> {
+
+    /**
+     * 根据RSS源地址查找采集状态
+     *
+     * @param feedUrl RSS源地址
+     * @return 采集状态
+     */
+    Optional<RssFeedState> findByFeedUrl(String feedUrl);
+
+    /**
+     * 批量查找多个RSS源的采集状态
+     *
+     * @param feedUrls RSS源地址列表
+     * @return 采集状态列表（未采集过的源没有记录）
+     */
+    List<RssFeedState> findByFeedUrlIn(List<String> feedUrls);
+}
@@ -0,0 +1,243 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI异步加工队列
+ *
+ * 把AI深度加工从请求线程和请求事务中移出：业务方法先持久化内容，
+ * 再把内容ID提交到本队列，由有界线程池中的工作线程读取内容、执行加工，
+ * 并在独立的短事务中写回加工结果。接口响应时间因此不再取决于AI加工耗时，
+ * 加工期间也不占用请求事务的数据库连接。
+ *
+ * 并发控制：
+ * - 工作线程数（ai.enrichment.workers）限制同时执行加工的任务数
+ * - 队列容量（ai.enrichment.queue-capacity）限制等待中的任务数，
+ *   二者之和即最大在途任务数，超出时拒绝提交并记录日志，内容保持未加工状态
+ * - 已在队列中等待的ID不会重复入队
+ *
+ * 监控指标（Micrometer）：
+ * - ai.enrichment.queue.depth 等待中的任务数
+ * - ai.enrichment.in.flight 正在执行的任务数
+ * - ai.enrichment.rejected 因队列已满被拒绝的任务数
+ * - ai.enrichment.duration 单条内容的加工耗时
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Service
+@Slf4j
+public class AIEnrichmentQueue {
+
+    @Autowired
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    @Autowired
+    private AIProcessingService aiProcessingService;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ai.enrichment.workers:2}")
+    private int workers = 2;
+
+    @Value("${ai.enrichment.queue-capacity:500}")
+    private int queueCapacity = 500;
+
+    // 已入队尚未开始执行的内容ID，用于去重
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+    private Counter rejectedCounter;
+    private Timer enrichmentTimer;
+
+    /**
+     * 初始化线程池和监控指标
+     */
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("ai-enrichment-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("ai.enrichment.queue.depth", executor, e -> e.getQueue().size())
+                .description("等待AI加工的内容数")
+                .register(meterRegistry);
+        Gauge.builder("ai.enrichment.in.flight", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在AI加工的内容数")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("ai.enrichment.rejected")
+                .description("因队列已满被拒绝的AI加工任务数")
+                .register(meterRegistry);
+        enrichmentTimer = Timer.builder("ai.enrichment.duration")
+                .description("单条内容AI加工耗时")
+                .register(meterRegistry);
+
+        log.info("AI异步加工队列已启动: 工作线程 {}，队列容量 {}", workers, queueCapacity);
+    }
+
+    /**
+     * 关闭线程池，等待已提交的任务执行完毕
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("AI异步加工队列关闭超时，剩余 {} 条未加工", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交单条内容的AI加工
+     *
+     * 当前存在事务时延迟到事务提交之后再入队，保证工作线程能读到已提交的数据；
+     * 事务回滚时不会入队。
+     *
+     * @param knowId 内容ID
+     */
+    public void enqueue(Long knowId) {
+        if (knowId == null) {
+            return;
+        }
+        enqueueAll(List.of(knowId));
+    }
+
+    /**
+     * 批量提交内容的AI加工
+     *
+     * @param knowIds 内容ID集合
+     */
+    public void enqueueAll(Collection<Long> knowIds) {
+        List<Long> ids = new ArrayList<>(knowIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(AIEnrichmentQueue.this::submit);
+                }
+            });
+        } else {
+            ids.forEach(this::submit);
+        }
+    }
+
+    /**
+     * 当前等待中的任务数
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 当前正在执行的任务数
+     *
+     * @return 在途任务数
+     */
+    public int getInFlightCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 把内容ID提交到线程池
+     *
+     * @param knowId 内容ID
+     */
+    private void submit(Long knowId) {
+        if (knowId == null || !pendingIds.add(knowId)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                pendingIds.remove(knowId);
+                enrichmentTimer.record(() -> enrich(knowId));
+            });
+        } catch (RejectedExecutionException e) {
+            pendingIds.remove(knowId);
+            rejectedCounter.increment();
+            log.warn("AI加工队列已满，内容 {} 暂不加工（等待 {}，执行中 {}）",
+                    knowId, executor.getQueue().size(), executor.getActiveCount());
+        }
+    }
+
+    /**
+     * 加工单条内容
+     *
+     * 读取和加工都在事务之外进行，加工完成后开启短事务重新加载实体并只写回
+     * 加工产生的字段（标签、处理状态、错误信息、指纹），避免覆盖加工期间其他请求的修改，
+     * 提交后把新指纹同步到近似重复查找表。
+     *
+     * @param knowId 内容ID
+     */
+    private void enrich(Long knowId) {
+        try {
+            Optional<KnowledgeContent> loaded = knowledgeContentRepository.findById(knowId);
+            if (loaded.isEmpty()) {
+                log.debug("待加工内容已不存在: {}", knowId);
+                return;
+            }
+
+            KnowledgeContent processed = aiProcessingService.processContent(loaded.get());
+            if (processed == null) {
+                return;
+            }
+
+            transactionTemplate.executeWithoutResult(status ->
+                    knowledgeContentRepository.findById(knowId).ifPresent(current -> {
+                        current.setTags(processed.getTags());
+                        current.setProcessed(processed.isProcessed());
+                        current.setErrorMessage(processed.getErrorMessage());
+                        current.setSimHash(processed.getSimHash());
+                        knowledgeContentRepository.save(current);
+                        knowledgeContentRepository.syncTags(List.of(current));
+                        nearDuplicateService.indexContent(current);
+                    }));
+            log.debug("内容异步AI加工完成: {}", knowId);
+        } catch (Exception e) {
+            log.error("内容异步AI加工失败: {}", knowId, e);
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package cn.lihengrui.todotask.service;
 
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 /**
@@ -28,7 +30,7 @@ import java.util.stream.Collectors;
  * 技术实现：
  * - 基于规则的文本分析算法
  * - TF-IDF关键词提取
- * - 正则表达式模式匹配
+ * - Aho-Corasick多模式匹配，所有词典在一趟扫描中完成匹配
  * - 统计学文本分析方法
  * - 可扩展的插件式处理架构
  *
@@ -36,11 +38,12 @@ import java.util.stream.Collectors;
  * - 支持集成外部AI服务（如OpenAI、Google Cloud AI）
  * - 预留机器学习模型集成接口
  * - 支持自定义处理规则配置
- * - 提供批量处理和异步处理能力
+ * - 提供批量处理能力，异步处理由AIEnrichmentQueue调度
  *
  * 性能优化：
- * - 内存高效的文本处理算法
+ * - 内存高效的文本处理算法，分析缓冲区按线程复用
  * - 缓存机制减少重复计算
+ * - 批量处理在工作窃取线程池中并行执行
  * - 异步处理支持高并发场景
  * - 可配置的处理深度级别
  *
@@ -83,6 +86,61 @@ public class AIProcessingService {
         "坏", "糟糕", "失败", "错误", "问题", "故障", "缓慢", "低效", "消极", "缺陷"
     );
 
+    // 内容类别提示词 - 用于新闻/教程/分析分类
+    private static final Set<String> NEWS_WORDS = Set.of("新闻", "news", "报道", "发布");
+    private static final Set<String> TUTORIAL_WORDS = Set.of("教程", "tutorial", "如何", "how to");
+    private static final Set<String> ANALYSIS_WORDS = Set.of("分析", "analysis", "研究", "research");
+
+    // 实体词库 - 技术名词和公司/组织
+    private static final Set<String> TECH_ENTITIES = Set.of(
+        "java", "python", "javascript", "react", "vue", "angular", "spring", "boot",
+        "docker", "kubernetes", "mysql", "redis", "mongodb", "elasticsearch",
+        "aws", "azure", "google cloud", "openai", "chatgpt"
+    );
+
+    private static final Set<String> ORG_ENTITIES = Set.of(
+        "google", "microsoft", "apple", "amazon", "facebook", "twitter", "netflix",
+        "alibaba", "tencent", "baidu", "bytedance", "华为", "腾讯", "阿里巴巴", "百度"
+    );
+
+    // 词典类别位标志
+    private static final int FLAG_TECH = 1;
+    private static final int FLAG_POSITIVE = 1 << 1;
+    private static final int FLAG_NEGATIVE = 1 << 2;
+    private static final int FLAG_NEWS = 1 << 3;
+    private static final int FLAG_TUTORIAL = 1 << 4;
+    private static final int FLAG_ANALYSIS = 1 << 5;
+    private static final int FLAG_ENTITY = 1 << 6;
+
+    // 全部词典构建的关键词自动机，类加载时构建一次，线程安全
+    private static final KeywordAutomaton KEYWORD_AUTOMATON = KeywordAutomaton.builder()
+        .add(TECH_KEYWORDS, FLAG_TECH)
+        .add(POSITIVE_WORDS, FLAG_POSITIVE)
+        .add(NEGATIVE_WORDS, FLAG_NEGATIVE)
+        .add(NEWS_WORDS, FLAG_NEWS)
+        .add(TUTORIAL_WORDS, FLAG_TUTORIAL)
+        .add(ANALYSIS_WORDS, FLAG_ANALYSIS)
+        .add(TECH_ENTITIES, FLAG_ENTITY)
+        .add(ORG_ENTITIES, FLAG_ENTITY)
+        .build();
+
+    // 批量处理时单个子任务的最大条数，低于该值不再拆分
+    private static final int BATCH_GRAIN = 8;
+
+    // 计算SimHash指纹所需的最少特征数，过短的文本指纹不可靠
+    private static final int MIN_SIMHASH_FEATURES = 16;
+
+    // 单趟分析的线程级缓冲区，批量处理的每个工作线程各自复用一份
+    private static final ThreadLocal<AnalyzerBuffers> ANALYZER_BUFFERS =
+        ThreadLocal.withInitial(AnalyzerBuffers::new);
+
+    // 批量处理并行度，0表示使用CPU核数
+    @Value("${ai.batch.parallelism:0}")
+    private int batchParallelism;
+
+    // 批量处理使用的工作窃取线程池，首次批量处理时创建
+    private volatile ForkJoinPool batchPool;
+
     /**
      * 智能代理深度加工主入口方法
      *
@@ -130,12 +188,19 @@ public class AIProcessingService {
                 log.debug("为内容生成摘要: {} -> {} 字符", content.getContent().length(), enhancedSummary.length());
             }
 
+            // 单趟扫描完成词频、词典匹配和字符统计，后续各步骤共用
+            TextAnalysis analysis = analyzeText(content.getTitle(), content.getContent());
+
+            // 文本指纹：入库时据此识别近似重复内容，特征过少的短文本不计算
+            content.setSimHash(analysis.simHashFeatures >= MIN_SIMHASH_FEATURES
+                    ? SimHash.fingerprint(analysis.simHashWeights) : null);
+
             // 3. 提取和增强关键词
-            String enhancedTags = enhanceKeywords(content);
+            String enhancedTags = enhanceKeywords(content, analysis);
             content.setTags(enhancedTags);
 
             // 4. 内容智能分类
-            String categoryInfo = classifyContent(content);
+            String categoryInfo = classifyContent(analysis);
             if (!categoryInfo.isEmpty()) {
                 // 将分类信息添加到标签中
                 String currentTags = content.getTags() != null ? content.getTags() : "";
@@ -143,7 +208,7 @@ public class AIProcessingService {
             }
 
             // 5. 情感倾向分析
-            String sentimentInfo = analyzeSentiment(content);
+            String sentimentInfo = analyzeSentiment(analysis);
             if (!sentimentInfo.isEmpty()) {
                 String currentTags = content.getTags() != null ? content.getTags() : "";
                 content.setTags(currentTags.isEmpty() ? sentimentInfo : currentTags + "," + sentimentInfo);
@@ -157,14 +222,14 @@ public class AIProcessingService {
             }
 
             // 7. 语言检测
-            String languageInfo = detectLanguage(content.getContent());
+            String languageInfo = detectLanguage(analysis);
             if (!languageInfo.isEmpty()) {
                 String currentTags = content.getTags() != null ? content.getTags() : "";
                 content.setTags(currentTags.isEmpty() ? languageInfo : currentTags + "," + languageInfo);
             }
 
             // 8. 实体提取（人名、组织、技术名词等）
-            String entities = extractEntities(content.getContent());
+            String entities = extractEntities(analysis);
             if (!entities.isEmpty()) {
                 String currentTags = content.getTags() != null ? content.getTags() : "";
                 content.setTags(currentTags.isEmpty() ? entities : currentTags + "," + entities);
@@ -235,33 +300,162 @@ public class AIProcessingService {
         return result.isEmpty() ? originalContent.substring(0, Math.min(200, originalContent.length())) + "..." : result;
     }
 
+    /**
+     * 单趟文本分析
+     *
+     * 对"标题 + 空格 + 正文"只遍历一次，在同一个循环中完成：
+     * 1. 逐字符小写归一并推进关键词自动机，统计技术词、情感词、类别提示词的命中次数，
+     *    收集正文中出现的实体（同一词条的计数不重叠，与逐词indexOf扫描的结果一致）
+     * 2. 按 [\w\u4e00-\u9fa5]+ 切分词元并统计词频，供关键词提取使用
+     * 3. 统计正文中的中文字符和英文字母数量，供语言检测使用
+     * 4. 以非停用词的词元（中文按二字组）为特征累加SimHash权重，供近似重复检测使用
+     *
+     * 分析开销与文本长度成线性关系，与词典大小无关。
+     *
+     * @param title 标题
+     * @param body 正文
+     * @return 分析结果
+     */
+    private TextAnalysis analyzeText(String title, String body) {
+        int contentStart = title.length() + 1;
+        int total = contentStart + body.length();
+        AnalyzerBuffers buffers = ANALYZER_BUFFERS.get();
+        TextAnalysis analysis = buffers.analysis(body.length());
+        int[] lastMatchEnd = buffers.lastMatchEnd();
+        char[] lowered = buffers.lowered(total);
+        int state = KeywordAutomaton.ROOT;
+        int tokenStart = -1;
+
+        for (int i = 0; i <= total; i++) {
+            char raw;
+            if (i == total) {
+                raw = ' '; // 哨兵：结束最后一个词元
+            } else if (i < title.length()) {
+                raw = title.charAt(i);
+            } else if (i == title.length()) {
+                raw = ' ';
+            } else {
+                raw = body.charAt(i - contentStart);
+            }
+            char ch = Character.toLowerCase(raw);
+
+            // 语言字符统计（仅正文）
+            if (i >= contentStart && i < total) {
+                if (raw >= 0x4e00 && raw <= 0x9fa5) {
+                    analysis.chineseCount++;
+                } else if ((raw >= 'a' && raw <= 'z') || (raw >= 'A' && raw <= 'Z')) {
+                    analysis.englishCount++;
+                }
+            }
+
+            // 词元切分
+            if (i < total && isWordChar(ch)) {
+                lowered[i] = ch;
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart >= 0) {
+                boolean stopWord = false;
+                if (i - tokenStart > 1) {
+                    String word = new String(lowered, tokenStart, i - tokenStart);
+                    stopWord = STOP_WORDS.contains(word);
+                    if (!stopWord) {
+                        analysis.wordFrequency.merge(word, 1, Integer::sum);
+                    }
+                }
+                if (!stopWord) {
+                    addSimHashFeatures(analysis, lowered, tokenStart, i);
+                }
+                tokenStart = -1;
+            }
+            if (i == total) {
+                break;
+            }
+
+            // 词典匹配
+            state = KEYWORD_AUTOMATON.next(state, ch);
+            for (int id : KEYWORD_AUTOMATON.outputs(state)) {
+                int start = i + 1 - KEYWORD_AUTOMATON.patternLength(id);
+                int flags = KEYWORD_AUTOMATON.flags(id);
+                if ((flags & FLAG_ENTITY) != 0 && start >= contentStart) {
+                    analysis.entities.add(KEYWORD_AUTOMATON.pattern(id));
+                }
+                if (start < lastMatchEnd[id]) {
+                    continue; // 与该词条上一次命中重叠
+                }
+                lastMatchEnd[id] = i + 1;
+                if ((flags & FLAG_TECH) != 0) {
+                    analysis.techCount++;
+                }
+                if ((flags & FLAG_POSITIVE) != 0) {
+                    analysis.positiveCount++;
+                }
+                if ((flags & FLAG_NEGATIVE) != 0) {
+                    analysis.negativeCount++;
+                }
+                if ((flags & FLAG_NEWS) != 0) {
+                    analysis.news = true;
+                }
+                if ((flags & FLAG_TUTORIAL) != 0) {
+                    analysis.tutorial = true;
+                }
+                if ((flags & FLAG_ANALYSIS) != 0) {
+                    analysis.research = true;
+                }
+            }
+        }
+
+        return analysis;
+    }
+
+    /**
+     * 把一个词元的SimHash特征累加到分析结果中
+     *
+     * 英文词元整体作为一个特征；含中文的词元没有分词边界，按相邻二字组切分。
+     */
+    private static void addSimHashFeatures(TextAnalysis analysis, char[] lowered, int from, int to) {
+        boolean chinese = false;
+        for (int i = from; i < to && !chinese; i++) {
+            chinese = lowered[i] >= 0x4e00 && lowered[i] <= 0x9fa5;
+        }
+        if (!chinese) {
+            if (to - from > 1) {
+                SimHash.accumulate(analysis.simHashWeights, SimHash.featureHash(lowered, from, to));
+                analysis.simHashFeatures++;
+            }
+            return;
+        }
+        if (to - from == 1) {
+            SimHash.accumulate(analysis.simHashWeights, SimHash.featureHash(lowered, from, to));
+            analysis.simHashFeatures++;
+            return;
+        }
+        for (int i = from; i + 1 < to; i++) {
+            SimHash.accumulate(analysis.simHashWeights, SimHash.featureHash(lowered, i, i + 2));
+            analysis.simHashFeatures++;
+        }
+    }
+
+    /**
+     * 判断字符是否属于词元（等价于正则 [\w\u4e00-\u9fa5]）
+     */
+    private static boolean isWordChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+            || ch == '_' || (ch >= 0x4e00 && ch <= 0x9fa5);
+    }
+
     /**
      * 关键词提取和标签增强
      *
      * 基于TF-IDF算法和词频分析，提取内容中的关键词，并与原有标签进行合并优化。
      *
      * @param content 内容实体
+     * @param analysis 单趟文本分析结果
      * @return 增强后的标签字符串
      */
-    private String enhanceKeywords(KnowledgeContent content) {
-        String text = (content.getTitle() + " " + content.getContent()).toLowerCase();
-        
-        // 提取关键词
-        Map<String, Integer> wordFreq = new HashMap<>();
-        
-        // 简单的词频统计（支持中英文）
-        Pattern wordPattern = Pattern.compile("[\\w\\u4e00-\\u9fa5]+");
-        Matcher matcher = wordPattern.matcher(text);
-        
-        while (matcher.find()) {
-            String word = matcher.group();
-            if (word.length() > 1 && !STOP_WORDS.contains(word)) {
-                wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
-            }
-        }
-
+    private String enhanceKeywords(KnowledgeContent content, TextAnalysis analysis) {
         // 提取高频关键词
-        List<String> keywords = wordFreq.entrySet().stream()
+        List<String> keywords = analysis.wordFrequency.entrySet().stream()
             .filter(entry -> entry.getValue() > 1) // 出现次数大于1
             .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
             .limit(5) // 最多5个关键词
@@ -292,34 +486,29 @@ public class AIProcessingService {
      *
      * 基于内容特征和关键词匹配，自动识别内容所属的类别。
      *
-     * @param content 内容实体
+     * @param analysis 单趟文本分析结果
      * @return 分类标签
      */
-    private String classifyContent(KnowledgeContent content) {
-        String text = (content.getTitle() + " " + content.getContent()).toLowerCase();
+    private String classifyContent(TextAnalysis analysis) {
         List<String> categories = new ArrayList<>();
 
         // 技术类别检测
-        long techKeywordCount = TECH_KEYWORDS.stream()
-            .mapToLong(keyword -> countOccurrences(text, keyword))
-            .sum();
-        
-        if (techKeywordCount > 0) {
+        if (analysis.techCount > 0) {
             categories.add("技术");
         }
 
         // 新闻类别检测
-        if (text.contains("新闻") || text.contains("news") || text.contains("报道") || text.contains("发布")) {
+        if (analysis.news) {
             categories.add("新闻");
         }
 
         // 教程类别检测
-        if (text.contains("教程") || text.contains("tutorial") || text.contains("如何") || text.contains("how to")) {
+        if (analysis.tutorial) {
             categories.add("教程");
         }
 
         // 分析类别检测
-        if (text.contains("分析") || text.contains("analysis") || text.contains("研究") || text.contains("research")) {
+        if (analysis.research) {
             categories.add("分析");
         }
 
@@ -331,19 +520,12 @@ public class AIProcessingService {
      *
      * 分析内容的情感倾向，识别正面、负面或中性的情感色彩。
      *
-     * @param content 内容实体
+     * @param analysis 单趟文本分析结果
      * @return 情感分析结果
      */
-    private String analyzeSentiment(KnowledgeContent content) {
-        String text = (content.getTitle() + " " + content.getContent()).toLowerCase();
-        
-        long positiveCount = POSITIVE_WORDS.stream()
-            .mapToLong(word -> countOccurrences(text, word))
-            .sum();
-            
-        long negativeCount = NEGATIVE_WORDS.stream()
-            .mapToLong(word -> countOccurrences(text, word))
-            .sum();
+    private String analyzeSentiment(TextAnalysis analysis) {
+        long positiveCount = analysis.positiveCount;
+        long negativeCount = analysis.negativeCount;
 
         if (positiveCount > negativeCount && positiveCount > 0) {
             return "情感:正面";
@@ -418,26 +600,16 @@ public class AIProcessingService {
      *
      * 简单的语言检测，识别内容的主要语言（中文/英文）。
      *
-     * @param text 待检测的文本
+     * @param analysis 单趟文本分析结果
      * @return 语言标识
      */
-    private String detectLanguage(String text) {
-        if (text == null || text.isEmpty()) {
+    private String detectLanguage(TextAnalysis analysis) {
+        if (analysis.contentLength == 0) {
             return "";
         }
 
-        // 中文字符计数
-        long chineseCount = text.chars()
-            .filter(ch -> ch >= 0x4e00 && ch <= 0x9fa5)
-            .count();
-
-        // 英文字符计数
-        long englishCount = text.chars()
-            .filter(ch -> (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z'))
-            .count();
-
-        double chineseRatio = (double) chineseCount / text.length();
-        double englishRatio = (double) englishCount / text.length();
+        double chineseRatio = (double) analysis.chineseCount / analysis.contentLength;
+        double englishRatio = (double) analysis.englishCount / analysis.contentLength;
 
         if (chineseRatio > 0.3) {
             return "语言:中文";
@@ -453,82 +625,109 @@ public class AIProcessingService {
     /**
      * 命名实体提取
      *
-     * 提取文本中的重要实体，如技术名词、公司名称、产品名称等。
+     * 提取正文中的重要实体，如技术名词、公司名称、产品名称等。
      *
-     * @param text 待分析的文本
+     * @param analysis 单趟文本分析结果
      * @return 提取到的实体列表
      */
-    private String extractEntities(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-
-        Set<String> entities = new HashSet<>();
-        String lowerText = text.toLowerCase();
+    private String extractEntities(TextAnalysis analysis) {
+        return analysis.entities.isEmpty() ? "" : "实体:" + String.join(",", analysis.entities);
+    }
 
-        // 技术实体检测
-        String[] techEntities = {
-            "java", "python", "javascript", "react", "vue", "angular", "spring", "boot",
-            "docker", "kubernetes", "mysql", "redis", "mongodb", "elasticsearch",
-            "aws", "azure", "google cloud", "openai", "chatgpt"
-        };
+    /**
+     * 批量处理内容列表
+     *
+     * 列表在工作窃取线程池中递归拆分并行处理，每个工作线程复用自己的分析缓冲区；
+     * 结果顺序与输入一致。条数较少时直接在调用线程中顺序处理。
+     * 单条内容处理异常不影响其他内容，该条标记为未处理并记录错误信息。
+     *
+     * @param contents 待处理的内容列表
+     * @return 处理后的内容列表
+     */
+    public List<KnowledgeContent> batchProcessContents(List<KnowledgeContent> contents) {
+        log.info("开始批量AI处理 {} 条内容", contents.size());
 
-        for (String entity : techEntities) {
-            if (lowerText.contains(entity)) {
-                entities.add(entity);
-            }
+        KnowledgeContent[] results = new KnowledgeContent[contents.size()];
+        BatchTask task = new BatchTask(contents, results, 0, contents.size());
+        if (contents.size() <= BATCH_GRAIN) {
+            task.compute();
+        } else {
+            getBatchPool().invoke(task);
         }
+        return new ArrayList<>(Arrays.asList(results));
+    }
 
-        // 公司/组织实体检测
-        String[] orgEntities = {
-            "google", "microsoft", "apple", "amazon", "facebook", "twitter", "netflix",
-            "alibaba", "tencent", "baidu", "bytedance", "华为", "腾讯", "阿里巴巴", "百度"
-        };
+    /**
+     * 关闭批量处理线程池
+     */
+    @PreDestroy
+    public void shutdownBatchPool() {
+        ForkJoinPool pool = batchPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
 
-        for (String entity : orgEntities) {
-            if (lowerText.contains(entity)) {
-                entities.add(entity);
+    private ForkJoinPool getBatchPool() {
+        ForkJoinPool pool = batchPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = batchPool;
+                if (pool == null) {
+                    int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+                    pool = new ForkJoinPool(parallelism);
+                    batchPool = pool;
+                    log.info("AI批量处理线程池已创建，并行度: {}", parallelism);
+                }
             }
         }
-
-        return entities.isEmpty() ? "" : "实体:" + String.join(",", entities);
+        return pool;
     }
 
     /**
-     * 计算字符串在文本中的出现次数
-     *
-     * @param text 文本内容
-     * @param target 目标字符串
-     * @return 出现次数
+     * 单条处理，异常时保留原始内容
      */
-    private long countOccurrences(String text, String target) {
-        if (text == null || target == null || target.isEmpty()) {
-            return 0;
-        }
-        
-        int count = 0;
-        int index = 0;
-        while ((index = text.indexOf(target, index)) != -1) {
-            count++;
-            index += target.length();
+    private KnowledgeContent processSafely(KnowledgeContent content) {
+        try {
+            KnowledgeContent processed = processContent(content);
+            return processed != null ? processed : content;
+        } catch (Exception e) {
+            log.warn("批量AI处理失败，使用原始内容: {}", content.getTitle(), e);
+            content.setProcessed(false);
+            content.setErrorMessage("AI处理失败: " + e.getMessage());
+            return content;
         }
-        return count;
     }
 
     /**
-     * 批量处理内容列表
-     *
-     * 为未来的批量处理需求预留接口，支持高效的批量AI处理。
-     *
-     * @param contents 待处理的内容列表
-     * @return 处理后的内容列表
+     * 批量处理子任务：区间大于BATCH_GRAIN时二分拆分
      */
-    public List<KnowledgeContent> batchProcessContents(List<KnowledgeContent> contents) {
-        log.info("开始批量AI处理 {} 条内容", contents.size());
-        
-        return contents.stream()
-            .map(this::processContent)
-            .collect(Collectors.toList());
+    private final class BatchTask extends RecursiveAction {
+
+        private final List<KnowledgeContent> contents;
+        private final KnowledgeContent[] results;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<KnowledgeContent> contents, KnowledgeContent[] results, int from, int to) {
+            this.contents = contents;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_GRAIN) {
+                for (int i = from; i < to; i++) {
+                    KnowledgeContent content = contents.get(i);
+                    results[i] = content != null ? processSafely(content) : null;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(contents, results, from, mid), new BatchTask(contents, results, mid, to));
+        }
     }
 
     /**
@@ -543,4 +742,78 @@ public class AIProcessingService {
     // public CompletableFuture<KnowledgeContent> processContentAsync(KnowledgeContent content) {
     //     return CompletableFuture.completedFuture(processContent(content));
     // }
+
+    /**
+     * 线程级分析缓冲区
+     *
+     * 小写字符缓冲、词条命中位置数组和分析结果对象在同一线程的多次分析间复用，
+     * 超长文本使用临时缓冲区，避免长期占用大块内存。
+     */
+    private static final class AnalyzerBuffers {
+
+        private static final int MAX_RETAINED_CHARS = 1 << 16;
+
+        private final TextAnalysis analysis = new TextAnalysis();
+        private final int[] lastMatchEnd = new int[KEYWORD_AUTOMATON.patternCount()];
+        private char[] lowered = new char[4096];
+
+        TextAnalysis analysis(int contentLength) {
+            analysis.reset(contentLength);
+            return analysis;
+        }
+
+        int[] lastMatchEnd() {
+            Arrays.fill(lastMatchEnd, 0);
+            return lastMatchEnd;
+        }
+
+        char[] lowered(int length) {
+            if (length <= lowered.length) {
+                return lowered;
+            }
+            if (length > MAX_RETAINED_CHARS) {
+                return new char[length];
+            }
+            lowered = new char[Math.max(length, lowered.length * 2)];
+            return lowered;
+        }
+    }
+
+    /**
+     * 单趟文本分析结果
+     *
+     * 由线程级缓冲区复用，只在一次processContent调用内有效。
+     */
+    private static final class TextAnalysis {
+
+        private final Map<String, Integer> wordFrequency = new HashMap<>();
+        private final Set<String> entities = new LinkedHashSet<>();
+        private long techCount;
+        private long positiveCount;
+        private long negativeCount;
+        private boolean news;
+        private boolean tutorial;
+        private boolean research;
+        private long chineseCount;
+        private long englishCount;
+        private int contentLength;
+        private final int[] simHashWeights = new int[SimHash.BITS];
+        private int simHashFeatures;
+
+        void reset(int contentLength) {
+            wordFrequency.clear();
+            entities.clear();
+            techCount = 0;
+            positiveCount = 0;
+            negativeCount = 0;
+            news = false;
+            tutorial = false;
+            research = false;
+            chineseCount = 0;
+            englishCount = 0;
+            Arrays.fill(simHashWeights, 0);
+            simHashFeatures = 0;
+            this.contentLength = contentLength;
+        }
+    }
 }
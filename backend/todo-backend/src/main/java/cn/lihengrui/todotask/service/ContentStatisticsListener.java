@@ -0,0 +1,69 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.entity.ContentStatisticsDimensions;
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 内容统计实体监听器
+ *
+ * 在KnowledgeContent新增、修改、删除时增量更新ContentStatisticsService中的计数。
+ * 修改和删除需要知道原来的统计维度，因此在实体加载和保存时把维度记录在实体的瞬态字段上。
+ *
+ * 监听器由Hibernate通过Spring容器创建并注入依赖；没有统计服务的环境（如仓库切片测试）中不做任何事。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class ContentStatisticsListener {
+
+    @Autowired
+    private ObjectProvider<ContentStatisticsService> contentStatisticsService;
+
+    @PostLoad
+    public void onLoad(KnowledgeContent content) {
+        content.setStatisticsState(ContentStatisticsDimensions.of(content));
+    }
+
+    @PostPersist
+    public void onPersist(KnowledgeContent content) {
+        ContentStatisticsDimensions state = ContentStatisticsDimensions.of(content);
+        content.setStatisticsState(state);
+        ContentStatisticsService statistics = statistics();
+        if (statistics != null) {
+            statistics.recordInserted(state);
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(KnowledgeContent content) {
+        ContentStatisticsDimensions before = content.getStatisticsState();
+        ContentStatisticsDimensions after = ContentStatisticsDimensions.of(content);
+        content.setStatisticsState(after);
+        ContentStatisticsService statistics = statistics();
+        // 没有原始维度时无法计算增量，留给定期校准
+        if (statistics != null && before != null) {
+            statistics.recordUpdated(before, after);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(KnowledgeContent content) {
+        ContentStatisticsDimensions state = content.getStatisticsState() != null
+                ? content.getStatisticsState() : ContentStatisticsDimensions.of(content);
+        ContentStatisticsService statistics = statistics();
+        if (statistics != null) {
+            statistics.recordRemoved(state);
+        }
+    }
+
+    private ContentStatisticsService statistics() {
+        return contentStatisticsService != null ? contentStatisticsService.getIfAvailable() : null;
+    }
+}
@@ -0,0 +1,211 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.dto.ContentStatisticsCounts;
+import cn.lihengrui.todotask.entity.ContentStatisticsDimensions;
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内容统计服务
+ *
+ * 在内存中维护统计接口（/statistics）所需的各项计数，读取统计信息不访问数据库。
+ *
+ * 计数的维护方式：
+ * - 通过JPA实体监听器（ContentStatisticsListener）在内容新增、修改、删除时增量更新
+ * - 采集入库走JDBC批量插入，不触发实体监听器，由批量插入方调用 recordInserted 更新
+ * - 增量在事务提交后才生效，回滚的修改不影响计数
+ * - 按 statistics.reconcile-interval-ms 定期用一条条件聚合查询与数据库校准，
+ *   消除滑出"最近一天/一周"窗口的内容、绕过实体的修改以及并发造成的误差
+ *
+ * 首次读取时若尚未校准过，直接执行一次条件聚合查询作为回退。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Service
+@Slf4j
+public class ContentStatisticsService {
+
+    @Autowired
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong rss = new AtomicLong();
+    private final AtomicLong web = new AtomicLong();
+    private final AtomicLong manual = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong unprocessed = new AtomicLong();
+    private final AtomicLong success = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastDay = new AtomicLong();
+    private final AtomicLong lastWeek = new AtomicLong();
+
+    // 是否已从数据库加载过计数
+    private volatile boolean initialized;
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计信息（结构与原逐项COUNT的实现相同）
+     */
+    public Map<String, Object> getStatistics() {
+        if (!initialized) {
+            reconcile();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalCount", total.get());
+
+        Map<String, Long> countByType = new HashMap<>();
+        countByType.put("RSS", rss.get());
+        countByType.put("Web", web.get());
+        countByType.put("Manual", manual.get());
+        stats.put("countByType", countByType);
+
+        Map<String, Long> countByStatus = new HashMap<>();
+        countByStatus.put("processed", processed.get());
+        countByStatus.put("unprocessed", unprocessed.get());
+        countByStatus.put("success", success.get());
+        countByStatus.put("failed", failed.get());
+        stats.put("countByStatus", countByStatus);
+
+        Map<String, Long> recentAdditions = new HashMap<>();
+        recentAdditions.put("lastDay", lastDay.get());
+        recentAdditions.put("lastWeek", lastWeek.get());
+        stats.put("recentAdditions", recentAdditions);
+
+        return stats;
+    }
+
+    /**
+     * 与数据库校准计数
+     * 一条条件聚合查询得到全部计数后整体替换内存中的值
+     */
+    @Scheduled(fixedDelayString = "${statistics.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        ContentStatisticsCounts counts;
+        try {
+            counts = knowledgeContentRepository.aggregateStatistics(now.minusDays(1), now.minusDays(7));
+        } catch (Exception e) {
+            log.error("统计信息校准失败: {}", e.getMessage());
+            if (!initialized) {
+                throw e;
+            }
+            return;
+        }
+
+        total.set(orZero(counts.getTotal()));
+        rss.set(orZero(counts.getRss()));
+        web.set(orZero(counts.getWeb()));
+        manual.set(orZero(counts.getManual()));
+        processed.set(orZero(counts.getProcessed()));
+        unprocessed.set(orZero(counts.getUnprocessed()));
+        success.set(orZero(counts.getSuccess()));
+        failed.set(orZero(counts.getFailed()));
+        lastDay.set(orZero(counts.getLastDay()));
+        lastWeek.set(orZero(counts.getLastWeek()));
+        initialized = true;
+        log.debug("统计信息已校准，内容总数: {}", total.get());
+    }
+
+    /**
+     * 记录新增的内容（JDBC批量插入等不经过实体监听器的写入使用）
+     *
+     * @param contents 已插入的内容
+     */
+    public void recordInserted(Collection<KnowledgeContent> contents) {
+        contents.forEach(content -> recordInserted(ContentStatisticsDimensions.of(content)));
+    }
+
+    /**
+     * 记录一条新增的内容
+     *
+     * @param state 内容的统计维度
+     */
+    public void recordInserted(ContentStatisticsDimensions state) {
+        afterCommit(() -> apply(state, 1));
+    }
+
+    /**
+     * 记录一条内容的修改
+     *
+     * @param before 修改前的统计维度
+     * @param after 修改后的统计维度
+     */
+    public void recordUpdated(ContentStatisticsDimensions before, ContentStatisticsDimensions after) {
+        if (before.equals(after)) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(before, -1);
+            apply(after, 1);
+        });
+    }
+
+    /**
+     * 记录一条删除的内容
+     *
+     * @param state 删除前的统计维度
+     */
+    public void recordRemoved(ContentStatisticsDimensions state) {
+        afterCommit(() -> apply(state, -1));
+    }
+
+    /**
+     * 处于事务中时推迟到提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delta.run();
+                }
+            });
+        } else {
+            delta.run();
+        }
+    }
+
+    private void apply(ContentStatisticsDimensions state, long delta) {
+        total.addAndGet(delta);
+        if ("RSS".equals(state.contentType())) {
+            rss.addAndGet(delta);
+        } else if ("Web".equals(state.contentType())) {
+            web.addAndGet(delta);
+        } else if ("Manual".equals(state.contentType())) {
+            manual.addAndGet(delta);
+        }
+        (state.processed() ? processed : unprocessed).addAndGet(delta);
+        (state.success() ? success : failed).addAndGet(delta);
+
+        LocalDateTime acquisitionTime = state.acquisitionTime();
+        if (acquisitionTime != null) {
+            LocalDateTime now = LocalDateTime.now();
+            if (acquisitionTime.isAfter(now.minusDays(1))) {
+                lastDay.addAndGet(delta);
+            }
+            if (acquisitionTime.isAfter(now.minusDays(7))) {
+                lastWeek.addAndGet(delta);
+            }
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,231 @@
+package cn.lihengrui.todotask.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 多模式关键词匹配自动机（Aho-Corasick）
+ *
+ * 在所有词典词条上一次性构建trie和失败指针，之后逐字符推进状态即可得到
+ * 以当前位置结尾的全部命中词条，扫描开销只与文本长度和命中数有关，
+ * 与词条数量无关。
+ *
+ * 调用方自行驱动扫描循环（{@link #next(int, char)} + {@link #outputs(int)}），
+ * 以便在同一趟循环中完成大小写归一、字符统计等其他工作。
+ * 构建完成后实例不可变，可在多线程间共享。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class KeywordAutomaton {
+
+    /**
+     * 初始状态
+     */
+    public static final int ROOT = 0;
+
+    private static final int[] NO_OUTPUTS = new int[0];
+
+    // 每个状态的出边：按字符升序排列，二分查找
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // 每个状态命中的词条ID（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    private final String[] patterns;
+    private final int[] patternFlags;
+
+    private KeywordAutomaton(Builder builder) {
+        this.patterns = builder.patterns.keySet().toArray(new String[0]);
+        this.patternFlags = builder.patterns.values().stream().mapToInt(Integer::intValue).toArray();
+
+        // 1. 构建trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(new ArrayList<>());
+        for (int id = 0; id < patterns.length; id++) {
+            int state = ROOT;
+            for (char ch : patterns[id].toCharArray()) {
+                Integer target = trie.get(state).get(ch);
+                if (target == null) {
+                    target = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(new ArrayList<>());
+                    trie.get(state).put(ch, target);
+                }
+                state = target;
+            }
+            terminal.get(state).add(id);
+        }
+
+        int stateCount = trie.size();
+        this.edgeChars = new char[stateCount][];
+        this.edgeTargets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            edgeChars[state] = new char[edges.size()];
+            edgeTargets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[state][i] = edge.getKey();
+                edgeTargets[state][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // 2. 广度优先计算失败指针并合并输出
+        this.failure = new int[stateCount];
+        this.outputs = new int[stateCount][];
+        outputs[ROOT] = NO_OUTPUTS;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[ROOT]) {
+            failure[child] = ROOT;
+            outputs[child] = toArray(terminal.get(child), NO_OUTPUTS);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char ch = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int fallback = failure[state];
+                while (fallback != ROOT && transition(fallback, ch) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = transition(fallback, ch);
+                failure[child] = target >= 0 && target != child ? target : ROOT;
+                outputs[child] = toArray(terminal.get(child), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 创建构建器
+     *
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 读入一个字符后的下一状态
+     *
+     * @param state 当前状态
+     * @param ch 输入字符（调用方负责大小写归一）
+     * @return 下一状态
+     */
+    public int next(int state, char ch) {
+        while (true) {
+            int target = transition(state, ch);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * 以当前位置结尾的命中词条ID
+     *
+     * @param state 当前状态
+     * @return 词条ID数组（不可修改）
+     */
+    public int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * @param patternId 词条ID
+     * @return 词条文本
+     */
+    public String pattern(int patternId) {
+        return patterns[patternId];
+    }
+
+    /**
+     * @param patternId 词条ID
+     * @return 词条长度
+     */
+    public int patternLength(int patternId) {
+        return patterns[patternId].length();
+    }
+
+    /**
+     * @param patternId 词条ID
+     * @return 词条所属类别的位标志
+     */
+    public int flags(int patternId) {
+        return patternFlags[patternId];
+    }
+
+    /**
+     * @return 词条总数
+     */
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    private int transition(int state, char ch) {
+        int index = Arrays.binarySearch(edgeChars[state], ch);
+        return index >= 0 ? edgeTargets[state][index] : -1;
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(own.stream().mapToInt(Integer::intValue).toArray(), own.size() + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+
+    /**
+     * 自动机构建器
+     *
+     * 同一词条可属于多个类别，重复添加时类别标志按位合并。
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> patterns = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 添加一组词条
+         *
+         * @param words 词条（需与扫描时的大小写归一方式一致）
+         * @param flag 类别位标志
+         * @return 当前构建器
+         */
+        public Builder add(Iterable<String> words, int flag) {
+            for (String word : words) {
+                if (word != null && !word.isEmpty()) {
+                    patterns.merge(word, flag, (a, b) -> a | b);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return 构建好的自动机
+         */
+        public KeywordAutomaton build() {
+            return new KeywordAutomaton(this);
+        }
+    }
+}
@@ -2,23 +2,31 @@ package cn.lihengrui.todotask.service;
 
 import cn.lihengrui.todotask.dto.*;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.entity.KnowledgeTag;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import cn.lihengrui.todotask.repository.KnowledgeTagRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 知识内容服务类
@@ -42,11 +50,36 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KnowledgeContentService {
 
+    /**
+     * 键集分页单批最大记录数
+     */
+    public static final int MAX_CURSOR_LIMIT = 1000;
+
+    /**
+     * NDJSON导出时每写出多少行刷新一次响应
+     */
+    private static final int EXPORT_FLUSH_INTERVAL = 200;
+
     @Autowired
     private KnowledgeContentRepository knowledgeContentRepository;
 
     @Autowired
-    private AIProcessingService aiProcessingService;
+    private KnowledgeTagRepository knowledgeTagRepository;
+
+    @Autowired
+    private ContentStatisticsService contentStatisticsService;
+
+    @Autowired
+    private AIEnrichmentQueue aiEnrichmentQueue;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * 根据过滤条件查询知识内容（支持分页）
@@ -56,7 +89,7 @@ public class KnowledgeContentService {
      * @param processed 处理状态过滤
      * @param success 成功状态过滤
      * @param keyword 关键词搜索
-     * @param tags 标签过滤
+     * @param tags 标签过滤（按标签名精确匹配，多个标签需同时具有；不再是对tags字符串的子串匹配）
      * @param beginTime 开始时间（格式：yyyy-MM-dd HH:mm:ss 或 yyyy-MM-dd）
      * @param endTime 结束时间（格式：yyyy-MM-dd HH:mm:ss 或 yyyy-MM-dd）
      * @return 分页的知识内容摘要列表
@@ -103,33 +136,25 @@ public class KnowledgeContentService {
                 predicates.add(criteriaBuilder.equal(root.get("success"), success));
             }
 
-            // 关键词搜索（在标题和内容中搜索）
+            // 关键词搜索（在标题和内容中搜索，走全文索引）
             if (keyword != null && !keyword.isEmpty()) {
-                String searchPattern = "%" + keyword.toLowerCase() + "%";
-                Predicate titleSearch = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("title")), searchPattern);
-                Predicate contentSearch = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("content")), searchPattern);
-                predicates.add(criteriaBuilder.or(titleSearch, contentSearch));
+                predicates.add(KnowledgeContentRepository.matchesKeyword(keyword)
+                        .toPredicate(root, query, criteriaBuilder));
             }
 
-            // 标签过滤
+            // 标签过滤（多个标签以逗号分隔，需同时具有；按标签名精确匹配，"Spring"不会匹配"Spring Boot"）
             if (tags != null && !tags.isEmpty()) {
-                String tagPattern = "%" + tags.toLowerCase() + "%";
-                predicates.add(criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("tags")), tagPattern));
+                for (String tag : KnowledgeTag.splitTags(tags)) {
+                    predicates.add(KnowledgeContentRepository.hasTag(tag)
+                            .toPredicate(root, query, criteriaBuilder));
+                }
             }
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
 
-        Page<KnowledgeContent> entityPage = knowledgeContentRepository.findAll(spec, pageable);
-        
-        List<KnowledgeContentSummary> summaries = entityPage.getContent().stream()
-                .map(KnowledgeContentSummary::fromEntity)
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(summaries, pageable, entityPage.getTotalElements());
+        // 投影查询只返回摘要所需的列，正文前缀和长度在数据库中计算
+        return knowledgeContentRepository.findSummaries(spec, pageable);
     }
 
     /**
@@ -144,6 +169,91 @@ public class KnowledgeContentService {
                 .map(KnowledgeContentResponse::fromEntity);
     }
 
+    /**
+     * 根据ID列表批量查询知识内容
+     *
+     * 一次IN查询只取回紧凑DTO需要的列（不加载实体），结果按请求中ID的顺序返回，
+     * 重复的ID只返回一次，不存在的ID直接忽略。
+     *
+     * @param ids ID列表
+     * @return 紧凑格式的知识内容列表
+     */
+    @Transactional(readOnly = true)
+    public List<KnowledgeContentCompact> findAllByIds(List<Long> ids) {
+        Set<Long> uniqueIds = ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, KnowledgeContentCompact> compactById = knowledgeContentRepository.findCompactByKnowIdIn(uniqueIds).stream()
+                .collect(Collectors.toMap(KnowledgeContentCompact::getKnowId, compact -> compact));
+
+        return uniqueIds.stream()
+                .map(compactById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 键集分页查询：返回ID大于afterId的下一批内容
+     *
+     * 多取一条用于判断是否还有后续数据，避免额外的count查询。
+     *
+     * @param afterId 游标（首次请求传0）
+     * @param limit 每批记录数（超出范围时截断到1~MAX_CURSOR_LIMIT）
+     * @return 键集分页结果
+     */
+    @Transactional(readOnly = true)
+    public KnowledgeContentCursorPage findAfterId(Long afterId, int limit) {
+        long cursor = afterId == null ? 0L : afterId;
+        int size = Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+
+        List<KnowledgeContent> entities = knowledgeContentRepository.findAfterId(cursor, PageRequest.of(0, size + 1));
+        boolean hasMore = entities.size() > size;
+        if (hasMore) {
+            entities = entities.subList(0, size);
+        }
+
+        List<KnowledgeContentCompact> content = entities.stream()
+                .map(KnowledgeContentCompact::fromEntity)
+                .collect(Collectors.toList());
+        Long nextAfterId = content.isEmpty() ? cursor : content.get(content.size() - 1).getKnowId();
+
+        return new KnowledgeContentCursorPage(content, nextAfterId, hasMore);
+    }
+
+    /**
+     * 以NDJSON格式导出全部知识内容
+     *
+     * 在只读事务内按主键顺序流式读取，每行写出一条紧凑格式的JSON并立即从持久化上下文中移除，
+     * 每EXPORT_FLUSH_INTERVAL行刷新一次输出流；不构建Page，内存占用与数据总量无关。
+     *
+     * @param outputStream 响应输出流
+     * @return 导出的记录数
+     * @throws IOException 写出失败（如客户端断开连接）
+     */
+    @Transactional(readOnly = true)
+    public long exportAsNdjson(OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (Stream<KnowledgeContent> contents = knowledgeContentRepository.streamAllOrderByKnowId()) {
+            Iterator<KnowledgeContent> iterator = contents.iterator();
+            while (iterator.hasNext()) {
+                KnowledgeContent entity = iterator.next();
+                outputStream.write(objectMapper.writeValueAsBytes(KnowledgeContentCompact.fromEntity(entity)));
+                outputStream.write('\n');
+                entityManager.detach(entity);
+
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+        return count;
+    }
+
     /**
      * 创建新的知识内容
      *
@@ -155,20 +265,17 @@ public class KnowledgeContentService {
         mapRequestToEntity(request, entity);
         entity.setAcquisitionTime(LocalDateTime.now());
 
-        // 如果是手动创建且内容不为空，可以尝试AI处理
+        KnowledgeContent saved = knowledgeContentRepository.save(entity);
+        knowledgeContentRepository.syncTags(List.of(saved));
+        nearDuplicateService.indexContent(saved);
+
+        // 如果是手动创建且内容不为空，提交异步AI处理（事务提交后执行）
         if ("Manual".equals(request.getContentType()) && 
             request.getContent() != null && !request.getContent().trim().isEmpty()) {
-            try {
-                entity = aiProcessingService.processContent(entity);
-                log.info("新创建的内容已完成AI处理: {}", entity.getTitle());
-            } catch (Exception e) {
-                log.warn("新创建内容的AI处理失败: {}", entity.getTitle(), e);
-                entity.setProcessed(false);
-                entity.setErrorMessage("AI处理失败: " + e.getMessage());
-            }
+            aiEnrichmentQueue.enqueue(saved.getKnowId());
+            log.info("新创建的内容已提交AI处理: {}", saved.getTitle());
         }
 
-        KnowledgeContent saved = knowledgeContentRepository.save(entity);
         return KnowledgeContentResponse.fromEntity(saved);
     }
 
@@ -184,6 +291,7 @@ public class KnowledgeContentService {
                 .map(entity -> {
                     mapRequestToEntity(request, entity);
                     KnowledgeContent saved = knowledgeContentRepository.save(entity);
+                    knowledgeContentRepository.syncTags(List.of(saved));
                     return KnowledgeContentResponse.fromEntity(saved);
                 });
     }
@@ -196,7 +304,9 @@ public class KnowledgeContentService {
      */
     public boolean delete(Long id) {
         if (knowledgeContentRepository.existsById(id)) {
+            knowledgeContentRepository.deleteTagLinks(List.of(id));
             knowledgeContentRepository.deleteById(id);
+            nearDuplicateService.removeContents(List.of(id));
             return true;
         }
         return false;
@@ -205,6 +315,9 @@ public class KnowledgeContentService {
     /**
      * 更新处理状态
      *
+     * 设置为已处理且内容需要AI加工时，只提交异步加工，不直接修改处理状态：
+     * 处理状态由加工结果写回时设置，入队被拒绝或加工失败时内容保持未处理，可以再次提交。
+     *
      * @param id 内容ID
      * @param processed 新的处理状态
      * @return 更新后的知识内容
@@ -212,21 +325,14 @@ public class KnowledgeContentService {
     public Optional<KnowledgeContentResponse> updateProcessingStatus(Long id, Boolean processed) {
         return knowledgeContentRepository.findById(id)
                 .map(entity -> {
-                    boolean wasProcessed = entity.isProcessed(); // 记录原始状态
-                    entity.setProcessed(processed);
-                    
-                    // 如果设置为需要处理且原来未处理，尝试AI处理
-                    if (processed && !wasProcessed && 
-                        entity.getContent() != null && !entity.getContent().trim().isEmpty()) {
-                        try {
-                            entity = aiProcessingService.processContent(entity);
-                            log.info("内容重新AI处理完成: {}", entity.getTitle());
-                        } catch (Exception e) {
-                            log.warn("内容重新AI处理失败: {}", entity.getTitle(), e);
-                            entity.setErrorMessage("AI处理失败: " + e.getMessage());
-                        }
+                    // 如果设置为需要处理且原来未处理，提交异步AI处理
+                    if (processed && !entity.isProcessed() && hasContent(entity)) {
+                        aiEnrichmentQueue.enqueue(entity.getKnowId());
+                        log.info("内容已提交重新AI处理: {}", entity.getTitle());
+                        return KnowledgeContentResponse.fromEntity(entity);
                     }
-                    
+
+                    entity.setProcessed(processed);
                     KnowledgeContent saved = knowledgeContentRepository.save(entity);
                     return KnowledgeContentResponse.fromEntity(saved);
                 });
@@ -265,7 +371,10 @@ public class KnowledgeContentService {
      */
     private int batchDelete(List<Long> ids) {
         List<KnowledgeContent> entities = knowledgeContentRepository.findAllById(ids);
+        List<Long> deletedIds = entities.stream().map(KnowledgeContent::getKnowId).toList();
+        knowledgeContentRepository.deleteTagLinks(deletedIds);
         knowledgeContentRepository.deleteAll(entities);
+        nearDuplicateService.removeContents(deletedIds);
         return entities.size();
     }
 
@@ -278,25 +387,30 @@ public class KnowledgeContentService {
      */
     private int batchUpdateStatus(List<Long> ids, Boolean processed) {
         List<KnowledgeContent> entities = knowledgeContentRepository.findAllById(ids);
+        List<KnowledgeContent> toSave = new ArrayList<>();
+        List<Long> toEnrich = new ArrayList<>();
         
         for (KnowledgeContent entity : entities) {
-            entity.setProcessed(processed);
-            
-            // 如果设置为需要处理，尝试AI处理
-            if (processed && entity.getContent() != null && !entity.getContent().trim().isEmpty()) {
-                try {
-                    entity = aiProcessingService.processContent(entity);
-                } catch (Exception e) {
-                    log.warn("批量AI处理失败: {}", entity.getTitle(), e);
-                    entity.setErrorMessage("AI处理失败: " + e.getMessage());
-                }
+            // 如果设置为需要处理，收集起来统一提交异步AI处理，处理状态由加工结果写回
+            if (processed && hasContent(entity)) {
+                toEnrich.add(entity.getKnowId());
+            } else {
+                entity.setProcessed(processed);
+                toSave.add(entity);
             }
         }
         
-        knowledgeContentRepository.saveAll(entities);
+        if (!toSave.isEmpty()) {
+            knowledgeContentRepository.saveAll(toSave);
+        }
+        aiEnrichmentQueue.enqueueAll(toEnrich);
         return entities.size();
     }
 
+    private static boolean hasContent(KnowledgeContent entity) {
+        return entity.getContent() != null && !entity.getContent().trim().isEmpty();
+    }
+
     /**
      * 批量添加标签
      *
@@ -317,30 +431,38 @@ public class KnowledgeContentService {
         }
         
         knowledgeContentRepository.saveAll(entities);
+        knowledgeContentRepository.syncTags(entities);
         return entities.size();
     }
 
     /**
      * 批量移除标签
      *
+     * 与syncTags重建关联表使用同一套拆分规则（KnowledgeTag.splitTags：中英文逗号和分号分隔），
+     * 标签名不区分大小写匹配，保证标签字符串和关联表同时去掉该标签。
+     *
      * @param ids ID列表
-     * @param tagsToRemove 要移除的标签
+     * @param tagsToRemove 要移除的标签（可为多个）
      * @return 更新的记录数
      */
     private int batchRemoveTags(List<Long> ids, String tagsToRemove) {
         List<KnowledgeContent> entities = knowledgeContentRepository.findAllById(ids);
+        Set<String> removed = KnowledgeTag.splitTags(tagsToRemove).stream()
+                .map(tag -> tag.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
         
         for (KnowledgeContent entity : entities) {
             String currentTags = entity.getTags();
             if (currentTags != null && !currentTags.isEmpty()) {
-                String updatedTags = Arrays.stream(currentTags.split(","))
-                        .filter(tag -> !tag.trim().equals(tagsToRemove.trim()))
+                String updatedTags = KnowledgeTag.splitTags(currentTags).stream()
+                        .filter(tag -> !removed.contains(tag.toLowerCase(Locale.ROOT)))
                         .collect(Collectors.joining(","));
                 entity.setTags(updatedTags);
             }
         }
         
         knowledgeContentRepository.saveAll(entities);
+        knowledgeContentRepository.syncTags(entities);
         return entities.size();
     }
 
@@ -359,65 +481,37 @@ public class KnowledgeContentService {
     /**
      * 获取统计信息
      *
+     * 读取ContentStatisticsService在内存中维护的计数，不访问数据库。
+     *
      * @return 统计信息
      */
-    @Transactional(readOnly = true)
     public Map<String, Object> getStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // 总数统计
-        long totalCount = knowledgeContentRepository.count();
-        stats.put("totalCount", totalCount);
-        
-        // 按类型统计
-        Map<String, Long> countByType = new HashMap<>();
-        countByType.put("RSS", knowledgeContentRepository.countByContentType("RSS"));
-        countByType.put("Web", knowledgeContentRepository.countByContentType("Web"));
-        countByType.put("Manual", knowledgeContentRepository.countByContentType("Manual"));
-        stats.put("countByType", countByType);
-        
-        // 按状态统计
-        Map<String, Long> countByStatus = new HashMap<>();
-        countByStatus.put("processed", knowledgeContentRepository.countByProcessed(true));
-        countByStatus.put("unprocessed", knowledgeContentRepository.countByProcessed(false));
-        countByStatus.put("success", knowledgeContentRepository.countBySuccess(true));
-        countByStatus.put("failed", knowledgeContentRepository.countBySuccess(false));
-        stats.put("countByStatus", countByStatus);
-        
-        // 最近添加的统计
-        LocalDateTime oneDayAgo = LocalDateTime.now().minusDays(1);
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-        Map<String, Long> recentAdditions = new HashMap<>();
-        recentAdditions.put("lastDay", knowledgeContentRepository.countByAcquisitionTimeAfter(oneDayAgo));
-        recentAdditions.put("lastWeek", knowledgeContentRepository.countByAcquisitionTimeAfter(oneWeekAgo));
-        stats.put("recentAdditions", recentAdditions);
-        
-        return stats;
+        return contentStatisticsService.getStatistics();
     }
 
     /**
      * 获取所有标签
      *
-     * @return 标签列表
+     * @return 标签列表（按使用次数降序）
      */
     @Transactional(readOnly = true)
     public List<String> getAllTags() {
-        List<KnowledgeContent> allContents = knowledgeContentRepository.findAll();
-        
-        Set<String> uniqueTags = new HashSet<>();
-        for (KnowledgeContent content : allContents) {
-            if (content.getTags() != null && !content.getTags().isEmpty()) {
-                String[] tags = content.getTags().split(",");
-                for (String tag : tags) {
-                    String trimmedTag = tag.trim();
-                    if (!trimmedTag.isEmpty()) {
-                        uniqueTags.add(trimmedTag);
-                    }
-                }
-            }
+        return knowledgeTagRepository.findTagUsageCounts().stream()
+                .map(TagCount::getName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查询各标签的使用次数
+     *
+     * @return 标签名 -> 关联的内容数量（按数量降序）
+     */
+    private Map<String, Integer> tagUsageCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (TagCount tagCount : knowledgeTagRepository.findTagUsageCounts()) {
+            counts.put(tagCount.getName(), tagCount.getCount().intValue());
         }
-        
-        return new ArrayList<>(uniqueTags);
+        return counts;
     }
 
     /**
@@ -486,17 +580,22 @@ public class KnowledgeContentService {
     /**
      * 获取聚类分析数据
      *
+     * 各类型的文档数和关键词都由数据库分组计数得到，不加载内容实体。
+     *
      * @return 聚类分析结果
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getClusterAnalysis() {
         log.info("开始执行聚类分析");
         
-        List<KnowledgeContent> allContent = knowledgeContentRepository.findAll();
+        List<Object[]> typeCounts = knowledgeContentRepository.findContentTypeDistribution();
         Map<String, Object> result = new HashMap<>();
         
         // 模拟聚类分析逻辑
-        List<Map<String, Object>> clusters = performClustering(allContent);
-        List<List<Double>> scatterData = generateScatterData(allContent);
+        List<Map<String, Object>> clusters = performClustering(typeCounts,
+                knowledgeTagRepository.findTagUsageCountsByContentType());
+        long totalDocuments = typeCounts.stream().mapToLong(row -> ((Number) row[1]).longValue()).sum();
+        List<List<Double>> scatterData = generateScatterData(totalDocuments);
         
         result.put("clusters", clusters);
         result.put("scatterData", scatterData);
@@ -514,12 +613,11 @@ public class KnowledgeContentService {
         log.info("获取聚类统计信息");
         
         long totalDocuments = knowledgeContentRepository.count();
-        List<String> allTags = getAllTags();
         
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalClusters", Math.min(8, (int) Math.ceil(totalDocuments / 3.0))); // 模拟聚类数量
         stats.put("totalDocuments", totalDocuments);
-        stats.put("totalTags", allTags.size());
+        stats.put("totalTags", knowledgeTagRepository.countUsedTags());
         stats.put("avgSimilarity", 75); // 模拟平均相似度
         
         return stats;
@@ -528,39 +626,27 @@ public class KnowledgeContentService {
     /**
      * 获取词云数据
      *
+     * 标签频率由关联表分组计数得到；标题以流的形式只读取标题列，内存占用只与词汇量有关。
+     *
      * @return 词云数据
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getWordCloudData() {
         log.info("生成词云数据");
         
-        List<String> allTags = getAllTags();
-        List<KnowledgeContent> allContent = knowledgeContentRepository.findAll();
-        
         // 统计词频
-        Map<String, Integer> wordFreq = new HashMap<>();
-        
-        // 统计标签频率
-        for (KnowledgeContent content : allContent) {
-            if (content.getTags() != null && !content.getTags().trim().isEmpty()) {
-                String[] tags = content.getTags().split("[,，;；\\s]+");
-                for (String tag : tags) {
-                    tag = tag.trim();
-                    if (!tag.isEmpty()) {
-                        wordFreq.put(tag, wordFreq.getOrDefault(tag, 0) + 1);
-                    }
-                }
-            }
-            
-            // 从标题中提取关键词
-            if (content.getTitle() != null) {
-                String[] words = content.getTitle().split("[\\s\\-_]+");
-                for (String word : words) {
+        Map<String, Integer> wordFreq = new HashMap<>(tagUsageCounts());
+        
+        // 从标题中提取关键词
+        try (Stream<String> titles = knowledgeContentRepository.streamTitles()) {
+            titles.filter(Objects::nonNull).forEach(title -> {
+                for (String word : title.split("[\\s\\-_]+")) {
                     word = word.trim();
                     if (word.length() > 1) {
-                        wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
+                        wordFreq.merge(word, 1, Integer::sum);
                     }
                 }
-            }
+            });
         }
         
         // 转换为词云格式
@@ -604,25 +690,11 @@ public class KnowledgeContentService {
     public Map<String, Object> getTagAnalysis() {
         log.info("执行标签分析");
         
-        List<String> allTags = getAllTags();
-        List<KnowledgeContent> allContent = knowledgeContentRepository.findAll();
-        
-        Map<String, Integer> tagFreq = new HashMap<>();
-        
-        for (KnowledgeContent content : allContent) {
-            if (content.getTags() != null && !content.getTags().trim().isEmpty()) {
-                String[] tags = content.getTags().split("[,，;；\\s]+");
-                for (String tag : tags) {
-                    tag = tag.trim();
-                    if (!tag.isEmpty()) {
-                        tagFreq.put(tag, tagFreq.getOrDefault(tag, 0) + 1);
-                    }
-                }
-            }
-        }
+        // 关联表按标签分组计数，结果已按数量降序
+        Map<String, Integer> tagFreq = tagUsageCounts();
         
         Map<String, Object> result = new HashMap<>();
-        result.put("totalTags", allTags.size());
+        result.put("totalTags", tagFreq.size());
         result.put("tagFrequency", tagFreq);
         result.put("topTags", tagFreq.entrySet().stream()
                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
@@ -640,9 +712,12 @@ public class KnowledgeContentService {
     /**
      * 获取时间趋势分析
      *
+     * 在数据库中按采集日期分组计数，结果行数不超过统计天数。
+     *
      * @param period 时间周期
      * @return 时间趋势数据
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getTimeTrendAnalysis(String period) {
         log.info("获取时间趋势分析，周期: {}", period);
         
@@ -662,15 +737,13 @@ public class KnowledgeContentService {
         LocalDateTime endDate = LocalDateTime.now();
         LocalDateTime startDate = endDate.minusDays(days);
         
-        List<KnowledgeContent> recentContent = knowledgeContentRepository
-                .findByAcquisitionTimeBetween(startDate, endDate);
-        
         // 按日期分组统计
-        Map<LocalDate, Long> dailyCounts = recentContent.stream()
-                .collect(Collectors.groupingBy(
-                        content -> content.getAcquisitionTime().toLocalDate(),
-                        Collectors.counting()
-                ));
+        Map<LocalDate, Long> dailyCounts = new HashMap<>();
+        long totalCount = 0;
+        for (DailyCount dailyCount : knowledgeContentRepository.countDailyBetween(startDate, endDate)) {
+            dailyCounts.put(dailyCount.getDate(), dailyCount.getCount());
+            totalCount += dailyCount.getCount();
+        }
         
         // 生成完整的日期序列
         List<String> dates = new ArrayList<>();
@@ -686,7 +759,7 @@ public class KnowledgeContentService {
         result.put("dates", dates);
         result.put("counts", counts);
         result.put("period", period);
-        result.put("totalCount", recentContent.size());
+        result.put("totalCount", totalCount);
         
         return result;
     }
@@ -694,45 +767,33 @@ public class KnowledgeContentService {
     /**
      * 执行聚类分析（模拟实现）
      *
-     * @param contents 内容列表
+     * @param typeCounts [内容类型, 数量] 数组列表
+     * @param tagCounts 按内容类型分组的标签使用次数（按数量降序）
      * @return 聚类结果
      */
-    private List<Map<String, Object>> performClustering(List<KnowledgeContent> contents) {
+    private List<Map<String, Object>> performClustering(List<Object[]> typeCounts, List<ContentTypeTagCount> tagCounts) {
         List<Map<String, Object>> clusters = new ArrayList<>();
         
-        // 按内容类型进行简单聚类
-        Map<String, List<KnowledgeContent>> typeGroups = contents.stream()
-                .collect(Collectors.groupingBy(
-                        content -> content.getContentType() != null ? content.getContentType() : "未知"
-                ));
+        // 每个类型取使用次数最多的5个标签作为关键词
+        Map<String, List<String>> keywordsByType = new HashMap<>();
+        for (ContentTypeTagCount tagCount : tagCounts) {
+            List<String> keywords = keywordsByType.computeIfAbsent(tagCount.getContentType(), type -> new ArrayList<>());
+            if (keywords.size() < 5) {
+                keywords.add(tagCount.getTag());
+            }
+        }
         
+        // 按内容类型进行简单聚类
         int clusterId = 0;
-        for (Map.Entry<String, List<KnowledgeContent>> entry : typeGroups.entrySet()) {
+        for (Object[] row : typeCounts) {
+            String contentType = row[0] != null ? row[0].toString() : "未知";
             Map<String, Object> cluster = new HashMap<>();
             cluster.put("clusterId", clusterId++);
-            cluster.put("clusterName", entry.getKey() + "聚类");
-            cluster.put("documentCount", entry.getValue().size());
+            cluster.put("clusterName", contentType + "聚类");
+            cluster.put("documentCount", ((Number) row[1]).intValue());
             cluster.put("avgSimilarity", 0.7 + Math.random() * 0.2); // 模拟相似度
-            
-            // 提取关键词
-            Set<String> keywords = new HashSet<>();
-            Set<String> contentTypes = new HashSet<>();
-            
-            for (KnowledgeContent content : entry.getValue()) {
-                if (content.getTags() != null) {
-                    String[] tags = content.getTags().split("[,，;；\\s]+");
-                    for (String tag : tags) {
-                        tag = tag.trim();
-                        if (!tag.isEmpty() && keywords.size() < 5) {
-                            keywords.add(tag);
-                        }
-                    }
-                }
-                contentTypes.add(content.getContentType());
-            }
-            
-            cluster.put("topKeywords", new ArrayList<>(keywords));
-            cluster.put("contentTypes", new ArrayList<>(contentTypes));
+            cluster.put("topKeywords", keywordsByType.getOrDefault(row[0], new ArrayList<>()));
+            cluster.put("contentTypes", List.of(contentType));
             
             clusters.add(cluster);
         }
@@ -743,15 +804,14 @@ public class KnowledgeContentService {
     /**
      * 生成散点图数据（模拟实现）
      *
-     * @param contents 内容列表
+     * @param documentCount 文档数量
      * @return 散点图数据
      */
-    private List<List<Double>> generateScatterData(List<KnowledgeContent> contents) {
+    private List<List<Double>> generateScatterData(long documentCount) {
         List<List<Double>> scatterData = new ArrayList<>();
         Random random = new Random();
         
-        for (int i = 0; i < contents.size(); i++) {
-            KnowledgeContent content = contents.get(i);
+        for (int i = 0; i < documentCount; i++) {
             List<Double> point = new ArrayList<>();
             
             // X坐标（模拟）
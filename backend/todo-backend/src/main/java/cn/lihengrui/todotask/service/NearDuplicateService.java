@@ -0,0 +1,228 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 近似重复内容检测服务
+ *
+ * 在采集入库时按SimHash指纹识别近似重复的内容（如同一文章被不同网站转载、
+ * 多个RSS源收录同一条目但链接不同），避免向量库和大模型上下文被重复内容占满。
+ *
+ * 实现方式：
+ * - 指纹由AIProcessingService在加工时计算并保存在knowledge_content.sim_hash
+ * - 独立内容的指纹收录在内存中的分段查找表（SimHashIndex），首次使用时从数据库加载，
+ *   之后随采集入库、接口创建、AI加工重新计算指纹和删除增量更新；每条新内容的查找开销与已收录数量无关
+ * - 汉明距离不超过 dedup.simhash.max-distance（最大3）视为近似重复
+ *
+ * 处理方式（dedup.near-duplicate-action）：
+ * - skip：近似重复的内容不入库（默认）
+ * - link：照常入库，并在duplicate_of中记录原始内容ID，原始内容可以是同一批中较早的一条
+ *
+ * 检测和入库在同一把锁内完成，多个RSS源并发采集时同一内容也只会有一条独立记录。
+ * 调用方在AI加工前按来源URL做的去重是锁外的预检查，两次采集可能同时通过；
+ * 因此入库前在锁内按来源URL再检查一次，批量插入在释放锁之前提交，后到的一方一定能看到先插入的记录。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@Service
+@Slf4j
+public class NearDuplicateService {
+
+    @Autowired
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    @Autowired
+    private ContentStatisticsService contentStatisticsService;
+
+    @Value("${dedup.simhash.max-distance:3}")
+    private int maxDistance = 3;
+
+    @Value("${dedup.near-duplicate-action:skip}")
+    private String nearDuplicateAction = "skip";
+
+    // 独立内容的指纹查找表，首次使用时加载
+    private SimHashIndex index;
+
+    /**
+     * 剔除或关联近似重复内容后批量入库
+     *
+     * @param candidates 已完成AI加工、按来源URL去重后的内容
+     * @return 实际插入的记录数
+     */
+    public synchronized int insertDeduplicated(List<KnowledgeContent> candidates) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        // 加工期间其他采集任务可能已插入相同来源URL的内容
+        List<KnowledgeContent> contents = knowledgeContentRepository.retainNewBySourceUrl(candidates);
+        if (contents.size() < candidates.size()) {
+            log.debug("入库前发现 {} 条内容已由并发采集任务插入", candidates.size() - contents.size());
+        }
+        if (contents.isEmpty()) {
+            return 0;
+        }
+        SimHashIndex loaded = index();
+        boolean link = "link".equals(nearDuplicateAction.toLowerCase(Locale.ROOT));
+
+        List<KnowledgeContent> originals = new ArrayList<>();
+        List<KnowledgeContent> linkedToStored = new ArrayList<>();
+        // 与同一批中较早内容重复的内容 -> 批内原始内容（入库后才有ID）
+        Map<KnowledgeContent, KnowledgeContent> linkedInBatch = new IdentityHashMap<>();
+        int skipped = 0;
+
+        for (KnowledgeContent content : contents) {
+            Long fingerprint = content.getSimHash();
+            if (fingerprint == null) {
+                originals.add(content);
+                continue;
+            }
+
+            Long storedId = loaded.findNearest(fingerprint, maxDistance);
+            KnowledgeContent batchOriginal = storedId == null ? findInBatch(originals, fingerprint) : null;
+            if (storedId == null && batchOriginal == null) {
+                originals.add(content);
+            } else if (!link) {
+                skipped++;
+                log.debug("跳过近似重复内容: {} ({})", content.getTitle(), content.getSourceUrl());
+            } else if (storedId != null) {
+                content.setDuplicateOf(storedId);
+                linkedToStored.add(content);
+            } else {
+                linkedInBatch.put(content, batchOriginal);
+            }
+        }
+
+        List<KnowledgeContent> firstPass = new ArrayList<>(originals.size() + linkedToStored.size());
+        firstPass.addAll(originals);
+        firstPass.addAll(linkedToStored);
+        int inserted = knowledgeContentRepository.batchInsert(firstPass);
+        List<KnowledgeContent> stored = new ArrayList<>(firstPass);
+
+        for (KnowledgeContent original : originals) {
+            if (original.getSimHash() != null && original.getKnowId() != null) {
+                loaded.add(original.getKnowId(), original.getSimHash());
+            }
+        }
+
+        if (!linkedInBatch.isEmpty()) {
+            List<KnowledgeContent> secondPass = new ArrayList<>(linkedInBatch.size());
+            linkedInBatch.forEach((duplicate, original) -> {
+                duplicate.setDuplicateOf(original.getKnowId());
+                secondPass.add(duplicate);
+            });
+            inserted += knowledgeContentRepository.batchInsert(secondPass);
+            stored.addAll(secondPass);
+        }
+
+        // JDBC批量插入不触发实体监听器，由这里更新统计计数
+        stored.removeIf(content -> content.getKnowId() == null);
+        contentStatisticsService.recordInserted(stored);
+
+        int duplicates = skipped + linkedToStored.size() + linkedInBatch.size();
+        if (duplicates > 0) {
+            log.info("近似重复检测：{} 条中发现 {} 条近似重复，处理方式: {}", contents.size(), duplicates, nearDuplicateAction);
+        }
+        return inserted;
+    }
+
+    /**
+     * 收录或更新单条内容的指纹（接口创建的内容、AI加工重新计算了指纹的内容）
+     * 在事务中调用时于提交后生效；近似重复内容和没有指纹的内容从查找表中移除
+     *
+     * @param content 已持久化的内容
+     */
+    public void indexContent(KnowledgeContent content) {
+        Long id = content.getKnowId();
+        Long fingerprint = content.getSimHash();
+        Long duplicateOf = content.getDuplicateOf();
+        if (id == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (index == null) {
+                // 查找表尚未加载，首次使用时会从数据库读取最新指纹
+                return;
+            }
+            if (fingerprint != null && duplicateOf == null) {
+                index.add(id, fingerprint);
+            } else {
+                index.remove(id);
+            }
+        });
+    }
+
+    /**
+     * 从查找表中移除已删除内容的指纹，在事务中调用时于提交后生效
+     *
+     * @param ids 已删除的内容ID
+     */
+    public void removeContents(Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        if (removed.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            if (index != null) {
+                removed.forEach(index::remove);
+            }
+        });
+    }
+
+    /**
+     * 在当前事务提交后（没有事务时立即）持锁执行查找表更新
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    synchronized (NearDuplicateService.this) {
+                        update.run();
+                    }
+                }
+            });
+        } else {
+            synchronized (this) {
+                update.run();
+            }
+        }
+    }
+
+    private KnowledgeContent findInBatch(List<KnowledgeContent> originals, long fingerprint) {
+        int limit = Math.min(maxDistance, SimHashIndex.BANDS - 1);
+        for (KnowledgeContent original : originals) {
+            if (original.getSimHash() != null && SimHash.distance(original.getSimHash(), fingerprint) <= limit) {
+                return original;
+            }
+        }
+        return null;
+    }
+
+    private SimHashIndex index() {
+        if (index == null) {
+            SimHashIndex loaded = new SimHashIndex();
+            for (Object[] row : knowledgeContentRepository.findSimHashFingerprints()) {
+                loaded.add(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+            log.info("已加载 {} 条内容指纹到近似重复查找表", loaded.size());
+            index = loaded;
+        }
+        return index;
+    }
+}
@@ -1,21 +1,38 @@
 package cn.lihengrui.todotask.service;
 
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.entity.RssFeedState;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import cn.lihengrui.todotask.repository.RssFeedStateRepository;
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
 import com.rometools.rome.io.SyndFeedInput;
 import com.rometools.rome.io.XmlReader;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.net.URL;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * RSS数据采集服务类
@@ -24,7 +41,7 @@ import java.util.List;
  * 并将提取的内容存储到数据库中，为知识管理系统提供自动化的内容来源。
  * 
  * 主要功能：
- * 1. 定时RSS源数据采集 - 每小时自动执行一次
+ * 1. 定时RSS源数据采集 - 每分钟检查一次，各源按自己的轮询间隔到期后采集
  * 2. RSS XML解析 - 使用ROME库解析RSS格式
  * 3. 内容数据提取 - 提取标题、描述、链接、分类等信息
  * 4. 数据存储 - 将解析后的内容保存到数据库
@@ -32,26 +49,31 @@ import java.util.List;
  * 
  * 技术实现：
  * - 使用Spring的@Scheduled注解实现定时任务
+ * - 到期的RSS源在虚拟线程上并发采集，单个慢源不会拖住其他源
+ * - 使用JDK HttpClient发送条件请求（If-None-Match / If-Modified-Since），
+ *   校验信息持久化在rss_feed_state表中，未变化的源只产生一次304往返
  * - 使用ROME库解析RSS/Atom格式的数据源
  * - 集成Spring Data JPA进行数据持久化
  * - 使用SLF4J进行日志记录和监控
  * 
  * 配置说明：
  * - RSS源配置：目前硬编码在RSS_FEEDS常量中
- * - 定时间隔：固定每小时执行一次（3600000毫秒）
+ * - 检查间隔：rss.poll-tick-ms，默认每分钟检查哪些源已到期
+ * - 轮询间隔：每个源独立，发现新条目时减半，无变化时增加一半，
+ *   限制在 rss.min-interval-minutes ~ rss.max-interval-minutes 之间
+ * - 超时：rss.connect-timeout-ms 连接超时，rss.read-timeout-ms 响应超时
  * - 建议优化：RSS源配置应移至配置文件或数据库
  * 
  * 性能考虑：
- * - 网络超时：依赖网络连接，可能受到RSS源响应时间影响
+ * - 网络超时：连接和响应均有超时限制，失败的源按连续失败次数指数退避
  * - 内存使用：大量RSS条目可能占用较多内存
  * - 数据库性能：批量保存时可能影响数据库性能
  * 
  * 扩展方向：
  * 1. 支持动态RSS源配置
  * 2. 实现内容去重机制
- * 3. 添加RSS源状态监控
- * 4. 支持增量更新策略
- * 5. 集成内容质量评估
+ * 3. 基于rss_feed_state表的RSS源状态监控
+ * 4. 集成内容质量评估
  * 
  * @author HA72开发团队
  * @version 1.0
@@ -77,6 +99,45 @@ public class RssAcquisitionService {
     @Autowired
     private AIProcessingService aiProcessingService;
 
+    /**
+     * RSS源采集状态数据访问对象
+     *
+     * 保存每个源的ETag/Last-Modified和自适应轮询状态
+     */
+    @Autowired
+    private RssFeedStateRepository rssFeedStateRepository;
+
+    /**
+     * 近似重复检测服务
+     *
+     * 入库时按SimHash指纹剔除或关联与已有内容近似重复的条目
+     */
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    /**
+     * 采集请求使用的User-Agent
+     */
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; TodoTask-RSS-Collector/1.0)";
+
+    @Value("${rss.connect-timeout-ms:5000}")
+    private long connectTimeoutMs = 5000;
+
+    @Value("${rss.read-timeout-ms:15000}")
+    private long readTimeoutMs = 15000;
+
+    @Value("${rss.default-interval-minutes:60}")
+    private int defaultIntervalMinutes = 60;
+
+    @Value("${rss.min-interval-minutes:15}")
+    private int minIntervalMinutes = 15;
+
+    @Value("${rss.max-interval-minutes:360}")
+    private int maxIntervalMinutes = 360;
+
+    // 共享的HTTP客户端，首次采集时创建
+    private volatile HttpClient httpClient;
+
     /**
      * RSS数据源配置列表
      * 
@@ -103,135 +164,60 @@ public class RssAcquisitionService {
     /**
      * 定时RSS数据采集任务
      * 
-     * 该方法通过Spring的@Scheduled注解配置为定时任务，每小时执行一次。
-     * 遍历配置的所有RSS源，解析XML内容，提取有用信息并存储到数据库。
+     * 该方法通过Spring的@Scheduled注解配置为定时任务，默认每分钟执行一次检查，
+     * 只采集轮询间隔已到期的RSS源，各源在独立的虚拟线程上并发采集。
      * 
      * 执行流程：
-     * 1. 初始化成功/失败计数器
-     * 2. 遍历所有配置的RSS源URL
-     * 3. 对每个RSS源：
-     *    a. 建立网络连接并下载RSS XML
-     *    b. 使用ROME库解析XML结构
-     *    c. 遍历所有RSS条目（entry）
-     *    d. 提取标题、内容、链接等信息
-     *    e. 创建KnowledgeContent实体并保存到数据库
-     * 4. 记录采集统计结果
+     * 1. 读取所有配置源的采集状态，首次出现的源创建默认状态
+     * 2. 选出下一次采集时间已到期的源
+     * 3. 每个到期的源提交到虚拟线程执行collectFeed，互不阻塞
+     * 4. 等待全部完成后记录采集统计结果
      * 
      * 错误处理：
-     * - 网络连接错误：记录日志，继续处理下一个RSS源
-     * - XML解析错误：记录日志，跳过当前RSS源
-     * - 数据库保存错误：记录日志，但不中断整个采集流程
-     * 
-     * 性能优化建议：
-     * - 可考虑使用并行流处理多个RSS源
-     * - 实现连接超时和重试机制
-     * - 添加内容去重逻辑避免重复存储
+     * - 单个源的网络错误、超时、解析错误只记录到该源的状态中，不影响其他源
+     * - 失败的源按连续失败次数指数退避后再重试
      * 
      * @Scheduled注解参数说明：
-     * - fixedRate = 3600000：固定间隔3600秒（1小时）执行一次
-     * - 其他可选参数：initialDelay（初始延迟）、cron（cron表达式）
+     * - fixedDelayString：上一次检查结束后间隔rss.poll-tick-ms再次检查，避免重叠执行
      */
-    @Scheduled(fixedRate = 3600000) // 每隔1小时执行一次 (3600000毫秒)
+    @Scheduled(fixedDelayString = "${rss.poll-tick-ms:60000}")
     public void acquireRssData() {
-        log.info("开始采集 RSS 数据...");
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, RssFeedState> states = rssFeedStateRepository.findByFeedUrlIn(RSS_FEEDS).stream()
+                .collect(Collectors.toMap(RssFeedState::getFeedUrl, Function.identity()));
+
+        List<RssFeedState> dueFeeds = new ArrayList<>();
+        for (String feedUrl : RSS_FEEDS) {
+            RssFeedState state = states.computeIfAbsent(feedUrl, this::newFeedState);
+            if (state.getNextFetchTime() == null || !state.getNextFetchTime().isAfter(now)) {
+                dueFeeds.add(state);
+            }
+        }
+        if (dueFeeds.isEmpty()) {
+            log.debug("没有到期的RSS源");
+            return;
+        }
+
+        log.info("开始采集 RSS 数据，到期源 {} 个...", dueFeeds.size());
         int successCount = 0;  // 成功采集的条目数量
         int failureCount = 0;  // 失败的RSS源数量
 
-        // 遍历所有配置的RSS源进行数据采集
-        for (String feedUrl : RSS_FEEDS) {
-            try {
-                // 创建URL对象并建立连接
-                URL url = new URL(feedUrl);
-                SyndFeedInput input = new SyndFeedInput();
-                
-                // 使用ROME库解析RSS XML，XmlReader自动处理字符编码
-                SyndFeed feed = input.build(new XmlReader(url));
-
-                // 遍历RSS feed中的所有条目
-                for (SyndEntry entry : feed.getEntries()) {
-                    // 创建新的知识内容实体
-                    KnowledgeContent content = new KnowledgeContent();
-                    
-                    // 设置基本内容信息
-                    content.setTitle(entry.getTitle());
-                           // 安全地获取描述内容，避免空指针异常
-                           String rawContent = entry.getDescription() != null ? entry.getDescription().getValue() : "";
-                           // 限制内容长度以避免数据库截断错误
-                           if (rawContent.length() > 4000) {
-                               content.setContent(rawContent.substring(0, 4000) + "...");
-                               log.debug("RSS内容已截断，原长度: {}, 截断后长度: {}", rawContent.length(), content.getContent().length());
-                           } else {
-                               content.setContent(rawContent);
-                           }
-                    content.setSourceUrl(entry.getUri());
-                    content.setContentType("RSS");  // 标记为RSS类型内容
-                    
-                    // 转换并设置发布时间，如果没有则使用当前时间
-                    content.setAcquisitionTime(convertToLocalDateTime(entry.getPublishedDate()));
-                    
-                    // 提取并组合分类标签，使用逗号分隔
-                    content.setTags(entry.getCategories() != null ? 
-                        entry.getCategories().stream()
-                            .map(c -> c.getName())
-                            .reduce((a, b) -> a + "," + b)
-                            .orElse("") : "");
-                    
-                    // 设置处理状态
-                    content.setProcessed(false); // 初始为未加工状态
-                    content.setSuccess(true);    // 标记采集成功
-                    content.setErrorMessage(null);
-
-                    // AI智能代理深度加工信息处理
-                    try {
-                        // 调用AI处理服务对内容进行深度加工
-                        // 包括：内容摘要生成、关键词提取、内容分类、情感分析、实体提取等
-                        if (content != null) {
-                            KnowledgeContent processedContent = aiProcessingService.processContent(content);
-                            if (processedContent != null) {
-                                content = processedContent;
-                                log.debug("AI处理完成，内容已增强: {}", content.getTitle());
-                            }
-                        }
-                    } catch (Exception aiException) {
-                        // AI处理失败不影响基本的内容保存
-                        if (content != null) {
-                            log.warn("AI智能处理失败，使用原始内容: " + content.getTitle(), aiException);
-                            content.setProcessed(false);
-                            content.setErrorMessage("AI处理失败: " + aiException.getMessage());
-                        } else {
-                            log.warn("AI智能处理失败，内容对象为空", aiException);
-                        }
-                    }
-                    
-                    // 记录调试日志
-                    if (content != null) {
-                        log.debug("RSS content acquired and processed: {}", content.getTitle());
-                        
-                        // 保存到数据库
-                        knowledgeContentRepository.save(content);
-                        successCount++;
-                    } else {
-                        log.warn("RSS内容对象为空，跳过保存");
-                    }
+        // 每个源一个虚拟线程，慢源只占用自己的线程
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (RssFeedState state : dueFeeds) {
+                futures.add(executor.submit(() -> collectFeed(state)));
+            }
+            for (Future<Integer> future : futures) {
+                try {
+                    successCount += future.get();
+                } catch (ExecutionException e) {
+                    failureCount++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("RSS 数据采集被中断");
+                    return;
                 }
-            } catch (Exception e) {
-                // 捕获所有异常，记录错误日志但不中断整个采集流程
-                log.error("采集 RSS 源失败: " + feedUrl, e);
-                failureCount++;
-                
-                // TODO: 可以选择在这里保存一个失败记录到数据库
-                // 用于后续的错误分析和RSS源质量监控
-                /*
-                KnowledgeContent errorRecord = new KnowledgeContent();
-                errorRecord.setTitle("RSS采集失败: " + feedUrl);
-                errorRecord.setSourceUrl(feedUrl);
-                errorRecord.setContentType("RSS");
-                errorRecord.setAcquisitionTime(LocalDateTime.now());
-                errorRecord.setProcessed(false);
-                errorRecord.setSuccess(false);
-                errorRecord.setErrorMessage(e.getMessage());
-                knowledgeContentRepository.save(errorRecord);
-                */
             }
         }
         
@@ -239,6 +225,198 @@ public class RssAcquisitionService {
         log.info("RSS 数据采集完成。成功: {}, 失败: {}", successCount, failureCount);
     }
 
+    /**
+     * 采集单个RSS源
+     *
+     * 携带上次保存的ETag/Last-Modified发送条件请求：
+     * - 304：内容未变化，不下载不解析，仅延长轮询间隔
+     * - 200：解析全部条目，按来源URL去掉已入库的条目，新条目作为一批并行AI加工，剔除近似重复后批量插入；
+     *   根据是否出现新条目调整轮询间隔，并保存新的校验信息
+     * - 其他状态码或异常：记录失败并按连续失败次数退避
+     *
+     * @param state RSS源采集状态（方法结束时已持久化）
+     * @return 新增的条目数量，304时为0
+     * @throws Exception 采集失败
+     */
+    int collectFeed(RssFeedState state) throws Exception {
+        String feedUrl = state.getFeedUrl();
+        LocalDateTime now = LocalDateTime.now();
+        state.setLastFetchTime(now);
+
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(feedUrl))
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "application/rss+xml, application/atom+xml, application/xml;q=0.9, */*;q=0.8")
+                    .GET();
+            if (state.getEtag() != null) {
+                request.header("If-None-Match", state.getEtag());
+            }
+            if (state.getLastModified() != null) {
+                request.header("If-Modified-Since", state.getLastModified());
+            }
+
+            HttpResponse<byte[]> response = httpClient().send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            state.setLastStatus(response.statusCode());
+
+            if (response.statusCode() == 304) {
+                log.debug("RSS源未变化: {}", feedUrl);
+                scheduleNext(state, false, now);
+                rssFeedStateRepository.save(state);
+                return 0;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+
+            // 使用ROME库解析RSS XML，XmlReader结合响应头的Content-Type处理字符编码
+            String contentType = response.headers().firstValue("Content-Type").orElse(null);
+            SyndFeed feed = new SyndFeedInput().build(
+                    new XmlReader(new ByteArrayInputStream(response.body()), contentType, true));
+
+            // 遍历RSS feed中的所有条目，先收集为实体列表
+            List<KnowledgeContent> contents = new ArrayList<>();
+            LocalDateTime latestEntryTime = state.getLatestEntryTime();
+            for (SyndEntry entry : feed.getEntries()) {
+                // 创建新的知识内容实体
+                KnowledgeContent content = new KnowledgeContent();
+                
+                // 设置基本内容信息
+                content.setTitle(entry.getTitle());
+                // 安全地获取描述内容，避免空指针异常
+                String rawContent = entry.getDescription() != null ? entry.getDescription().getValue() : "";
+                // 限制内容长度以避免数据库截断错误
+                if (rawContent.length() > 4000) {
+                    content.setContent(rawContent.substring(0, 4000) + "...");
+                    log.debug("RSS内容已截断，原长度: {}, 截断后长度: {}", rawContent.length(), content.getContent().length());
+                } else {
+                    content.setContent(rawContent);
+                }
+                content.setSourceUrl(entry.getUri());
+                content.setContentType("RSS");  // 标记为RSS类型内容
+                
+                // 转换并设置发布时间，如果没有则使用当前时间
+                content.setAcquisitionTime(convertToLocalDateTime(entry.getPublishedDate()));
+                
+                // 提取并组合分类标签，使用逗号分隔
+                content.setTags(entry.getCategories() != null ? 
+                    entry.getCategories().stream()
+                        .map(c -> c.getName())
+                        .reduce((a, b) -> a + "," + b)
+                        .orElse("") : "");
+                
+                // 设置处理状态
+                content.setProcessed(false); // 初始为未加工状态
+                content.setSuccess(true);    // 标记采集成功
+                content.setErrorMessage(null);
+
+                contents.add(content);
+
+                // 记录已见过的最新条目发布时间
+                if (entry.getPublishedDate() != null
+                        && (latestEntryTime == null || content.getAcquisitionTime().isAfter(latestEntryTime))) {
+                    latestEntryTime = content.getAcquisitionTime();
+                }
+            }
+
+            // 按来源URL去重：一次IN查询过滤掉已入库的条目，只对新条目做AI加工
+            // 新条目数同时作为该源更新频率的依据
+            List<KnowledgeContent> newContents = knowledgeContentRepository.retainNewBySourceUrl(contents);
+            int newEntryCount = newContents.size();
+
+            // AI智能代理深度加工信息处理
+            // 新条目作为一批并行加工（摘要、关键词、分类、情感、实体等），
+            // 单条加工失败时该条保留原始内容并记录错误信息，不影响其他条目
+            int insertedCount = 0;
+            if (!newContents.isEmpty()) {
+                List<KnowledgeContent> processedContents = aiProcessingService.batchProcessContents(newContents);
+
+                // 剔除近似重复内容后JDBC批量插入数据库
+                insertedCount = nearDuplicateService.insertDeduplicated(processedContents);
+            }
+            log.debug("RSS源 {} 共 {} 条，新增 {} 条", feedUrl, contents.size(), insertedCount);
+
+            state.setEtag(response.headers().firstValue("ETag").orElse(null));
+            state.setLastModified(response.headers().firstValue("Last-Modified").orElse(null));
+            state.setLatestEntryTime(latestEntryTime);
+            scheduleNext(state, newEntryCount > 0, now);
+            rssFeedStateRepository.save(state);
+            return insertedCount;
+        } catch (Exception e) {
+            // 捕获所有异常，记录到该源的状态中，不影响其他源
+            log.error("采集 RSS 源失败: " + feedUrl, e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            state.setConsecutiveFailures(state.getConsecutiveFailures() + 1);
+            state.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage(), 1000));
+            // 失败后按连续失败次数指数退避：最小间隔 × 2^(失败次数-1)，不超过最大间隔
+            long backoffMinutes = Math.min((long) maxIntervalMinutes,
+                    (long) minIntervalMinutes << Math.min(state.getConsecutiveFailures() - 1, 10));
+            state.setNextFetchTime(now.plusMinutes(backoffMinutes));
+            rssFeedStateRepository.save(state);
+            throw e;
+        }
+    }
+
+    /**
+     * 根据本次是否发现新条目调整轮询间隔并安排下一次采集
+     *
+     * 发现新条目时间隔减半，未变化时增加一半，限制在最小/最大间隔之间；
+     * 更新频繁的源因此被更频繁地采集，长期不更新的源逐渐退到最大间隔。
+     *
+     * @param state 采集状态
+     * @param changed 是否发现新条目
+     * @param now 本次采集时间
+     */
+    private void scheduleNext(RssFeedState state, boolean changed, LocalDateTime now) {
+        int interval = state.getPollIntervalMinutes() > 0 ? state.getPollIntervalMinutes() : defaultIntervalMinutes;
+        if (changed) {
+            interval = Math.max(minIntervalMinutes, interval / 2);
+            state.setLastChangeTime(now);
+        } else {
+            interval = Math.min(maxIntervalMinutes, interval + Math.max(1, interval / 2));
+        }
+        state.setPollIntervalMinutes(interval);
+        state.setNextFetchTime(now.plusMinutes(interval));
+        state.setConsecutiveFailures(0);
+        state.setLastError(null);
+    }
+
+    /**
+     * 为首次出现的RSS源创建默认采集状态（立即到期）
+     *
+     * @param feedUrl RSS源地址
+     * @return 采集状态
+     */
+    private RssFeedState newFeedState(String feedUrl) {
+        RssFeedState state = new RssFeedState();
+        state.setFeedUrl(feedUrl);
+        state.setPollIntervalMinutes(defaultIntervalMinutes);
+        return state;
+    }
+
+    private HttpClient httpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text != null && text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
     /**
      * 日期时间转换工具方法
      * 
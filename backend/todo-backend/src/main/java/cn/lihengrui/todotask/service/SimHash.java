@@ -0,0 +1,85 @@
+package cn.lihengrui.todotask.service;
+
+/**
+ * SimHash文本指纹
+ *
+ * 每个特征（英文词或中文二元组）哈希为64位，按位累加权重（位为1加1，为0减1），
+ * 最后每一位取累加值的符号得到指纹。内容相近的文本只有少数特征不同，
+ * 指纹的汉明距离也很小，因此可用汉明距离判断近似重复。
+ *
+ * 调用方在自己的扫描循环中逐个累加特征（{@link #accumulate(int[], long)}），
+ * 以便与分词等其他工作在同一趟循环中完成。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class SimHash {
+
+    /**
+     * 指纹位数
+     */
+    public static final int BITS = 64;
+
+    private SimHash() {
+    }
+
+    /**
+     * 计算特征哈希（FNV-1a 64位，再做一次混合使各位分布均匀）
+     *
+     * @param chars 字符数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 64位特征哈希
+     */
+    public static long featureHash(char[] chars, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash ^= chars[i];
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 把一个特征累加到各位权重上
+     *
+     * @param weights 长度为64的权重数组
+     * @param featureHash 特征哈希
+     */
+    public static void accumulate(int[] weights, long featureHash) {
+        for (int bit = 0; bit < BITS; bit++) {
+            weights[bit] += ((featureHash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * 由各位权重生成指纹
+     *
+     * @param weights 长度为64的权重数组
+     * @return 指纹
+     */
+    public static long fingerprint(int[] weights) {
+        long fingerprint = 0;
+        for (int bit = 0; bit < BITS; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @param a 指纹
+     * @param b 指纹
+     * @return 两个指纹的汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
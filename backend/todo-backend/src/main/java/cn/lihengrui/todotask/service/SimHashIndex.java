@@ -0,0 +1,135 @@
+package cn.lihengrui.todotask.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SimHash分段查找表（LSH）
+ *
+ * 64位指纹分成4段、每段16位，每段的取值直接作为桶下标。
+ * 汉明距离不超过3的两个指纹至多有3段不同，必有一段完全相同，
+ * 所以只需检查与新指纹某一段相同的桶，即可找出全部距离不超过3的指纹，
+ * 查找开销与已收录的文档数无关。
+ *
+ * 另外保存文档ID到指纹的映射，用于删除文档或替换重新计算的指纹。
+ *
+ * 非线程安全，由调用方加锁。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public final class SimHashIndex {
+
+    /**
+     * 分段数；可保证找全的最大汉明距离为 BANDS - 1
+     */
+    public static final int BANDS = 4;
+
+    private static final int BAND_BITS = SimHash.BITS / BANDS;
+    private static final int BUCKETS_PER_BAND = 1 << BAND_BITS;
+    private static final long BAND_MASK = BUCKETS_PER_BAND - 1;
+
+    // 下标 = 段号 * 65536 + 段取值；每个桶交替存放 [指纹, ID, 指纹, ID, ...]
+    private final long[][] buckets = new long[BANDS * BUCKETS_PER_BAND][];
+    private final int[] bucketSizes = new int[BANDS * BUCKETS_PER_BAND];
+    // 文档ID -> 指纹
+    private final Map<Long, Long> fingerprints = new HashMap<>();
+
+    /**
+     * 收录一个文档的指纹，文档已收录时替换原指纹
+     *
+     * @param id 文档ID
+     * @param fingerprint 指纹
+     */
+    public void add(long id, long fingerprint) {
+        Long previous = fingerprints.put(id, fingerprint);
+        if (previous != null) {
+            removeFromBuckets(id, previous);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketOf(band, fingerprint);
+            long[] entries = buckets[bucket];
+            int used = bucketSizes[bucket];
+            if (entries == null) {
+                entries = new long[4];
+                buckets[bucket] = entries;
+            } else if (used + 2 > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+                buckets[bucket] = entries;
+            }
+            entries[used] = fingerprint;
+            entries[used + 1] = id;
+            bucketSizes[bucket] = used + 2;
+        }
+    }
+
+    /**
+     * 移除一个文档的指纹
+     *
+     * @param id 文档ID
+     * @return 文档是否已收录
+     */
+    public boolean remove(long id) {
+        Long fingerprint = fingerprints.remove(id);
+        if (fingerprint == null) {
+            return false;
+        }
+        removeFromBuckets(id, fingerprint);
+        return true;
+    }
+
+    private void removeFromBuckets(long id, long fingerprint) {
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketOf(band, fingerprint);
+            long[] entries = buckets[bucket];
+            int used = bucketSizes[bucket];
+            for (int i = 0; i < used; i += 2) {
+                if (entries[i + 1] == id) {
+                    // 用桶内最后一项覆盖被删除项
+                    entries[i] = entries[used - 2];
+                    entries[i + 1] = entries[used - 1];
+                    bucketSizes[bucket] = used - 2;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找汉明距离最近且不超过上限的已收录文档
+     *
+     * @param fingerprint 指纹
+     * @param maxDistance 汉明距离上限，超过 BANDS - 1 时按 BANDS - 1 处理
+     * @return 文档ID，没有时返回null
+     */
+    public Long findNearest(long fingerprint, int maxDistance) {
+        int limit = Math.min(maxDistance, BANDS - 1);
+        Long bestId = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketOf(band, fingerprint);
+            long[] entries = buckets[bucket];
+            for (int i = 0; i < bucketSizes[bucket]; i += 2) {
+                int distance = SimHash.distance(fingerprint, entries[i]);
+                if (distance <= limit && distance < bestDistance) {
+                    bestDistance = distance;
+                    bestId = entries[i + 1];
+                }
+            }
+        }
+        return bestId;
+    }
+
+    /**
+     * @return 已收录的文档数
+     */
+    public int size() {
+        return fingerprints.size();
+    }
+
+    private static int bucketOf(int band, long fingerprint) {
+        return band * BUCKETS_PER_BAND + (int) ((fingerprint >>> (band * BAND_BITS)) & BAND_MASK);
+    }
+}
@@ -1,17 +1,21 @@
 package cn.lihengrui.todotask.service;
 
+import cn.lihengrui.todotask.crawler.CrawledPage;
+import cn.lihengrui.todotask.crawler.CrawlOptions;
+import cn.lihengrui.todotask.crawler.CrawlerEngine;
+import cn.lihengrui.todotask.crawler.ExtractedContent;
+import cn.lihengrui.todotask.crawler.MainContentExtractor;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,29 +25,33 @@ import java.util.List;
  * 提取有用的文本内容并存储到数据库中，为知识管理系统提供网页内容来源。
  * 
  * 主要功能：
- * 1. 定时网页内容爬取 - 每2小时自动执行一次
+ * 1. 定时网页内容爬取 - 每2小时自动执行一次，从种子页出发发现并抓取文章页
  * 2. HTML页面解析 - 使用Jsoup库解析HTML结构
  * 3. 内容提取 - 智能提取页面标题和正文内容
  * 4. 数据存储 - 将提取的内容保存到数据库
- * 5. 爬虫规范遵守 - 设置用户代理，控制访问频率
+ * 5. 爬虫规范遵守 - 遵守robots.txt，按主机控制并发和访问频率
  * 
  * 技术实现：
  * - 使用Spring的@Scheduled注解实现定时任务
+ * - 使用CrawlerEngine在虚拟线程上并行抓取，URL规范化后用布隆过滤器去重
  * - 使用Jsoup库进行HTML解析和内容提取
  * - 集成Spring Data JPA进行数据持久化
  * - 使用SLF4J进行日志记录和监控
  * 
  * 爬虫规范：
- * - 设置合理的User-Agent模拟真实浏览器
- * - 配置连接超时防止长时间阻塞
- * - 控制爬取频率避免对目标网站造成压力
- * - 遵守robots.txt协议（建议）
+ * - 使用可识别的User-Agent（TodoTask-Crawler），按robots.txt中对应的规则组判断
+ * - 配置连接和响应超时防止长时间阻塞
+ * - 每个主机限制并发数和请求间隔（取配置值与Crawl-delay的较大者）
+ * - robots.txt按主机缓存，不可达时暂停访问该主机
  * 
  * 配置说明：
  * - 目标网站：目前硬编码在WEB_URLS常量中
  * - 爬取间隔：固定每2小时执行一次（7200000毫秒）
- * - 连接超时：10秒
- * - 内容提取策略：优先提取<p>标签内容，回退到<body>全文
+ * - 爬取范围：crawler.max-depth 链接深度，crawler.max-pages 页数上限
+ * - 礼貌抓取：crawler.per-host-concurrency 单主机并发，crawler.crawl-delay-ms 请求间隔
+ * - 超时：crawler.connect-timeout-ms 连接超时，crawler.read-timeout-ms 响应超时
+ * - 内容提取策略：按文本密度/链接密度识别正文块，回退到<body>全文；
+ *   crawler.streaming-extraction 开启时先流式定位正文容器，找到后不再解析页面其余部分
  * 
  * 性能考虑：
  * - 网络延迟：依赖目标网站的响应速度
@@ -53,10 +61,9 @@ import java.util.List;
  * 扩展方向：
  * 1. 支持更精确的内容提取规则（CSS选择器配置）
  * 2. 实现智能内容去重和更新检测
- * 3. 添加代理池支持绕过IP限制
- * 4. 支持JavaScript渲染的动态页面（Selenium）
- * 5. 实现分布式爬取架构
- * 6. 添加内容质量评估和过滤
+ * 3. 支持JavaScript渲染的动态页面（Selenium）
+ * 4. 实现分布式爬取架构
+ * 5. 添加内容质量评估和过滤
  * 
  * 注意事项：
  * - 需要遵守目标网站的使用条款和robots.txt
@@ -89,7 +96,47 @@ public class WebScrapingService {
     private AIProcessingService aiProcessingService;
 
     /**
-     * 网页爬取目标URL配置列表
+     * 并行网页爬取引擎
+     *
+     * 负责robots.txt检查、按主机限流、链接发现和已访问URL去重
+     */
+    @Autowired
+    private CrawlerEngine crawlerEngine;
+
+    /**
+     * 近似重复检测服务
+     *
+     * 入库时按SimHash指纹剔除或关联与已有内容近似重复的条目
+     */
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Value("${crawler.max-depth:1}")
+    private int maxDepth = 1;
+
+    @Value("${crawler.max-pages:200}")
+    private int maxPages = 200;
+
+    @Value("${crawler.max-concurrency:32}")
+    private int maxConcurrency = 32;
+
+    @Value("${crawler.per-host-concurrency:2}")
+    private int perHostConcurrency = 2;
+
+    @Value("${crawler.crawl-delay-ms:1000}")
+    private long crawlDelayMs = 1000;
+
+    @Value("${crawler.connect-timeout-ms:5000}")
+    private long connectTimeoutMs = 5000;
+
+    @Value("${crawler.read-timeout-ms:15000}")
+    private long readTimeoutMs = 15000;
+
+    @Value("${crawler.streaming-extraction:true}")
+    private boolean streamingExtraction = true;
+
+    /**
+     * 网页爬取种子URL配置列表（链接发现的起点）
      * 
      * 当前配置的网站包括：
      * 1. InfoQ资讯频道 - 专业的软件开发资讯网站
@@ -105,7 +152,6 @@ public class WebScrapingService {
      * - 将URL配置移至application.properties或数据库
      * - 为每个网站配置专门的解析规则
      * - 支持网站配置的动态管理
-     * - 添加robots.txt检查和遵守机制
      * - 配置不同网站的爬取频率和优先级
      */
     private static final List<String> WEB_URLS = List.of(
@@ -117,39 +163,37 @@ public class WebScrapingService {
      * 定时网页数据爬取任务
      * 
      * 该方法通过Spring的@Scheduled注解配置为定时任务，每2小时执行一次。
-     * 遍历配置的所有目标网站，使用Jsoup解析HTML内容，提取有价值信息并存储。
+     * 以配置的目标网站为种子页并行爬取，使用Jsoup解析HTML内容，提取有价值信息并存储。
      * 
      * 执行流程：
      * 1. 初始化成功/失败计数器
-     * 2. 遍历所有配置的目标网站URL
-     * 3. 对每个网站：
-     *    a. 建立HTTP连接并下载HTML页面
-     *    b. 使用Jsoup解析HTML文档结构
-     *    c. 提取页面标题和正文内容
-     *    d. 创建KnowledgeContent实体并保存到数据库
-     * 4. 记录爬取统计结果
+     * 2. 由CrawlerEngine从种子页出发抓取页面并发现链接（最多 crawler.max-depth 层）
+     * 3. 对每个发现的页面：
+     *    a. 流式定位正文块，只解析该片段（找不到时解析整页）
+     *    b. 提取页面标题和正文内容，去除导航、侧栏、页脚等模板内容
+     *    c. 创建KnowledgeContent实体
+     * 4. 按来源URL去掉已入库的页面，其余内容作为一批并行AI加工，剔除近似重复内容后批量插入数据库
+     * 5. 记录爬取统计结果
      * 
-     * 内容提取策略：
+     * 内容提取策略（MainContentExtractor）：
      * 1. 标题：直接获取HTML的<title>标签内容
-     * 2. 正文：优先提取所有<p>标签的文本内容
-     * 3. 回退：如果没有<p>标签，则提取整个<body>的文本内容
+     * 2. 正文：按段落文本长度和链接占比打分，取得分最高的正文块
+     * 3. 回退：识别不出正文时提取整个<body>的文本内容
      * 4. 过滤：自动去除HTML标签，保留纯文本
      * 
      * 爬虫规范实现：
-     * - User-Agent：设置为Chrome浏览器标识，避免被识别为机器人
-     * - 超时控制：设置10秒连接超时，防止长时间等待
-     * - 访问频率：2小时间隔，对目标网站友好
+     * - robots.txt：禁止的路径不抓取，Crawl-delay会放大请求间隔
+     * - 超时控制：连接和响应均有超时，防止长时间等待
+     * - 访问频率：每个主机限制并发数和请求间隔，2小时执行一次
      * 
      * 错误处理：
-     * - IOException：网络连接错误、超时等
+     * - 网络连接错误、超时、非2xx响应：由爬取引擎记录日志并跳过该页面
      * - 其他异常：HTML解析错误、数据库保存错误等
-     * - 错误恢复：单个网站失败不影响其他网站的爬取
+     * - 错误恢复：单个页面失败不影响其他页面的爬取
      * 
-     * 性能优化建议：
-     * - 可考虑并行处理多个网站
-     * - 实现连接池复用HTTP连接
-     * - 添加缓存机制避免重复爬取
-     * - 实现增量更新检测
+     * 增量抓取：
+     * - 成功入库的页面地址跨多次执行保留，再次执行时只抓取新出现的链接
+     * - 抓取失败、解析失败或入库失败的页面不记录，下次执行时重新抓取
      * 
      * @Scheduled注解参数说明：
      * - fixedRate = 7200000：固定间隔7200秒（2小时）执行一次
@@ -158,116 +202,94 @@ public class WebScrapingService {
     @Scheduled(fixedRate = 7200000) // 每隔2小时执行一次 (7200000毫秒)
     public void acquireWebData() {
         log.info("开始采集网页数据...");
-        int successCount = 0;  // 成功爬取的网站数量
-        int failureCount = 0;  // 失败的网站数量
-
-        // 遍历所有配置的目标网站进行数据爬取
-        for (String url : WEB_URLS) {
-            try {
-                // 使用Jsoup建立HTTP连接并获取HTML文档
-                // 遵守网络爬虫规范与安全准则：添加用户代理，模拟浏览器访问
-                Document doc = Jsoup.connect(url)
-                        // 设置User-Agent为Chrome浏览器，避免被反爬机制拦截
-                        .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                        .timeout(10000) // 设置10秒连接超时，防止长时间阻塞
-                        .get();         // 执行GET请求获取页面内容
-
-                // 提取页面标题
-                String title = doc.title();
-                
-                // 智能提取页面正文内容
-                // 策略1：优先提取所有段落（<p>标签）的文本内容
-                Elements paragraphs = doc.select("p");
-                StringBuilder contentBuilder = new StringBuilder();
-                paragraphs.forEach(p -> contentBuilder.append(p.text()).append("\n"));
-                String contentText = contentBuilder.toString().trim();
-                
-                // 策略2：如果没有找到段落内容，回退到提取整个body的文本
-                if (contentText.isEmpty() && doc.body() != null) {
-                    contentText = doc.body().text(); // 提取body标签内的所有文本内容
-                }
+        int successCount = 0;  // 成功入库的页面数量
+        int failureCount = 0;  // 失败的页面数量
+        List<KnowledgeContent> contents = new ArrayList<>(); // 待加工保存的内容
+        List<CrawledPage> convertedPages = new ArrayList<>(); // 与contents对应的页面
 
-                // 创建知识内容实体并设置属性
-                KnowledgeContent content = new KnowledgeContent();
-                       content.setTitle(title);
-                       // 限制内容长度以避免数据库截断错误
-                       if (contentText != null && contentText.length() > 4000) {
-                           content.setContent(contentText.substring(0, 4000) + "...");
-                           log.debug("网页内容已截断，原长度: {}, 截断后长度: {}", contentText.length(), content.getContent().length());
-                       } else {
-                           content.setContent(contentText);
-                       }
-                content.setSourceUrl(url);
-                content.setContentType("Web");  // 标记为网页类型内容
-                content.setAcquisitionTime(LocalDateTime.now());  // 设置当前时间为采集时间
-                content.setTags("网页抓取"); // 设置默认标签，可根据网站特点定制
-                content.setProcessed(false); // 初始标记为未处理状态
-                content.setSuccess(true);    // 标记采集成功
-                content.setErrorMessage(null);
+        // 从种子页出发并行爬取，robots.txt检查、按主机限流和链接去重由爬取引擎负责
+        List<CrawledPage> pages = crawlerEngine.crawl(WEB_URLS, crawlOptions());
 
-                       // AI智能代理深度加工信息处理
-                       try {
-                           // 调用AI处理服务对网页内容进行深度加工
-                           // 包括：内容摘要和关键词提取、网页内容分类和标签自动生成、
-                           // 内容质量评分、语言检测、实体提取、情感分析等
-                           if (content != null) {
-                               KnowledgeContent processedContent = aiProcessingService.processContent(content);
-                               if (processedContent != null) {
-                                   content = processedContent;
-                                   log.debug("AI处理完成，网页内容已增强: {}", content.getTitle());
-                               }
-                           }
-                       } catch (Exception aiException) {
-                           // AI处理失败不影响基本的内容保存
-                           if (content != null) {
-                               log.warn("AI智能处理失败，使用原始网页内容: " + content.getTitle(), aiException);
-                               content.setProcessed(false);
-                               content.setErrorMessage("AI处理失败: " + aiException.getMessage());
-                           } else {
-                               log.warn("AI智能处理失败，网页内容对象为空", aiException);
-                           }
-                       }
-
-                // 记录调试级别日志
-                if (content != null) {
-                    log.debug("Web content acquired and processed: {}", content.getTitle());
+        // 种子页通常是列表页，只保存从种子页发现的页面；不跟进链接时保存种子页本身
+        int storeDepth = Math.min(1, maxDepth);
+        for (CrawledPage page : pages) {
+            if (page.getDepth() < storeDepth) {
+                continue;
+            }
+            try {
+                contents.add(toContent(page));
+                convertedPages.add(page);
+            } catch (Exception e) {
+                // 处理HTML解析错误等，单个页面失败不影响其他页面
+                log.error("处理网页数据失败: " + page.getUrl(), e);
+                failureCount++;
+            }
+        }
 
-                    // 保存内容到数据库
-                    knowledgeContentRepository.save(content);
-                    successCount++;
-                } else {
-                    log.warn("网页内容对象为空，跳过保存");
+        // AI智能代理深度加工信息处理
+        // 所有页面的内容作为一批并行加工（摘要和关键词提取、分类和标签生成、
+        // 质量评分、语言检测、实体提取、情感分析等），单条失败时保留原始内容
+        // 按来源URL去重后只对新页面加工，剔除近似重复内容后以JDBC批量插入
+        if (!contents.isEmpty()) {
+            try {
+                List<KnowledgeContent> newContents = knowledgeContentRepository.retainNewBySourceUrl(contents);
+                if (!newContents.isEmpty()) {
+                    List<KnowledgeContent> processedContents = aiProcessingService.batchProcessContents(newContents);
+                    successCount = nearDuplicateService.insertDeduplicated(processedContents);
                 }
-
-            } catch (IOException e) {
-                // 处理网络相关异常：连接超时、DNS解析失败、HTTP错误等
-                log.error("采集网页失败: " + url, e);
-                failureCount++;
-                
-                // TODO: 可以选择在这里保存一个失败记录到数据库
-                // 用于后续的错误分析和网站状态监控
-                /*
-                KnowledgeContent errorRecord = new KnowledgeContent();
-                errorRecord.setTitle("网页采集失败: " + url);
-                errorRecord.setSourceUrl(url);
-                errorRecord.setContentType("Web");
-                errorRecord.setAcquisitionTime(LocalDateTime.now());
-                errorRecord.setProcessed(false);
-                errorRecord.setSuccess(false);
-                errorRecord.setErrorMessage("网络连接错误: " + e.getMessage());
-                knowledgeContentRepository.save(errorRecord);
-                */
-                
+                // 已入库、已存在或作为近似重复剔除的页面都已处理完毕，之后不再跟进
+                crawlerEngine.markCrawled(convertedPages);
             } catch (Exception e) {
-                // 处理其他异常：HTML解析错误、数据库保存错误等
-                log.error("处理网页数据失败: " + url, e);
-                failureCount++;
-                
-                // 同样可以记录非网络类型的错误到数据库
+                log.error("保存网页数据失败", e);
+                failureCount += contents.size();
             }
         }
-        
+
         // 记录本次爬取任务的统计结果
-        log.info("网页数据采集完成。成功: {}, 失败: {}", successCount, failureCount);
+        log.info("网页数据采集完成。抓取页面: {}, 成功: {}, 失败: {}", pages.size(), successCount, failureCount);
+    }
+
+    /**
+     * 把爬取到的页面转换为知识内容实体
+     *
+     * 正文由MainContentExtractor提取：开启流式提取时先查找article等正文容器，
+     * 容器闭合即停止读取；否则解析整页并按文本密度和链接密度选出正文块。
+     *
+     * @param page 爬取到的页面
+     * @return 未加工的知识内容
+     */
+    private KnowledgeContent toContent(CrawledPage page) {
+        ExtractedContent extracted = MainContentExtractor.extract(page, streamingExtraction);
+        String contentText = extracted.getText();
+
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle(extracted.getTitle());
+        // 限制内容长度以避免数据库截断错误
+        if (contentText.length() > 4000) {
+            content.setContent(contentText.substring(0, 4000) + "...");
+            log.debug("网页内容已截断，原长度: {}, 截断后长度: {}", contentText.length(), content.getContent().length());
+        } else {
+            content.setContent(contentText);
+        }
+        content.setSourceUrl(page.getUrl());
+        content.setContentType("Web");  // 标记为网页类型内容
+        content.setAcquisitionTime(LocalDateTime.now());  // 设置当前时间为采集时间
+        content.setTags("网页抓取"); // 设置默认标签，可根据网站特点定制
+        content.setProcessed(false); // 初始标记为未处理状态
+        content.setSuccess(true);    // 标记采集成功
+        content.setErrorMessage(null);
+        return content;
+    }
+
+    private CrawlOptions crawlOptions() {
+        CrawlOptions options = new CrawlOptions();
+        options.setMaxDepth(maxDepth);
+        options.setMaxPages(maxPages);
+        options.setMaxConcurrency(maxConcurrency);
+        options.setPerHostConcurrency(perHostConcurrency);
+        options.setCrawlDelay(Duration.ofMillis(crawlDelayMs));
+        options.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+        options.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return options;
     }
 }
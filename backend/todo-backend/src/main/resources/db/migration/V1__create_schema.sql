@@ -0,0 +1,36 @@
+-- 初始表结构
+-- 与实体类映射一致；已有数据库以版本2为基线，不执行本脚本
+
+CREATE TABLE IF NOT EXISTS knowledge_content (
+    know_id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    source_url VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    acquisition_time DATETIME(6) NOT NULL,
+    tags VARCHAR(255),
+    processed BIT NOT NULL,
+    success BIT NOT NULL,
+    error_message VARCHAR(255),
+    sim_hash BIGINT,
+    duplicate_of BIGINT,
+    PRIMARY KEY (know_id),
+    INDEX idx_knowledge_content_source_url (source_url)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS rss_feed_state (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    feed_url VARCHAR(512) NOT NULL,
+    etag VARCHAR(255),
+    last_modified VARCHAR(255),
+    poll_interval_minutes INT NOT NULL,
+    last_fetch_time DATETIME(6),
+    next_fetch_time DATETIME(6),
+    last_change_time DATETIME(6),
+    latest_entry_time DATETIME(6),
+    last_status INT,
+    consecutive_failures INT NOT NULL,
+    last_error VARCHAR(1000),
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_rss_feed_state_feed_url (feed_url)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,20 @@
+-- 为knowledge_content的标题和正文创建全文索引
+-- 使用ngram分词器（MySQL 8.0内置），中文按ngram_token_size（默认2）切分，
+-- 关键词搜索以 MATCH ... AGAINST 走索引，不再对每行执行 LIKE '%关键词%'
+-- 按db.sql建库的数据库已有同样的全文索引，此时跳过
+
+SET @fulltext_exists = (
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'knowledge_content'
+      AND index_type = 'FULLTEXT'
+      AND column_name = 'content'
+);
+
+SET @ddl = IF(@fulltext_exists = 0,
+    'ALTER TABLE knowledge_content ADD FULLTEXT INDEX ft_knowledge_content_title_content (title, content) WITH PARSER ngram',
+    'DO 0');
+
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,51 @@
+-- 标签规范化：knowledge_tag 保存标签名，knowledge_content_tag 保存内容与标签的关联
+-- 按标签过滤和标签统计走索引，不再对 knowledge_content.tags 做 LIKE 和全表拆分
+-- knowledge_content.tags 保留原始字符串，写入时由应用同步关联表
+
+CREATE TABLE IF NOT EXISTS knowledge_tag (
+    tag_id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (tag_id),
+    UNIQUE KEY uk_knowledge_tag_name (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS knowledge_content_tag (
+    know_id BIGINT NOT NULL,
+    tag_id BIGINT NOT NULL,
+    PRIMARY KEY (know_id, tag_id),
+    INDEX idx_knowledge_content_tag_tag_id (tag_id, know_id),
+    CONSTRAINT fk_knowledge_content_tag_content FOREIGN KEY (know_id)
+        REFERENCES knowledge_content (know_id) ON DELETE CASCADE,
+    CONSTRAINT fk_knowledge_content_tag_tag FOREIGN KEY (tag_id)
+        REFERENCES knowledge_tag (tag_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 从已有的tags字符串回填：中文逗号和分号统一为英文逗号后逐项拆分
+CREATE TEMPORARY TABLE tmp_content_tag
+WITH RECURSIVE split (know_id, tag, rest) AS (
+    SELECT know_id,
+           SUBSTRING_INDEX(normalized, ',', 1),
+           IF(LOCATE(',', normalized) > 0, SUBSTRING(normalized, LOCATE(',', normalized) + 1), NULL)
+    FROM (
+        SELECT know_id, REPLACE(REPLACE(REPLACE(tags, '，', ','), '；', ','), ';', ',') AS normalized
+        FROM knowledge_content
+        WHERE tags IS NOT NULL AND tags <> ''
+    ) source
+    UNION ALL
+    SELECT know_id,
+           SUBSTRING_INDEX(rest, ',', 1),
+           IF(LOCATE(',', rest) > 0, SUBSTRING(rest, LOCATE(',', rest) + 1), NULL)
+    FROM split
+    WHERE rest IS NOT NULL
+)
+SELECT know_id, TRIM(tag) AS name FROM split WHERE TRIM(tag) <> '';
+
+INSERT IGNORE INTO knowledge_tag (name)
+SELECT DISTINCT name FROM tmp_content_tag;
+
+INSERT IGNORE INTO knowledge_content_tag (know_id, tag_id)
+SELECT s.know_id, t.tag_id
+FROM tmp_content_tag s
+JOIN knowledge_tag t ON t.name = s.name;
+
+DROP TEMPORARY TABLE tmp_content_tag;
@@ -0,0 +1,18 @@
+-- 为knowledge_content.acquisition_time创建索引
+-- 时间趋势统计按采集时间范围分组计数，只需扫描该索引；按db.sql建库的数据库已有同列索引，此时跳过
+
+SET @index_exists = (
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'knowledge_content'
+      AND column_name = 'acquisition_time'
+      AND seq_in_index = 1
+);
+
+SET @ddl = IF(@index_exists = 0,
+    'CREATE INDEX idx_knowledge_content_acquisition_time ON knowledge_content (acquisition_time)',
+    'DO 0');
+
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
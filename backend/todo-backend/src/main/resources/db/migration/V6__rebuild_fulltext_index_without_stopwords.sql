@@ -0,0 +1,29 @@
+-- 关闭停用词后重建knowledge_content的全文索引
+-- InnoDB默认使用英文停用词表（a、in、is、on等），ngram分词器会丢弃包含停用词的词元，
+-- 例如 java 切分为 ja/av/va，其中 a 相关词元被丢弃后整个词无法命中，搜索结果比原来的 LIKE 还少
+-- 停用词设置在建索引时固定到索引上，因此需要在本会话关闭 innodb_ft_enable_stopword 后重建
+-- 索引由V3或db.sql创建（名称可能不同），按列查找后删除
+
+SET @fulltext_name = (
+    SELECT index_name FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'knowledge_content'
+      AND index_type = 'FULLTEXT'
+      AND column_name = 'content'
+    LIMIT 1
+);
+
+SET @ddl = IF(@fulltext_name IS NULL,
+    'DO 0',
+    CONCAT('ALTER TABLE knowledge_content DROP INDEX `', @fulltext_name, '`'));
+
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE knowledge_content ADD FULLTEXT INDEX ft_knowledge_content_title_content (title, content) WITH PARSER ngram;
+
+-- 迁移连接来自连接池，恢复会话设置
+SET SESSION innodb_ft_enable_stopword = ON;
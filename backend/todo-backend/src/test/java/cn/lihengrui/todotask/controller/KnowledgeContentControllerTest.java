@@ -2,7 +2,9 @@ package cn.lihengrui.todotask.controller;
 
 import cn.lihengrui.todotask.dto.*;
 import cn.lihengrui.todotask.service.KnowledgeContentService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +22,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -121,6 +124,28 @@ public class KnowledgeContentControllerTest {
         verify(knowledgeContentService).findWithFilters(any(), eq(null), eq(null), eq(null), eq(null), eq(null), eq(null), eq(null));
     }
 
+    @Test
+    void testGetKnowledgeContents_WithSmileAccept_ShouldReturnSmileBody() throws Exception {
+        Page<KnowledgeContentSummary> page = new PageImpl<>(
+                Arrays.asList(testSummary),
+                PageRequest.of(0, 20),
+                1);
+
+        when(knowledgeContentService.findWithFilters(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(page);
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        byte[] body = mockMvc.perform(get("/api/knowledge-content")
+                .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals(1, response.path("data").path("content").get(0).path("knowId").asLong());
+        assertEquals("测试标题", response.path("data").path("content").get(0).path("title").asText());
+    }
+
     @Test
     void testGetKnowledgeContents_WithFilters_ShouldApplyFilters() throws Exception {
         // 准备模拟数据
@@ -352,6 +377,49 @@ public class KnowledgeContentControllerTest {
         verify(knowledgeContentService, never()).batchOperation(any());
     }
 
+    @Test
+    void testBatchGetKnowledgeContents_ShouldReturnCompactContents() throws Exception {
+        KnowledgeContentCompact compact = new KnowledgeContentCompact(
+                1L, "测试标题", "测试内容", "https://example.com", "RSS", LocalDateTime.now(), "AI,测试", true, true);
+        when(knowledgeContentService.findAllByIds(Arrays.asList(1L, 2L)))
+                .thenReturn(Collections.singletonList(compact));
+
+        mockMvc.perform(post("/api/knowledge-content/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchGetRequest(Arrays.asList(1L, 2L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].knowId").value(1))
+                .andExpect(jsonPath("$.data[0].content").value("测试内容"));
+    }
+
+    @Test
+    void testBatchGetKnowledgeContents_WithEmptyIds_ShouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/knowledge-content/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchGetRequest(Collections.emptyList()))))
+                .andExpect(status().isBadRequest());
+
+        verify(knowledgeContentService, never()).findAllByIds(any());
+    }
+
+    @Test
+    void testGetKnowledgeContentsAfter_ShouldReturnCursorPage() throws Exception {
+        KnowledgeContentCompact compact = new KnowledgeContentCompact(
+                11L, "测试标题", "测试内容", "https://example.com", "RSS", LocalDateTime.now(), null, false, true);
+        when(knowledgeContentService.findAfterId(10L, 1))
+                .thenReturn(new KnowledgeContentCursorPage(Collections.singletonList(compact), 11L, true));
+
+        mockMvc.perform(get("/api/knowledge-content/cursor")
+                .param("afterId", "10")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].knowId").value(11))
+                .andExpect(jsonPath("$.data.nextAfterId").value(11))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+    }
+
     @Test
     void testGetStatistics_ShouldReturnStatistics() throws Exception {
         Map<String, Object> stats = new HashMap<>();
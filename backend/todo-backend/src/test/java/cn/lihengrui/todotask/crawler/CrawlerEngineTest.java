@@ -0,0 +1,214 @@
+package cn.lihengrui.todotask.crawler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并行网页爬取引擎测试类
+ *
+ * 使用本地HTTP服务器模拟目标网站，不访问外网。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class CrawlerEngineTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private final Map<String, String> pages = new ConcurrentHashMap<>();
+    private final Queue<String> requestedPaths = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile String robotsTxt = "User-agent: *\nDisallow: /private\n";
+    private volatile int robotsStatus = 200;
+
+    private final CrawlerEngine crawlerEngine = new CrawlerEngine();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testCrawl_ShouldFollowLinksWithinDepthAndRespectRobots() {
+        pages.put("/", html(
+                "<a href=\"/a\">A</a>",
+                "<a href=\"/a#comments\">A again</a>",
+                "<a href=\"/b?utm_source=home\">B</a>",
+                "<a href=\"/private/secret\">Secret</a>",
+                "<a href=\"/logo.png\">Logo</a>",
+                "<a rel=\"nofollow\" href=\"/login\">Login</a>",
+                "<a href=\"http://external.invalid/x\">External</a>"));
+        pages.put("/a", html("<a href=\"/c\">C</a>"));
+        pages.put("/b", html("<p>b</p>"));
+        pages.put("/c", html("<p>c</p>"));
+
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options());
+
+        assertThat(result).extracting(CrawledPage::getUrl)
+                .containsExactlyInAnyOrder(baseUrl + "/", baseUrl + "/a", baseUrl + "/b");
+        assertThat(result).filteredOn(page -> page.getUrl().endsWith("/a"))
+                .singleElement().extracting(CrawledPage::getDepth).isEqualTo(1);
+        assertThat(requestedPaths).doesNotContain("/private/secret", "/logo.png", "/login", "/c");
+        assertThat(requestedPaths).filteredOn("/robots.txt"::equals).hasSize(1);
+    }
+
+    @Test
+    void testCrawl_SecondRun_ShouldRefetchSeedsButSkipSeenLinks() {
+        pages.put("/", html("<a href=\"/a\">A</a>"));
+        pages.put("/a", html("<p>a</p>"));
+
+        crawlerEngine.markCrawled(crawlerEngine.crawl(List.of(baseUrl + "/"), options()));
+        requestedPaths.clear();
+        pages.put("/", html("<a href=\"/a\">A</a>", "<a href=\"/new\">New</a>"));
+        pages.put("/new", html("<p>new</p>"));
+
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options());
+
+        assertThat(result).extracting(CrawledPage::getUrl).containsExactlyInAnyOrder(baseUrl + "/", baseUrl + "/new");
+        assertThat(requestedPaths).containsExactlyInAnyOrder("/", "/new");
+    }
+
+    @Test
+    void testCrawl_SecondRun_ShouldRefetchPagesThatWereNotMarkedCrawled() {
+        pages.put("/", html("<a href=\"/a\">A</a>", "<a href=\"/b\">B</a>"));
+        pages.put("/b", html("<p>b</p>"));
+
+        // /a 首次返回404，/b 抓取成功但调用方未记录（如入库失败）
+        crawlerEngine.crawl(List.of(baseUrl + "/"), options());
+        requestedPaths.clear();
+        pages.put("/a", html("<p>a</p>"));
+
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options());
+
+        assertThat(result).extracting(CrawledPage::getUrl)
+                .containsExactlyInAnyOrder(baseUrl + "/", baseUrl + "/a", baseUrl + "/b");
+    }
+
+    @Test
+    void testCrawl_ShouldLimitConcurrencyAndSpacingPerHost() {
+        StringBuilder links = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            links.append("<a href=\"/p").append(i).append("\">p</a>");
+            pages.put("/p" + i, html("<p>page</p>"));
+        }
+        pages.put("/", html(links.toString()));
+        CrawlOptions options = options();
+        options.setPerHostConcurrency(1);
+        options.setCrawlDelay(Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(result).hasSize(5);
+        assertThat(maxConcurrentRequests.get()).isEqualTo(1);
+        // 5个页面之间至少4个间隔
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(400);
+    }
+
+    @Test
+    void testCrawl_ShouldStopAtMaxPages() {
+        StringBuilder links = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            links.append("<a href=\"/p").append(i).append("\">p</a>");
+            pages.put("/p" + i, html("<p>page</p>"));
+        }
+        pages.put("/", html(links.toString()));
+        CrawlOptions options = options();
+        options.setMaxPages(4);
+
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options);
+
+        assertThat(result).hasSize(4);
+    }
+
+    @Test
+    void testCrawl_WhenRobotsUnavailable_ShouldNotFetchPages() {
+        robotsStatus = 503;
+        pages.put("/", html("<p>home</p>"));
+
+        List<CrawledPage> result = crawlerEngine.crawl(List.of(baseUrl + "/"), options());
+
+        assertThat(result).isEmpty();
+        assertThat(requestedPaths).containsExactly("/robots.txt");
+    }
+
+    private CrawlOptions options() {
+        CrawlOptions options = new CrawlOptions();
+        options.setMaxDepth(1);
+        options.setCrawlDelay(Duration.ZERO);
+        options.setPerHostConcurrency(4);
+        options.setConnectTimeout(Duration.ofSeconds(2));
+        options.setReadTimeout(Duration.ofSeconds(2));
+        return options;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requestedPaths.add(path);
+        int current = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(current, Math::max);
+        try {
+            if ("/robots.txt".equals(path)) {
+                respond(exchange, robotsStatus, "text/plain", robotsTxt);
+                return;
+            }
+            // 放慢响应，使并发请求有机会重叠
+            Thread.sleep(20);
+            String page = pages.get(path);
+            if (page == null) {
+                respond(exchange, 404, "text/html", "not found");
+            } else {
+                respond(exchange, 200, "text/html; charset=UTF-8", page);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String html(String... bodyParts) {
+        return "<html><head><title>测试页面</title></head><body>" + String.join("", bodyParts) + "</body></html>";
+    }
+}
@@ -0,0 +1,144 @@
+package cn.lihengrui.todotask.crawler;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 网页正文提取器测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class MainContentExtractorTest {
+
+    private static final String ARTICLE_TEXT = String.join("\n",
+            "虚拟线程实践",
+            "虚拟线程是JDK 21正式发布的轻量级线程实现，由JVM调度，阻塞时不占用平台线程，适合大量并发的IO密集型任务。",
+            "在Spring Boot中，可以为定时采集任务创建每任务一个虚拟线程的执行器，网络等待期间载体线程可以去执行其他任务。",
+            "需要注意的是，synchronized块中的阻塞会钉住载体线程，应改用ReentrantLock，并避免在虚拟线程中缓存大对象。",
+            "此外，虚拟线程并不适合CPU密集型计算，这类任务仍应交给固定大小的线程池或ForkJoinPool处理。");
+
+    @Test
+    void testExtract_ShouldDropNavigationSidebarAndFooter() {
+        CrawledPage page = page(html("div class=\"post\"", "div", ""), StandardCharsets.UTF_8, "UTF-8");
+
+        ExtractedContent content = MainContentExtractor.extract(page, true);
+
+        assertThat(content.isStreamed()).isFalse();
+        assertThat(content.getTitle()).isEqualTo("虚拟线程实践 - 博客");
+        assertThat(content.getText()).isEqualTo(ARTICLE_TEXT);
+    }
+
+    @Test
+    void testExtract_Streaming_ShouldStopAtArticleAndDetectMetaCharset() {
+        String comments = "<div class=\"comments\">" + "<p>评论内容，写得很好。</p>".repeat(2000);
+        byte[] body = html("article", "article", comments).getBytes(Charset.forName("GBK"));
+        CrawledPage page = new CrawledPage("https://blog.example.com/p/1", 1, 200, "text/html", null, body);
+
+        ExtractedContent content = MainContentExtractor.extract(page, true);
+
+        assertThat(content.isStreamed()).isTrue();
+        assertThat(content.getTitle()).isEqualTo("虚拟线程实践 - 博客");
+        assertThat(content.getText()).isEqualTo(ARTICLE_TEXT);
+        assertThat(MainContentExtractor.extract(page, false).getText()).isEqualTo(ARTICLE_TEXT);
+    }
+
+    @Test
+    void testExtract_ShortArticleTeaser_ShouldFallBackToFullPage() {
+        String teaser = "<article><a href=\"/p/2\">另一篇文章</a></article>";
+        String html = html("div class=\"post\"", "div", "").replace("<body>", "<body>" + teaser);
+        CrawledPage page = page(html, StandardCharsets.UTF_8, "UTF-8");
+
+        ExtractedContent content = MainContentExtractor.extract(page, true);
+
+        assertThat(content.isStreamed()).isFalse();
+        assertThat(content.getText()).isEqualTo(ARTICLE_TEXT);
+    }
+
+    @Test
+    void testExtractText_PositiveClassContainer_ShouldBeatNeutralContainerWithManyParagraphs() {
+        String article = String.join("\n",
+                "容器的初始分只应计入一次，否则段落数量多的普通容器会因为每个段落都重复累加初始分而胜出，正文识别被评论区等大量短段落干扰，导致提取结果错误。",
+                "修复后候选元素首次出现时计入一次由标签名、class和id决定的初始分，之后每个段落只累加自身得分，祖父元素累加一半，与Readability的打分方式保持一致。");
+        String comments = "<p>评论：这篇文章写得不错，学到了很多东西。</p>".repeat(12);
+        String html = "<html><body>"
+                + "<section><div class=\"content\"><p>" + article.replace("\n", "</p><p>") + "</p></div></section>"
+                + "<div>" + comments + "</div>"
+                + "</body></html>";
+
+        String text = MainContentExtractor.extractText(Jsoup.parse(html).body());
+
+        assertThat(text).isEqualTo(article);
+    }
+
+    @Test
+    void testScan_ShouldNotReadPastClosedContentBlock() throws IOException {
+        String html = "<html><head><title>T</title><script>var s = '<article>';</script></head><body>"
+                + "<!-- <article>注释</article> -->"
+                + "<div id=\"cnblogs_post_body\"><div><p>正文</p></div></div>"
+                + "<div>" + "x".repeat(500_000) + "</div></body></html>";
+        CountingReader reader = new CountingReader(html);
+        HtmlBlockScanner scanner = new HtmlBlockScanner(reader);
+
+        String fragment = scanner.scan();
+
+        assertThat(fragment).isEqualTo("<div id=\"cnblogs_post_body\"><div><p>正文</p></div></div>");
+        assertThat(scanner.getTitle()).isEqualTo("T");
+        assertThat(reader.read).isLessThan(html.length() / 10);
+    }
+
+    private CrawledPage page(String html, Charset charset, String declared) {
+        return new CrawledPage("https://blog.example.com/p/1", 1, 200, "text/html", declared, html.getBytes(charset));
+    }
+
+    private String html(String openTag, String closeTag, String tail) {
+        return "<html><head><meta charset=\"gbk\"><title>虚拟线程实践 - 博客</title></head><body>"
+                + "<div id=\"top\"><a href=\"/\">首页</a> <a href=\"/news\">新闻</a> <a href=\"/blog\">博客</a></div>"
+                + "<div class=\"layout\">"
+                + "<" + openTag + "><h1>虚拟线程实践</h1>"
+                + "<p>" + String.join("</p><p>", ARTICLE_TEXT.substring(ARTICLE_TEXT.indexOf('\n') + 1).split("\n")) + "</p>"
+                + "</" + closeTag + ">"
+                + "<div class=\"sidebar\"><ul><li><a href=\"/1\">推荐文章一：深入理解JVM垃圾回收</a></li>"
+                + "<li><a href=\"/2\">推荐文章二：MySQL索引优化实战</a></li></ul></div>"
+                + "</div>"
+                + tail
+                + "<div class=\"footer\">版权所有 © 2025 示例博客，保留所有权利，未经许可不得转载本站任何内容。</div>"
+                + "</body></html>";
+    }
+
+    /**
+     * 记录已读取字符数的Reader
+     */
+    private static final class CountingReader extends Reader {
+
+        private final StringReader delegate;
+        private int read;
+
+        CountingReader(String text) {
+            this.delegate = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            if (count > 0) {
+                read += count;
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cn.lihengrui.todotask.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * robots.txt 规则解析测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class RobotsRulesTest {
+
+    private static final String ROBOTS = """
+            # 通用规则
+            User-agent: *
+            Disallow: /admin
+            Disallow: /*.pdf$
+            Allow: /admin/public
+            Crawl-delay: 5
+
+            User-agent: Googlebot
+            User-agent: TodoTask-Crawler
+            Disallow: /search
+            Crawl-delay: 2
+            """;
+
+    @Test
+    void testParse_WildcardGroup_ShouldApplyLongestMatch() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "OtherBot");
+
+        assertThat(rules.isAllowed("/")).isTrue();
+        assertThat(rules.isAllowed("/admin/users")).isFalse();
+        assertThat(rules.isAllowed("/admin/public/page")).isTrue();
+        assertThat(rules.isAllowed("/docs/manual.pdf")).isFalse();
+        assertThat(rules.isAllowed("/docs/manual.pdf?download=1")).isTrue();
+        assertThat(rules.getCrawlDelay()).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testParse_SpecificGroup_ShouldReplaceWildcardGroup() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "todotask-crawler");
+
+        assertThat(rules.isAllowed("/admin/users")).isTrue();
+        assertThat(rules.isAllowed("/search?q=java")).isFalse();
+        assertThat(rules.getCrawlDelay()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testIsAllowed_EqualLengthRules_ShouldPreferAllow() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /page\nAllow: /page\n", "TodoTask-Crawler");
+
+        assertThat(rules.isAllowed("/page")).isTrue();
+        assertThat(RobotsRules.DISALLOW_ALL.isAllowed("/")).isFalse();
+        assertThat(RobotsRules.ALLOW_ALL.isAllowed("/anything")).isTrue();
+    }
+}
@@ -0,0 +1,38 @@
+package cn.lihengrui.todotask.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * URL规范化工具测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class UrlCanonicalizerTest {
+
+    @Test
+    void testCanonicalize_EquivalentForms_ShouldProduceSameUrl() {
+        String expected = "https://www.example.com/news/1?a=1&b=2";
+
+        assertThat(UrlCanonicalizer.canonicalize("HTTPS://WWW.Example.com:443/news/./1?b=2&a=1#top")).isEqualTo(expected);
+        assertThat(UrlCanonicalizer.canonicalize("https://www.example.com/x/../news/1?a=1&utm_source=rss&b=2&fbclid=abc"))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void testCanonicalize_ShouldNormalizeEmptyPathAndKeepNonDefaultPort() {
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com")).isEqualTo("http://example.com/");
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:8080/a")).isEqualTo("http://example.com:8080/a");
+    }
+
+    @Test
+    void testCanonicalize_UnsupportedOrInvalid_ShouldReturnNull() {
+        assertThat(UrlCanonicalizer.canonicalize("mailto:someone@example.com")).isNull();
+        assertThat(UrlCanonicalizer.canonicalize("javascript:void(0)")).isNull();
+        assertThat(UrlCanonicalizer.canonicalize("http://exa mple.com/")).isNull();
+        assertThat(UrlCanonicalizer.canonicalize("")).isNull();
+    }
+}
@@ -0,0 +1,53 @@
+package cn.lihengrui.todotask.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 全文检索HQL函数注册测试类
+ *
+ * 仓库测试使用H2，只覆盖子串查找的回退实现；这里校验MySQL方言下注册的是 MATCH ... AGAINST 渲染。
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class FullTextSearchFunctionContributorTest {
+
+    @Test
+    void testContributeFunctions_MySql_ShouldRenderBooleanModePhraseMatch() {
+        SqmFunctionRegistry registry = contribute(new MySQLDialect());
+
+        verify(registry).registerPattern(eq(FullTextSearchFunctionContributor.FULLTEXT_MATCH),
+                eq(FullTextSearchFunctionContributor.MYSQL_PATTERN), any());
+        assertThat(FullTextSearchFunctionContributor.MYSQL_PATTERN)
+                .isEqualTo("match(?1, ?2) against (concat('\"', ?3, '\"') in boolean mode)");
+    }
+
+    @Test
+    void testContributeFunctions_OtherDialect_ShouldUseSubstringFallback() {
+        SqmFunctionRegistry registry = contribute(new H2Dialect());
+
+        verify(registry).registerPattern(eq(FullTextSearchFunctionContributor.FULLTEXT_MATCH),
+                eq(FullTextSearchFunctionContributor.FALLBACK_PATTERN), any());
+    }
+
+    private SqmFunctionRegistry contribute(Dialect dialect) {
+        FunctionContributions contributions = mock(FunctionContributions.class, RETURNS_DEEP_STUBS);
+        SqmFunctionRegistry registry = mock(SqmFunctionRegistry.class);
+        when(contributions.getDialect()).thenReturn(dialect);
+        when(contributions.getFunctionRegistry()).thenReturn(registry);
+
+        new FullTextSearchFunctionContributor().contributeFunctions(contributions);
+        return registry;
+    }
+}
@@ -1,14 +1,28 @@
 package cn.lihengrui.todotask.repository;
 
+import cn.lihengrui.todotask.dto.ContentStatisticsCounts;
+import cn.lihengrui.todotask.dto.KnowledgeContentCompact;
+import cn.lihengrui.todotask.dto.KnowledgeContentSummary;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -16,9 +30,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ActiveProfiles("test")
 public class KnowledgeContentRepositoryTest {
 
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeContentRepositoryTest.class);
+
     @Autowired
     private KnowledgeContentRepository knowledgeContentRepository;
 
+    @Autowired
+    private KnowledgeTagRepository knowledgeTagRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void testSaveAndFindKnowledgeContent() {
         // Create a simple test entity
@@ -55,4 +77,352 @@ public class KnowledgeContentRepositoryTest {
         Optional<KnowledgeContent> deletedContent = knowledgeContentRepository.findById(savedContent.getKnowId());
         assertThat(deletedContent).isNotPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindAfterId_ReturnsNextKeysetSliceInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            KnowledgeContent content = new KnowledgeContent();
+            content.setTitle("Keyset " + i);
+            content.setSourceUrl("http://test.com/keyset/" + i);
+            content.setContentType("RSS");
+            content.setAcquisitionTime(LocalDateTime.now());
+            ids.add(knowledgeContentRepository.save(content).getKnowId());
+        }
+
+        List<KnowledgeContent> firstSlice = knowledgeContentRepository.findAfterId(0L, PageRequest.of(0, 2));
+        List<KnowledgeContent> nextSlice = knowledgeContentRepository.findAfterId(
+                firstSlice.get(1).getKnowId(), PageRequest.of(0, 10));
+
+        assertThat(firstSlice).extracting(KnowledgeContent::getKnowId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(nextSlice).extracting(KnowledgeContent::getKnowId).containsExactly(ids.get(2), ids.get(3), ids.get(4));
+    }
+
+    @Test
+    void testStreamAllOrderByKnowId_StreamsEveryRowInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            KnowledgeContent content = new KnowledgeContent();
+            content.setTitle("Export " + i);
+            content.setSourceUrl("http://test.com/export/" + i);
+            content.setContentType("RSS");
+            content.setAcquisitionTime(LocalDateTime.now());
+            ids.add(knowledgeContentRepository.save(content).getKnowId());
+        }
+
+        try (Stream<KnowledgeContent> stream = knowledgeContentRepository.streamAllOrderByKnowId()) {
+            assertThat(stream.map(KnowledgeContent::getKnowId).collect(Collectors.toList())).isEqualTo(ids);
+        }
+    }
+
+    /**
+     * 基准测试：1000个ID逐条findById与一次findAllById的对比
+     * 只衡量数据库侧的查询次数差异，不包含N次HTTP GET与一次POST /batch-get之间的网络往返和序列化开销
+     * 每轮之前清空持久化上下文，避免一级缓存掩盖真实的查询次数
+     * 默认不运行（surefire排除benchmark标签）
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkFindByIdLoopVersusFindAllById() {
+        List<KnowledgeContent> contents = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            KnowledgeContent content = new KnowledgeContent();
+            content.setTitle("Benchmark " + i);
+            content.setContent("Benchmark content " + i);
+            content.setSourceUrl("http://test.com/benchmark/" + i);
+            content.setContentType("RSS");
+            content.setAcquisitionTime(LocalDateTime.now());
+            content.setSuccess(true);
+            contents.add(content);
+        }
+        List<Long> ids = knowledgeContentRepository.saveAll(contents).stream()
+                .map(KnowledgeContent::getKnowId)
+                .collect(Collectors.toList());
+        entityManager.flush();
+        entityManager.clear();
+
+        long loopStart = System.nanoTime();
+        List<KnowledgeContent> loopResults = new ArrayList<>();
+        for (Long id : ids) {
+            knowledgeContentRepository.findById(id).ifPresent(loopResults::add);
+        }
+        long loopMs = (System.nanoTime() - loopStart) / 1_000_000;
+        entityManager.clear();
+
+        long batchStart = System.nanoTime();
+        List<KnowledgeContent> batchResults = knowledgeContentRepository.findAllById(ids);
+        long batchMs = (System.nanoTime() - batchStart) / 1_000_000;
+
+        entityManager.clear();
+
+        long compactStart = System.nanoTime();
+        List<KnowledgeContentCompact> compactResults = knowledgeContentRepository.findCompactByKnowIdIn(ids);
+        long compactMs = (System.nanoTime() - compactStart) / 1_000_000;
+
+        log.info("[仅数据库侧] findById x{}: {} ms, findAllById: {} ms, findCompactByKnowIdIn: {} ms",
+                ids.size(), loopMs, batchMs, compactMs);
+        assertThat(loopResults).hasSize(1000);
+        assertThat(batchResults).hasSize(1000);
+        assertThat(batchResults).extracting(KnowledgeContent::getKnowId).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(compactResults).extracting(KnowledgeContentCompact::getKnowId).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void testFindCompactByKnowIdIn_ShouldSelectCompactColumnsOnly() {
+        KnowledgeContent content = rssContent("Compact", "http://test.com/compact");
+        content.setContent("Compact content");
+        content.setTags("Java,Spring");
+        content.setProcessed(true);
+        KnowledgeContent saved = knowledgeContentRepository.save(content);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<KnowledgeContentCompact> results = knowledgeContentRepository.findCompactByKnowIdIn(List.of(saved.getKnowId(), -1L));
+
+        assertThat(results).hasSize(1);
+        KnowledgeContentCompact compact = results.get(0);
+        assertThat(compact.getKnowId()).isEqualTo(saved.getKnowId());
+        assertThat(compact.getTitle()).isEqualTo("Compact");
+        assertThat(compact.getContent()).isEqualTo("Compact content");
+        assertThat(compact.getSourceUrl()).isEqualTo("http://test.com/compact");
+        assertThat(compact.getTags()).isEqualTo("Java,Spring");
+        assertThat(compact.getProcessed()).isTrue();
+        assertThat(compact.getSuccess()).isTrue();
+    }
+
+    @Test
+    void testRetainNewBySourceUrl_ShouldDropStoredAndInBatchDuplicates() {
+        knowledgeContentRepository.save(rssContent("已存在", "http://example.com/stored"));
+        entityManager.flush();
+
+        List<KnowledgeContent> fresh = knowledgeContentRepository.retainNewBySourceUrl(List.of(
+                rssContent("新条目1", "http://example.com/a"),
+                rssContent("已存在", "http://example.com/stored"),
+                rssContent("新条目1重复", "http://example.com/a"),
+                rssContent("新条目2", "http://example.com/b")));
+
+        assertThat(fresh).extracting(KnowledgeContent::getTitle).containsExactly("新条目1", "新条目2");
+    }
+
+    @Test
+    void testBatchInsert_ShouldInsertAllRowsInOneBatchCall() {
+        List<KnowledgeContent> contents = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            contents.add(rssContent("批量" + i, "http://example.com/batch/" + i));
+        }
+
+        int inserted = knowledgeContentRepository.batchInsert(contents);
+        entityManager.clear();
+
+        assertThat(inserted).isEqualTo(1200);
+        assertThat(knowledgeContentRepository.count()).isEqualTo(1200);
+        assertThat(contents).extracting(KnowledgeContent::getKnowId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(knowledgeContentRepository.findById(contents.get(1199).getKnowId()))
+                .get().extracting(KnowledgeContent::getTitle).isEqualTo("批量1199");
+        assertThat(knowledgeContentRepository.retainNewBySourceUrl(contents)).isEmpty();
+    }
+
+    @Test
+    void testFindSimHashFingerprints_ShouldSkipLinkedDuplicates() {
+        KnowledgeContent original = rssContent("原文", "http://example.com/original");
+        original.setSimHash(-42L);
+        KnowledgeContent copy = rssContent("转载", "http://example.com/copy");
+        copy.setSimHash(-43L);
+        knowledgeContentRepository.batchInsert(List.of(original));
+        copy.setDuplicateOf(original.getKnowId());
+        knowledgeContentRepository.batchInsert(List.of(copy, rssContent("无指纹", "http://example.com/none")));
+
+        List<Object[]> fingerprints = knowledgeContentRepository.findSimHashFingerprints();
+
+        assertThat(fingerprints).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(original.getKnowId(), -42L));
+    }
+
+    @Test
+    void testMatchesKeyword_ShouldSearchTitleAndContentIgnoringCase() {
+        KnowledgeContent byTitle = rssContent("Spring Boot虚拟线程实践", "http://example.com/kw/1");
+        KnowledgeContent byContent = rssContent("并发编程", "http://example.com/kw/2");
+        byContent.setContent("JDK 21正式发布了虚拟线程，适合IO密集型任务");
+        KnowledgeContent other = rssContent("MySQL索引原理", "http://example.com/kw/3");
+        knowledgeContentRepository.saveAll(List.of(byTitle, byContent, other));
+
+        assertThat(knowledgeContentRepository.findAll(KnowledgeContentRepository.matchesKeyword("虚拟线程")))
+                .extracting(KnowledgeContent::getTitle)
+                .containsExactlyInAnyOrder("Spring Boot虚拟线程实践", "并发编程");
+        assertThat(knowledgeContentRepository.findAll(KnowledgeContentRepository.matchesKeyword("\"spring BOOT\"")))
+                .extracting(KnowledgeContent::getTitle)
+                .containsExactly("Spring Boot虚拟线程实践");
+        // 单字关键词退回LIKE匹配
+        assertThat(knowledgeContentRepository.findAll(KnowledgeContentRepository.matchesKeyword("索")))
+                .extracting(KnowledgeContent::getTitle)
+                .containsExactly("MySQL索引原理");
+    }
+
+    @Test
+    void testTagTables_ShouldBeMaintainedOnInsertAndSync() {
+        KnowledgeContent java = rssContent("Java文章", "http://example.com/tag/1");
+        java.setTags("Java, Spring Boot，后端");
+        KnowledgeContent python = rssContent("Python文章", "http://example.com/tag/2");
+        python.setTags("python;后端;JAVA");
+        KnowledgeContent untagged = rssContent("无标签", "http://example.com/tag/3");
+        knowledgeContentRepository.batchInsert(List.of(java, python, untagged));
+
+        assertThat(knowledgeTagRepository.findTagUsageCounts())
+                .extracting(tagCount -> tagCount.getName() + "=" + tagCount.getCount())
+                .containsExactly("Java=2", "后端=2", "python=1", "Spring Boot=1");
+        assertThat(knowledgeContentRepository.findAll(KnowledgeContentRepository.hasTag("java")))
+                .extracting(KnowledgeContent::getTitle)
+                .containsExactlyInAnyOrder("Java文章", "Python文章");
+        assertThat(knowledgeContentRepository.findAll(KnowledgeContentRepository.hasTag("Spring")))
+                .isEmpty();
+
+        // 修改标签后重建关联
+        java.setTags("Spring Boot");
+        knowledgeContentRepository.syncTags(List.of(java));
+        knowledgeContentRepository.deleteTagLinks(List.of(python.getKnowId()));
+
+        assertThat(knowledgeTagRepository.findTagUsageCounts())
+                .extracting(tagCount -> tagCount.getName() + "=" + tagCount.getCount())
+                .containsExactly("Spring Boot=1");
+        assertThat(knowledgeTagRepository.countUsedTags()).isEqualTo(1);
+        assertThat(knowledgeTagRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void testAnalyticsProjections_ShouldGroupInDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        KnowledgeContent today = rssContent("今天", "http://example.com/stat/1");
+        today.setTags("Java");
+        KnowledgeContent todayWeb = rssContent("今天网页", "http://example.com/stat/2");
+        todayWeb.setContentType("Web");
+        todayWeb.setTags("Java, 前端");
+        KnowledgeContent yesterday = rssContent("昨天", "http://example.com/stat/3");
+        yesterday.setAcquisitionTime(now.minusDays(1));
+        yesterday.setTags("Java");
+        KnowledgeContent old = rssContent("上个月", "http://example.com/stat/4");
+        old.setAcquisitionTime(now.minusDays(40));
+        knowledgeContentRepository.batchInsert(List.of(today, todayWeb, yesterday, old));
+
+        assertThat(knowledgeContentRepository.countDailyBetween(now.minusDays(7), now.plusMinutes(1)))
+                .extracting(daily -> daily.getDate() + "=" + daily.getCount())
+                .containsExactly(now.toLocalDate().minusDays(1) + "=1", now.toLocalDate() + "=2");
+        assertThat(knowledgeTagRepository.findTagUsageCountsByContentType())
+                .extracting(row -> row.getContentType() + ":" + row.getTag() + "=" + row.getCount())
+                .containsExactly("RSS:Java=2", "Web:Java=1", "Web:前端=1");
+    }
+
+    @Test
+    void testAggregateStatistics_ShouldCountEverythingInOneQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        KnowledgeContent fresh = rssContent("新内容", "http://example.com/agg/1");
+        fresh.setProcessed(true);
+        KnowledgeContent web = rssContent("网页", "http://example.com/agg/2");
+        web.setContentType("Web");
+        web.setSuccess(false);
+        web.setAcquisitionTime(now.minusDays(3));
+        KnowledgeContent old = rssContent("旧内容", "http://example.com/agg/3");
+        old.setContentType("Manual");
+        old.setAcquisitionTime(now.minusDays(30));
+        knowledgeContentRepository.saveAll(List.of(fresh, web, old));
+
+        ContentStatisticsCounts counts = knowledgeContentRepository.aggregateStatistics(now.minusDays(1), now.minusDays(7));
+
+        assertThat(counts).isEqualTo(new ContentStatisticsCounts(3L, 1L, 1L, 1L, 1L, 2L, 2L, 1L, 1L, 2L));
+    }
+
+    @Test
+    void testFindSummaries_ShouldProjectPrefixAndLengthWithSpecification() {
+        KnowledgeContent longer = rssContent("长文虚拟线程", "http://example.com/sum/1");
+        longer.setContent("虚".repeat(KnowledgeContentSummary.SUMMARY_LENGTH + 50));
+        longer.setTags("Java,并发,JDK,性能");
+        longer.setAcquisitionTime(LocalDateTime.now().minusHours(1));
+        KnowledgeContent shorter = rssContent("短文虚拟线程", "http://example.com/sum/2");
+        KnowledgeContent other = rssContent("其他", "http://example.com/sum/3");
+        knowledgeContentRepository.saveAll(List.of(longer, shorter, other));
+
+        Page<KnowledgeContentSummary> page = knowledgeContentRepository.findSummaries(
+                KnowledgeContentRepository.matchesKeyword("虚拟线程"),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "acquisitionTime")));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(KnowledgeContentSummary::getTitle).containsExactly("短文虚拟线程");
+        assertThat(page.getContent().get(0).getSummary()).isEqualTo("内容");
+        assertThat(page.getContent().get(0).getContentLength()).isEqualTo(2);
+
+        KnowledgeContentSummary summary = knowledgeContentRepository.findSummaries(
+                KnowledgeContentRepository.matchesKeyword("长文"), PageRequest.of(0, 10)).getContent().get(0);
+        assertThat(summary).isEqualTo(KnowledgeContentSummary.fromEntity(longer));
+        assertThat(summary.getSummary()).hasSize(KnowledgeContentSummary.SUMMARY_LENGTH + 3);
+        assertThat(summary.getContentLength()).isEqualTo(KnowledgeContentSummary.SUMMARY_LENGTH + 50);
+        assertThat(summary.getPrimaryTags()).containsExactly("Java", "并发", "JDK");
+    }
+
+    /**
+     * 基准测试：10万行表上，列表分页加载实体与摘要投影的对比
+     * 正文1000字符（内存数据库中10万行约占100MB），统计翻页耗时和从数据库读出的正文字符数
+     * 默认不运行（surefire排除benchmark标签）
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkEntityPagesVersusSummaryProjection() {
+        int rows = 100_000;
+        String body = "Virtual threads and structured concurrency. ".repeat(25).substring(0, 1000);
+        List<KnowledgeContent> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            KnowledgeContent content = rssContent("Benchmark " + i, "http://test.com/projection/" + i);
+            content.setContent(body);
+            batch.add(content);
+            if (batch.size() == 5000) {
+                knowledgeContentRepository.batchInsert(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        knowledgeContentRepository.batchInsert(batch);
+        entityManager.clear();
+
+        Specification<KnowledgeContent> spec = (root, query, cb) -> cb.equal(root.get("contentType"), "RSS");
+        int pages = 200;
+        int pageSize = 20;
+
+        long entityStart = System.nanoTime();
+        long entityChars = 0;
+        for (int i = 0; i < pages; i++) {
+            Page<KnowledgeContent> page = knowledgeContentRepository.findAll(spec,
+                    PageRequest.of(i * 20, pageSize, Sort.by("knowId")));
+            for (KnowledgeContent content : page.getContent()) {
+                entityChars += content.getContent().length();
+            }
+            entityManager.clear();
+        }
+        long entityMs = (System.nanoTime() - entityStart) / 1_000_000;
+
+        long summaryStart = System.nanoTime();
+        long summaryChars = 0;
+        Page<KnowledgeContentSummary> last = Page.empty();
+        for (int i = 0; i < pages; i++) {
+            last = knowledgeContentRepository.findSummaries(spec, PageRequest.of(i * 20, pageSize, Sort.by("knowId")));
+            for (KnowledgeContentSummary summary : last.getContent()) {
+                summaryChars += Math.min(summary.getContentLength(), KnowledgeContentSummary.SUMMARY_LENGTH);
+            }
+        }
+        long summaryMs = (System.nanoTime() - summaryStart) / 1_000_000;
+
+        log.info("{} rows, {} pages x {}: entity {} ms / {} content chars, summary {} ms / {} content chars",
+                rows, pages, pageSize, entityMs, entityChars, summaryMs, summaryChars);
+        assertThat(last.getTotalElements()).isEqualTo(rows);
+        assertThat(last.getContent()).hasSize(pageSize);
+        assertThat(summaryChars * 5).isLessThanOrEqualTo(entityChars);
+    }
+
+    private KnowledgeContent rssContent(String title, String sourceUrl) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle(title);
+        content.setContent("内容");
+        content.setSourceUrl(sourceUrl);
+        content.setContentType("RSS");
+        content.setAcquisitionTime(LocalDateTime.now());
+        content.setProcessed(false);
+        content.setSuccess(true);
+        return content;
+    }
+}
@@ -0,0 +1,142 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * AI异步加工队列测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class AIEnrichmentQueueTest {
+
+    @Mock
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    @Mock
+    private AIProcessingService aiProcessingService;
+
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AIEnrichmentQueue aiEnrichmentQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        aiEnrichmentQueue.shutdown();
+    }
+
+    @Test
+    void testEnqueue_ShouldEnrichAndWriteBackProcessedFields() {
+        aiEnrichmentQueue.init();
+
+        KnowledgeContent stored = content(1L);
+        when(knowledgeContentRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(aiProcessingService.processContent(any(KnowledgeContent.class))).thenAnswer(invocation -> {
+            KnowledgeContent content = invocation.getArgument(0);
+            content.setTags("AI,分类:技术");
+            content.setProcessed(true);
+            return content;
+        });
+
+        aiEnrichmentQueue.enqueue(1L);
+
+        verify(knowledgeContentRepository, timeout(2000)).save(stored);
+        assertThat(stored.getTags()).isEqualTo("AI,分类:技术");
+        assertThat(stored.isProcessed()).isTrue();
+        verify(transactionManager, timeout(2000)).commit(any());
+    }
+
+    @Test
+    void testEnqueueAll_WhenQueueFull_ShouldRejectAndCount() throws Exception {
+        ReflectionTestUtils.setField(aiEnrichmentQueue, "workers", 1);
+        ReflectionTestUtils.setField(aiEnrichmentQueue, "queueCapacity", 1);
+        aiEnrichmentQueue.init();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(knowledgeContentRepository.findById(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        aiEnrichmentQueue.enqueue(1L);
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // 1正在执行，2进入等待队列，3被拒绝
+        aiEnrichmentQueue.enqueueAll(List.of(2L, 3L));
+
+        assertThat(aiEnrichmentQueue.getInFlightCount()).isEqualTo(1);
+        assertThat(aiEnrichmentQueue.getQueueDepth()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.enrichment.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ai.enrichment.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+        verify(knowledgeContentRepository, timeout(2000)).findById(2L);
+        verify(knowledgeContentRepository, never()).findById(3L);
+    }
+
+    @Test
+    void testEnqueue_DuplicatePendingId_ShouldOnlyQueueOnce() throws Exception {
+        ReflectionTestUtils.setField(aiEnrichmentQueue, "workers", 1);
+        aiEnrichmentQueue.init();
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(knowledgeContentRepository.findById(any())).thenAnswer(invocation -> {
+            release.await(2, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        aiEnrichmentQueue.enqueue(1L);
+        aiEnrichmentQueue.enqueueAll(List.of(2L, 2L));
+        aiEnrichmentQueue.enqueue(2L);
+
+        release.countDown();
+        verify(knowledgeContentRepository, timeout(2000)).findById(2L);
+        aiEnrichmentQueue.shutdown();
+        verify(knowledgeContentRepository, times(1)).findById(2L);
+    }
+
+    private KnowledgeContent content(Long id) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setKnowId(id);
+        content.setTitle("Spring Boot异步处理实践");
+        content.setContent("介绍如何在Spring Boot中使用有界线程池处理耗时任务。");
+        content.setContentType("Manual");
+        content.setProcessed(false);
+        return content;
+    }
+}
@@ -8,8 +8,10 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -223,6 +225,27 @@ public class AIProcessingServiceTest {
         assertThat(processedContents.get(1).getTags()).isNotEmpty();
     }
 
+    @Test
+    void testBatchProcessContents_LargeBatch_ShouldMatchSequentialResultsInOrder() {
+        List<KnowledgeContent> batch = new ArrayList<>();
+        List<KnowledgeContent> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(sampleContent(i));
+            expected.add(aiProcessingService.processContent(sampleContent(i)));
+        }
+
+        List<KnowledgeContent> processedContents = aiProcessingService.batchProcessContents(batch);
+        aiProcessingService.shutdownBatchPool();
+
+        assertThat(processedContents).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(processedContents.get(i).getTitle()).isEqualTo(expected.get(i).getTitle());
+            assertThat(processedContents.get(i).isProcessed()).isTrue();
+            assertThat(Set.of(processedContents.get(i).getTags().split(",")))
+                    .isEqualTo(Set.of(expected.get(i).getTags().split(",")));
+        }
+    }
+
     @Test
     void testProcessContent_WithExceptionHandling_ShouldNotCrash() {
         // 测试异常处理
@@ -236,4 +259,52 @@ public class AIProcessingServiceTest {
             assertThat(e).isInstanceOf(RuntimeException.class);
         }
     }
+
+    @Test
+    void testProcessContent_ShouldComputeCloseSimHashForRepostedContent() {
+        String body = "虚拟线程是JDK 21正式发布的轻量级线程实现，由JVM调度，阻塞时不占用平台线程，适合大量并发的IO密集型任务。"
+                + "在Spring Boot中，可以为定时采集任务创建每任务一个虚拟线程的执行器，网络等待期间载体线程可以去执行其他任务，吞吐量明显提升。"
+                + "需要注意的是，synchronized块中的阻塞会钉住载体线程，应改用ReentrantLock。";
+        KnowledgeContent original = content("虚拟线程实践", body);
+        KnowledgeContent repost = content("虚拟线程实践", body + "本文转载自InfoQ。");
+        KnowledgeContent unrelated = content("MySQL索引原理", "MySQL的InnoDB引擎使用B+树组织索引，主键索引的叶子节点存放整行数据，"
+                + "二级索引的叶子节点存放主键值。查询时如果二级索引无法覆盖所需字段，需要回表读取，"
+                + "因此设计索引时应尽量让常用查询走覆盖索引，减少随机IO。");
+        KnowledgeContent tooShort = content("短讯", "今天发布了新版本，欢迎试用。");
+
+        aiProcessingService.processContent(original);
+        aiProcessingService.processContent(repost);
+        aiProcessingService.processContent(unrelated);
+        aiProcessingService.processContent(tooShort);
+
+        assertThat(original.getSimHash()).isNotNull();
+        assertThat(SimHash.distance(original.getSimHash(), repost.getSimHash())).isLessThanOrEqualTo(3);
+        assertThat(SimHash.distance(original.getSimHash(), unrelated.getSimHash())).isGreaterThan(10);
+        assertThat(tooShort.getSimHash()).isNull();
+    }
+
+    private KnowledgeContent content(String title, String body) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle(title);
+        content.setContent(body);
+        content.setSourceUrl("https://example.com/" + title);
+        content.setContentType("RSS");
+        content.setAcquisitionTime(LocalDateTime.now());
+        content.setSuccess(true);
+        return content;
+    }
+
+    private KnowledgeContent sampleContent(int index) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle("第" + index + "篇：" + (index % 2 == 0 ? "Spring Boot性能优化" : "Python data analysis tutorial"));
+        content.setContent(index % 2 == 0
+                ? "Spring Boot是优秀的Java框架，本文分析微服务在Docker和Kubernetes上的部署问题与优化方法。"
+                : "This tutorial shows how to use python and pandas for research; a great and efficient workflow on AWS.");
+        content.setContentType("RSS");
+        content.setAcquisitionTime(LocalDateTime.now());
+        content.setTags("批量" + (index % 5));
+        content.setProcessed(false);
+        content.setSuccess(true);
+        return content;
+    }
 }
@@ -0,0 +1,112 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.dto.ContentStatisticsCounts;
+import cn.lihengrui.todotask.entity.ContentStatisticsDimensions;
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 内容统计服务测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ContentStatisticsServiceTest {
+
+    @Mock
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    @InjectMocks
+    private ContentStatisticsService contentStatisticsService;
+
+    @Test
+    void testGetStatistics_ShouldLoadCountsOnceWithSingleAggregateQuery() {
+        when(knowledgeContentRepository.aggregateStatistics(any(), any())).thenReturn(
+                new ContentStatisticsCounts(100L, 50L, 30L, 20L, 60L, 40L, 90L, 10L, 5L, 15L));
+
+        Map<String, Object> first = contentStatisticsService.getStatistics();
+        Map<String, Object> second = contentStatisticsService.getStatistics();
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.get("totalCount")).isEqualTo(100L);
+        assertThat(first.get("countByType")).isEqualTo(Map.of("RSS", 50L, "Web", 30L, "Manual", 20L));
+        assertThat(first.get("countByStatus")).isEqualTo(
+                Map.of("processed", 60L, "unprocessed", 40L, "success", 90L, "failed", 10L));
+        assertThat(first.get("recentAdditions")).isEqualTo(Map.of("lastDay", 5L, "lastWeek", 15L));
+        verify(knowledgeContentRepository, times(1)).aggregateStatistics(any(), any());
+        verifyNoMoreInteractions(knowledgeContentRepository);
+    }
+
+    @Test
+    void testRecordChanges_ShouldAdjustCountersIncrementally() {
+        // 空表时SUM结果为null
+        when(knowledgeContentRepository.aggregateStatistics(any(), any())).thenReturn(
+                new ContentStatisticsCounts(0L, null, null, null, null, null, null, null, null, null));
+        contentStatisticsService.reconcile();
+
+        KnowledgeContent rss = content("RSS", LocalDateTime.now());
+        KnowledgeContent oldWeb = content("Web", LocalDateTime.now().minusDays(3));
+        contentStatisticsService.recordInserted(List.of(rss, oldWeb));
+
+        ContentStatisticsDimensions before = ContentStatisticsDimensions.of(rss);
+        rss.setProcessed(true);
+        contentStatisticsService.recordUpdated(before, ContentStatisticsDimensions.of(rss));
+        contentStatisticsService.recordRemoved(ContentStatisticsDimensions.of(oldWeb));
+
+        Map<String, Object> result = contentStatisticsService.getStatistics();
+        assertThat(result.get("totalCount")).isEqualTo(1L);
+        assertThat(result.get("countByType")).isEqualTo(Map.of("RSS", 1L, "Web", 0L, "Manual", 0L));
+        assertThat(result.get("countByStatus")).isEqualTo(
+                Map.of("processed", 1L, "unprocessed", 0L, "success", 1L, "failed", 0L));
+        assertThat(result.get("recentAdditions")).isEqualTo(Map.of("lastDay", 1L, "lastWeek", 1L));
+        verify(knowledgeContentRepository, times(1)).aggregateStatistics(any(), any());
+    }
+
+    @Test
+    void testRecordInserted_InTransaction_ShouldApplyOnlyAfterCommit() {
+        when(knowledgeContentRepository.aggregateStatistics(any(), any())).thenReturn(
+                new ContentStatisticsCounts(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L));
+        contentStatisticsService.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            contentStatisticsService.recordInserted(List.of(content("Manual", LocalDateTime.now())));
+            assertThat(contentStatisticsService.getStatistics().get("totalCount")).isEqualTo(0L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(contentStatisticsService.getStatistics().get("totalCount")).isEqualTo(1L);
+    }
+
+    private KnowledgeContent content(String contentType, LocalDateTime acquisitionTime) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle(contentType + "内容");
+        content.setContentType(contentType);
+        content.setAcquisitionTime(acquisitionTime);
+        content.setProcessed(false);
+        content.setSuccess(true);
+        return content;
+    }
+}
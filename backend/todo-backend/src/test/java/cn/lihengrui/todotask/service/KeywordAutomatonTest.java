@@ -0,0 +1,67 @@
+package cn.lihengrui.todotask.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 多模式关键词匹配自动机测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class KeywordAutomatonTest {
+
+    @Test
+    void testScan_ShouldReportOverlappingAndNestedPatterns() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(List.of("he", "she", "his", "hers"), 1)
+                .build();
+
+        assertThat(scan(automaton, "ushers")).containsExactly("she@1", "he@2", "hers@2");
+    }
+
+    @Test
+    void testScan_ShouldMatchChineseAndMultiWordPatterns() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(List.of("机器学习", "学习", "google cloud"), 1)
+                .build();
+
+        assertThat(scan(automaton, "在google cloud上做机器学习"))
+                .containsExactly("google cloud@1", "机器学习@15", "学习@17");
+    }
+
+    @Test
+    void testBuilder_SamePatternInSeveralDictionaries_ShouldMergeFlags() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(Set.of("java", "spring"), 1)
+                .add(Set.of("java"), 4)
+                .build();
+
+        int state = KeywordAutomaton.ROOT;
+        for (char ch : "java".toCharArray()) {
+            state = automaton.next(state, ch);
+        }
+
+        assertThat(automaton.patternCount()).isEqualTo(2);
+        assertThat(automaton.outputs(state)).hasSize(1);
+        assertThat(automaton.flags(automaton.outputs(state)[0])).isEqualTo(5);
+    }
+
+    private List<String> scan(KeywordAutomaton automaton, String text) {
+        List<String> hits = new ArrayList<>();
+        int state = KeywordAutomaton.ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int id : automaton.outputs(state)) {
+                hits.add(automaton.pattern(id) + "@" + (i + 1 - automaton.patternLength(id)));
+            }
+        }
+        return hits;
+    }
+}
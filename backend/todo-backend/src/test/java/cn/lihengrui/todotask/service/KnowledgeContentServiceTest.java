@@ -3,11 +3,15 @@ package cn.lihengrui.todotask.service;
 import cn.lihengrui.todotask.dto.*;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import cn.lihengrui.todotask.repository.KnowledgeTagRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -16,9 +20,13 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -42,7 +50,22 @@ public class KnowledgeContentServiceTest {
     private KnowledgeContentRepository knowledgeContentRepository;
 
     @Mock
-    private AIProcessingService aiProcessingService;
+    private KnowledgeTagRepository knowledgeTagRepository;
+
+    @Mock
+    private ContentStatisticsService contentStatisticsService;
+
+    @Mock
+    private AIEnrichmentQueue aiEnrichmentQueue;
+
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @InjectMocks
     private KnowledgeContentService knowledgeContentService;
@@ -81,8 +104,8 @@ public class KnowledgeContentServiceTest {
                 PageRequest.of(0, 20), 
                 1);
 
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试
         Pageable pageable = PageRequest.of(0, 20);
@@ -94,7 +117,9 @@ public class KnowledgeContentServiceTest {
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getTitle()).isEqualTo("测试标题");
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
+        // 列表不加载实体（含完整正文）
+        verify(knowledgeContentRepository, never()).findAll(any(Specification.class), any(Pageable.class));
     }
 
     @Test
@@ -105,8 +130,8 @@ public class KnowledgeContentServiceTest {
                 PageRequest.of(0, 20), 
                 1);
 
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试 - 使用完整的日期时间格式
         Pageable pageable = PageRequest.of(0, 20);
@@ -118,7 +143,7 @@ public class KnowledgeContentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
     }
 
     @Test
@@ -129,8 +154,8 @@ public class KnowledgeContentServiceTest {
                 PageRequest.of(0, 20), 
                 1);
 
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试 - 使用日期格式
         Pageable pageable = PageRequest.of(0, 20);
@@ -142,7 +167,7 @@ public class KnowledgeContentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
     }
 
     @Test
@@ -153,8 +178,8 @@ public class KnowledgeContentServiceTest {
                 PageRequest.of(0, 20), 
                 1);
 
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试 - 使用无效的时间格式
         Pageable pageable = PageRequest.of(0, 20);
@@ -166,7 +191,7 @@ public class KnowledgeContentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
     }
 
     @Test
@@ -188,8 +213,8 @@ public class KnowledgeContentServiceTest {
                 PageRequest.of(0, 20), 
                 1);
 
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试 - 结束时间设置为2025-09-27（应该只包含27号的记录）
         Pageable pageable = PageRequest.of(0, 20);
@@ -202,7 +227,7 @@ public class KnowledgeContentServiceTest {
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getTitle()).isEqualTo("2025-09-27的记录");
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
     }
 
     @Test
@@ -256,10 +281,62 @@ public class KnowledgeContentServiceTest {
         verify(knowledgeContentRepository).findById(1L);
     }
 
+    @Test
+    void testFindAfterId_WhenMoreRowsExist_ShouldTrimAndReportHasMore() {
+        KnowledgeContent second = new KnowledgeContent();
+        second.setKnowId(2L);
+        second.setTitle("第二条");
+        second.setSourceUrl("http://test.com/2");
+        KnowledgeContent third = new KnowledgeContent();
+        third.setKnowId(3L);
+        third.setTitle("第三条");
+        third.setSourceUrl("http://test.com/3");
+
+        when(knowledgeContentRepository.findAfterId(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testEntity, second, third));
+
+        KnowledgeContentCursorPage page = knowledgeContentService.findAfterId(0L, 2);
+
+        assertThat(page.getContent()).extracting(KnowledgeContentCompact::getKnowId).containsExactly(1L, 2L);
+        assertThat(page.getNextAfterId()).isEqualTo(2L);
+        assertThat(page.isHasMore()).isTrue();
+        verify(knowledgeContentRepository).findAfterId(0L, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void testFindAfterId_WhenExhausted_ShouldKeepCursor() {
+        when(knowledgeContentRepository.findAfterId(eq(5L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        KnowledgeContentCursorPage page = knowledgeContentService.findAfterId(5L, 100);
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNextAfterId()).isEqualTo(5L);
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @Test
+    void testExportAsNdjson_ShouldWriteOneLinePerRowAndDetach() throws Exception {
+        KnowledgeContent second = new KnowledgeContent();
+        second.setKnowId(2L);
+        second.setTitle("第二条");
+        second.setSourceUrl("http://test.com/2");
+
+        when(knowledgeContentRepository.streamAllOrderByKnowId()).thenReturn(Stream.of(testEntity, second));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long count = knowledgeContentService.exportAsNdjson(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("knowId").asLong()).isEqualTo(1L);
+        assertThat(objectMapper.readTree(lines[1]).get("title").asText()).isEqualTo("第二条");
+        verify(entityManager, times(2)).detach(any(KnowledgeContent.class));
+    }
+
     @Test
     void testCreate_WithManualContent_ShouldProcessWithAI() {
-        when(aiProcessingService.processContent(any(KnowledgeContent.class)))
-                .thenReturn(testEntity);
         when(knowledgeContentRepository.save(any(KnowledgeContent.class)))
                 .thenReturn(testEntity);
 
@@ -268,8 +345,8 @@ public class KnowledgeContentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getTitle()).isEqualTo("测试标题");
 
-        verify(aiProcessingService).processContent(any(KnowledgeContent.class));
         verify(knowledgeContentRepository).save(any(KnowledgeContent.class));
+        verify(aiEnrichmentQueue).enqueue(1L);
     }
 
     @Test
@@ -282,7 +359,7 @@ public class KnowledgeContentServiceTest {
 
         assertThat(result).isNotNull();
 
-        verify(aiProcessingService, never()).processContent(any());
+        verify(aiEnrichmentQueue, never()).enqueue(any());
         verify(knowledgeContentRepository).save(any(KnowledgeContent.class));
     }
 
@@ -313,6 +390,21 @@ public class KnowledgeContentServiceTest {
         verify(knowledgeContentRepository, never()).save(any());
     }
 
+    @Test
+    void testFindAllByIds_ShouldReturnCompactRowsInRequestOrder() {
+        KnowledgeContentCompact first = new KnowledgeContentCompact();
+        first.setKnowId(1L);
+        KnowledgeContentCompact second = new KnowledgeContentCompact();
+        second.setKnowId(2L);
+        when(knowledgeContentRepository.findCompactByKnowIdIn(any())).thenReturn(List.of(first, second));
+
+        List<KnowledgeContentCompact> result = knowledgeContentService.findAllByIds(Arrays.asList(2L, 3L, 1L, 2L, null));
+
+        assertThat(result).extracting(KnowledgeContentCompact::getKnowId).containsExactly(2L, 1L);
+        verify(knowledgeContentRepository).findCompactByKnowIdIn(new LinkedHashSet<>(List.of(2L, 3L, 1L)));
+        verify(knowledgeContentRepository, never()).findAllById(any());
+    }
+
     @Test
     void testDelete_WhenExists_ShouldReturnTrue() {
         when(knowledgeContentRepository.existsById(1L)).thenReturn(true);
@@ -323,6 +415,7 @@ public class KnowledgeContentServiceTest {
 
         verify(knowledgeContentRepository).existsById(1L);
         verify(knowledgeContentRepository).deleteById(1L);
+        verify(nearDuplicateService).removeContents(List.of(1L));
     }
 
     @Test
@@ -344,18 +437,30 @@ public class KnowledgeContentServiceTest {
         testEntity.setContent("测试内容");
         
         when(knowledgeContentRepository.findById(1L)).thenReturn(Optional.of(testEntity));
-        when(aiProcessingService.processContent(any(KnowledgeContent.class)))
-                .thenReturn(testEntity);
-        when(knowledgeContentRepository.save(any(KnowledgeContent.class)))
-                .thenReturn(testEntity);
 
         Optional<KnowledgeContentResponse> result = knowledgeContentService.updateProcessingStatus(1L, true);
 
         assertThat(result).isPresent();
+        // 处理状态由加工结果写回，入队时保持未处理
+        assertThat(testEntity.isProcessed()).isFalse();
 
         verify(knowledgeContentRepository).findById(1L);
-        verify(aiProcessingService).processContent(any(KnowledgeContent.class));
-        verify(knowledgeContentRepository).save(any(KnowledgeContent.class));
+        verify(knowledgeContentRepository, never()).save(any(KnowledgeContent.class));
+        verify(aiEnrichmentQueue).enqueue(1L);
+    }
+
+    @Test
+    void testUpdateProcessingStatus_Unprocess_ShouldSaveWithoutEnqueue() {
+        testEntity.setProcessed(true);
+        when(knowledgeContentRepository.findById(1L)).thenReturn(Optional.of(testEntity));
+        when(knowledgeContentRepository.save(any(KnowledgeContent.class))).thenReturn(testEntity);
+
+        Optional<KnowledgeContentResponse> result = knowledgeContentService.updateProcessingStatus(1L, false);
+
+        assertThat(result).isPresent();
+        assertThat(testEntity.isProcessed()).isFalse();
+        verify(knowledgeContentRepository).save(testEntity);
+        verify(aiEnrichmentQueue, never()).enqueue(any());
     }
 
     @Test
@@ -373,6 +478,7 @@ public class KnowledgeContentServiceTest {
 
         verify(knowledgeContentRepository).findAllById(request.getIds());
         verify(knowledgeContentRepository).deleteAll(entities);
+        verify(nearDuplicateService).removeContents(List.of(1L, 1L, 1L));
     }
 
     @Test
@@ -384,16 +490,14 @@ public class KnowledgeContentServiceTest {
 
         List<KnowledgeContent> entities = Arrays.asList(testEntity, testEntity);
         when(knowledgeContentRepository.findAllById(any())).thenReturn(entities);
-        when(aiProcessingService.processContent(any(KnowledgeContent.class)))
-                .thenReturn(testEntity);
 
         int result = knowledgeContentService.batchOperation(request);
 
         assertThat(result).isEqualTo(2);
 
         verify(knowledgeContentRepository).findAllById(request.getIds());
-        verify(knowledgeContentRepository).saveAll(entities);
-        verify(aiProcessingService, times(2)).processContent(any(KnowledgeContent.class));
+        verify(knowledgeContentRepository, never()).saveAll(any());
+        verify(aiEnrichmentQueue).enqueueAll(List.of(1L, 1L));
     }
 
     @Test
@@ -413,13 +517,33 @@ public class KnowledgeContentServiceTest {
 
         verify(knowledgeContentRepository).findAllById(request.getIds());
         verify(knowledgeContentRepository).saveAll(entities);
+        verify(knowledgeContentRepository).syncTags(entities);
+    }
+
+    @Test
+    void testBatchOperation_RemoveTags_ShouldMatchAnySeparatorIgnoringCase() {
+        BatchOperationRequest request = new BatchOperationRequest();
+        request.setIds(Arrays.asList(1L));
+        request.setOperation("REMOVE_TAGS");
+        request.setParameter("java");
+        testEntity.setTags("Java；Spring, JPA");
+
+        List<KnowledgeContent> entities = Arrays.asList(testEntity);
+        when(knowledgeContentRepository.findAllById(any())).thenReturn(entities);
+
+        int result = knowledgeContentService.batchOperation(request);
+
+        assertThat(result).isEqualTo(1);
+        assertThat(testEntity.getTags()).isEqualTo("Spring,JPA");
+        verify(knowledgeContentRepository).saveAll(entities);
+        verify(knowledgeContentRepository).syncTags(entities);
     }
 
     @Test
     void testSearch_ShouldDelegateToFindWithFilters() {
         Page<KnowledgeContent> entityPage = new PageImpl<>(Arrays.asList(testEntity));
-        when(knowledgeContentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(entityPage);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+                .thenReturn(entityPage.map(KnowledgeContentSummary::fromEntity));
 
         Pageable pageable = PageRequest.of(0, 20);
         Page<KnowledgeContentSummary> result = knowledgeContentService.search("测试", pageable);
@@ -427,20 +551,14 @@ public class KnowledgeContentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable));
     }
 
     @Test
     void testGetStatistics_ShouldReturnStatistics() {
-        when(knowledgeContentRepository.count()).thenReturn(100L);
-        when(knowledgeContentRepository.countByContentType("RSS")).thenReturn(50L);
-        when(knowledgeContentRepository.countByContentType("Web")).thenReturn(30L);
-        when(knowledgeContentRepository.countByContentType("Manual")).thenReturn(20L);
-        when(knowledgeContentRepository.countByProcessed(true)).thenReturn(60L);
-        when(knowledgeContentRepository.countByProcessed(false)).thenReturn(40L);
-        when(knowledgeContentRepository.countBySuccess(true)).thenReturn(90L);
-        when(knowledgeContentRepository.countBySuccess(false)).thenReturn(10L);
-        when(knowledgeContentRepository.countByAcquisitionTimeAfter(any())).thenReturn(5L, 15L);
+        Map<String, Object> statistics = Map.of("totalCount", 100L,
+                "countByType", Map.of("RSS", 50L, "Web", 30L, "Manual", 20L));
+        when(contentStatisticsService.getStatistics()).thenReturn(statistics);
 
         Map<String, Object> result = knowledgeContentService.getStatistics();
 
@@ -453,8 +571,9 @@ public class KnowledgeContentServiceTest {
         assertThat(countByType.get("Web")).isEqualTo(30L);
         assertThat(countByType.get("Manual")).isEqualTo(20L);
 
-        verify(knowledgeContentRepository).count();
-        verify(knowledgeContentRepository, times(3)).countByContentType(any());
+        // 统计信息由内存计数提供，不再逐项COUNT
+        verify(knowledgeContentRepository, never()).count();
+        verify(knowledgeContentRepository, never()).countByContentType(any());
     }
 
     @Test
@@ -483,12 +602,12 @@ public class KnowledgeContentServiceTest {
         Page<KnowledgeContent> page2 = new PageImpl<>(page2Data, PageRequest.of(1, 10), 30);
 
         // 模拟第1页请求
-        when(knowledgeContentRepository.findAll(any(Specification.class), eq(PageRequest.of(0, 10))))
-                .thenReturn(page1);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), eq(PageRequest.of(0, 10))))
+                .thenReturn(page1.map(KnowledgeContentSummary::fromEntity));
         
         // 模拟第2页请求
-        when(knowledgeContentRepository.findAll(any(Specification.class), eq(PageRequest.of(1, 10))))
-                .thenReturn(page2);
+        when(knowledgeContentRepository.findSummaries(any(Specification.class), eq(PageRequest.of(1, 10))))
+                .thenReturn(page2.map(KnowledgeContentSummary::fromEntity));
 
         // 执行测试 - 第1页 (pageNum=0)
         Pageable pageable1 = PageRequest.of(0, 10);
@@ -522,25 +641,66 @@ public class KnowledgeContentServiceTest {
         assertThat(result2.isFirst()).isFalse();
         assertThat(result2.isLast()).isFalse();
 
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable1));
-        verify(knowledgeContentRepository).findAll(any(Specification.class), eq(pageable2));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable1));
+        verify(knowledgeContentRepository).findSummaries(any(Specification.class), eq(pageable2));
     }
 
     @Test
     void testGetAllTags_ShouldReturnUniqueTagsList() {
-        KnowledgeContent entity1 = new KnowledgeContent();
-        entity1.setTags("Java,Spring,测试");
-        
-        KnowledgeContent entity2 = new KnowledgeContent();
-        entity2.setTags("Python,测试,AI");
-
-        when(knowledgeContentRepository.findAll()).thenReturn(Arrays.asList(entity1, entity2));
+        when(knowledgeTagRepository.findTagUsageCounts()).thenReturn(List.of(
+                new TagCount("测试", 2L), new TagCount("AI", 1L), new TagCount("Java", 1L)));
 
         List<String> result = knowledgeContentService.getAllTags();
 
-        assertThat(result).isNotNull();
-        assertThat(result).containsExactlyInAnyOrder("Java", "Spring", "测试", "Python", "AI");
+        assertThat(result).containsExactly("测试", "AI", "Java");
+        verify(knowledgeContentRepository, never()).findAll();
+    }
 
-        verify(knowledgeContentRepository).findAll();
+    @Test
+    void testGetTagAnalysis_ShouldUseTagCountsWithoutLoadingContent() {
+        when(knowledgeTagRepository.findTagUsageCounts()).thenReturn(List.of(
+                new TagCount("测试", 2L), new TagCount("AI", 1L)));
+
+        Map<String, Object> result = knowledgeContentService.getTagAnalysis();
+
+        assertThat(result.get("totalTags")).isEqualTo(2);
+        assertThat(result.get("tagFrequency")).isEqualTo(Map.of("测试", 2, "AI", 1));
+        verify(knowledgeContentRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetTimeTrendAnalysis_ShouldUseDailyCountsFromDatabase() {
+        LocalDate today = LocalDate.now();
+        when(knowledgeContentRepository.countDailyBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(new DailyCount(today.minusDays(1), 3L), new DailyCount(today, 2L)));
+
+        Map<String, Object> result = knowledgeContentService.getTimeTrendAnalysis("7d");
+
+        assertThat(result.get("totalCount")).isEqualTo(5L);
+        assertThat((List<?>) result.get("dates")).hasSize(7);
+        assertThat((List<?>) result.get("counts")).endsWith(3L, 2L);
+        verify(knowledgeContentRepository, never()).findByAcquisitionTimeBetween(any(), any());
+        verify(knowledgeContentRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetClusterAnalysis_ShouldBuildClustersFromGroupedCounts() {
+        when(knowledgeContentRepository.findContentTypeDistribution()).thenReturn(List.of(
+                new Object[]{"RSS", 3L}, new Object[]{"Web", 1L}));
+        when(knowledgeTagRepository.findTagUsageCountsByContentType()).thenReturn(List.of(
+                new ContentTypeTagCount("RSS", "Java", 3L), new ContentTypeTagCount("RSS", "AI", 1L),
+                new ContentTypeTagCount("Web", "前端", 1L)));
+
+        Map<String, Object> result = knowledgeContentService.getClusterAnalysis();
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> clusters = (List<Map<String, Object>>) result.get("clusters");
+        assertThat(clusters).hasSize(2);
+        assertThat(clusters.get(0).get("clusterName")).isEqualTo("RSS聚类");
+        assertThat(clusters.get(0).get("documentCount")).isEqualTo(3);
+        assertThat(clusters.get(0).get("topKeywords")).isEqualTo(List.of("Java", "AI"));
+        assertThat(clusters.get(1).get("topKeywords")).isEqualTo(List.of("前端"));
+        assertThat((List<?>) result.get("scatterData")).hasSize(4);
+        verify(knowledgeContentRepository, never()).findAll();
     }
 }
@@ -0,0 +1,150 @@
+package cn.lihengrui.todotask.service;
+
+import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 近似重复内容检测服务测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class NearDuplicateServiceTest {
+
+    private static final long STORED = 0x5A5A_0F0F_3C3C_F00FL;
+    private static final long FRESH = ~STORED;
+
+    @Mock
+    private KnowledgeContentRepository knowledgeContentRepository;
+
+    @Mock
+    private ContentStatisticsService contentStatisticsService;
+
+    @InjectMocks
+    private NearDuplicateService nearDuplicateService;
+
+    private final AtomicLong nextId = new AtomicLong(100);
+    private final List<List<KnowledgeContent>> insertedBatches = new ArrayList<>();
+    // 模拟在AI加工期间已由其他采集任务插入的来源URL
+    private final Set<String> concurrentlyInsertedUrls = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> stored = new ArrayList<>();
+        stored.add(new Object[]{1L, STORED});
+        when(knowledgeContentRepository.findSimHashFingerprints()).thenReturn(stored);
+        when(knowledgeContentRepository.retainNewBySourceUrl(anyList())).thenAnswer(invocation -> {
+            List<KnowledgeContent> candidates = invocation.getArgument(0);
+            return candidates.stream()
+                    .filter(content -> !concurrentlyInsertedUrls.contains(content.getSourceUrl()))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        });
+        when(knowledgeContentRepository.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<KnowledgeContent> batch = invocation.getArgument(0);
+            batch.forEach(content -> content.setKnowId(nextId.getAndIncrement()));
+            insertedBatches.add(List.copyOf(batch));
+            return batch.size();
+        });
+    }
+
+    @Test
+    void testInsertDeduplicated_SkipMode_ShouldInsertOnlyDistinctContent() {
+        KnowledgeContent copyOfStored = content("已入库内容的转载", STORED ^ 0b11);
+        KnowledgeContent fresh = content("新内容", FRESH);
+        KnowledgeContent copyOfFresh = content("新内容的转载", FRESH ^ (1L << 60));
+        KnowledgeContent unfingerprinted = content("短讯", null);
+
+        int inserted = nearDuplicateService.insertDeduplicated(List.of(copyOfStored, fresh, copyOfFresh, unfingerprinted));
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(insertedBatches).hasSize(1);
+        assertThat(insertedBatches.get(0)).containsExactly(fresh, unfingerprinted);
+        verify(contentStatisticsService).recordInserted(List.of(fresh, unfingerprinted));
+
+        // 新内容已收录进查找表，下一批中它的转载同样被跳过
+        assertThat(nearDuplicateService.insertDeduplicated(List.of(content("再次转载", FRESH ^ 1L)))).isZero();
+        verify(knowledgeContentRepository, times(1)).findSimHashFingerprints();
+    }
+
+    @Test
+    void testInsertDeduplicated_LinkMode_ShouldStoreDuplicatesWithOriginalId() {
+        ReflectionTestUtils.setField(nearDuplicateService, "nearDuplicateAction", "link");
+        KnowledgeContent copyOfStored = content("已入库内容的转载", STORED ^ 0b11);
+        KnowledgeContent fresh = content("新内容", FRESH);
+        KnowledgeContent copyOfFresh = content("新内容的转载", FRESH ^ (1L << 60));
+
+        int inserted = nearDuplicateService.insertDeduplicated(List.of(copyOfStored, fresh, copyOfFresh));
+
+        assertThat(inserted).isEqualTo(3);
+        assertThat(insertedBatches).hasSize(2);
+        assertThat(insertedBatches.get(0)).containsExactly(fresh, copyOfStored);
+        assertThat(insertedBatches.get(1)).containsExactly(copyOfFresh);
+        assertThat(copyOfStored.getDuplicateOf()).isEqualTo(1L);
+        assertThat(copyOfFresh.getDuplicateOf()).isEqualTo(fresh.getKnowId());
+        assertThat(fresh.getDuplicateOf()).isNull();
+    }
+
+    @Test
+    void testRemoveAndReindex_ShouldKeepLookupTableInSyncWithRows() {
+        long refingerprinted = 0x0123_4567_89AB_CDEFL;
+        KnowledgeContent fresh = content("新内容", FRESH);
+        nearDuplicateService.insertDeduplicated(List.of(fresh));
+
+        // 删除已入库内容1；AI加工为新内容重新计算了指纹
+        nearDuplicateService.removeContents(List.of(1L));
+        fresh.setSimHash(refingerprinted);
+        nearDuplicateService.indexContent(fresh);
+
+        KnowledgeContent copyOfDeleted = content("已删除内容的转载", STORED ^ 0b11);
+        KnowledgeContent copyOfOldFingerprint = content("旧指纹的转载", FRESH ^ 1L);
+        KnowledgeContent copyOfNewFingerprint = content("新指纹的转载", refingerprinted ^ 1L);
+        int inserted = nearDuplicateService.insertDeduplicated(
+                List.of(copyOfDeleted, copyOfOldFingerprint, copyOfNewFingerprint));
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(insertedBatches.get(1)).containsExactly(copyOfDeleted, copyOfOldFingerprint);
+    }
+
+    @Test
+    void testInsertDeduplicated_ShouldRecheckSourceUrlsInsideLock() {
+        KnowledgeContent alreadyInserted = content("并发任务已插入", FRESH);
+        KnowledgeContent fresh = content("新内容", STORED ^ (1L << 63) ^ (1L << 47) ^ (1L << 31) ^ (1L << 15));
+        concurrentlyInsertedUrls.add(alreadyInserted.getSourceUrl());
+
+        int inserted = nearDuplicateService.insertDeduplicated(List.of(alreadyInserted, fresh));
+
+        assertThat(inserted).isEqualTo(1);
+        assertThat(insertedBatches.get(0)).containsExactly(fresh);
+    }
+
+    private KnowledgeContent content(String title, Long simHash) {
+        KnowledgeContent content = new KnowledgeContent();
+        content.setTitle(title);
+        content.setSourceUrl("https://example.com/" + title);
+        content.setContentType("RSS");
+        content.setSimHash(simHash);
+        return content;
+    }
+}
@@ -1,33 +1,88 @@
 package cn.lihengrui.todotask.service;
 
 import cn.lihengrui.todotask.entity.KnowledgeContent;
+import cn.lihengrui.todotask.entity.RssFeedState;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
+import cn.lihengrui.todotask.repository.RssFeedStateRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles("test")
 public class RssAcquisitionServiceTest {
 
+    private static final String FEED_XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rss version="2.0"><channel><title>测试源</title><link>http://example.com</link><description>d</description>
+            <item><title>第一条</title><link>http://example.com/1</link><guid>http://example.com/1</guid>
+            <description>Spring Boot性能优化实践</description><pubDate>Sun, 19 Oct 2025 08:00:00 GMT</pubDate></item>
+            <item><title>第二条</title><link>http://example.com/2</link><guid>http://example.com/2</guid>
+            <description>Java虚拟线程入门教程</description><pubDate>Sun, 19 Oct 2025 09:00:00 GMT</pubDate></item>
+            </channel></rss>
+            """;
+
     @Mock
     private KnowledgeContentRepository knowledgeContentRepository;
 
     @Mock
     private AIProcessingService aiProcessingService;
 
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
+    @Mock
+    private RssFeedStateRepository rssFeedStateRepository;
+
     @InjectMocks
     private RssAcquisitionService rssAcquisitionService;
 
+    private HttpServer server;
+    private final AtomicReference<String> receivedIfNoneMatch = new AtomicReference<>();
+
     @BeforeEach
-    void setUp() {
-        // Basic setup
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/feed", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            receivedIfNoneMatch.set(ifNoneMatch);
+            if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = FEED_XML.strip().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/rss+xml; charset=UTF-8");
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.getResponseHeaders().add("Last-Modified", "Sun, 19 Oct 2025 09:00:00 GMT");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
     }
 
     @Test
@@ -46,4 +101,90 @@ public class RssAcquisitionServiceTest {
         // Test passes if the method executes without system errors
         // (Network failures are acceptable in unit test environment)
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCollectFeed_FirstFetch_ShouldSaveEntriesAndRememberValidators() throws Exception {
+        when(knowledgeContentRepository.retainNewBySourceUrl(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(aiProcessingService.batchProcessContents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(nearDuplicateService.insertDeduplicated(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        RssFeedState state = feedState(null);
+
+        int saved = rssAcquisitionService.collectFeed(state);
+
+        assertThat(saved).isEqualTo(2);
+        assertThat(receivedIfNoneMatch.get()).isNull();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KnowledgeContent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(nearDuplicateService).insertDeduplicated(captor.capture());
+        assertThat(captor.getValue()).extracting(KnowledgeContent::getTitle).containsExactly("第一条", "第二条");
+
+        assertThat(state.getEtag()).isEqualTo("\"v1\"");
+        assertThat(state.getLastModified()).isEqualTo("Sun, 19 Oct 2025 09:00:00 GMT");
+        assertThat(state.getLastStatus()).isEqualTo(200);
+        // 发现新条目，轮询间隔减半
+        assertThat(state.getPollIntervalMinutes()).isEqualTo(30);
+        assertThat(state.getNextFetchTime()).isAfter(LocalDateTime.now().plusMinutes(29));
+        verify(rssFeedStateRepository).save(state);
+    }
+
+    @Test
+    void testCollectFeed_NotModified_ShouldSkipParsingAndBackOff() throws Exception {
+        RssFeedState state = feedState("\"v1\"");
+
+        int saved = rssAcquisitionService.collectFeed(state);
+
+        assertThat(saved).isZero();
+        assertThat(receivedIfNoneMatch.get()).isEqualTo("\"v1\"");
+        assertThat(state.getLastStatus()).isEqualTo(304);
+        // 未变化，轮询间隔增加一半
+        assertThat(state.getPollIntervalMinutes()).isEqualTo(90);
+        verify(aiProcessingService, never()).batchProcessContents(any());
+        verify(nearDuplicateService, never()).insertDeduplicated(any());
+        verify(rssFeedStateRepository).save(state);
+    }
+
+    @Test
+    void testCollectFeed_AllEntriesAlreadyStored_ShouldSkipEnrichmentAndBackOff() throws Exception {
+        when(knowledgeContentRepository.retainNewBySourceUrl(anyList())).thenReturn(List.of());
+        RssFeedState state = feedState(null);
+
+        int saved = rssAcquisitionService.collectFeed(state);
+
+        assertThat(saved).isZero();
+        assertThat(state.getEtag()).isEqualTo("\"v1\"");
+        // 没有新条目，轮询间隔增加一半
+        assertThat(state.getPollIntervalMinutes()).isEqualTo(90);
+        verify(aiProcessingService, never()).batchProcessContents(any());
+        verify(nearDuplicateService, never()).insertDeduplicated(any());
+    }
+
+    @Test
+    void testCollectFeed_ServerError_ShouldRecordFailureAndBackOff() {
+        server.createContext("/broken", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        RssFeedState state = feedState(null);
+        state.setFeedUrl(baseUrl() + "/broken");
+
+        assertThatThrownBy(() -> rssAcquisitionService.collectFeed(state)).hasMessageContaining("503");
+
+        assertThat(state.getConsecutiveFailures()).isEqualTo(1);
+        assertThat(state.getLastError()).contains("503");
+        assertThat(state.getNextFetchTime()).isAfter(LocalDateTime.now().plusMinutes(14));
+        verify(rssFeedStateRepository).save(state);
+    }
+
+    private RssFeedState feedState(String etag) {
+        RssFeedState state = new RssFeedState();
+        state.setFeedUrl(baseUrl() + "/feed");
+        state.setEtag(etag);
+        state.setPollIntervalMinutes(60);
+        return state;
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,59 @@
+package cn.lihengrui.todotask.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SimHash分段查找表测试类
+ *
+ * @author HA72开发团队
+ * @version 1.0
+ * @since 2025-10-19
+ */
+public class SimHashIndexTest {
+
+    private static final long FINGERPRINT = 0x0123_4567_89AB_CDEFL;
+
+    @Test
+    void testFindNearest_DistanceThreeInThreeBands_ShouldStillMatch() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(1L, FINGERPRINT);
+
+        // 在第0、1、2段各翻转一位，只剩第3段相同
+        long near = FINGERPRINT ^ (1L << 3) ^ (1L << 20) ^ (1L << 40);
+
+        assertThat(index.findNearest(near, 3)).isEqualTo(1L);
+        assertThat(index.findNearest(near, 2)).isNull();
+    }
+
+    @Test
+    void testFindNearest_ShouldPreferClosestAndIgnoreFarFingerprints() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(1L, FINGERPRINT ^ 0b111);
+        index.add(2L, FINGERPRINT ^ 0b1);
+        index.add(3L, ~FINGERPRINT);
+
+        assertThat(index.findNearest(FINGERPRINT, 3)).isEqualTo(2L);
+        assertThat(index.findNearest(~FINGERPRINT ^ (1L << 63), 3)).isEqualTo(3L);
+        assertThat(index.findNearest(FINGERPRINT ^ 0xFFFF_0000L, 3)).isNull();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testRemoveAndReplace_ShouldUpdateAllBands() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(1L, FINGERPRINT);
+        index.add(2L, FINGERPRINT ^ 0b1);
+        index.add(1L, ~FINGERPRINT);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findNearest(FINGERPRINT, 3)).isEqualTo(2L);
+        assertThat(index.findNearest(~FINGERPRINT, 3)).isEqualTo(1L);
+
+        assertThat(index.remove(2L)).isTrue();
+        assertThat(index.remove(2L)).isFalse();
+        assertThat(index.findNearest(FINGERPRINT, 3)).isNull();
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
@@ -1,15 +1,26 @@
 package cn.lihengrui.todotask.service;
 
+import cn.lihengrui.todotask.crawler.CrawledPage;
+import cn.lihengrui.todotask.crawler.CrawlOptions;
+import cn.lihengrui.todotask.crawler.CrawlerEngine;
 import cn.lihengrui.todotask.entity.KnowledgeContent;
 import cn.lihengrui.todotask.repository.KnowledgeContentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +33,12 @@ public class WebScrapingServiceTest {
     @Mock
     private AIProcessingService aiProcessingService;
 
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
+    @Mock
+    private CrawlerEngine crawlerEngine;
+
     @InjectMocks
     private WebScrapingService webScrapingService;
 
@@ -46,4 +63,52 @@ public class WebScrapingServiceTest {
         // Test passes if the method executes without system errors
         // (Network failures are acceptable in unit test environment)
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAcquireWebData_ShouldStoreDiscoveredPagesOnly() {
+        String paragraph1 = "虚拟线程是JDK 21正式发布的轻量级线程实现，由JVM调度，阻塞时不占用平台线程，适合IO密集型任务。";
+        String paragraph2 = "在Spring Boot中，可以为定时采集任务创建每任务一个虚拟线程的执行器，网络等待期间载体线程可以执行其他任务。";
+        CrawledPage seed = page("https://www.cnblogs.com/", 0, "首页", "<p>文章列表</p>");
+        CrawledPage article = page("https://www.cnblogs.com/dev/p/1", 1, "虚拟线程实践",
+                "<div class=\"nav\"><a href=\"/\">首页</a><a href=\"/news\">新闻</a></div>"
+                        + "<div id=\"cnblogs_post_body\"><p>" + paragraph1 + "</p><p>" + paragraph2 + "</p></div>"
+                        + "<div class=\"footer\">版权所有，未经许可不得转载本站任何内容。</div>");
+        when(crawlerEngine.crawl(anyCollection(), any(CrawlOptions.class))).thenReturn(List.of(seed, article));
+        when(knowledgeContentRepository.retainNewBySourceUrl(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(aiProcessingService.batchProcessContents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(nearDuplicateService.insertDeduplicated(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        webScrapingService.acquireWebData();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KnowledgeContent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(nearDuplicateService).insertDeduplicated(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(content -> {
+            assertThat(content.getTitle()).isEqualTo("虚拟线程实践");
+            assertThat(content.getContent()).isEqualTo(paragraph1 + "\n" + paragraph2);
+            assertThat(content.getSourceUrl()).isEqualTo("https://www.cnblogs.com/dev/p/1");
+            assertThat(content.getContentType()).isEqualTo("Web");
+        });
+        verify(crawlerEngine).markCrawled(List.of(article));
+    }
+
+    @Test
+    void testAcquireWebData_WhenInsertFails_ShouldNotMarkPagesCrawled() {
+        CrawledPage article = page("https://www.cnblogs.com/dev/p/2", 1, "文章",
+                "<div id=\"cnblogs_post_body\"><p>正文内容足够长，可以被正文提取器识别为文章主体部分。</p></div>");
+        when(crawlerEngine.crawl(anyCollection(), any(CrawlOptions.class))).thenReturn(List.of(article));
+        when(knowledgeContentRepository.retainNewBySourceUrl(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(aiProcessingService.batchProcessContents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(nearDuplicateService.insertDeduplicated(anyList())).thenThrow(new RuntimeException("数据库不可用"));
+
+        webScrapingService.acquireWebData();
+
+        verify(crawlerEngine, never()).markCrawled(any());
+    }
+
+    private CrawledPage page(String url, int depth, String title, String body) {
+        byte[] html = ("<html><head><title>" + title + "</title></head><body>" + body + "</body></html>")
+                .getBytes(StandardCharsets.UTF_8);
+        return new CrawledPage(url, depth, 200, "text/html; charset=UTF-8", "UTF-8", html);
+    }
+}